@@ -0,0 +1,213 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.fortress.core.AccessMgr;
+import org.apache.directory.fortress.core.AccessMgrFactory;
+import org.apache.directory.fortress.core.AdminMgr;
+import org.apache.directory.fortress.core.AdminMgrFactory;
+import org.apache.directory.fortress.core.DelAdminMgr;
+import org.apache.directory.fortress.core.DelAdminMgrFactory;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.model.OrgUnit;
+import org.apache.directory.fortress.core.model.PermObj;
+import org.apache.directory.fortress.core.model.Permission;
+import org.apache.directory.fortress.core.model.Role;
+import org.apache.directory.fortress.core.model.SDSet;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.time.TUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * End-to-end benchmarks of the authorization hot paths, run against an {@link EmbeddedLdapServer}.  Each trial starts a
+ * fresh server and loads a data set shaped by the parameters:
+ * <ul>
+ *   <li>roleCount roles arranged in chains of the given depth, see {@link BenchmarkData}</li>
+ *   <li>one user assigned the leaf role of every chain</li>
+ *   <li>one permission granted to the root role of the first chain, so checkAccess must walk the whole chain</li>
+ *   <li>sodSets DSD sets, each holding one of the user's roles, and sodSets SSD sets, none of which the user violates</li>
+ * </ul>
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessMgrBenchmark
+{
+    private static final String USER_OU = "BENCH_USR_OU";
+    private static final String PERM_OU = "BENCH_PRM_OU";
+    private static final String USER_ID = "BENCH_USER";
+    private static final String OBJ_NAME = "BENCH_OBJ";
+    private static final String OP_NAME = "read";
+    private static final String SSD_CANDIDATE = "BENCH_SSD_CANDIDATE";
+    private static final String PASSWORD = "secret";
+
+    @Param({ "1", "4", "16" })
+    public int depth;
+
+    @Param({ "32", "256" })
+    public int roleCount;
+
+    @Param({ "8", "64" })
+    public int sodSets;
+
+    private EmbeddedLdapServer server;
+    private AccessMgr accessMgr;
+    private Session session;
+    private User user;
+    private Permission permission;
+    private Role ssdCandidate;
+    private DSDChecker dsdChecker;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception
+    {
+        server = EmbeddedLdapServer.start();
+        DelAdminMgr delAdminMgr = DelAdminMgrFactory.createInstance();
+        delAdminMgr.add( new OrgUnit( USER_OU, OrgUnit.Type.USER ) );
+        delAdminMgr.add( new OrgUnit( PERM_OU, OrgUnit.Type.PERM ) );
+
+        AdminMgr adminMgr = AdminMgrFactory.createInstance();
+        for ( int i = 0; i < roleCount; i++ )
+        {
+            adminMgr.addRole( new Role( BenchmarkData.getRoleName( i ) ) );
+            int parent = BenchmarkData.getParent( i, depth );
+            if ( parent >= 0 )
+            {
+                adminMgr.addInheritance( new Role( BenchmarkData.getRoleName( parent ) ),
+                    new Role( BenchmarkData.getRoleName( i ) ) );
+            }
+        }
+
+        user = new User( USER_ID, PASSWORD );
+        user.setOu( USER_OU );
+        adminMgr.addUser( user );
+        List<String> leaves = BenchmarkData.getLeafRoles( roleCount, depth );
+        for ( String leaf : leaves )
+        {
+            adminMgr.assignUser( new UserRole( USER_ID, leaf ) );
+        }
+
+        adminMgr.addPermObj( new PermObj( OBJ_NAME, PERM_OU ) );
+        permission = new Permission( OBJ_NAME, OP_NAME );
+        adminMgr.addPermission( permission );
+        adminMgr.grantPermission( permission, new Role( BenchmarkData.getRoleName( 0 ) ) );
+
+        ssdCandidate = adminMgr.addRole( new Role( SSD_CANDIDATE ) );
+        for ( int i = 0; i < sodSets; i++ )
+        {
+            String dsdRole = adminMgr.addRole( new Role( "BENCH_DSD_" + i ) ).getName();
+            adminMgr.createDsdSet( getSet( "BENCH_DSD_SET_" + i, leaves.get( i % leaves.size() ), dsdRole ) );
+            String ssdRole = adminMgr.addRole( new Role( "BENCH_SSD_" + i ) ).getName();
+            adminMgr.createSsdSet( getSet( "BENCH_SSD_SET_" + i, SSD_CANDIDATE, ssdRole ) );
+        }
+
+        accessMgr = AccessMgrFactory.createInstance();
+        session = accessMgr.createSession( new User( USER_ID ), true );
+        dsdChecker = new DSDChecker();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        server.stop();
+    }
+
+
+    private static SDSet getSet( String name, String role1, String role2 )
+    {
+        SDSet sdSet = new SDSet();
+        sdSet.setName( name );
+        sdSet.setCardinality( 2 );
+        sdSet.addMember( role1 );
+        sdSet.addMember( role2 );
+        return sdSet;
+    }
+
+
+    /**
+     * Checks the user's password with a simple bind.  Compare runs with and without {@code enable.ldap.bind.pool} set
+     * in the fortress.properties.
+     */
+    @Benchmark
+    public Session authenticate() throws SecurityException
+    {
+        return accessMgr.authenticate( USER_ID, PASSWORD );
+    }
+
+
+    @Benchmark
+    public boolean checkAccess() throws SecurityException
+    {
+        return accessMgr.checkAccess( session, permission );
+    }
+
+
+    /**
+     * Uses the list variant so the result is not served from the memo held on the session.
+     */
+    @Benchmark
+    public Set<String> inheritedRoles()
+    {
+        return RoleUtil.getInstance().getInheritedRoles( session.getRoles(), session.getContextId() );
+    }
+
+
+    @Benchmark
+    public int dsdValidate() throws SecurityException
+    {
+        return dsdChecker.validate( session, session.getRoles().get( 0 ), TUtil.getCurrentTime(),
+            VUtil.ConstraintType.ROLE );
+    }
+
+
+    @Benchmark
+    public void ssdValidate() throws SecurityException
+    {
+        SDUtil.getInstance().validateSSD( user, ssdCandidate );
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.fortress.core.model.Hier;
+
+
+/**
+ * Generates the role hierarchy shape shared by the benchmarks.  Roles are numbered from zero and laid out in chains of
+ * the given depth.  The first role of each chain is its root, every other role inherits from the role before it, so
+ * the last role of a chain, its leaf, inherits every role in the chain.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class BenchmarkData
+{
+    static final String ROLE_PREFIX = "BENCH_ROLE_";
+
+
+    private BenchmarkData()
+    {
+    }
+
+
+    /**
+     * @param index of the role.
+     * @return name of the role, upper case as stored in the hierarchy graphs.
+     */
+    static String getRoleName( int index )
+    {
+        return ROLE_PREFIX + index;
+    }
+
+
+    /**
+     * @param index of the role.
+     * @param depth of the chains.
+     * @return index of the role's parent, or -1 if it is the root of its chain.
+     */
+    static int getParent( int index, int depth )
+    {
+        return index % depth == 0 ? -1 : index - 1;
+    }
+
+
+    /**
+     * @param roleCount total number of roles.
+     * @param depth     of the chains.
+     * @return names of the leaf role of every chain.
+     */
+    static List<String> getLeafRoles( int roleCount, int depth )
+    {
+        List<String> leaves = new ArrayList<>();
+        for ( int i = 0; i < roleCount; i++ )
+        {
+            if ( i % depth == depth - 1 || i == roleCount - 1 )
+            {
+                leaves.add( getRoleName( i ) );
+            }
+        }
+        return leaves;
+    }
+
+
+    /**
+     * @param roleCount total number of roles.
+     * @param depth     of the chains.
+     * @return hierarchy containing one relationship for every role that isn't the root of its chain.
+     */
+    static Hier getHier( int roleCount, int depth )
+    {
+        Hier hier = new Hier( Hier.Type.ROLE );
+        for ( int i = 0; i < roleCount; i++ )
+        {
+            int parent = getParent( i, depth );
+            if ( parent >= 0 )
+            {
+                hier.setRelationship( getRoleName( i ), getRoleName( parent ) );
+            }
+        }
+        return hier;
+    }
+}
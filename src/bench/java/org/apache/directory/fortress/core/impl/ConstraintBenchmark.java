@@ -0,0 +1,122 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.model.ConstraintUtil;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.VUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Benchmarks the temporal constraint handling done for every role activated into a session: parsing the raw ldap
+ * format with {@link ConstraintUtil#setConstraint(String, org.apache.directory.fortress.core.model.Constraint)} and
+ * checking it with {@link VUtil#validateConstraints}.  The constraints always pass so no role is removed from the
+ * session.  The {@link EmbeddedLdapServer} is started only because the fortress configuration is read from it.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstraintBenchmark
+{
+    @Param({ "1", "16", "256" })
+    public int roleCount;
+
+    private EmbeddedLdapServer server;
+    private Session session;
+    private List<String> rawConstraints;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception
+    {
+        server = EmbeddedLdapServer.start();
+        session = new Session( new User( "BENCH_USER" ) );
+        rawConstraints = new ArrayList<>();
+        for ( int i = 0; i < roleCount; i++ )
+        {
+            UserRole role = new UserRole( "BENCH_USER", BenchmarkData.getRoleName( i ) );
+            role.setTimeout( 0 );
+            role.setBeginTime( "0000" );
+            role.setEndTime( "0000" );
+            role.setBeginDate( "20000101" );
+            role.setEndDate( "21001231" );
+            role.setBeginLockDate( "20000101" );
+            role.setEndLockDate( "20000102" );
+            role.setDayMask( "1234567" );
+            session.setRole( role );
+            rawConstraints.add( ConstraintUtil.setConstraint( role ) );
+        }
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        server.stop();
+    }
+
+
+    @Benchmark
+    public List<UserRole> parseConstraints()
+    {
+        List<UserRole> roles = new ArrayList<>( rawConstraints.size() );
+        for ( String raw : rawConstraints )
+        {
+            UserRole role = new UserRole();
+            ConstraintUtil.setConstraint( raw, role );
+            roles.add( role );
+        }
+        return roles;
+    }
+
+
+    @Benchmark
+    public Session validateConstraints() throws SecurityException
+    {
+        VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.ROLE, false );
+        return session;
+    }
+}
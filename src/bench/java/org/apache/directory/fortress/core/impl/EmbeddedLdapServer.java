@@ -0,0 +1,91 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import org.apache.directory.server.annotations.CreateLdapServer;
+import org.apache.directory.server.annotations.CreateTransport;
+import org.apache.directory.server.core.annotations.ApplyLdifFiles;
+import org.apache.directory.server.core.annotations.CreateDS;
+import org.apache.directory.server.core.annotations.CreatePartition;
+import org.apache.directory.server.core.api.DirectoryService;
+import org.apache.directory.server.core.factory.DSAnnotationProcessor;
+import org.apache.directory.server.factory.ServerAnnotationProcessor;
+import org.apache.directory.server.ldap.LdapServer;
+import org.junit.runner.Description;
+
+
+/**
+ * Starts the same embedded ApacheDS server used by
+ * {@link org.apache.directory.fortress.core.impl.apacheds.FortressJUnitApachedsTest}, outside of a JUnit runner, so
+ * the end-to-end benchmarks can load their data set and call the fortress APIs against it.  It listens on port 10389,
+ * which matches the host and port in the test fortress.properties.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@CreateDS(name = "benchDS", partitions =
+    { @CreatePartition(name = "example", suffix = "dc=example,dc=com") })
+@CreateLdapServer(
+    transports =
+        {
+            @CreateTransport(protocol = "LDAP", port = 10389)
+    })
+@ApplyLdifFiles(
+    { "fortress-schema.ldif", "init-ldap.ldif" })
+final class EmbeddedLdapServer
+{
+    private final DirectoryService directoryService;
+    private final LdapServer ldapServer;
+
+
+    private EmbeddedLdapServer( DirectoryService directoryService, LdapServer ldapServer )
+    {
+        this.directoryService = directoryService;
+        this.ldapServer = ldapServer;
+    }
+
+
+    /**
+     * Create the directory service, load the fortress schema and base DIT and start listening.
+     *
+     * @return the running server.
+     * @throws Exception if the server could not be started.
+     */
+    static EmbeddedLdapServer start() throws Exception
+    {
+        Description description = Description.createSuiteDescription( EmbeddedLdapServer.class );
+        DirectoryService service = DSAnnotationProcessor.getDirectoryService( description );
+        DSAnnotationProcessor.applyLdifs( description, service );
+        LdapServer server = ServerAnnotationProcessor.createLdapServer( description, service );
+        return new EmbeddedLdapServer( service, server );
+    }
+
+
+    /**
+     * Stop listening and shut down the directory service.
+     *
+     * @throws Exception if the directory service could not be shut down cleanly.
+     */
+    void stop() throws Exception
+    {
+        ldapServer.stop();
+        directoryService.shutdown();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.fortress.core.model.Hier;
+import org.apache.directory.fortress.core.model.Relationship;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Benchmarks the in-memory role hierarchy traversals.  The {@link HierUtil} methods walk the graph on every call,
+ * the {@link HierClosure} methods answer from the precomputed closure used by {@link RoleUtil} and the other
+ * hierarchy utilities.  Each is run against both {@link HierGraph} engines.  No directory is needed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HierBenchmark
+{
+    @Param({ "2", "8", "32" })
+    public int depth;
+
+    @Param({ "64", "512", "4096" })
+    public int roleCount;
+
+    @Param({ "csr", "jgrapht" })
+    public String engine;
+
+    private HierGraph graph;
+    private HierClosure closure;
+    private List<String> leaves;
+    private String leaf;
+    private String root;
+
+
+    @Setup
+    public void setup()
+    {
+        Hier hier = BenchmarkData.getHier( roleCount, depth );
+        graph = "jgrapht".equals( engine ) ? new JGraphHierGraph( HierUtil.buildGraph( hier ) ) : CsrHierGraph.build( hier );
+        closure = HierClosure.build( graph );
+        leaves = BenchmarkData.getLeafRoles( roleCount, depth );
+        leaf = leaves.get( 0 );
+        root = BenchmarkData.getRoleName( 0 );
+    }
+
+
+    @Benchmark
+    public Set<String> hierUtilAscendants()
+    {
+        return HierUtil.getAscendants( leaf, graph );
+    }
+
+
+    @Benchmark
+    public Set<String> hierUtilDescendants()
+    {
+        return HierUtil.getDescendants( root, graph );
+    }
+
+
+    /**
+     * The copy made by {@link HierUtil#updateHier} when an edge is added.
+     */
+    @Benchmark
+    public HierGraph addEdge()
+    {
+        return graph.addEdge( new Relationship( leaf, "NEW_PARENT" ) );
+    }
+
+
+    @Benchmark
+    public HierClosure closureBuild()
+    {
+        return HierClosure.build( graph );
+    }
+
+
+    @Benchmark
+    public Set<String> closureAscendants()
+    {
+        return closure.getAscendants( leaf );
+    }
+
+
+    /**
+     * Expands every leaf role, the work done by {@link RoleUtil#getInheritedRoles} for a user activated in all of them.
+     */
+    @Benchmark
+    public Set<String> closureInherited()
+    {
+        return closure.getInherited( leaves );
+    }
+}
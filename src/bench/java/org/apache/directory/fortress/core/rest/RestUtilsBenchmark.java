@@ -0,0 +1,103 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.rest;
+
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+
+import org.apache.directory.fortress.core.RestException;
+import org.apache.directory.fortress.core.model.FortRequest;
+import org.apache.directory.fortress.core.model.FortResponse;
+import org.apache.directory.fortress.core.model.Permission;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Benchmarks the JAXB marshalling done on every call made through the REST managers, i.e. {@link AccessMgrRestImpl}.
+ * The request carries a checkAccess permission and a session holding roleCount roles, the response carries the same
+ * session.  No server is needed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestUtilsBenchmark
+{
+    @Param({ "1", "16", "256" })
+    public int roleCount;
+
+    private FortRequest request;
+    private String szResponse;
+
+
+    @Setup
+    public void setup() throws Exception
+    {
+        Session session = new Session( new User( "BENCH_USER" ) );
+        for ( int i = 0; i < roleCount; i++ )
+        {
+            session.setRole( new UserRole( "BENCH_USER", "BENCH_ROLE_" + i ) );
+        }
+        request = new FortRequest();
+        request.setSession( session );
+        request.setEntity( new Permission( "BENCH_OBJ", "read" ) );
+
+        FortResponse response = new FortResponse();
+        response.setSession( session );
+        response.setAuthorized( Boolean.TRUE );
+        StringWriter writer = new StringWriter();
+        JAXBContext.newInstance( FortResponse.class ).createMarshaller().marshal( response, writer );
+        szResponse = writer.toString();
+    }
+
+
+    @Benchmark
+    public String marshal() throws RestException
+    {
+        return RestUtils.marshal( request );
+    }
+
+
+    @Benchmark
+    public FortResponse unmarshall() throws RestException
+    {
+        return RestUtils.unmarshall( szResponse );
+    }
+}
@@ -224,6 +224,25 @@ public interface AccelMgr extends Manageable
         throws SecurityException;
 
 
+    /**
+     * Perform user RBAC authorization on a list of permissions.  This function returns a Boolean value for each permission
+     * meaning whether the subject of a given session is allowed or not to perform the given operation on the given object.
+     * The rules are those of {@link #checkAccess(Session, Permission)}, but the permissions are evaluated together so that a
+     * caller with many checks to make, i.e. rendering a menu, makes one round trip rather than one per permission.
+     * A permission that does not exist is not an error, its decision is false.
+     *
+     * @param session This object must be instantiated by calling {@link AccelMgr#createSession} method before passing
+     * into the method.  No variables need to be set by client after returned from createSession.
+     * @param perms   each must contain the object, {@link Permission#objName}, and operation, {@link Permission#opName}, of
+     * permission User is trying to access.
+     * @return List of decisions in the same order as the permissions, true if user has access, false otherwise.
+     * @throws SecurityException
+     *          in the event of data validation failure, security policy violation or DAO error.
+     */
+    List<Boolean> checkAccess( Session session, List<Permission> perms )
+        throws SecurityException;
+
+
     /**
      * This function returns the permissions of the session, i.e., the permissions assigned
      * to its authorized roles. The function is valid if and only if the session is a valid Fortress session.
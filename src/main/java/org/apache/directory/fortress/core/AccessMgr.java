@@ -273,6 +273,25 @@ public interface AccessMgr extends Manageable
         throws SecurityException;
 
 
+    /**
+     * Perform user RBAC authorization on a list of permissions.  This function returns a Boolean value for each permission
+     * meaning whether the subject of a given session is allowed or not to perform the given operation on the given object.
+     * The rules are those of {@link #checkAccess(Session, Permission)}, but the permissions are evaluated together so that a
+     * caller with many checks to make, i.e. rendering a menu, makes one round trip rather than one per permission.
+     * A permission that does not exist is not an error, its decision is false.
+     *
+     * @param session This object must be instantiated by calling {@link AccessMgr#createSession} method before passing
+     * into the method.  No variables need to be set by client after returned from createSession.
+     * @param perms   each must contain the object, {@link Permission#objName}, and operation, {@link Permission#opName}, of
+     * permission User is trying to access.
+     * @return List of decisions in the same order as the permissions, true if user has access, false otherwise.
+     * @throws SecurityException
+     *          in the event of data validation failure, security policy violation or DAO error.
+     */
+    List<Boolean> checkAccess( Session session, List<Permission> perms )
+        throws SecurityException;
+
+
     /**
      * This function returns the permissions of the session, i.e., the permissions assigned
      * to its authorized roles. The function is valid if and only if the session is a valid Fortress session.
@@ -414,4 +433,75 @@ public interface AccessMgr extends Manageable
      */
     User getUser( Session session )
         throws SecurityException;
+
+
+    /**
+     * Create a session, as {@link #createSession(User, boolean)} does, and keep it in the server's
+     * {@link org.apache.directory.fortress.core.util.cache.SessionStore}.  The caller holds only the id returned, which it
+     * passes to the other session id methods, and does not send the session with each call.
+     *
+     * @param user      Contains {@link User#userId}, {@link org.apache.directory.fortress.core.model.User#password}
+     * (optional if {@code isTrusted} is 'true'), optional {@link User#roles}, optional
+     * {@link org.apache.directory.fortress.core.model.User#adminRoles}
+     * @param isTrusted if true password is not required.
+     * @return String containing {@link Session#getSessionId()}.
+     * @throws SecurityException
+     *          in the event of data validation failure, security policy violation or DAO error.
+     */
+    String createSessionId( User user, boolean isTrusted )
+        throws SecurityException;
+
+
+    /**
+     * Return a copy of a session kept by {@link #createSessionId(User, boolean)}.  It holds the user's id, ou and
+     * constraints and the roles activated but not the user's other attributes.
+     *
+     * @param sessionId as returned by {@link #createSessionId(User, boolean)}.
+     * @return Session read from the store.
+     * @throws SecurityException with {@link org.apache.directory.fortress.core.GlobalErrIds#USER_SESS_NOT_FOUND} if the
+     * session has been deleted or evicted from the store.
+     */
+    Session getSession( String sessionId )
+        throws SecurityException;
+
+
+    /**
+     * Perform user RBAC authorization, as {@link #checkAccess(Session, Permission)} does, for a session kept by
+     * {@link #createSessionId(User, boolean)}.  Roles deactivated by their constraints are removed from the stored session.
+     *
+     * @param sessionId as returned by {@link #createSessionId(User, boolean)}.
+     * @param perm      must contain the object, {@link Permission#objName}, and operation, {@link Permission#opName}, of
+     * permission User is trying to access.
+     * @return True if user has access, false otherwise.
+     * @throws SecurityException
+     *          in the event of data validation failure, security policy violation, session not found or DAO error.
+     */
+    boolean checkAccess( String sessionId, Permission perm )
+        throws SecurityException;
+
+
+    /**
+     * Perform user RBAC authorization on a list of permissions, as {@link #checkAccess(Session, List)} does, for a session
+     * kept by {@link #createSessionId(User, boolean)}.
+     *
+     * @param sessionId as returned by {@link #createSessionId(User, boolean)}.
+     * @param perms     each must contain the object, {@link Permission#objName}, and operation, {@link Permission#opName},
+     * of permission User is trying to access.
+     * @return List of decisions in the same order as the permissions, true if user has access, false otherwise.
+     * @throws SecurityException
+     *          in the event of data validation failure, security policy violation, session not found or DAO error.
+     */
+    List<Boolean> checkAccess( String sessionId, List<Permission> perms )
+        throws SecurityException;
+
+
+    /**
+     * Remove a session kept by {@link #createSessionId(User, boolean)} from the store.  Removing a session that is not
+     * found is not an error.
+     *
+     * @param sessionId as returned by {@link #createSessionId(User, boolean)}.
+     * @throws SecurityException in the event of data validation failure.
+     */
+    void deleteSession( String sessionId )
+        throws SecurityException;
 }
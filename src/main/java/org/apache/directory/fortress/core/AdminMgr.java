@@ -20,6 +20,8 @@
 package org.apache.directory.fortress.core;
 
 
+import java.util.List;
+
 import org.apache.directory.fortress.core.model.PermObj;
 import org.apache.directory.fortress.core.model.Permission;
 import org.apache.directory.fortress.core.model.PermissionAttribute;
@@ -450,6 +452,36 @@ public interface AdminMgr extends Manageable
     void assignUser( UserRole uRole )
         throws SecurityException;
 
+
+    /**
+     * This command assigns a batch of users to roles.  Each assignment is valid under the same conditions as
+     * {@link #assignUser(UserRole)}, and SSD constraints are checked against the earlier assignments of the batch as well
+     * as those already stored.
+     * <p>
+     * An assignment repeated in the batch is made once.  When running in ldap mode every assignment is validated before
+     * any is written, so an assignment that already exists or a user that is not found fails the batch with nothing
+     * changed.  The assignments of one user are then written with a single update of the user entity, and if role
+     * occupants are enabled, the occupants of one role with a single update of the role entity.  If a write fails the
+     * assignments written before it are kept.  In REST mode each assignment is made in turn, as by
+     * {@link #assignUser(UserRole)}, and one that fails leaves those before it written.
+     * <h3></h3>
+     * <h4>required parameters</h4>
+     * <ul>
+     *   <li>{@link UserRole#name} - contains the name for already existing Role to be assigned</li>
+     *   <li>{@link UserRole#userId} - contains the userId for existing User</li>
+     * </ul>
+     * <h4>optional parameters</h4>
+     * <ul>
+     *   <li>The temporal constraints listed on {@link #assignUser(UserRole)}</li>
+     * </ul>
+     *
+     * @param uRoles contains the assignments, each must contain {@link UserRole#userId} and {@link UserRole#name} and
+     * optional {@code Constraints}.
+     * @throws SecurityException in the event of validation or system error.
+     */
+    void assignUsers( List<UserRole> uRoles )
+        throws SecurityException;
+
     /**
      * This method adds a roleConstraint (ftRC) to the user ldap entry. (ftRC=ROLE_NAME$type$CONSTRAINT_TYPE$CONSTRAINT_PASETNAME$CONSTRAINT_VALUE)
      * <h4>required parameters</h4>
@@ -151,6 +151,31 @@ public interface AuditMgr extends Manageable
         throws SecurityException;
 
 
+    /**
+     * Streaming variant of {@link #searchAuthZs(UserAudit)}.  Matching authorization events are read a page at a time,
+     * using the ldap paged results control, and passed to the handler as they arrive.  The result set is not held in
+     * memory and is not truncated.
+     * <h3></h3>
+     * <h4>required parameters</h4>
+     * <ul>
+     *   <li>{@link UserAudit#userId} - contains the target userId</li>
+     *   <li>{@link UserAudit#objName} - contains the object (authorization resource) name</li>
+     * </ul>
+     * <h4>optional parameters</h4>
+     * <ul>
+     *   <li>{@link UserAudit#beginDate} - contains the date in which to begin search</li>
+     *   <li>{@link UserAudit#failedOnly} - if set to 'true', return only failed authorization events</li>
+     * </ul>
+     *
+     * @param uAudit  This entity is instantiated and populated before invocation.
+     * @param handler is called once for each authorization event found.  Return false to stop the search.
+     * @return number of events passed to the handler.
+     * @throws SecurityException if a runtime system error occurs or thrown by the handler.
+     */
+    long searchAuthZs( UserAudit uAudit, SearchHandler<AuthZ> handler )
+        throws SecurityException;
+
+
     /**
      * This method returns a list of authentication audit events for a particular user 
      * {@link org.apache.directory.fortress.core.model.UserAudit#userId},
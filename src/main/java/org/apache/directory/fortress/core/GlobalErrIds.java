@@ -186,6 +186,21 @@ public final class GlobalErrIds
      */
     public static final int FT_CONFIG_JSSE_TRUSTSTORE_NULL = 136;
 
+    /**
+     * The authorization audit sink could not be initialized.
+     */
+    public static final int FT_AUDIT_SINK_INIT_FAILED = 137;
+
+    /**
+     * The authorization audit sink could not write a batch of events.
+     */
+    public static final int FT_AUDIT_SINK_WRITE_FAILED = 138;
+
+    /**
+     * The search handler passed to a streaming finder was null.
+     */
+    public static final int FT_SEARCH_HANDLER_NULL = 139;
+
     /**
      * 1000's - User Entity Rule and LDAP Errors
      */
@@ -386,6 +401,11 @@ public final class GlobalErrIds
      */
     public static final int USER_ADD_FAILED_ALREADY_EXISTS = 1038;
 
+    /**
+     * The User Session was not found in the session store, it has been deleted or evicted.
+     */
+    public static final int USER_SESS_NOT_FOUND = 1039;
+
     /**
      * 2000's User-Role assignments
      */
@@ -112,6 +112,11 @@ public final class GlobalIds
      * When this optional tag, {@code propertyImplementation}, is placed in Fortress properties, its class name will be the default {@link PropertyMgr} instance used.
      */
     public static final String PROPERTY_IMPLEMENTATION = "propertymgr.implementation";
+
+    /**
+     * When this optional tag, {@code session.store.implementation}, is placed in Fortress properties, its class name will be the {@link org.apache.directory.fortress.core.util.cache.SessionStore} used to hold the sessions created by {@link AccessMgr#createSessionId}.
+     */
+    public static final String SESSION_STORE_IMPLEMENTATION = "session.store.implementation";
     
     // AUTHENTICATION_TYPE
     /**
@@ -146,6 +146,26 @@ public interface ReviewMgr extends Manageable
     List<Permission> findPermissions( Permission permission )
         throws SecurityException;
 
+
+    /**
+     * Streaming variant of {@link #findPermissions(Permission)}.  Matching permissions are read a page at a time, using
+     * the ldap paged results control, and passed to the handler as they arrive.  The result set is not held in memory
+     * and is not truncated.
+     * <h3></h3>
+     * <h4>optional parameters</h4>
+     * <ul>
+     *   <li>{@link Permission#objName} - contains one or more characters of existing object being targeted</li>
+     *   <li>{@link Permission#opName} - contains one or more characters of existing permission operation</li>
+     * </ul>
+     *
+     * @param permission contains object and operation name search strings.
+     * @param handler    is called once for each permission found.  Return false to stop the search.
+     * @return number of permissions passed to the handler.
+     * @throws SecurityException thrown in the event of system error or by the handler.
+     */
+    long findPermissions( Permission permission, SearchHandler<Permission> handler )
+        throws SecurityException;
+
     /**
      * Method returns Permission operations for the provided permission object
      * 
@@ -280,6 +300,25 @@ public interface ReviewMgr extends Manageable
         throws SecurityException;
 
 
+    /**
+     * Streaming variant of {@link #findUsers(User)}.  Matching users are read a page at a time, using the ldap paged
+     * results control, and passed to the handler as they arrive.  The result set is not held in memory and is not
+     * truncated, which allows reports to be run over very large directories.
+     * <h3></h3>
+     * <h4>optional parameters</h4>
+     * <ul>
+     *   <li>{@link User#userId} - contains all or some leading chars that match userId(s) stored in the directory.</li>
+     * </ul>
+     *
+     * @param user    contains all or some leading chars that match userIds stored in the directory.
+     * @param handler is called once for each user found.  Return false to stop the search.
+     * @return number of users passed to the handler.
+     * @throws SecurityException In the event of system error or thrown by the handler.
+     */
+    long findUsers( User user, SearchHandler<User> handler )
+        throws SecurityException;
+
+
     /**
      * Return a list of type User of all users in the people container that match the name field passed in OrgUnit entity.
      * <h3></h3>
@@ -431,6 +470,26 @@ public interface ReviewMgr extends Manageable
         throws SecurityException;
 
 
+    /**
+     * Streaming variant of {@link #authorizedUsers(Role)} that returns only the userIds.  Each user assigned to the role,
+     * or to a role that inherits it, is passed to the handler once.  If {@code enable.user.role.index} is set, the ids are
+     * read from an index of role assignments held in memory, otherwise a page at a time from ldap.  The result set is not
+     * held in memory and is not truncated.
+     * <h3></h3>
+     * <h4>required parameters</h4>
+     * <ul>
+     *   <li>{@link Role#name} - contains the name to use for the Role targeted for search.</li>
+     * </ul>
+     *
+     * @param role    Contains role name, {@link Role#name} of Role entity assigned to User.
+     * @param handler is called once for each userId found.  Return false to stop the search.
+     * @return number of userIds passed to the handler.
+     * @throws SecurityException In the event of system error or thrown by the handler.
+     */
+    long authorizedUsers( Role role, SearchHandler<String> handler )
+        throws SecurityException;
+
+
     /**
      * This function returns the set of roles authorized for a given user. The function is valid if
      * and only if the user is a member of the USERS data set.
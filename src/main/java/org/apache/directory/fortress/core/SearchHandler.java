@@ -0,0 +1,41 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core;
+
+
+/**
+ * Callback used by the streaming finders, i.e. {@link ReviewMgr#findUsers(org.apache.directory.fortress.core.model.User, SearchHandler)},
+ * to hand each entity to the caller as soon as it has been read from the directory.  The finders pull results from the
+ * server a page at a time so large result sets may be processed in constant memory and are not truncated.
+ *
+ * @param <T> type of entity returned by the search.
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface SearchHandler<T>
+{
+    /**
+     * Process a single entity returned from the search.
+     *
+     * @param entity contains the entity read from the directory.
+     * @return true to continue the search, false to stop it.  Stopping abandons the remaining pages on the server.
+     * @throws SecurityException thrown by the implementer, will stop the search and be returned to the finder's caller.
+     */
+    boolean handle( T entity ) throws SecurityException;
+}
@@ -0,0 +1,56 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core;
+
+
+import java.util.List;
+
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.UserRole;
+
+
+/**
+ * Callback used by {@link org.apache.directory.fortress.core.util.time.SessionMonitor} to tell the application that the
+ * temporal constraints of a session it monitors no longer hold.  Methods are called from the monitor's thread and should
+ * return quickly.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface SessionListener
+{
+    /**
+     * Roles, or admin roles, have been deactivated because a time, date, day, lock date or timeout constraint on them no
+     * longer holds.  They have already been removed from the session and a warning added for each.
+     *
+     * @param session contains the remaining activated roles.
+     * @param roles   contains the roles that were removed.
+     */
+    void rolesDeactivated( Session session, List<UserRole> roles );
+
+
+    /**
+     * The constraints on the session's user no longer hold.  The session should not be used again and is no longer
+     * monitored.
+     *
+     * @param session contains the user that was deactivated.
+     * @param error   contains the reason code of the constraint that failed.
+     */
+    void sessionDeactivated( Session session, SecurityException error );
+}
@@ -21,6 +21,7 @@ package org.apache.directory.fortress.core.ant;
 
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Properties;
@@ -61,6 +62,7 @@ import org.apache.directory.fortress.core.model.Suffix;
 import org.apache.directory.fortress.core.model.User;
 import org.apache.directory.fortress.core.model.UserAdminRole;
 import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.BulkLoader;
 import org.apache.directory.fortress.core.util.ClassUtil;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.Testable;
@@ -254,6 +256,12 @@ import org.slf4j.LoggerFactory;
  *     org.apache.directory.fortress.core.model.UserRole)}
  *   </li>
  * </ol>
+ * <h3>Parallel Loading</h3>
+ * Users, user role and admin role assignments, permission objects, operations and grants are applied by a
+ * {@link BulkLoader}, with as many threads as the parallelism attribute of the task or the
+ * {@code bulk.load.parallelism} property, default 1.  Each step above completes before the next begins, and the
+ * entries of one user, or of one permission object, are applied in the order of the xml.  Hierarchies, ous,
+ * containers and configuration are always applied by a single thread.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -311,6 +319,8 @@ public class FortressAntTask extends Task implements InputHandler
     private DelAdminMgr dAdminMgr = null;
     private PwPolicyMgr policyMgr = null;
     private GroupMgr groupMgr = null;
+    private BulkLoader bulkLoader = null;
+    private int parallelism = 0;
     private static final String CLS_NM = FortressAntTask.class.getName();
     protected static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
     private Context context;
@@ -389,6 +399,50 @@ public class FortressAntTask extends Task implements InputHandler
         }
     }
 
+    /**
+     * Set from the parallelism attribute of the task, i.e. {@code <FortressAdmin parallelism="8">}.  Overrides the
+     * {@code bulk.load.parallelism} property.
+     *
+     * @param parallelism number of threads used to apply the users, user role assignments, permission objects,
+     * operations and grants of the xml file.
+     */
+    public void setParallelism( int parallelism )
+    {
+        this.parallelism = parallelism;
+    }
+
+
+    /**
+     * @return the loader that applies each phase, created on first use.
+     */
+    private BulkLoader getBulkLoader()
+    {
+        if ( bulkLoader == null )
+        {
+            bulkLoader = parallelism > 0 ? new BulkLoader( parallelism ) : new BulkLoader();
+        }
+        return bulkLoader;
+    }
+
+
+    /**
+     * Apply one phase with the loader.  Stops the task if the phase was interrupted, as the phases after it depend on
+     * its entities.
+     *
+     * @throws BuildException if the phase did not apply every entity.
+     */
+    private <T> void runPhase( String phase, Collection<T> entities, BulkLoader.Operation<T> operation )
+        throws BuildException
+    {
+        BulkLoader.Result result = getBulkLoader().run( phase, entities, operation );
+        if ( !result.isComplete() )
+        {
+            throw new BuildException( "phase " + phase + " interrupted with " + result.getUnapplied()
+                + " entities unapplied" );
+        }
+    }
+
+
     /**
      * Used by Apache Ant to load data from xml into entities.
      *
@@ -973,24 +1027,36 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        // Gather the entityclass elements into one phase
+        List<UserAnt> users = new ArrayList<>();
         for ( Adduser adduser : addusers )
         {
-            List<UserAnt> users = adduser.getUsers();
-            for ( UserAnt user : users )
+            users.addAll( adduser.getUsers() );
+        }
+        runPhase( "addUsers", users, new BulkLoader.Operation<UserAnt>()
+        {
+            @Override
+            public String getKey( UserAnt user )
+            {
+                return user.getUserId();
+            }
+
+
+            @Override
+            public void apply( UserAnt user ) throws SecurityException
             {
                 LOG.info( "addUsers tenant={} userid={} description={} orgUnit={}",
                     getTenant(), user.getUserId(), user.getDescription(), user.getOu() );
-                try
-                {
-                    addUser( user );
-                }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "addUsers userId [{}] caught SecurityException={}", user.getUserId(), se );
-                }
+                addUser( user );
             }
-        }
+
+
+            @Override
+            public void failed( UserAnt user, SecurityException se )
+            {
+                LOG.warn( "addUsers userId [{}] caught SecurityException={}", user.getUserId(), se );
+            }
+        } );
     }
 
     /**
@@ -1056,23 +1122,35 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        // Gather the entityclass elements into one phase
+        List<UserAnt> users = new ArrayList<>();
         for ( Deluser deluser : delusers )
         {
-            List<UserAnt> users = deluser.getUsers();
-            for ( UserAnt user : users )
+            users.addAll( deluser.getUsers() );
+        }
+        runPhase( "deleteUsers", users, new BulkLoader.Operation<UserAnt>()
+        {
+            @Override
+            public String getKey( UserAnt user )
+            {
+                return user.getUserId();
+            }
+
+
+            @Override
+            public void apply( UserAnt user ) throws SecurityException
             {
                 LOG.info( "deleteUsers tenant={} userid={}", getTenant(), user.getUserId() );
-                try
-                {
-                    adminMgr.deleteUser( user );
-                }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "deleteUsers userId [{}] caught SecurityException={}", user.getUserId(), se );
-                }
+                adminMgr.deleteUser( user );
             }
-        }
+
+
+            @Override
+            public void failed( UserAnt user, SecurityException se )
+            {
+                LOG.warn( "deleteUsers userId [{}] caught SecurityException={}", user.getUserId(), se );
+            }
+        } );
     }
 
 
@@ -1318,24 +1396,35 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        // Gather the entityclass elements into one phase
+        List<UserRole> userroles = new ArrayList<>();
         for ( Adduserrole adduserrole : adduserroles )
         {
-            List<UserRole> userroles = adduserrole.getUserRoles();
-            for ( UserRole userRole : userroles )
+            userroles.addAll( adduserrole.getUserRoles() );
+        }
+        runPhase( "addUserRoles", userroles, new BulkLoader.Operation<UserRole>()
+        {
+            @Override
+            public String getKey( UserRole userRole )
+            {
+                return userRole.getUserId();
+            }
+
+
+            @Override
+            public void apply( UserRole userRole ) throws SecurityException
             {
                 LOG.info( "addUserRoles tenant={} userid={} role name={}", getTenant(), userRole.getUserId(), userRole.getName() );
-                try
-                {
-                    //Role role = new Role(userRole);
-                    adminMgr.assignUser( userRole );
-                }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "addUserRoles tenant={} userId={} roleName={} caught SecurityException={}", getTenant(), userRole.getUserId(), userRole.getName(), se );
-                }
+                adminMgr.assignUser( userRole );
             }
-        }
+
+
+            @Override
+            public void failed( UserRole userRole, SecurityException se )
+            {
+                LOG.warn( "addUserRoles tenant={} userId={} roleName={} caught SecurityException={}", getTenant(), userRole.getUserId(), userRole.getName(), se );
+            }
+        } );
     }
 
 
@@ -1349,23 +1438,35 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        // Gather the entityclass elements into one phase
+        List<UserRole> userroles = new ArrayList<>();
         for ( Deluserrole deluserrole : deluserroles )
         {
-            List<UserRole> userroles = deluserrole.getUserRoles();
-            for ( UserRole userRole : userroles )
+            userroles.addAll( deluserrole.getUserRoles() );
+        }
+        runPhase( "delUserRoles", userroles, new BulkLoader.Operation<UserRole>()
+        {
+            @Override
+            public String getKey( UserRole userRole )
+            {
+                return userRole.getUserId();
+            }
+
+
+            @Override
+            public void apply( UserRole userRole ) throws SecurityException
             {
                 LOG.info( "delUserRoles tenant={} userid={} role name={}", getTenant(), userRole.getUserId(), userRole.getName() );
-                try
-                {
-                    adminMgr.deassignUser( userRole );
-                }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "delUserRoles tenant={} userId={} roleName={} caught SecurityException={}", getTenant(), userRole.getUserId(), userRole.getName(), se );
-                }
+                adminMgr.deassignUser( userRole );
             }
-        }
+
+
+            @Override
+            public void failed( UserRole userRole, SecurityException se )
+            {
+                LOG.warn( "delUserRoles tenant={} userId={} roleName={} caught SecurityException={}", getTenant(), userRole.getUserId(), userRole.getName(), se );
+            }
+        } );
     }
 
 
@@ -1579,42 +1680,54 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        // Gather the entityclass elements into one phase
+        List<PermObj> permObjs = new ArrayList<>();
         for ( AddpermObj addpermObj : addpermObjs )
         {
-            List<PermObj> permObjs = addpermObj.getPermObjs();
-            for ( PermObj permObj : permObjs )
+            permObjs.addAll( addpermObj.getPermObjs() );
+        }
+        runPhase( "addPermObjs", permObjs, new BulkLoader.Operation<PermObj>()
+        {
+            @Override
+            public String getKey( PermObj permObj )
+            {
+                return permObj.getObjName();
+            }
+
+
+            @Override
+            public void apply( PermObj permObj ) throws SecurityException
             {
                 LOG.info( "addPermObjs tenant={} objName={} description={} orgUnit={} type={}",
                     getTenant(), permObj.getObjName(), permObj.getDescription(), permObj.getOu(), permObj.getType() );
                 try
                 {
-                    try
+                    adminMgr.addPermObj( permObj );
+                }
+                catch ( SecurityException se )
+                {
+                    // If Perm Object entity already there then call the udpate method.
+                    if ( se.getErrorId() == GlobalErrIds.PERM_DUPLICATE )
                     {
-                        adminMgr.addPermObj( permObj );
+                        adminMgr.updatePermObj( permObj );
+                        LOG.info( "addPermObjs tenant={} update entity objName={} description={} orgUnit={} type={}", getTenant(), permObj.getObjName(), permObj
+                            .getDescription(), permObj.getOu(), permObj.getType() );
                     }
-                    catch ( SecurityException se )
+                    else
                     {
-                        // If Perm Object entity already there then call the udpate method.
-                        if ( se.getErrorId() == GlobalErrIds.PERM_DUPLICATE )
-                        {
-                            adminMgr.updatePermObj( permObj );
-                            LOG.info( "addPermObjs tenant={} update entity objName={} description={} orgUnit={} type={}", getTenant(), permObj.getObjName(), permObj
-                                .getDescription(), permObj.getOu(), permObj.getType() );
-                        }
-                        else
-                        {
-                            throw se;
-                        }
+                        throw se;
                     }
                 }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "addPermObjs tenant={} objName [{}] caught SecurityException={}",
-                        getTenant(), permObj.getObjName(), se );
-                }
             }
-        }
+
+
+            @Override
+            public void failed( PermObj permObj, SecurityException se )
+            {
+                LOG.warn( "addPermObjs tenant={} objName [{}] caught SecurityException={}",
+                    getTenant(), permObj.getObjName(), se );
+            }
+        } );
     }
 
 
@@ -1659,41 +1772,53 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        // Gather the entityclass elements into one phase
+        List<PermAnt> permissions = new ArrayList<>();
         for ( AddpermOp addpermOp : addpermOps )
         {
-            List<PermAnt> permissions = addpermOp.getPermOps();
-            for ( PermAnt permission : permissions )
+            permissions.addAll( addpermOp.getPermOps() );
+        }
+        runPhase( "addPermOps", permissions, new BulkLoader.Operation<PermAnt>()
+        {
+            @Override
+            public String getKey( PermAnt permission )
+            {
+                return permission.getObjName();
+            }
+
+
+            @Override
+            public void apply( PermAnt permission ) throws SecurityException
             {
                 LOG.info( "addPermOps tenant={} name={} objName={}", getTenant(), permission.getOpName(), permission.getObjName() );
                 try
                 {
-                    try
+                    adminMgr.addPermission( permission );
+                }
+                catch ( SecurityException se )
+                {
+                    // If Perm Object entity already there then call the udpate method.
+                    if ( se.getErrorId() == GlobalErrIds.PERM_DUPLICATE )
                     {
-                        adminMgr.addPermission( permission );
+                        adminMgr.updatePermission( permission );
+                        LOG.info( "addPermOps tenant={} - update entity - name={} objName={}",
+                            getTenant(), permission.getOpName(), permission.getObjName() );
                     }
-                    catch ( SecurityException se )
+                    else
                     {
-                        // If Perm Object entity already there then call the udpate method.
-                        if ( se.getErrorId() == GlobalErrIds.PERM_DUPLICATE )
-                        {
-                            adminMgr.updatePermission( permission );
-                            LOG.info( "addPermOps tenant={} - update entity - name={} objName={}",
-                                getTenant(), permission.getOpName(), permission.getObjName() );
-                        }
-                        else
-                        {
-                            throw se;
-                        }
+                        throw se;
                     }
                 }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "addPermOps tenant={} name [{}] objName [{}] caught SecurityException={}",
-                        getTenant(), permission.getOpName(), permission.getObjName(), se );
-                }
             }
-        }
+
+
+            @Override
+            public void failed( PermAnt permission, SecurityException se )
+            {
+                LOG.warn( "addPermOps tenant={} name [{}] objName [{}] caught SecurityException={}",
+                    getTenant(), permission.getOpName(), permission.getObjName(), se );
+            }
+        } );
     }
 
 
@@ -1738,40 +1863,52 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        // Gather the entityclass elements into one phase
+        List<PermGrant> permGrants = new ArrayList<>();
         for ( AddpermGrant addpermGrant : addpermGrants )
         {
-            List<PermGrant> permGrants = addpermGrant.getPermGrants();
-            for ( PermGrant permGrant : permGrants )
+            permGrants.addAll( addpermGrant.getPermGrants() );
+        }
+        runPhase( "addPermGrants", permGrants, new BulkLoader.Operation<PermGrant>()
+        {
+            @Override
+            public String getKey( PermGrant permGrant )
             {
-                try
+                return permGrant.getObjName() + ":" + permGrant.getOpName();
+            }
+
+
+            @Override
+            public void apply( PermGrant permGrant ) throws SecurityException
+            {
+                Permission perm = new Permission( permGrant.getObjName(), permGrant.getOpName(),
+                    permGrant.isAdmin() );
+                perm.setOpName( permGrant.getOpName() );
+                perm.setObjId( permGrant.getObjId() );
+                if ( permGrant.getRoleNm() != null && permGrant.getRoleNm().length() > 0 )
                 {
-                    Permission perm = new Permission( permGrant.getObjName(), permGrant.getOpName(),
-                        permGrant.isAdmin() );
-                    perm.setOpName( permGrant.getOpName() );
-                    perm.setObjId( permGrant.getObjId() );
-                    if ( permGrant.getRoleNm() != null && permGrant.getRoleNm().length() > 0 )
-                    {
-                        LOG.info( "addPermGrants tenant={} roleName={} objName={} opName={} objId={}", getTenant(), permGrant.getRoleNm(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId() );
-                        adminMgr.grantPermission( perm, new Role( permGrant.getRoleNm() ) );
-                    }
-                    else if ( permGrant.getUserId() != null && permGrant.getUserId().length() > 0 )
-                    {
-                        LOG.info( "addPermGrants tenant={} userId={} objName={} opName={} objId={}", getTenant(), permGrant.getUserId(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId() );
-                        adminMgr.grantPermission( perm, new User( permGrant.getUserId() ) );
-                    }
-                    else
-                    {
-                        String warning = "addPermGrants called without user or role set in xml";
-                        LOG.warn( warning );
-                    }
+                    LOG.info( "addPermGrants tenant={} roleName={} objName={} opName={} objId={}", getTenant(), permGrant.getRoleNm(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId() );
+                    adminMgr.grantPermission( perm, new Role( permGrant.getRoleNm() ) );
                 }
-                catch ( SecurityException se )
+                else if ( permGrant.getUserId() != null && permGrant.getUserId().length() > 0 )
                 {
-                    LOG.warn( "addPermGrants tenant={} roleName={} objName={} opName={} objId={} caught SecurityException={}" , getTenant(), permGrant.getRoleNm(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId(), se );
+                    LOG.info( "addPermGrants tenant={} userId={} objName={} opName={} objId={}", getTenant(), permGrant.getUserId(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId() );
+                    adminMgr.grantPermission( perm, new User( permGrant.getUserId() ) );
+                }
+                else
+                {
+                    String warning = "addPermGrants called without user or role set in xml";
+                    LOG.warn( warning );
                 }
             }
-        }
+
+
+            @Override
+            public void failed( PermGrant permGrant, SecurityException se )
+            {
+                LOG.warn( "addPermGrants tenant={} roleName={} objName={} opName={} objId={} caught SecurityException={}" , getTenant(), permGrant.getRoleNm(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId(), se );
+            }
+        } );
     }
 
 
@@ -1785,40 +1922,52 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        // Gather the entityclass elements into one phase
+        List<PermGrant> permGrants = new ArrayList<>();
         for ( DelpermGrant delpermGrant : delpermGrants )
         {
-            List<PermGrant> permGrants = delpermGrant.getPermGrants();
-            for ( PermGrant permGrant : permGrants )
+            permGrants.addAll( delpermGrant.getPermGrants() );
+        }
+        runPhase( "deletePermGrants", permGrants, new BulkLoader.Operation<PermGrant>()
+        {
+            @Override
+            public String getKey( PermGrant permGrant )
             {
-                try
+                return permGrant.getObjName() + ":" + permGrant.getOpName();
+            }
+
+
+            @Override
+            public void apply( PermGrant permGrant ) throws SecurityException
+            {
+                Permission perm = new Permission( permGrant.getObjName(), permGrant.getOpName(),
+                    permGrant.isAdmin() );
+                perm.setOpName( permGrant.getOpName() );
+                perm.setObjId( permGrant.getObjId() );
+                if ( permGrant.getRoleNm() != null && permGrant.getRoleNm().length() > 0 )
                 {
-                    Permission perm = new Permission( permGrant.getObjName(), permGrant.getOpName(),
-                        permGrant.isAdmin() );
-                    perm.setOpName( permGrant.getOpName() );
-                    perm.setObjId( permGrant.getObjId() );
-                    if ( permGrant.getRoleNm() != null && permGrant.getRoleNm().length() > 0 )
-                    {
-                        LOG.info( "deletePermGrants tenant={} roleName={} objName={} opName={} objId={}", getTenant(), permGrant.getRoleNm(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId() );
-                        adminMgr.revokePermission( perm, new Role( permGrant.getRoleNm() ) );
-                    }
-                    else if ( permGrant.getUserId() != null && permGrant.getUserId().length() > 0 )
-                    {
-                        LOG.info( "deletePermGrants tenant={} userId={} objName={} opName={} objId={}", getTenant(), permGrant.getUserId(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId() );
-                        adminMgr.revokePermission( perm, new User( permGrant.getUserId() ) );
-                    }
-                    else
-                    {
-                        String warning = "deletePermGrants called without user or role set in xml";
-                        LOG.warn( warning );
-                    }
+                    LOG.info( "deletePermGrants tenant={} roleName={} objName={} opName={} objId={}", getTenant(), permGrant.getRoleNm(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId() );
+                    adminMgr.revokePermission( perm, new Role( permGrant.getRoleNm() ) );
                 }
-                catch ( SecurityException se )
+                else if ( permGrant.getUserId() != null && permGrant.getUserId().length() > 0 )
                 {
-                    LOG.warn( "deletePermGrants tenant={} roleName={} objName={} opName={} objId={} caught SecurityException={}" , getTenant(), permGrant.getRoleNm(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId(), se );
+                    LOG.info( "deletePermGrants tenant={} userId={} objName={} opName={} objId={}", getTenant(), permGrant.getUserId(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId() );
+                    adminMgr.revokePermission( perm, new User( permGrant.getUserId() ) );
+                }
+                else
+                {
+                    String warning = "deletePermGrants called without user or role set in xml";
+                    LOG.warn( warning );
                 }
             }
-        }
+
+
+            @Override
+            public void failed( PermGrant permGrant, SecurityException se )
+            {
+                LOG.warn( "deletePermGrants tenant={} roleName={} objName={} opName={} objId={} caught SecurityException={}" , getTenant(), permGrant.getRoleNm(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId(), se );
+            }
+        } );
     }
 
 
@@ -2349,25 +2498,36 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        // Gather the entityclass elements into one phase
+        List<UserAdminRole> userroles = new ArrayList<>();
         for ( Adduseradminrole adduserrole : adduseradminroles )
         {
-            List<UserAdminRole> userroles = adduserrole.getUserRoles();
-            for ( UserAdminRole userRole : userroles )
+            userroles.addAll( adduserrole.getUserRoles() );
+        }
+        runPhase( "addUserAdminRoles", userroles, new BulkLoader.Operation<UserAdminRole>()
+        {
+            @Override
+            public String getKey( UserAdminRole userRole )
+            {
+                return userRole.getUserId();
+            }
+
+
+            @Override
+            public void apply( UserAdminRole userRole ) throws SecurityException
             {
                 LOG.info( "addUserAdminRoles tenant={} userid={} role name={}", getTenant(), userRole.getUserId(), userRole.getName() );
-                try
-                {
-                    //AdminRole role = new AdminRole(userRole);
-                    dAdminMgr.assignUser( userRole );
-                }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "addUserAdminRoles tenant={} userId={} role name={} caught SecurityException={}",
-                        getTenant(), userRole.getUserId(), userRole.getName(), se );
-                }
+                dAdminMgr.assignUser( userRole );
             }
-        }
+
+
+            @Override
+            public void failed( UserAdminRole userRole, SecurityException se )
+            {
+                LOG.warn( "addUserAdminRoles tenant={} userId={} role name={} caught SecurityException={}",
+                    getTenant(), userRole.getUserId(), userRole.getName(), se );
+            }
+        } );
     }
 
 
@@ -2381,24 +2541,36 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        // Gather the entityclass elements into one phase
+        List<UserAdminRole> userroles = new ArrayList<>();
         for ( Deluseradminrole deluserrole : deluseradminroles )
         {
-            List<UserAdminRole> userroles = deluserrole.getUserRoles();
-            for ( UserAdminRole userRole : userroles )
+            userroles.addAll( deluserrole.getUserRoles() );
+        }
+        runPhase( "delUserAdminRoles", userroles, new BulkLoader.Operation<UserAdminRole>()
+        {
+            @Override
+            public String getKey( UserAdminRole userRole )
+            {
+                return userRole.getUserId();
+            }
+
+
+            @Override
+            public void apply( UserAdminRole userRole ) throws SecurityException
             {
                 LOG.info( "delUserAdminRoles tenant={} userid={} role name={}", getTenant(), userRole.getUserId(), userRole.getName() );
-                try
-                {
-                    dAdminMgr.deassignUser( userRole );
-                }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "delUserAdminRoles tenant={} userId={} role name={} caught SecurityException={}",
-                        getTenant(), userRole.getUserId(), userRole.getName(), se );
-                }
+                dAdminMgr.deassignUser( userRole );
             }
-        }
+
+
+            @Override
+            public void failed( UserAdminRole userRole, SecurityException se )
+            {
+                LOG.warn( "delUserAdminRoles tenant={} userId={} role name={} caught SecurityException={}",
+                    getTenant(), userRole.getUserId(), userRole.getName(), se );
+            }
+        } );
     }
 
 
@@ -145,6 +145,28 @@ public class AccelMgrImpl extends Manageable implements AccelMgr, Serializable
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Boolean> checkAccess( Session session, List<Permission> perms )
+        throws SecurityException
+    {
+        String methodName = "checkAccess";
+        assertContext( CLS_NM, methodName, session, GlobalErrIds.USER_SESS_NULL );
+        VUtil.assertNotNull( perms, GlobalErrIds.PERM_NULL, getFullMethodName( CLS_NM, methodName ) );
+        for ( Permission perm : perms )
+        {
+            assertContext( CLS_NM, methodName, perm, GlobalErrIds.PERM_NULL );
+            VUtil.assertNotNullOrEmpty( perm.getOpName(), GlobalErrIds.PERM_OPERATION_NULL, getFullMethodName( CLS_NM,
+                methodName ) );
+            VUtil.assertNotNullOrEmpty( perm.getObjName(), GlobalErrIds.PERM_OBJECT_NULL, getFullMethodName( CLS_NM,
+                methodName ) );
+        }
+        return aDao.checkAccess( session, perms );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -206,6 +206,62 @@ final class AcceleratorDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Perform user RBAC authorization on a list of permissions.  This function follows the pattern from:
+     * {@link org.apache.directory.fortress.core.AccessMgr#checkAccess(org.apache.directory.fortress.core.model.Session, java.util.List)}.
+     * The accelerator evaluates one permission per extended operation, so the requests are sent one after another on a single
+     * connection borrowed for the whole list.
+     *
+     * @param session contains a valid sessionId captured from accelerator createSession method.
+     * @param perms   each must contain valid object name and operation name, optional object id.
+     * @return List of decisions in the same order as the permissions.
+     * @throws SecurityException rethrows {@code LdapException} with {@code GlobalErrIds.ACEL_CHECK_ACCESS_ERR}.
+     */
+    List<Boolean> checkAccess( Session session, List<Permission> perms ) throws SecurityException
+    {
+        List<Boolean> results = new ArrayList<>( perms.size() );
+        LdapConnection ld = null;
+        Permission perm = null;
+
+        try
+        {
+            ld = getAdminConnection();
+            for ( Permission next : perms )
+            {
+                perm = next;
+                RbacCheckAccessRequest rbacCheckAccessRequest = new RbacCheckAccessRequestImpl();
+                rbacCheckAccessRequest.setSessionId( session.getSessionId() );
+                rbacCheckAccessRequest.setObject( perm.getObjName() );
+
+                // objectId is optional
+                if ( StringUtils.isNotEmpty( perm.getObjId() ) )
+                {
+                    rbacCheckAccessRequest.setObjectId( perm.getObjId() );
+                }
+
+                rbacCheckAccessRequest.setOperation( perm.getOpName() );
+                // Send the request
+                RbacCheckAccessResponse rbacCheckAccessResponse = ( RbacCheckAccessResponse ) ld.extended(
+                    rbacCheckAccessRequest );
+                LOG.debug( "checkAccess result: {}", rbacCheckAccessResponse.getLdapResult().getResultCode() );
+                results.add( rbacCheckAccessResponse.getLdapResult().getResultCode() == ResultCodeEnum.SUCCESS );
+            }
+        }
+        catch ( LdapException e )
+        {
+            String error = "checkAccess perm obj [" + perm.getObjName() + "], operation [" + perm.getOpName()
+                + "] caught LDAPException=" + " msg=" + e.getMessage();
+            throw new SecurityException( GlobalErrIds.ACEL_CHECK_ACCESS_ERR, error, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+
+        return results;
+    }
+
+
     /**
      * Deactivate user role from impl session
      * This function follows the pattern from: {@link org.apache.directory.fortress.core.AccessMgr#dropActiveRole(org.apache.directory.fortress.core.model.Session, org.apache.directory.fortress.core.model.UserRole)}.
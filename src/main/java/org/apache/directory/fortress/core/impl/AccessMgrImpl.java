@@ -23,14 +23,17 @@ package org.apache.directory.fortress.core.impl;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.directory.fortress.annotation.AdminPermissionOperation;
 import org.apache.directory.fortress.core.AccessMgr;
+import org.apache.directory.fortress.core.FinderException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.model.*;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.cache.SessionStoreFactory;
 
 
 /**
@@ -154,6 +157,32 @@ public class AccessMgrImpl extends Manageable implements AccessMgr, Serializable
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @AdminPermissionOperation
+    public List<Boolean> checkAccess( Session session, List<Permission> perms )
+        throws SecurityException
+    {
+        String methodName = "checkAccess";
+        assertContext( CLS_NM, methodName, session, GlobalErrIds.USER_SESS_NULL );
+        VUtil.assertNotNull( perms, GlobalErrIds.PERM_NULL, getFullMethodName( CLS_NM, methodName ) );
+        for ( Permission perm : perms )
+        {
+            assertContext( CLS_NM, methodName, perm, GlobalErrIds.PERM_NULL );
+            VUtil.getInstance().assertNotNullOrEmpty( perm.getOpName(), GlobalErrIds.PERM_OPERATION_NULL,
+                getFullMethodName( CLS_NM, methodName ) );
+            VUtil.getInstance().assertNotNullOrEmpty( perm.getObjName(), GlobalErrIds.PERM_OBJECT_NULL,
+                getFullMethodName( CLS_NM, methodName ) );
+        }
+        VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.USER, false );
+        VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.ROLE, false );
+        setEntitySession(CLS_NM, methodName, session);
+        return permP.checkPermissions( session, perms );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -209,7 +238,10 @@ public class AccessMgrImpl extends Manageable implements AccessMgr, Serializable
         VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.USER, false );
         VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.ROLE, false );
         setEntitySession(CLS_NM, methodName, session);
-        return RoleUtil.getInstance().getInheritedRoles( session.getRoles(), this.contextId );
+        // Return a copy, the set held by the session is shared with later checks:
+        Set<String> iRoles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        iRoles.addAll( RoleUtil.getInstance().getInheritedRoles( session, this.contextId ) );
+        return iRoles;
     }
 
 
@@ -339,4 +371,83 @@ public class AccessMgrImpl extends Manageable implements AccessMgr, Serializable
 
         return session.getUser();
     }
-}
\ No newline at end of file
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @AdminPermissionOperation
+    public String createSessionId( User user, boolean isTrusted )
+        throws SecurityException
+    {
+        Session session = createSession( user, isTrusted );
+        SessionStoreFactory.getInstance().put( session );
+        return session.getSessionId();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @AdminPermissionOperation
+    public Session getSession( String sessionId )
+        throws SecurityException
+    {
+        String methodName = "getSession";
+        VUtil.getInstance().assertNotNullOrEmpty( sessionId, GlobalErrIds.USER_SESS_NULL, getFullMethodName( CLS_NM, methodName ) );
+        Session session = SessionStoreFactory.getInstance().get( sessionId );
+        if ( session == null )
+        {
+            String info = getFullMethodName( CLS_NM, methodName ) + " session [" + sessionId + "] not found";
+            throw new FinderException( GlobalErrIds.USER_SESS_NOT_FOUND, info );
+        }
+        return session;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @AdminPermissionOperation
+    public boolean checkAccess( String sessionId, Permission perm )
+        throws SecurityException
+    {
+        Session session = getSession( sessionId );
+        int roleCount = getRoleCount( session );
+        boolean result = checkAccess( session, perm );
+        storeSession( session, roleCount );
+        return result;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @AdminPermissionOperation
+    public List<Boolean> checkAccess( String sessionId, List<Permission> perms )
+        throws SecurityException
+    {
+        Session session = getSession( sessionId );
+        int roleCount = getRoleCount( session );
+        List<Boolean> results = checkAccess( session, perms );
+        storeSession( session, roleCount );
+        return results;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @AdminPermissionOperation
+    public void deleteSession( String sessionId )
+        throws SecurityException
+    {
+        VUtil.getInstance().assertNotNullOrEmpty( sessionId, GlobalErrIds.USER_SESS_NULL, getFullMethodName( CLS_NM, "deleteSession" ) );
+        SessionStoreFactory.getInstance().remove( sessionId );
+    }
+}
@@ -21,8 +21,11 @@ package org.apache.directory.fortress.core.impl;
 
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.directory.fortress.annotation.AdminPermissionOperation;
@@ -136,6 +139,7 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         userP.lock( user );
         // remove the userId attribute from any granted permission operations (if applicable).
         permP.remove( user );
+        PermUtil.clearAll();
         // remove the user dn occupant attribute from assigned ldap role entities.
         roleP.removeOccupant( userDn, this.contextId );
         // remove the user dn occupant attribute from assigned ldap adminRole entities.
@@ -155,6 +159,7 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         setEntitySession( CLS_NM, methodName, user );
         // remove the userId attribute from any granted permission operations (if applicable).
         permP.remove( user );
+        PermUtil.clearAll();
         // remove the user inetOrgPerson object from ldap.
         String userDn = userP.delete( user );
         // remove the user dn occupant attribute from assigned ldap role entities.
@@ -323,6 +328,7 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
 
         // Now remove the role association from all permissions:
         permP.remove( role );
+        PermUtil.clearAll();
         // remove all parent relationships from the role graph:
         Set<String> parents = RoleUtil.getInstance().getParents( role.getName(), this.contextId );
         if ( parents != null )
@@ -388,6 +394,121 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @AdminPermissionOperation(operationName="assignUser")
+    public void assignUsers( List<UserRole> uRoles ) throws SecurityException
+    {
+        String methodName = "assignUser";
+        VUtil.assertNotNull( uRoles, GlobalErrIds.URLE_NULL, CLS_NM + ".assignUsers" );
+        // Group the assignments by user, each role is read once for its default constraints:
+        Map<String, List<UserRole>> userRoles = new TreeMap<>( String.CASE_INSENSITIVE_ORDER );
+        Map<String, Role> roles = new TreeMap<>( String.CASE_INSENSITIVE_ORDER );
+        for ( UserRole uRole : uRoles )
+        {
+            assertContext( CLS_NM, methodName, uRole, GlobalErrIds.URLE_NULL );
+            List<UserRole> assignments = userRoles.get( uRole.getUserId() );
+            if ( assignments == null )
+            {
+                assignments = new ArrayList<>();
+                userRoles.put( uRole.getUserId(), assignments );
+            }
+            // the user's entity can't hold the same role twice, an assignment repeated in the batch is made once:
+            else if ( containsRole( assignments, uRole.getName() ) )
+            {
+                continue;
+            }
+            Role role = new Role( uRole.getName() );
+            role.setContextId( contextId );
+            User user = new User( uRole.getUserId() );
+            user.setContextId( contextId );
+            setEntitySession( CLS_NM, methodName, uRole );
+            AdminUtil.canAssign( uRole.getAdminSession(), user, role, contextId );
+            Role validRole = roles.get( role.getName() );
+            if ( validRole == null )
+            {
+                validRole = roleP.read( role );
+                roles.put( role.getName(), validRole );
+            }
+            // if the input role entity attribute doesn't have temporal constraints set, copy from the role declaration:
+            ConstraintUtil.validateOrCopy( validRole, uRole );
+            assignments.add( uRole );
+        }
+
+        // check the assignments against those stored before any is written, so a failure leaves nothing half done:
+        Map<String, List<String>> assignedRoles = userP.getAssignedRoles( userRoles.keySet(), contextId );
+        for ( Map.Entry<String, List<UserRole>> entry : userRoles.entrySet() )
+        {
+            List<String> assigned = assignedRoles.get( entry.getKey() );
+            if ( assigned == null )
+            {
+                String warning = "assignUsers userId [" + entry.getKey() + "] not found";
+                throw new FinderException( GlobalErrIds.USER_NOT_FOUND, warning );
+            }
+            for ( UserRole uRole : entry.getValue() )
+            {
+                for ( String roleName : assigned )
+                {
+                    if ( roleName.equalsIgnoreCase( uRole.getName() ) )
+                    {
+                        String warning = "assignUsers userId [" + uRole.getUserId() + "] role [" + uRole.getName()
+                            + "] assignment already exists.";
+                        throw new FinderException( GlobalErrIds.URLE_ASSIGN_EXIST, warning );
+                    }
+                }
+            }
+        }
+        SDUtil.getInstance().validateSSD( userRoles, assignedRoles, contextId );
+
+        // Assign the Role data to each User, collecting the user dns by role:
+        Map<String, List<String>> occupants = new TreeMap<>( String.CASE_INSENSITIVE_ORDER );
+        for ( List<UserRole> assignments : userRoles.values() )
+        {
+            String dn = userP.assign( assignments );
+            for ( UserRole uRole : assignments )
+            {
+                List<String> dns = occupants.get( uRole.getName() );
+                if ( dns == null )
+                {
+                    dns = new ArrayList<>();
+                    occupants.put( uRole.getName(), dns );
+                }
+                dns.add( dn );
+            }
+        }
+
+        // If user membership associated with role, set it here:
+        if( Config.getInstance().isRoleOccupant() )
+        {
+            for ( Map.Entry<String, List<String>> entry : occupants.entrySet() )
+            {
+                Role role = new Role( entry.getKey() );
+                role.setContextId( contextId );
+                setAdminData( CLS_NM, methodName, role );
+                roleP.assign( role, entry.getValue() );
+            }
+        }
+    }
+
+
+    /**
+     * @return true if one of the assignments is to the named role.
+     */
+    private static boolean containsRole( List<UserRole> assignments, String roleName )
+    {
+        for ( UserRole assignment : assignments )
+        {
+            if ( assignment.getName().equalsIgnoreCase( roleName ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -575,7 +696,9 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         String methodName = "updatePermission";
         assertContext( CLS_NM, methodName, perm, GlobalErrIds.PERM_OPERATION_NULL );
         setEntitySession( CLS_NM, methodName, perm );
-        return permP.update( perm );
+        Permission outPerm = permP.update( perm );
+        PermUtil.clearPerm( perm );
+        return outPerm;
     }
 
 
@@ -590,6 +713,7 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         assertContext( CLS_NM, methodName, perm, GlobalErrIds.PERM_OPERATION_NULL );
         setEntitySession( CLS_NM, methodName, perm );
         permP.delete( perm );
+        PermUtil.clearPerm( perm );
     }
 
 
@@ -632,6 +756,8 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         assertContext( CLS_NM, methodName, pObj, GlobalErrIds.PERM_OBJECT_NULL );
         setEntitySession( CLS_NM, methodName, pObj );
         permP.delete( pObj );
+        // all of the object's operations have been removed:
+        PermUtil.clearAll();
     }
 
 
@@ -660,6 +786,7 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
             roleP.read( role );
         }
         permP.grant( perm, role );
+        PermUtil.clearPerm( perm );
     }
 
 
@@ -679,6 +806,7 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
             AdminUtil.canRevoke( perm.getAdminSession(), role, perm, contextId );
         }
         permP.revoke( perm, role );
+        PermUtil.clearPerm( perm );
     }
 
 
@@ -696,6 +824,7 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         // Ensure the user entity exists:
         userP.read( user, false );
         permP.grant( perm, user );
+        PermUtil.clearPerm( perm );
     }
 
 
@@ -711,6 +840,7 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         setEntitySession( CLS_NM, methodName, perm );
         assertContext( CLS_NM, methodName, user, GlobalErrIds.USER_NULL );
         permP.revoke( perm, user );
+        PermUtil.clearPerm( perm );
     }
 
 
@@ -1032,14 +1162,12 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         assertContext( CLS_NM, methodName, dsdSet, GlobalErrIds.DSD_NULL );
         assertContext( CLS_NM, methodName, role, GlobalErrIds.ROLE_NULL );
         setEntitySession( CLS_NM, methodName, dsdSet );
+        dsdSet.setType( SDSet.SDType.DYNAMIC );
         SDSet entity = sdP.read( dsdSet );
         entity.setContextId( this.contextId );
         entity.addMember( role.getName() );
         setAdminData( CLS_NM, methodName, entity );
-        SDSet dsdOut = sdP.update( entity );
-        // remove any references to the old DSD from cache:
-        clearDSDCache( dsdSet );
-        return dsdOut;
+        return sdP.update( entity );
     }
 
 
@@ -1054,6 +1182,7 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         assertContext( CLS_NM, methodName, dsdSet, GlobalErrIds.DSD_NULL );
         assertContext( CLS_NM, methodName, role, GlobalErrIds.ROLE_NULL );
         setEntitySession( CLS_NM, methodName, dsdSet );
+        dsdSet.setType( SDSet.SDType.DYNAMIC );
         SDSet entity = sdP.read( dsdSet );
         entity.setContextId( this.contextId );
         entity.delMember( role.getName() );
@@ -1064,10 +1193,7 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
             entity.addMember( GlobalIds.NONE );
         }
         setAdminData( CLS_NM, methodName, entity );
-        SDSet dsdOut = sdP.update( entity );
-        // remove any references to the old DSD from cache:
-        clearDSDCache( dsdSet );
-        return dsdOut;
+        return sdP.update( entity );
     }
 
 
@@ -1082,8 +1208,6 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         assertContext( CLS_NM, methodName, dsdSet, GlobalErrIds.DSD_NULL );
         setEntitySession( CLS_NM, methodName, dsdSet );
         dsdSet.setType( SDSet.SDType.DYNAMIC );
-        // remove any references to the old DSD from cache:
-        clearDSDCache( dsdSet );
         return sdP.delete( dsdSet );
     }
 
@@ -1100,20 +1224,6 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         setEntitySession( CLS_NM, methodName, dsdSet );
         dsdSet.setType( SDSet.SDType.DYNAMIC );
         dsdSet.setCardinality( cardinality );
-        // remove any references to the old DSD from cache:
-        clearDSDCache( dsdSet );
         return sdP.update( dsdSet );
     }
-
-
-    /**
-     * Clear the DSD cache entries that correspond to this DSD
-     *
-     * @param dsdSet
-     * @throws SecurityException
-     */
-    private void clearDSDCache( SDSet dsdSet )
-    {
-        SDUtil.getInstance().clearDsdCacheEntry( dsdSet.getName(), contextId );
-    }
 }
@@ -20,9 +20,13 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -33,10 +37,10 @@ import org.apache.directory.fortress.core.model.AdminRole;
 import org.apache.directory.fortress.core.model.Graphable;
 import org.apache.directory.fortress.core.model.Hier;
 import org.apache.directory.fortress.core.model.Relationship;
+import org.apache.directory.fortress.core.model.Session;
 import org.apache.directory.fortress.core.model.UserAdminRole;
 import org.apache.directory.fortress.core.util.cache.Cache;
 import org.apache.directory.fortress.core.util.cache.CacheMgr;
-import org.jgrapht.graph.SimpleDirectedGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,15 +48,16 @@ import org.slf4j.LoggerFactory;
 /**
  * This utility wraps {@link org.apache.directory.fortress.core.impl.HierUtil} methods to provide hierarchical functionality for the {@link org.apache.directory.fortress.core.model.AdminRole} data set.
  * The child to parent relationships are stored within a data cache, {@link #adminRoleCache}, contained within this class.  The parent-child edges are contained in LDAP,
- * in {@code ftParents} attribute.  The ldap data is retrieved {@link org.apache.directory.fortress.core.impl.AdminRoleP#getAllDescendants(String)} and loaded into {@code org.jgrapht.graph.SimpleDirectedGraph}.
+ * in {@code ftParents} attribute.  The ldap data is retrieved {@link org.apache.directory.fortress.core.impl.AdminRoleP#getAllDescendants(String)} and loaded into {@link HierGraph}.
  * The graph...
  * <ol>
  * <li>is stored as singleton in this class with vertices of {@code String}, and edges, as {@link org.apache.directory.fortress.core.model.Relationship}s</li>
- * <li>utilizes open source library, see <a href="http://www.jgrapht.org/">JGraphT</a>.</li>
+ * <li>is held by {@link CsrHierGraph} as arrays of vertex ids, or by {@link JGraphHierGraph} if {@code hier.engine} is set to {@code jgrapht}.</li>
  * <li>contains a general hierarchical data structure i.e. allows multiple inheritance with parents.</li>
  * <li>is a simple directed graph thus does not allow cycles.</li>
  * </ol>
- * After update is performed to ldap, the singleton is refreshed with latest info.
+ * After update is performed to ldap, the singleton is refreshed with latest info.  The graph is reloaded in the background
+ * before its cache entry expires, see {@link GraphLoader}.
  * <p>
  * Static methods on this class are intended for use by other Fortress classes, i.e. {@link DelAdminMgrImpl} and {@link org.apache.directory.fortress.core.impl.PermDAO}
  * and cannot be directly invoked by outside programs.
@@ -64,18 +69,28 @@ import org.slf4j.LoggerFactory;
 final class AdminRoleUtil
 {
     private static final Cache adminRoleCache;
+    private static final GraphLoader graphLoader;
+    private static final ConcurrentMap<String, HierClosure> closures = new ConcurrentHashMap<>();
     private static final AdminRoleP adminRoleP = new AdminRoleP();
     private static final String CLS_NM = AdminRoleUtil.class.getName();
     private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
 
     /**
      * Initialize the AdminRole hierarchies.  This will read the {@link org.apache.directory.fortress.core.model.Hier} data set from ldap and load into
-     * the JGraphT simple digraph that referenced statically within this class.
+     * the {@link HierGraph} held in the cache of this class.
      */
     static
     {
         CacheMgr cacheMgr = CacheMgr.getInstance();
         adminRoleCache = cacheMgr.getCache( "fortress.admin.roles" );
+        graphLoader = new GraphLoader( adminRoleCache, closures, new GraphLoader.Source()
+        {
+            @Override
+            public HierGraph load( String contextId )
+            {
+                return loadGraph( contextId );
+            }
+        } );
     }
 
     /**
@@ -88,7 +103,7 @@ final class AdminRoleUtil
 
     /**
      * Used to determine if one {@link org.apache.directory.fortress.core.model.AdminRole} is the parent of another.  This method
-     * will call recursive routine {@link #getAscendants(String, String)} to walk the {@code org.jgrapht.graph.SimpleDirectedGraph} data structure
+     * will consult the precomputed {@link HierClosure} of the {@link HierGraph} data structure
      * returning flag indicating if parent-child relationship is valid.
      *
      * @param child maps to logical {@link org.apache.directory.fortress.core.model.AdminRole#name} on 'ftRls' object class.
@@ -98,25 +113,19 @@ final class AdminRoleUtil
      */
     static boolean isParent( String child, String parent, String contextId )
     {
-        boolean result = false;
-        Set<String> parents = getAscendants( child, contextId );
-        if ( parents != null && parents.size() > 0 )
-        {
-            result = parents.contains( parent.toUpperCase() );
-        }
-        return result;
+        return getClosure( contextId ).isAscendant( child, parent );
     }
 
 
     /**
-     * Recursively traverse the {@link org.apache.directory.fortress.core.model.AdminRole} graph and return all of the descendants of a given parent {@link org.apache.directory.fortress.core.model.AdminRole#name}.
+     * Use the precomputed closure of the {@link org.apache.directory.fortress.core.model.AdminRole} graph and return all of the descendants of a given parent {@link org.apache.directory.fortress.core.model.AdminRole#name}.
      * @param roleName {@link org.apache.directory.fortress.core.model.AdminRole#name} maps on 'ftRls' object class.
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
      * @return Set of AdminRole names are children {@link org.apache.directory.fortress.core.model.AdminRole}s of given parent.
      */
     static Set<String> getDescendants( String roleName, String contextId )
     {
-        return HierUtil.getDescendants( roleName, getGraph( contextId ) );
+        return getClosure( contextId ).getDescendants( roleName );
     }
 
 
@@ -128,7 +137,7 @@ final class AdminRoleUtil
      */
     public static Set<String> getAscendants( String roleName, String contextId )
     {
-        return HierUtil.getAscendants( roleName, getGraph( contextId ) );
+        return getClosure( contextId ).getAscendants( roleName );
     }
 
 
@@ -177,30 +186,50 @@ final class AdminRoleUtil
      */
     public static Set<String> getInheritedRoles( List<UserAdminRole> uRoles, String contextId )
     {
-        // create Set with case insensitive comparator:
-        Set<String> iRoles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        return getInheritedRoles( uRoles, getClosure( contextId ) );
+    }
+
 
-        if ( CollectionUtils.isNotEmpty( uRoles ) )
+    /**
+     * Return the ARBAC roles, activated plus inherited, of a given session.  The set is computed once per session and role
+     * hierarchy version and stored on the session with {@link org.apache.directory.fortress.core.model.Session#setEffectiveAdminRoles(java.util.Set, long)}.
+     * Later calls return the stored set until the session's activated roles change or the hierarchy is updated.
+     *
+     * @param session contains the ARBAC roles activated into a User's {@link org.apache.directory.fortress.core.model.Session}.
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @return unmodifiable Set of all authorized ARBAC Roles for the session.
+     */
+    static Set<String> getInheritedRoles( Session session, String contextId )
+    {
+        HierClosure closure = getClosure( contextId );
+        Set<String> iRoles = session.getEffectiveAdminRoles( closure.getVersion() );
+        if ( iRoles == null )
         {
-            for ( UserAdminRole uRole : uRoles )
-            {
-                String rleName = uRole.getName();
-                iRoles.add( rleName );
-                Set<String> parents = HierUtil.getAscendants( rleName, getGraph( contextId ) );
-
-                if ( CollectionUtils.isNotEmpty( parents ) )
-                {
-                    iRoles.addAll( parents );
-                }
-            }
+            iRoles = Collections.unmodifiableSet( getInheritedRoles( session.getAdminRoles(), closure ) );
+            session.setEffectiveAdminRoles( iRoles, closure.getVersion() );
         }
         return iRoles;
     }
 
 
+    private static Set<String> getInheritedRoles( List<UserAdminRole> uRoles, HierClosure closure )
+    {
+        if ( CollectionUtils.isEmpty( uRoles ) )
+        {
+            return new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        }
+        List<String> names = new ArrayList<>( uRoles.size() );
+        for ( UserAdminRole uRole : uRoles )
+        {
+            names.add( uRole.getName() );
+        }
+        return closure.getInherited( names );
+    }
+
+
     /**
      * This api is used by {@link DelAdminMgrImpl} to determine parentage for Hierarchical ARBAC processing.
-     * It calls {@link HierUtil#validateRelationship(org.jgrapht.graph.SimpleDirectedGraph, String, String, boolean)} to evaluate three adminRole relationship expressions:
+     * It calls {@link HierUtil#validateRelationship(HierGraph, String, String, boolean)} to evaluate three adminRole relationship expressions:
      * <ol>
      * <li>If child equals parent</li>
      * <li>If mustExist true and parent-child relationship exists</li>
@@ -224,7 +253,7 @@ final class AdminRoleUtil
 
     /**
      * This api allows synchronized access to allow updates to hierarchical relationships.
-     * Method will update the hierarchical data set and reload the JGraphT simple digraph with latest.
+     * Method will update the hierarchical data set and reload the {@link HierGraph} with latest.
      *
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
      * @param relationship contains parent-child relationship targeted for addition.
@@ -233,18 +262,29 @@ final class AdminRoleUtil
      */
     static void updateHier( String contextId, Relationship relationship, Hier.Op op ) throws SecurityException
     {
-        HierUtil.updateHier( getGraph( contextId ), relationship, op );
+        graphLoader.updateHier( getKey( contextId ), contextId, relationship, op );
+    }
+
+
+    /**
+     * Reload the hierarchy of a contextId in the background after it was changed in ldap by another process.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     */
+    static void refreshGraph( String contextId )
+    {
+        graphLoader.refresh( contextId );
     }
 
 
     /**
-     * Read this ldap record,{@code cn=Hierarchies, ou=OS-P} into this entity, {@link Hier}, before loading into this collection class,{@code org.jgrapht.graph.SimpleDirectedGraph}
-     * using 3rd party lib, <a href="http://www.jgrapht.org/">JGraphT</a>.
+     * Read this ldap record,{@code cn=Hierarchies, ou=OS-P} into this entity, {@link Hier}, before loading into this collection class,{@link HierGraph}
+     * built by {@link HierUtil#buildHierGraph(Hier)}.
      *
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
-     * @return handle to simple digraph containing adminRole hierarchies.
+     * @return handle to the graph containing adminRole hierarchies.
      */
-    private static synchronized SimpleDirectedGraph<String, Relationship> loadGraph( String contextId )
+    private static HierGraph loadGraph( String contextId )
     {
         Hier inHier = new Hier( Hier.Type.ROLE );
         inHier.setContextId( contextId );
@@ -261,38 +301,35 @@ final class AdminRoleUtil
         }
 
         Hier hier = HierUtil.loadHier( contextId, descendants );
-        SimpleDirectedGraph<String, Relationship> graph;
+        HierGraph graph;
 
-        graph = HierUtil.buildGraph( hier );
-        adminRoleCache.put( getKey( contextId ), graph );
+        graph = HierUtil.buildHierGraph( hier );
 
         return graph;
     }
 
 
     /**
-     * Read this ldap record,{@code cn=Hierarchies, ou=OS-P} into this entity, {@link Hier}, before loading into this collection class,{@code org.jgrapht.graph.SimpleDirectedGraph}
-     * using 3rd party lib, <a href="http://www.jgrapht.org/">JGraphT</a>.
+     * Return the graph of this tenant held in the cache, which is loaded from ldap by {@link #loadGraph(String)} if absent.
      *
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
-     * @return handle to simple digraph containing adminRole hierarchies.
+     * @return handle to the graph containing adminRole hierarchies.
      */
-    private static SimpleDirectedGraph<String, Relationship> getGraph( String contextId )
+    private static HierGraph getGraph( String contextId )
     {
-        String key = getKey( contextId );        
-        LOG.debug("Getting graph for key " + contextId);
-         
-        SimpleDirectedGraph<String, Relationship> graph = ( SimpleDirectedGraph<String, Relationship> ) adminRoleCache
-                 .get( key );
-             
-        if(graph == null){
-            LOG.debug("Graph was null, creating... " + contextId);
-            return loadGraph( contextId );
-        }
-        else{
-            LOG.debug("Graph found in cache, returning...");
-            return graph;
-        }
+        return graphLoader.get( getKey( contextId ), contextId );
+    }
+
+
+    /**
+     * Return the precomputed ascendant and descendant closure of the admin role graph, rebuilding it if the graph was reloaded.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @return closure of this tenant's admin role hierarchy.
+     */
+    private static HierClosure getClosure( String contextId )
+    {
+        return HierClosure.get( closures, getKey( contextId ), getGraph( contextId ) );
     }
 
 
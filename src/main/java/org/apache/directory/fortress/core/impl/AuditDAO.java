@@ -34,6 +34,8 @@ import org.apache.directory.api.ldap.model.message.SearchScope;
 import org.apache.directory.fortress.core.FinderException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.SearchHandler;
+import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.ldap.LdapDataProvider;
 import org.apache.directory.fortress.core.model.AuthZ;
 import org.apache.directory.fortress.core.model.Bind;
@@ -318,31 +320,10 @@ final class AuditDAO extends LdapDataProvider
         List<AuthZ> auditList = new ArrayList<>();
         LdapConnection ld = null;
         String auditRoot = Config.getInstance().getProperty( AUDIT_ROOT );
-        String permRoot = getRootDn( audit.isAdmin(), audit.getContextId() );
-        String userRoot = getRootDn( audit.getContextId(), GlobalIds.USER_ROOT );
 
         try
         {
-            String reqDn = PermDAO.getOpRdn( audit.getOpName(), audit.getObjId() ) + "," + GlobalIds.POBJ_NAME + "="
-                + audit.getObjName() + "," + permRoot;
-            String filter = GlobalIds.FILTER_PREFIX + ACCESS_AUTHZ_CLASS_NM + ")(" + REQDN + "=" +
-                reqDn + ")(" + REQUAUTHZID + "=" + SchemaConstants.UID_AT + "=" + audit.getUserId() + "," + userRoot
-                + ")";
-
-            if ( audit.isFailedOnly() )
-            {
-                filter += "(" + REQRESULT + "=" + GlobalIds.AUTHZ_COMPARE_FAILURE_FLAG + ")";
-            }
-
-            if ( audit.getBeginDate() != null )
-            {
-                String szTime = TUtil.encodeGeneralizedTime( audit.getBeginDate() );
-                filter += "(" + REQEND + ">=" + szTime + ")";
-            }
-
-            filter += ")";
-
-            //System.out.println("filter=" + filter);
+            String filter = getSearchAuthZsFilter( audit );
             ld = getLogConnection();
             SearchCursor searchResults = search( ld, auditRoot,
                 SearchScope.ONELEVEL, filter, AUDIT_AUTHZ_ATRS, false, GlobalIds.BATCH_SIZE );
@@ -372,6 +353,83 @@ final class AuditDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Stream the authorization events matching the search criteria to the handler, reading them from the audit log a
+     * page at a time.
+     *
+     * @param audit   contains the userId, objName and optional opName, objId, beginDate and failedOnly flag.
+     * @param handler is called once for each authorization event found.
+     * @return number of events passed to the handler.
+     * @throws SecurityException in the event of ldap search error or thrown by the handler.
+     */
+    long searchAuthZs( UserAudit audit, final SearchHandler<AuthZ> handler ) throws SecurityException
+    {
+        LdapConnection ld = null;
+        String auditRoot = Config.getInstance().getProperty( AUDIT_ROOT );
+
+        try
+        {
+            String filter = getSearchAuthZsFilter( audit );
+            ld = getLogConnection();
+            return searchPaged( ld, auditRoot, SearchScope.ONELEVEL, filter, AUDIT_AUTHZ_ATRS, false,
+                new EntryHandler()
+                {
+                    private long sequence = 0;
+
+                    @Override
+                    public boolean handle( Entry entry ) throws LdapException, SecurityException
+                    {
+                        return handler.handle( getAuthzEntityFromLdapEntry( entry, sequence++ ) );
+                    }
+                } );
+        }
+        catch ( LdapException e )
+        {
+            String error = "LdapException in AuditDAO.searchAuthZs id=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.AUDT_AUTHZ_SEARCH_FAILED, error, e );
+        }
+        catch ( CursorException e )
+        {
+            String error = "CursorException in AuditDAO.searchAuthZs id=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.AUDT_AUTHZ_SEARCH_FAILED, error, e );
+        }
+        finally
+        {
+            closeLogConnection( ld );
+        }
+    }
+
+
+    /**
+     * @param audit contains the userId, objName and optional opName, objId, beginDate and failedOnly flag.
+     * @return search filter used by the authorization event finders.
+     */
+    private String getSearchAuthZsFilter( UserAudit audit )
+    {
+        String permRoot = getRootDn( audit.isAdmin(), audit.getContextId() );
+        String userRoot = getRootDn( audit.getContextId(), GlobalIds.USER_ROOT );
+        String reqDn = PermDAO.getOpRdn( audit.getOpName(), audit.getObjId() ) + "," + GlobalIds.POBJ_NAME + "="
+            + audit.getObjName() + "," + permRoot;
+        String filter = GlobalIds.FILTER_PREFIX + ACCESS_AUTHZ_CLASS_NM + ")(" + REQDN + "=" +
+            reqDn + ")(" + REQUAUTHZID + "=" + SchemaConstants.UID_AT + "=" + audit.getUserId() + "," + userRoot
+            + ")";
+
+        if ( audit.isFailedOnly() )
+        {
+            filter += "(" + REQRESULT + "=" + GlobalIds.AUTHZ_COMPARE_FAILURE_FLAG + ")";
+        }
+
+        if ( audit.getBeginDate() != null )
+        {
+            String szTime = TUtil.encodeGeneralizedTime( audit.getBeginDate() );
+            filter += "(" + REQEND + ">=" + szTime + ")";
+        }
+
+        filter += ")";
+        return filter;
+    }
+
+
     private String getRootDn( boolean isAdmin, String contextId )
     {
         String dn;
@@ -28,12 +28,14 @@ import org.apache.directory.fortress.core.AuditMgr;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.ReviewMgr;
 import org.apache.directory.fortress.core.ReviewMgrFactory;
+import org.apache.directory.fortress.core.SearchHandler;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.model.AuthZ;
 import org.apache.directory.fortress.core.model.Bind;
 import org.apache.directory.fortress.core.model.Mod;
 import org.apache.directory.fortress.core.model.User;
 import org.apache.directory.fortress.core.model.UserAudit;
+import org.apache.directory.fortress.core.util.VUtil;
 
 /**
  * This object performs searches across <a href="http://www.openldap.org/">OpenLDAP</a>'s slapd access log.  The access log 
@@ -142,6 +144,22 @@ public class AuditMgrImpl extends Manageable implements AuditMgr, Serializable
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @AdminPermissionOperation( operationName = "searchAuthZs" )
+    public long searchAuthZs(UserAudit uAudit, SearchHandler<AuthZ> handler)
+        throws SecurityException
+    {
+        String methodName = "searchAuthZs";
+        assertContext(CLS_NM, methodName, uAudit, GlobalErrIds.AUDT_INPUT_NULL);
+        VUtil.assertNotNull(handler, GlobalErrIds.FT_SEARCH_HANDLER_NULL, CLS_NM + "." + methodName);
+        checkAccess(CLS_NM, methodName);
+        return auditP.searchAuthZs(uAudit, handler);
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -22,6 +22,7 @@ package org.apache.directory.fortress.core.impl;
 
 import java.util.List;
 
+import org.apache.directory.fortress.core.SearchHandler;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.model.AuthZ;
 import org.apache.directory.fortress.core.model.Bind;
@@ -83,6 +84,22 @@ final class AuditP
     }
 
 
+    /**
+     * This method passes each authorization event matching {@link UserAudit#userId}, {@link UserAudit#objName},
+     * {@link UserAudit#beginDate} and {@link UserAudit#failedOnly} to the handler, reading them from the directory a
+     * page at a time.
+     *
+     * @param uAudit  This entity is instantiated and populated before invocation.
+     * @param handler is called once for each authorization event found.
+     * @return number of events passed to the handler.
+     * @throws SecurityException if a runtime system error occurs or thrown by the handler.
+     */
+    long searchAuthZs( UserAudit uAudit, SearchHandler<AuthZ> handler ) throws SecurityException
+    {
+        return aDao.searchAuthZs( uAudit, handler );
+    }
+
+
     /**
      * This method returns a list of authentication audit events for a particular user {@link UserAudit#userId},
      * and given timestamp field {@link UserAudit#beginDate}.<BR>
@@ -0,0 +1,473 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.directory.fortress.core.CfgException;
+import org.apache.directory.fortress.core.CfgRuntimeException;
+import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.util.ClassUtil;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.audit.AuditSink;
+import org.apache.directory.fortress.core.util.audit.AuthZEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This utility takes authorization events off of the checkAccess path when {@code audit.mode=async} is set.  Events are
+ * placed on a bounded, lock free queue and a single daemon thread, 'fortress-audit-writer', passes them in batches to the
+ * {@link AuditSink} named by {@code audit.sink}.  A batch is written once {@code audit.batch.size} events are waiting or
+ * {@code audit.flush.interval} milliseconds have passed, whichever comes first.  When the JVM shuts down the writer
+ * thread is stopped, after it finishes the batch it is writing, and the events still on the queue are written before
+ * the sink is closed.
+ * <p>
+ * The behavior when the queue fills, {@code audit.queue.size}, is set by {@code audit.overflow.policy}:
+ * <ol>
+ * <li>DROP (default) - the event is discarded and counted.</li>
+ * <li>BLOCK - the caller waits until space is available.</li>
+ * <li>SAMPLE - once the queue is half full, only one of every {@code audit.sample.rate} events is kept.  Events are dropped when full.</li>
+ * </ol>
+ * Queue depth, drop and write counts are available from this class and are logged every {@code audit.metrics.interval} seconds
+ * when that property is greater than zero.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class AuditWriter
+{
+    private static final String CLS_NM = AuditWriter.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String AUDIT_MODE = "audit.mode";
+    private static final String AUDIT_MODE_ASYNC = "async";
+    private static final String AUDIT_SINK = "audit.sink";
+    private static final String AUDIT_QUEUE_SIZE = "audit.queue.size";
+    private static final String AUDIT_BATCH_SIZE = "audit.batch.size";
+    private static final String AUDIT_FLUSH_INTERVAL = "audit.flush.interval";
+    private static final String AUDIT_OVERFLOW_POLICY = "audit.overflow.policy";
+    private static final String AUDIT_SAMPLE_RATE = "audit.sample.rate";
+    private static final String AUDIT_METRICS_INTERVAL = "audit.metrics.interval";
+    private static final String THREAD_NAME = "fortress-audit-writer";
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * Determines what happens to an event that arrives when the queue is full.
+     */
+    enum OverflowPolicy
+    {
+        DROP,
+        BLOCK,
+        SAMPLE
+    }
+
+    private static volatile AuditWriter sINSTANCE = null;
+
+    private final ConcurrentLinkedQueue<AuthZEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicInteger sampleCounter = new AtomicInteger();
+    private final ReentrantLock spaceLock = new ReentrantLock();
+    private final Condition spaceAvailable = spaceLock.newCondition();
+    private final AuditSink sink;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long metricsIntervalNanos;
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+
+    /**
+     * Return true if checkAccess audit events are to be written by this class, {@code audit.mode=async}.
+     *
+     * @return boolean value, default is false.
+     */
+    static boolean isAsync()
+    {
+        return AUDIT_MODE_ASYNC.equalsIgnoreCase( Config.getInstance().getProperty( AUDIT_MODE, "sync" ) );
+    }
+
+
+    static AuditWriter getInstance()
+    {
+        if ( sINSTANCE == null )
+        {
+            synchronized ( AuditWriter.class )
+            {
+                if ( sINSTANCE == null )
+                {
+                    sINSTANCE = new AuditWriter();
+                }
+            }
+        }
+        return sINSTANCE;
+    }
+
+
+    /**
+     * Private constructor
+     *
+     */
+    private AuditWriter()
+    {
+        this( createSink(), Config.getInstance().getInt( AUDIT_QUEUE_SIZE, 10000 ),
+            Config.getInstance().getInt( AUDIT_BATCH_SIZE, 100 ),
+            Config.getInstance().getInt( AUDIT_FLUSH_INTERVAL, 1000 ), getOverflowPolicy(),
+            Config.getInstance().getInt( AUDIT_SAMPLE_RATE, 10 ),
+            Config.getInstance().getInt( AUDIT_METRICS_INTERVAL, 0 ) );
+        Runtime.getRuntime().addShutdownHook( new Thread( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                shutdown();
+            }
+        }, THREAD_NAME + "-shutdown" ) );
+    }
+
+
+    /**
+     * Create a writer and start its thread.  Package private for tests, which stop it with {@link #shutdown()}.
+     *
+     * @param sink            receives the batches of events.
+     * @param capacity        maximum number of events waiting to be written.
+     * @param batchSize       maximum number of events passed to the sink at once.
+     * @param flushInterval   milliseconds the thread waits for a batch to fill before writing what is queued.
+     * @param policy          applied when the queue is full.
+     * @param sampleRate      one of every so many events is kept by the SAMPLE policy.
+     * @param metricsInterval seconds between logs of the counts, 0 for none.
+     */
+    AuditWriter( AuditSink sink, int capacity, int batchSize, long flushInterval, OverflowPolicy policy,
+        int sampleRate, int metricsInterval )
+    {
+        this.sink = sink;
+        this.capacity = Math.max( 1, capacity );
+        this.batchSize = Math.max( 1, batchSize );
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos( Math.max( 1, flushInterval ) );
+        this.metricsIntervalNanos = TimeUnit.SECONDS.toNanos( Math.max( 0, metricsInterval ) );
+        this.sampleRate = Math.max( 1, sampleRate );
+        this.policy = policy;
+
+        drainer = new Thread( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                drain();
+            }
+        }, THREAD_NAME );
+        drainer.setDaemon( true );
+        drainer.start();
+        LOG.info( "AuditWriter sink [{}] queue size [{}] batch size [{}] overflow policy [{}]",
+            sink.getClass().getName(), this.capacity, this.batchSize, policy );
+    }
+
+
+    /**
+     * Create the sink named by {@code audit.sink}.
+     */
+    private static AuditSink createSink()
+    {
+        String sinkClassName = Config.getInstance().getProperty( AUDIT_SINK, CompareAuditSink.class.getName() );
+        try
+        {
+            return ( AuditSink ) ClassUtil.createInstance( sinkClassName );
+        }
+        catch ( CfgException | ClassCastException e )
+        {
+            String error = "AuditWriter could not create sink [" + sinkClassName + "] caught " + e;
+            throw new CfgRuntimeException( GlobalErrIds.FT_AUDIT_SINK_INIT_FAILED, error, e );
+        }
+    }
+
+
+    private static OverflowPolicy getOverflowPolicy()
+    {
+        String value = Config.getInstance().getProperty( AUDIT_OVERFLOW_POLICY, OverflowPolicy.DROP.name() );
+        try
+        {
+            return OverflowPolicy.valueOf( value.trim().toUpperCase() );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            LOG.warn( "AuditWriter invalid {}, using {}", AUDIT_OVERFLOW_POLICY, OverflowPolicy.DROP );
+            return OverflowPolicy.DROP;
+        }
+    }
+
+
+    /**
+     * Place an event on the queue.  Does not wait unless the overflow policy is BLOCK and the queue is full.
+     *
+     * @param event contains the outcome of an authorization check.
+     */
+    void offer( AuthZEvent event )
+    {
+        if ( policy == OverflowPolicy.SAMPLE && depth.get() >= capacity / 2
+            && sampleCounter.incrementAndGet() % sampleRate != 0 )
+        {
+            sampledOut.increment();
+            return;
+        }
+
+        int current;
+        while ( true )
+        {
+            current = depth.get();
+            if ( current >= capacity )
+            {
+                if ( policy == OverflowPolicy.BLOCK && running && awaitSpace() )
+                {
+                    continue;
+                }
+                dropped.increment();
+                return;
+            }
+            if ( depth.compareAndSet( current, current + 1 ) )
+            {
+                break;
+            }
+        }
+
+        queue.offer( event );
+        enqueued.increment();
+        if ( current + 1 == batchSize )
+        {
+            LockSupport.unpark( drainer );
+        }
+    }
+
+
+    /**
+     * Wait until the writer thread takes events off of the full queue.  Called by offer when the overflow policy is BLOCK.
+     *
+     * @return false if the writer was stopped or the caller interrupted while waiting, in which case the event is dropped.
+     */
+    private boolean awaitSpace()
+    {
+        spaceLock.lock();
+        try
+        {
+            while ( running && depth.get() >= capacity )
+            {
+                LockSupport.unpark( drainer );
+                spaceAvailable.await();
+            }
+            return running;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        finally
+        {
+            spaceLock.unlock();
+        }
+    }
+
+
+    /**
+     * Wake the callers waiting in {@link #awaitSpace()}.
+     */
+    private void signalSpace()
+    {
+        spaceLock.lock();
+        try
+        {
+            spaceAvailable.signalAll();
+        }
+        finally
+        {
+            spaceLock.unlock();
+        }
+    }
+
+
+    /**
+     * Loop run by the writer thread until shutdown.
+     */
+    private void drain()
+    {
+        long lastMetrics = System.nanoTime();
+        while ( running )
+        {
+            if ( depth.get() < batchSize )
+            {
+                LockSupport.parkNanos( this, flushIntervalNanos );
+            }
+            flush();
+            if ( metricsIntervalNanos > 0 && System.nanoTime() - lastMetrics >= metricsIntervalNanos )
+            {
+                lastMetrics = System.nanoTime();
+                LOG.info( "AuditWriter depth [{}] enqueued [{}] written [{}] dropped [{}] sampledOut [{}] failed [{}]",
+                    getDepth(), getEnqueued(), getWritten(), getDropped(), getSampledOut(), getFailed() );
+            }
+        }
+    }
+
+
+    /**
+     * Write everything currently on the queue to the sink, one batch at a time.
+     */
+    private synchronized void flush()
+    {
+        List<AuthZEvent> batch = new ArrayList<>( batchSize );
+        while ( true )
+        {
+            AuthZEvent event;
+            while ( batch.size() < batchSize && ( event = queue.poll() ) != null )
+            {
+                depth.decrementAndGet();
+                batch.add( event );
+            }
+            if ( batch.isEmpty() )
+            {
+                return;
+            }
+            if ( policy == OverflowPolicy.BLOCK )
+            {
+                signalSpace();
+            }
+            try
+            {
+                sink.write( batch );
+                written.add( batch.size() );
+            }
+            catch ( SecurityException | RuntimeException e )
+            {
+                failed.add( batch.size() );
+                LOG.warn( "flush sink failed to write [{}] events, caught {}", batch.size(), e.getMessage() );
+            }
+            batch.clear();
+        }
+    }
+
+
+    /**
+     * Stop the writer thread, write the events that remain on the queue and close the sink.  The writer thread is woken
+     * rather than interrupted so a batch it is writing is not cut short.  If it has not stopped within ten seconds the
+     * sink is left open, as the thread may still be using it, and the events on the queue are not written.  Called by
+     * the shutdown hook, package private for tests.
+     */
+    void shutdown()
+    {
+        running = false;
+        signalSpace();
+        LockSupport.unpark( drainer );
+        try
+        {
+            drainer.join( SHUTDOWN_TIMEOUT_MILLIS );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        if ( drainer.isAlive() )
+        {
+            LOG.warn( "shutdown writer thread did not stop within [{}] ms, [{}] events not written",
+                SHUTDOWN_TIMEOUT_MILLIS, getDepth() );
+            return;
+        }
+        flush();
+        sink.close();
+    }
+
+
+    /**
+     * @return number of events waiting to be written.
+     */
+    int getDepth()
+    {
+        return depth.get();
+    }
+
+
+    /**
+     * @return maximum number of events that may wait to be written.
+     */
+    int getCapacity()
+    {
+        return capacity;
+    }
+
+
+    /**
+     * @return number of events placed on the queue.
+     */
+    long getEnqueued()
+    {
+        return enqueued.sum();
+    }
+
+
+    /**
+     * @return number of events discarded because the queue was full.
+     */
+    long getDropped()
+    {
+        return dropped.sum();
+    }
+
+
+    /**
+     * @return number of events discarded by the SAMPLE overflow policy.
+     */
+    long getSampledOut()
+    {
+        return sampledOut.sum();
+    }
+
+
+    /**
+     * @return number of events passed to the sink successfully.
+     */
+    long getWritten()
+    {
+        return written.sum();
+    }
+
+
+    /**
+     * @return number of events the sink failed to write.
+     */
+    long getFailed()
+    {
+        return failed.sum();
+    }
+}
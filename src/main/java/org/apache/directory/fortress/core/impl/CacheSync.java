@@ -0,0 +1,484 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.api.ldap.extras.controls.SynchronizationModeEnum;
+import org.apache.directory.api.ldap.extras.controls.syncrepl.syncInfoValue.SyncRequestValue;
+import org.apache.directory.api.ldap.extras.controls.syncrepl.syncInfoValue.SyncRequestValueImpl;
+import org.apache.directory.api.ldap.extras.controls.syncrepl.syncState.SyncStateTypeEnum;
+import org.apache.directory.api.ldap.extras.controls.syncrepl.syncState.SyncStateValue;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.cursor.CursorException;
+import org.apache.directory.api.ldap.model.cursor.SearchCursor;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidAttributeValueException;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.SearchRequest;
+import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
+import org.apache.directory.api.ldap.model.message.SearchResultEntry;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.ChangeType;
+import org.apache.directory.api.ldap.model.message.controls.EntryChange;
+import org.apache.directory.api.ldap.model.message.controls.PersistentSearch;
+import org.apache.directory.api.ldap.model.message.controls.PersistentSearchImpl;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.ldap.LdapDataProvider;
+import org.apache.directory.fortress.core.model.OrgUnit;
+import org.apache.directory.fortress.core.model.Permission;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.cache.CacheMgr;
+import org.apache.directory.ldap.client.api.LdapConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This class listens for changes made to the Fortress data in ldap, by any process, and clears or reloads the cache
+ * entries they affect.  The caches of every process sharing a directory then stay current without waiting for their
+ * time-to-live to expire, so the time-to-live in {@code ehcache.xml} can be set much longer.
+ * <p>
+ * It is switched off by default and may be enabled by setting {@code enable.cache.sync=true} in the fortress properties.
+ * Once any of the cache utilities is initialized, a daemon thread runs a search of the suffix that does not end, on a
+ * connection of its own that is bound as the admin user:
+ * <ul>
+ * <li>If the server supports persistent search (ApacheDS), only changes are returned, each with an entry change
+ * notification.</li>
+ * <li>Otherwise if it supports content synchronization, RFC 4533 (OpenLDAP with the syncprov overlay), the search runs
+ * in refreshAndPersist mode.  The entries returned before the first sync info message are the current content, not
+ * changes, and are skipped.</li>
+ * <li>Otherwise the thread ends and the caches rely on their time-to-live.</li>
+ * </ul>
+ * The dn of each changed entry is matched against the roots in the fortress properties, with or without an
+ * {@code ou=contextId} above the suffix, to find the cache and tenant it affects:
+ * <ul>
+ * <li>{@code role.root}, {@code adminrole.root}: the hierarchy is reloaded in the background by {@link RoleUtil} or
+ * {@link AdminRoleUtil}.</li>
+ * <li>{@code userou.root}, {@code permou.root}: the hierarchy is reloaded by {@link UsoUtil} or {@link PsoUtil}, and
+ * the set of OU names in {@link OrgUnitP} is cleared.</li>
+ * <li>{@code sdconstraint.root}: the DSD index and the SSD entries of the tenant are cleared from {@link SDUtil}.</li>
+ * <li>{@code perm.root}, {@code adminperm.root}: the permission operation is cleared from {@link PermUtil}, or every
+ * permission if the change does not carry its name.</li>
+ * <li>{@code pwpolicy.root}: the set of policy names in {@link PolicyP} is cleared.</li>
+ * <li>{@code user.root}: the role assignments of the user are replaced in {@link UserRoleIndex}, or removed if it was
+ * deleted, and its ou is cleared from {@link EntityOuCache}.  Users are only followed when {@code enable.user.role.index} is set.</li>
+ * </ul>
+ * Policies kept outside the suffix, i.e. under {@code ou=config} on ApacheDS, are not followed.  A process also receives
+ * its own changes, which cost a redundant reload.  Reloads of one hierarchy coalesce, so a burst of changes is not
+ * followed by a reload for each.
+ * <p>
+ * If the search fails for any reason, every cache is cleared since changes may have been missed, and it is started again
+ * after {@code cache.sync.retry.interval} seconds, default 30.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class CacheSync extends LdapDataProvider implements Runnable
+{
+    private static final String CLS_NM = CacheSync.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String ENABLE_CACHE_SYNC = "enable.cache.sync";
+    private static final String CACHE_SYNC_RETRY_INTERVAL = "cache.sync.retry.interval";
+    private static final String[] ATTRS =
+        {
+            GlobalIds.POBJ_NAME, GlobalIds.POP_NAME, GlobalIds.POBJ_ID, SchemaConstants.UID_AT, GlobalIds.USER_ROLE_ASSIGN
+    };
+    private static final String FILTER = "(" + SchemaConstants.OBJECT_CLASS_AT + "=" + GlobalIds.ROLE_OBJECT_CLASS_NM
+        + ")(" + SchemaConstants.OBJECT_CLASS_AT + "=ftOperation)(" + SchemaConstants.OBJECT_CLASS_AT + "=ftSSDSet)("
+        + SchemaConstants.OBJECT_CLASS_AT + "=ftDSDSet)(" + SchemaConstants.OBJECT_CLASS_AT + "=ftOrgUnit)("
+        + SchemaConstants.OBJECT_CLASS_AT + "=pwdPolicy)";
+    private static final String USER_FILTER = "(" + SchemaConstants.OBJECT_CLASS_AT + "=ftUserAttrs)";
+    private static final AtomicBoolean isStarted = new AtomicBoolean();
+
+    /**
+     * The areas of the DIT whose changes affect a cache.
+     */
+    private enum Area
+    {
+        ROLE, ADMIN_ROLE, USER_OU, PERM_OU, SD, PERM, ADMIN_PERM, POLICY, USER
+    }
+
+    private final String suffix;
+    private final String filter;
+    private final List<Root> roots = new ArrayList<>();
+    private final long retryMillis;
+
+
+    /**
+     * Start listening for changes if {@code enable.cache.sync} is set.  Only the first call has an effect.
+     */
+    static void start()
+    {
+        if ( Config.getInstance().getBoolean( ENABLE_CACHE_SYNC, false ) && isStarted.compareAndSet( false, true ) )
+        {
+            Thread thread = new Thread( new CacheSync(), "fortress-cache-sync" );
+            thread.setDaemon( true );
+            thread.start();
+        }
+    }
+
+
+    /**
+     * Package private constructor, used by {@link #start()} and by tests that pass changes to {@link #onChange}.
+     */
+    CacheSync()
+    {
+        suffix = normalize( Config.getInstance().getProperty( GlobalIds.SUFFIX ) );
+        retryMillis = TimeUnit.SECONDS.toMillis( Config.getInstance().getInt( CACHE_SYNC_RETRY_INTERVAL, 30 ) );
+        addRoot( GlobalIds.ROLE_ROOT, Area.ROLE );
+        addRoot( GlobalIds.ADMIN_ROLE_ROOT, Area.ADMIN_ROLE );
+        addRoot( GlobalIds.OSU_ROOT, Area.USER_OU );
+        addRoot( GlobalIds.PSU_ROOT, Area.PERM_OU );
+        addRoot( GlobalIds.SD_ROOT, Area.SD );
+        addRoot( GlobalIds.PERM_ROOT, Area.PERM );
+        addRoot( GlobalIds.ADMIN_PERM_ROOT, Area.ADMIN_PERM );
+        addRoot( Config.getInstance().isOpenldap() ? GlobalIds.PPOLICY_ROOT : GlobalIds.ADS_PPOLICY_ROOT, Area.POLICY );
+        // users change often, so they are only followed when there is an index to keep current:
+        if ( UserRoleIndex.isEnabled() )
+        {
+            addRoot( GlobalIds.USER_ROOT, Area.USER );
+            filter = "(|" + FILTER + USER_FILTER + ")";
+        }
+        else
+        {
+            filter = "(|" + FILTER + ")";
+        }
+    }
+
+
+    /**
+     * Keep the part of a root above the suffix.  Roots that are not configured, or not under the suffix, are skipped.
+     */
+    private void addRoot( String name, Area area )
+    {
+        String root = Config.getInstance().getProperty( name );
+        if ( StringUtils.isEmpty( root ) )
+        {
+            return;
+        }
+        root = normalize( root );
+        if ( !StringUtils.endsWithIgnoreCase( root, "," + suffix ) )
+        {
+            LOG.info( "addRoot {} [{}] is not under the suffix, its changes are not followed", name, root );
+            return;
+        }
+        roots.add( new Root( area, root.substring( 0, root.length() - suffix.length() - 1 ) ) );
+    }
+
+
+    @Override
+    public void run()
+    {
+        while ( true )
+        {
+            LdapConnection connection = null;
+            try
+            {
+                connection = getListenerConnection();
+                if ( connection.isControlSupported( PersistentSearch.OID ) )
+                {
+                    LOG.info( "run listening for changes with persistent search" );
+                    listen( connection, newPersistentSearch(), false );
+                }
+                else if ( connection.isControlSupported( SyncRequestValue.OID ) )
+                {
+                    LOG.info( "run listening for changes with content synchronization" );
+                    listen( connection, newSyncRequest(), true );
+                }
+                else
+                {
+                    LOG.info( "run server supports neither persistent search nor content synchronization, caches "
+                        + "rely on their time-to-live" );
+                    return;
+                }
+                LOG.warn( "run search for changes ended" );
+            }
+            catch ( LdapException | CursorException | RuntimeException e )
+            {
+                // any failure ends this search but never the thread, which would leave the caches unwatched:
+                LOG.warn( "run search for changes caught {}={}", e.getClass().getSimpleName(), e.getMessage() );
+            }
+            finally
+            {
+                closeListenerConnection( connection );
+            }
+
+            // changes may have been missed while the search was down:
+            try
+            {
+                CacheMgr.getInstance().clearAll();
+                UserRoleIndex.clearAll();
+            }
+            catch ( RuntimeException e )
+            {
+                LOG.warn( "run clearing caches caught {}={}", e.getClass().getSimpleName(), e.getMessage() );
+            }
+            try
+            {
+                Thread.sleep( retryMillis );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Run the search and pass each change to {@link #onChange} until the search ends or fails.
+     *
+     * @param isSync true if the control is a content synchronization request, whose search returns the current content
+     *               before the changes.
+     */
+    private void listen( LdapConnection connection, Control control, boolean isSync )
+        throws LdapException, CursorException
+    {
+        SearchRequest request = new SearchRequestImpl();
+        request.setBase( new Dn( suffix ) );
+        request.setScope( SearchScope.SUBTREE );
+        request.setFilter( filter );
+        request.addAttributes( ATTRS );
+        request.addControl( control );
+        SearchCursor cursor = connection.search( request );
+        try
+        {
+            boolean isRefreshed = !isSync;
+            while ( cursor.next() )
+            {
+                if ( cursor.isIntermediate() )
+                {
+                    isRefreshed = true;
+                }
+                else if ( cursor.isEntry() && isRefreshed )
+                {
+                    SearchResultEntry result = ( SearchResultEntry ) cursor.get();
+                    EntryChange change = ( EntryChange ) result.getControl( EntryChange.OID );
+                    Control syncState = result.getControl( SyncStateValue.OID );
+                    boolean isDeleted = ( change != null && change.getChangeType() == ChangeType.DELETE )
+                        || ( syncState instanceof SyncStateValue
+                            && ( ( SyncStateValue ) syncState ).getSyncStateType() == SyncStateTypeEnum.DELETE );
+                    onChange( result.getObjectName().getName(), result.getEntry(), isDeleted );
+                    if ( change != null && change.getPreviousDn() != null )
+                    {
+                        // the entry was renamed:
+                        onChange( change.getPreviousDn().getName(), null, true );
+                    }
+                }
+            }
+        }
+        finally
+        {
+            try
+            {
+                cursor.close();
+            }
+            catch ( IOException e )
+            {
+                LOG.debug( "listen caught IOException closing cursor={}", e.getMessage() );
+            }
+        }
+    }
+
+
+    /**
+     * Clear or reload the cache entries affected by a change to an entry.
+     *
+     * @param dn        of the entry that was changed.
+     * @param entry     contains the attributes of the entry after the change, or null if not known.
+     * @param isDeleted true if the entry was deleted or renamed away from the dn.
+     */
+    void onChange( String dn, Entry entry, boolean isDeleted )
+    {
+        String szDn = normalize( dn );
+        Root root = null;
+        String contextId = null;
+        for ( Root candidate : roots )
+        {
+            String id = getContextId( szDn, candidate );
+            if ( id != null && ( root == null || candidate.dn.length() > root.dn.length() ) )
+            {
+                root = candidate;
+                contextId = id;
+            }
+        }
+        if ( root == null )
+        {
+            return;
+        }
+        LOG.debug( "onChange dn [{}] area [{}] contextId [{}]", szDn, root.area, contextId );
+        try
+        {
+            switch ( root.area )
+            {
+                case ROLE:
+                    RoleUtil.getInstance().refreshGraph( contextId );
+                    break;
+                case ADMIN_ROLE:
+                    AdminRoleUtil.refreshGraph( contextId );
+                    break;
+                case USER_OU:
+                    UsoUtil.getInstance().refreshGraph( contextId );
+                    OrgUnitP.clearCache( OrgUnit.Type.USER, contextId );
+                    break;
+                case PERM_OU:
+                    PsoUtil.getInstance().refreshGraph( contextId );
+                    OrgUnitP.clearCache( OrgUnit.Type.PERM, contextId );
+                    break;
+                case SD:
+                    SDUtil.getInstance().clearSdCache( contextId );
+                    break;
+                case PERM:
+                case ADMIN_PERM:
+                    clearPerm( entry, contextId, root.area == Area.ADMIN_PERM );
+                    break;
+                case POLICY:
+                    PolicyP.clearCache( contextId );
+                    break;
+                case USER:
+                    setUserRoles( szDn, isDeleted ? null : entry, contextId );
+                    break;
+            }
+        }
+        catch ( LdapException | RuntimeException e )
+        {
+            LOG.warn( "onChange dn [{}] caught {}={}", szDn, e.getClass().getSimpleName(), e.getMessage() );
+        }
+    }
+
+
+    /**
+     * Clear a permission operation from the index, or all of them if the change does not carry its name.
+     */
+    private void clearPerm( Entry entry, String contextId, boolean isAdmin ) throws LdapInvalidAttributeValueException
+    {
+        String objName = getAttribute( entry, GlobalIds.POBJ_NAME );
+        String opName = getAttribute( entry, GlobalIds.POP_NAME );
+        if ( objName == null || opName == null )
+        {
+            PermUtil.clearAll();
+            return;
+        }
+        Permission permission = new Permission( objName, opName, getAttribute( entry, GlobalIds.POBJ_ID ) );
+        permission.setAdmin( isAdmin );
+        permission.setContextId( contextId );
+        PermUtil.clearPerm( permission );
+    }
+
+
+    /**
+     * Replace the role assignments of a user in the index with those of the changed entry, or remove them if it was
+     * deleted, and clear the user's cached ou.
+     */
+    private void setUserRoles( String dn, Entry entry, String contextId ) throws LdapInvalidAttributeValueException
+    {
+        String userId = getAttribute( entry, SchemaConstants.UID_AT );
+        if ( userId == null )
+        {
+            // the rdn of a user entry is its uid:
+            String rdn = dn.substring( 0, dn.indexOf( ',' ) );
+            userId = rdn.substring( rdn.indexOf( '=' ) + 1 );
+        }
+        UserRoleIndex.setRoles( contextId, userId, getAttributes( entry, GlobalIds.USER_ROLE_ASSIGN ) );
+        EntityOuCache.clearUser( contextId, userId );
+    }
+
+
+    /**
+     * Return the contextId of an entry below a root, HOME if it is below the root of the default DIT, or null if it is
+     * not below the root.
+     */
+    private String getContextId( String dn, Root root )
+    {
+        if ( !StringUtils.endsWithIgnoreCase( dn, "," + suffix ) )
+        {
+            return null;
+        }
+        String rdns = dn.substring( 0, dn.length() - suffix.length() - 1 );
+        if ( StringUtils.endsWithIgnoreCase( rdns, "," + root.dn ) )
+        {
+            return GlobalIds.HOME;
+        }
+        // a tenant's DIT has ou=contextId between the root and the suffix:
+        int idx = rdns.lastIndexOf( ',' );
+        if ( idx > 0 && StringUtils.startsWithIgnoreCase( rdns.substring( idx + 1 ), SchemaConstants.OU_AT + "=" )
+            && StringUtils.endsWithIgnoreCase( rdns.substring( 0, idx ), "," + root.dn ) )
+        {
+            return rdns.substring( idx + SchemaConstants.OU_AT.length() + 2 );
+        }
+        return null;
+    }
+
+
+    private static PersistentSearch newPersistentSearch()
+    {
+        PersistentSearch psearch = new PersistentSearchImpl();
+        psearch.setCritical( true );
+        psearch.setChangesOnly( true );
+        psearch.setReturnECs( true );
+        psearch.setChangeTypes( PersistentSearch.CHANGE_TYPES_MAX );
+        return psearch;
+    }
+
+
+    private static SyncRequestValue newSyncRequest()
+    {
+        SyncRequestValue syncRequest = new SyncRequestValueImpl( true );
+        syncRequest.setMode( SynchronizationModeEnum.REFRESH_AND_PERSIST );
+        return syncRequest;
+    }
+
+
+    /**
+     * Remove the spaces around the separators of a dn, i.e. {@code ou=Roles, ou=RBAC} becomes {@code ou=Roles,ou=RBAC}.
+     */
+    private static String normalize( String dn )
+    {
+        return dn.trim().replaceAll( "\\s*([,=])\\s*", "$1" );
+    }
+
+
+    /**
+     * A root, less the suffix, and the area of the DIT it holds.
+     */
+    private static final class Root
+    {
+        private final Area area;
+        private final String dn;
+
+
+        private Root( Area area, String dn )
+        {
+            this.area = area;
+            this.dn = dn;
+        }
+    }
+}
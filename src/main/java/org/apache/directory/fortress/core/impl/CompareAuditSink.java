@@ -0,0 +1,105 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.io.UnsupportedEncodingException;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.entry.DefaultAttribute;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.exception.LdapNoSuchObjectException;
+import org.apache.directory.fortress.core.FinderException;
+import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.ldap.LdapDataProvider;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.audit.AuditSink;
+import org.apache.directory.fortress.core.util.audit.AuthZEvent;
+import org.apache.directory.ldap.client.api.LdapConnection;
+
+
+/**
+ * This sink records authorization events with ldap compare operations, one per event, against the permission operation
+ * that was checked.  The compare triggers slapd access log storage of an 'auditCompare' record with the end user's dn asserted
+ * using OpenLDAP's Proxy Authorization Control.  This is the same audit trail left by synchronous checkAccess calls, but a single
+ * admin connection is borrowed for every batch rather than one per check.
+ * <p>
+ * Events are discarded if the directory server is not OpenLDAP.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class CompareAuditSink extends LdapDataProvider implements AuditSink
+{
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( List<AuthZEvent> events ) throws FinderException
+    {
+        if ( !Config.getInstance().isOpenldap() )
+        {
+            return;
+        }
+
+        LdapConnection ld = null;
+        try
+        {
+            ld = getAdminConnection();
+            for ( AuthZEvent event : events )
+            {
+                try
+                {
+                    compareNode( ld, event.getPermDn(), event.getUserDn(),
+                        new DefaultAttribute( GlobalIds.POP_NAME, event.getAssertionValue() ) );
+                }
+                catch ( LdapNoSuchObjectException e )
+                {
+                    // The permission was removed after the check occurred, continue with the rest of the batch.
+                }
+            }
+        }
+        catch ( UnsupportedEncodingException ee )
+        {
+            String error = "write caught UnsupportedEncodingException=" + ee.getMessage();
+            throw new FinderException( GlobalErrIds.PERM_COMPARE_OP_FAILED, error, ee );
+        }
+        catch ( LdapException e )
+        {
+            String error = "write caught LdapException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.PERM_COMPARE_OP_FAILED, error, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close()
+    {
+    }
+}
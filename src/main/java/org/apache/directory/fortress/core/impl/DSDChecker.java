@@ -20,8 +20,12 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.directory.fortress.core.GlobalErrIds;
@@ -47,6 +51,10 @@ import org.slf4j.LoggerFactory;
  * authorized roles).
  * This validator will ensure the role being targeted for activation does not violate RBAC dynamic separation of duty 
  * constraints.
+ * <p>
+ * The DSD sets of each role are found in the {@link SdIndex} of the tenant, so only the sets that contain a candidate, or
+ * a role a candidate inherits, are checked.  They are checked one set at a time, as described in
+ * {@link #validate(Session, SdIndex, Map, String, String)}.
  * <h3></h3>
  * <h4> Constraint Targets include</h4>
  * <ol>
@@ -80,7 +88,6 @@ public class DSDChecker
         throws org.apache.directory.fortress.core.SecurityException
     {
         int rc = 0;
-        int matchCount;
 
         // get all candidate activated roles user:
         List<UserRole> activeRoleList = session.getRoles();
@@ -97,75 +104,132 @@ public class DSDChecker
         String entityType = session.isGroupSession() ? "groupName" : "userId";
 
         // get the list of authorized roles for this user/group:
-        Set<String> authorizedRoleSet = RoleUtil.getInstance().getInheritedRoles( activeRoleList, contextId);
+        Set<String> authorizedRoleSet = RoleUtil.getInstance().getInheritedRoles( session, contextId );
         // only need to check DSD constraints if more than one role is being activated:
         if ( authorizedRoleSet != null && authorizedRoleSet.size() > 1 )
         {
-            // get all DSD sets that contain the candidate activated and authorized roles,
-            //If DSD cache is disabled, this will search the directory using authorizedRoleSet
-            Set<SDSet> dsdSets = SDUtil.getInstance().getDsdCache( authorizedRoleSet, contextId);
-            if ( dsdSets != null && dsdSets.size() > 0 )
+            // get the DSD sets of the tenant, if DSD cache is disabled only those that contain an authorized role:
+            SdIndex dsdIndex = SDUtil.getInstance().getDsdIndex( authorizedRoleSet, contextId );
+            if ( !dsdIndex.isEmpty() )
             {
-                for ( SDSet dsd : dsdSets )
+                Map<String, Set<String>> parentSets = new HashMap<>();
+                for ( UserRole activatedRole : activeRoleList )
                 {
-                    Iterator<UserRole> activatedRoles = activeRoleList.iterator();
-                    matchCount = 0;
-                    Set<String> map = dsd.getMembers();
+                    parentSets.put( activatedRole.getName(),
+                        RoleUtil.getInstance().getAscendants( activatedRole.getName(), contextId ) );
+                }
+                rc = validate( session, dsdIndex, parentSets, entityType, entityId );
+            }
+        }
+        return rc;
+    }
 
-                    // now check the DSD on every role activation candidate contained within session object:
-                    while ( activatedRoles.hasNext() )
-                    {
-                        UserRole activatedRole = activatedRoles.next();
 
-                        if ( map.contains( activatedRole.getName() ) )
+    /**
+     * Check the role activation candidates of a session against each DSD set that one of them, or a role one of them
+     * inherits, is a member of.  The sets are checked one after the other, in the order of the index.  Within a set the
+     * candidates are counted in the order they appear in the session, directly if the role is a member of the set, else
+     * once for each inherited role that is a member.  The candidate that brings the count up to the cardinality of the
+     * set is removed from the session, as is every later candidate that matches the set.  A removed candidate still counts
+     * against the rest of the set it violated but is not seen by the sets checked after it.
+     *
+     * @param session    contains list of RBAC roles {@link org.apache.directory.fortress.core.model.UserRole} targeted for activation.
+     * @param dsdIndex   contains the DSD sets of the tenant.
+     * @param parentSets contains the roles inherited by each candidate, keyed by role name.
+     * @param entityType either "userId" or "groupName", used in the warnings.
+     * @param entityId   the userId or group name of the session, used in the warnings.
+     * @return '0' if validation succeeds else {@link org.apache.directory.fortress.core.GlobalErrIds#ACTV_FAILED_DSD} if failed.
+     */
+    static int validate( Session session, SdIndex dsdIndex, Map<String, Set<String>> parentSets,
+        String entityType, String entityId )
+    {
+        int rc = 0;
+        List<UserRole> activeRoleList = session.getRoles();
+
+        // find the sets that may be violated, so the others are not iterated:
+        BitSet sdIds = new BitSet( dsdIndex.size() );
+        for ( UserRole activatedRole : activeRoleList )
+        {
+            addSets( sdIds, dsdIndex, activatedRole.getName() );
+            for ( String parentRole : getParents( parentSets, activatedRole.getName() ) )
+            {
+                addSets( sdIds, dsdIndex, parentRole );
+            }
+        }
+
+        for ( int id = sdIds.nextSetBit( 0 ); id >= 0; id = sdIds.nextSetBit( id + 1 ) )
+        {
+            SDSet dsd = dsdIndex.getSet( id );
+            int matchCount = 0;
+            Iterator<UserRole> activatedRoles = activeRoleList.iterator();
+
+            // now check the DSD on every role activation candidate contained within session object:
+            while ( activatedRoles.hasNext() )
+            {
+                UserRole activatedRole = activatedRoles.next();
+                String warning = null;
+
+                if ( SdIndex.contains( dsdIndex.getSets( activatedRole.getName() ), id ) )
+                {
+                    matchCount++;
+                    if ( matchCount >= dsdIndex.getCardinality( id ) )
+                    {
+                        warning = "validate " + entityType + " [" + entityId
+                            + "] failed activation of assignedRole [" + activatedRole.getName()
+                            + "] validates DSD Set Name:" + dsd.getName() + " Cardinality:"
+                            + dsd.getCardinality();
+                    }
+                }
+                else
+                {
+                    // now check for every role inherited from this activated role:
+                    for ( String parentRole : getParents( parentSets, activatedRole.getName() ) )
+                    {
+                        if ( SdIndex.contains( dsdIndex.getSets( parentRole ), id ) )
                         {
                             matchCount++;
-                            if ( matchCount >= dsd.getCardinality() )
-                            {
-                                activatedRoles.remove();
-                                String warning = "validate " + entityType + " [" + entityId
-                                    + "] failed activation of assignedRole [" + activatedRole.getName()
-                                    + "] validates DSD Set Name:" + dsd.getName() + " Cardinality:"
-                                    + dsd.getCardinality();
-                                LOG.warn( warning );
-                                rc = GlobalErrIds.ACTV_FAILED_DSD;
-                                session.setWarning( new ObjectFactory().createWarning( rc, warning,
-                                    Warning.Type.ROLE, activatedRole.getName() ) );
-                            }
-                        }
-                        else
-                        {
-                            Set<String> parentSet = RoleUtil.getInstance().getAscendants( activatedRole.getName(), contextId);
-                            // now check for every role inherited from this activated role:
-                            for ( String parentRole : parentSet )
+                            if ( matchCount >= dsdIndex.getCardinality( id ) )
                             {
-                                if ( map.contains( parentRole ) )
-                                {
-                                    matchCount++;
-                                    if ( matchCount >= dsd.getCardinality() )
-                                    {
-                                        String warning = "validate " + entityType + " [" + entityId
-                                            + "] assignedRole [" + activatedRole.getName() + "] parentRole ["
-                                            + parentRole + "] validates DSD Set Name:" + dsd.getName()
-                                            + " Cardinality:" + dsd.getCardinality();
-                                        rc = GlobalErrIds.ACTV_FAILED_DSD;
-
-                                        // remove the assigned role from session (not the authorized role):
-                                        activatedRoles.remove();
-
-                                        session.setWarning( new ObjectFactory().createWarning( rc, warning,
-                                            Warning.Type.ROLE, activatedRole.getName() ) );
-                                        LOG.warn( warning );
-                                        // Breaking out of the loop because assigned role has been removed from session.
-                                        break;
-                                    }
-                                }
+                                warning = "validate " + entityType + " [" + entityId
+                                    + "] assignedRole [" + activatedRole.getName() + "] parentRole ["
+                                    + parentRole + "] validates DSD Set Name:" + dsd.getName()
+                                    + " Cardinality:" + dsd.getCardinality();
+                                // the assigned role is removed, its other parents are not counted:
+                                break;
                             }
                         }
                     }
                 }
+
+                if ( warning != null )
+                {
+                    rc = GlobalErrIds.ACTV_FAILED_DSD;
+
+                    // remove the assigned role from session (not the authorized role):
+                    activatedRoles.remove();
+
+                    session.setWarning( new ObjectFactory().createWarning( rc, warning,
+                        Warning.Type.ROLE, activatedRole.getName() ) );
+                    LOG.warn( warning );
+                }
             }
         }
         return rc;
     }
-}
\ No newline at end of file
+
+
+    private static void addSets( BitSet sdIds, SdIndex dsdIndex, String roleName )
+    {
+        for ( int id : dsdIndex.getSets( roleName ) )
+        {
+            sdIds.set( id );
+        }
+    }
+
+
+    private static Set<String> getParents( Map<String, Set<String>> parentSets, String roleName )
+    {
+        Set<String> parentSet = parentSets.get( roleName );
+        return parentSet != null ? parentSet : Collections.<String>emptySet();
+    }
+}
@@ -236,7 +236,10 @@ public class DelAccessMgrImpl extends AccessMgrImpl implements DelAccessMgr, Ser
         assertContext(CLS_NM, methodName, session, GlobalErrIds.USER_SESS_NULL);
         assertContext( CLS_NM, methodName, session.getUser(), GlobalErrIds.USER_NULL );
         setEntitySession(CLS_NM, methodName, session);
-        return AdminRoleUtil.getInheritedRoles( session.getAdminRoles(), this.contextId );
+        // Return a copy, the set held by the session is shared with later checks:
+        Set<String> iRoles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        iRoles.addAll( AdminRoleUtil.getInheritedRoles( session, this.contextId ) );
+        return iRoles;
     }
 
     /**
@@ -271,7 +274,7 @@ public class DelAccessMgrImpl extends AccessMgrImpl implements DelAccessMgr, Ser
         if(CollectionUtils.isNotEmpty( uaRoles ))
         {
             // validate user and retrieve user' ou:
-            User ue = userP.read(user, false);
+            String userOu = EntityOuCache.getInstance().getUserOu( user );
             for(UserAdminRole uaRole : uaRoles)
             {
                 if(uaRole.getName().equalsIgnoreCase(SUPER_ADMIN))
@@ -282,17 +285,8 @@ public class DelAccessMgrImpl extends AccessMgrImpl implements DelAccessMgr, Ser
                 Set<String> osUs = uaRole.getOsUSet();
                 if(CollectionUtils.isNotEmpty( osUs ))
                 {
-                    // create Set with case insensitive comparator:
-                    Set<String> osUsFinal = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-                    for(String osU : osUs)
-                    {
-                        // Add osU children to the set:
-                        osUsFinal.add(osU);
-                        Set<String> children = UsoUtil.getInstance().getDescendants( osU, this.contextId );
-                        osUsFinal.addAll(children);
-                    }
-                    // does the admin role have authority over the user object?
-                    if(osUsFinal.contains(ue.getOu()))
+                    // does the admin role have authority over the user object, i.e. is its ou one of osUs or their descendants?
+                    if(UsoUtil.getInstance().isInScope( uaRole, userOu, this.contextId ))
                     {
                         // Get the Role range for admin role:
                         Set<String> range;
@@ -345,7 +339,7 @@ public class DelAccessMgrImpl extends AccessMgrImpl implements DelAccessMgr, Ser
             // validate perm and retrieve perm's ou:
             PermObj inObj = new PermObj(perm.getObjName());
             inObj.setContextId(contextId);
-            PermObj pObj = permP.read(inObj);
+            String permOu = EntityOuCache.getInstance().getPermObjOu( inObj );
             for(UserAdminRole uaRole : uaRoles)
             {
                 if(uaRole.getName().equalsIgnoreCase(SUPER_ADMIN))
@@ -356,17 +350,8 @@ public class DelAccessMgrImpl extends AccessMgrImpl implements DelAccessMgr, Ser
                 Set<String> osPs = uaRole.getOsPSet();
                 if(CollectionUtils.isNotEmpty( osPs ))
                 {
-                    // create Set with case insensitive comparator:
-                    Set<String> osPsFinal = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-                    for(String osP : osPs)
-                    {
-                        // Add osU children to the set:
-                        osPsFinal.add(osP);
-                        Set<String> children = PsoUtil.getInstance().getDescendants( osP, this.contextId );
-                        osPsFinal.addAll(children);
-                    }
-                    // does the admin role have authority over the perm object?
-                    if(osPsFinal.contains(pObj.getOu()))
+                    // does the admin role have authority over the perm object, i.e. is its ou one of osPs or their descendants?
+                    if(PsoUtil.getInstance().isInScope( uaRole, permOu, this.contextId ))
                     {
                         // Get the Role range for admin role:
                         Set<String> range;
@@ -121,6 +121,7 @@ public final class DelAdminMgrImpl extends Manageable implements DelAdminMgr, Se
             }
         }
         permP.remove(role);
+        PermUtil.clearAll();
         // remove all parent relationships from the role graph:
         Set<String> parents = AdminRoleUtil.getParents(role.getName(), this.contextId);
         if(parents != null)
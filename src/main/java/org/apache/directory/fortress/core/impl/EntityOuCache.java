@@ -0,0 +1,170 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.model.PermObj;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.util.cache.Cache;
+import org.apache.directory.fortress.core.util.cache.CacheMgr;
+
+
+/**
+ * This utility caches the ou of users and permission objects for the delegated administration checks in
+ * {@link DelAccessMgrImpl}, which only need to know which ou the target of a canAssign, canDeassign, canGrant or
+ * canRevoke belongs to.  Without it, each of those calls reads the whole entry from ldap.
+ * <p>
+ * The ous are stored in the {@code fortress.entity.ous} cache.  Its size bound and time-to-live are set in
+ * {@code ehcache.xml}; the time-to-live bounds how long a change made by another process goes unseen.  Entries are cleared
+ * by {@link UserP} and {@link PermP} when a user or permission object is updated or deleted.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class EntityOuCache
+{
+    private static final String FORTRESS_ENTITY_OUS = "fortress.entity.ous";
+    private static final String USER = "USER";
+    private static final String PERM_OBJ = "PERM";
+
+    private static volatile EntityOuCache sINSTANCE = null;
+
+    private final Cache ouCache;
+    private final UserP userP = new UserP();
+    private final PermP permP = new PermP();
+
+
+    static EntityOuCache getInstance()
+    {
+        if ( sINSTANCE == null )
+        {
+            synchronized ( EntityOuCache.class )
+            {
+                if ( sINSTANCE == null )
+                {
+                    sINSTANCE = new EntityOuCache();
+                }
+            }
+        }
+        return sINSTANCE;
+    }
+
+
+    /**
+     * Private constructor
+     *
+     */
+    private EntityOuCache()
+    {
+        ouCache = CacheMgr.getInstance().getCache( FORTRESS_ENTITY_OUS );
+    }
+
+
+    /**
+     * Return the ou of a user, reading the user from ldap if it is not cached.
+     *
+     * @param user contains the userId and contextId.
+     * @return name of the user's ou.
+     * @throws SecurityException if the user is not found or in the event of system error.
+     */
+    String getUserOu( User user ) throws SecurityException
+    {
+        String key = getKey( USER, user.getContextId(), user.getUserId() );
+        String ou = ( String ) ouCache.get( key );
+        if ( ou == null )
+        {
+            try
+            {
+                ou = userP.read( user, false ).getOu();
+            }
+            finally
+            {
+                // the cache blocks other readers of a key that was not found until it is put, even if the read failed:
+                ouCache.put( key, ou );
+            }
+        }
+        return ou;
+    }
+
+
+    /**
+     * Return the ou of a permission object, reading the object from ldap if it is not cached.
+     *
+     * @param permObj contains the object name and contextId.
+     * @return name of the permission object's ou.
+     * @throws SecurityException if the object is not found or in the event of system error.
+     */
+    String getPermObjOu( PermObj permObj ) throws SecurityException
+    {
+        String key = getKey( PERM_OBJ, permObj.getContextId(), permObj.getObjName() );
+        String ou = ( String ) ouCache.get( key );
+        if ( ou == null )
+        {
+            try
+            {
+                ou = permP.read( permObj ).getOu();
+            }
+            finally
+            {
+                ouCache.put( key, ou );
+            }
+        }
+        return ou;
+    }
+
+
+    /**
+     * Remove the ou of a user from the cache.  Called after the user has been updated or deleted.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @param userId    of the user.
+     */
+    static void clearUser( String contextId, String userId )
+    {
+        getInstance().ouCache.clear( getKey( USER, contextId, userId ) );
+    }
+
+
+    /**
+     * Remove the ou of a permission object from the cache.  Called after the object has been updated or deleted.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @param objName   of the permission object.
+     */
+    static void clearPermObj( String contextId, String objName )
+    {
+        getInstance().ouCache.clear( getKey( PERM_OBJ, contextId, objName ) );
+    }
+
+
+    private static String getKey( String type, String contextId, String name )
+    {
+        String key = GlobalIds.HOME;
+        if ( StringUtils.isNotEmpty( contextId ) && !contextId.equals( GlobalIds.NULL ) )
+        {
+            key = contextId;
+        }
+        return ( type + ":" + key + ":" + name ).toUpperCase();
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.model.Hier;
+import org.apache.directory.fortress.core.model.Relationship;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.cache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This class keeps the hierarchy graphs of one of the hierarchy utilities, {@link RoleUtil}, {@link AdminRoleUtil},
+ * {@link UsoUtil} or {@link PsoUtil}, loaded in their cache.
+ * <p>
+ * A graph that is not in the cache is read from ldap by the first caller to ask for it.  The cache blocks other callers
+ * of the same contextId until it is stored, callers of other contextIds are not held up.
+ * <p>
+ * A graph found in the cache that was loaded more than {@code hier.refresh.interval} seconds ago, default 300, is
+ * reloaded by a background thread.  Callers continue to use the current graph until the new one replaces it in the cache,
+ * along with its {@link HierClosure}, so the graph is renewed before its time-to-live in {@code ehcache.xml} expires and
+ * nobody waits on ldap.  Only one reload runs per contextId at a time.  The interval should be set below the cache's
+ * time-to-live, and 0 disables the reload.
+ * <p>
+ * A graph is never modified once it is stored in the cache.  Every change stores a new graph and closure in its place, so
+ * callers may read the graph they were given without locking it.
+ * <p>
+ * Edge changes made by {@link #updateHier(String, String, Relationship, Hier.Op)} while a reload is reading ldap would be
+ * lost when it replaces the graph, so such a reload is repeated.
+ * <p>
+ * {@link #refresh(String)} reloads the graphs of a contextId straight away.  It is called by {@link CacheSync} when
+ * another process changes a hierarchy in ldap.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class GraphLoader
+{
+    private static final String CLS_NM = GraphLoader.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String HIER_REFRESH_INTERVAL = "hier.refresh.interval";
+    private static final ExecutorService RELOADER = Executors.newCachedThreadPool( new ThreadFactory()
+    {
+        private final AtomicInteger count = new AtomicInteger();
+
+
+        @Override
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, "fortress-graph-loader-" + count.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    } );
+
+    /**
+     * Reads a graph from ldap.
+     */
+    interface Source
+    {
+        /**
+         * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+         * @return new graph, never null.
+         */
+        HierGraph load( String contextId );
+    }
+
+    private final Cache cache;
+    private final ConcurrentMap<String, HierClosure> closures;
+    private final Source source;
+    private final long refreshNanos;
+    private final ConcurrentMap<String, State> states = new ConcurrentHashMap<>();
+
+
+    /**
+     * @param cache    holds the graphs, keyed by the utility.
+     * @param closures contains the closures of the utility, keyed the same as its cache.
+     * @param source   reads a graph from ldap.
+     */
+    GraphLoader( Cache cache, ConcurrentMap<String, HierClosure> closures, Source source )
+    {
+        this.cache = cache;
+        this.closures = closures;
+        this.source = source;
+        this.refreshNanos = TimeUnit.SECONDS.toNanos( Config.getInstance().getInt( HIER_REFRESH_INTERVAL, 300 ) );
+        CacheSync.start();
+    }
+
+
+    /**
+     * Return the graph for a contextId, loading it if it is not in the cache and starting a background reload if it is
+     * due.
+     *
+     * @param key       to the graph's cache entry.
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @return handle to the hierarchy graph.
+     */
+    HierGraph get( String key, String contextId )
+    {
+        State state = getState( key, contextId );
+        HierGraph graph = ( HierGraph ) cache.get( key );
+        if ( graph == null )
+        {
+            // The cache now blocks other callers of this key until this thread stores it:
+            return load( key, contextId, state );
+        }
+        if ( refreshNanos > 0 && System.nanoTime() - state.loaded > refreshNanos
+            && state.isReloading.compareAndSet( false, true ) )
+        {
+            reload( key, contextId, state );
+        }
+        return graph;
+    }
+
+
+    /**
+     * Apply a parent-child edge change using {@link HierUtil#updateHier}.  The cached graph is not modified, it is replaced
+     * by a copy containing the change along with a new {@link HierClosure}, so callers reading the graph never lock and
+     * never see a partial update.  The change cannot interleave with a reload or another change of the same key.
+     *
+     * @param key          to the graph's cache entry.
+     * @param contextId    maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @param relationship contains parent-child relationship targeted for addition or removal.
+     * @param op           used to pass the ldap op {@link Hier.Op#ADD}, {@link Hier.Op#MOD}, {@link Hier.Op#REM}
+     * @throws SecurityException in the event of a system error.
+     */
+    void updateHier( String key, String contextId, Relationship relationship, Hier.Op op ) throws SecurityException
+    {
+        State state = getState( key, contextId );
+        synchronized ( state )
+        {
+            HierGraph graph = HierUtil.updateHier( get( key, contextId ), relationship, op );
+            state.updates++;
+            cache.put( key, graph );
+            HierClosure.publish( closures, key, graph );
+        }
+    }
+
+
+    /**
+     * Reload, in the background, every graph of a contextId that has been loaded by this process.  A reload that is
+     * already reading ldap is repeated, as it may have read the hierarchy before it was changed.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     */
+    void refresh( String contextId )
+    {
+        String szContextId = getContextId( contextId );
+        for ( Map.Entry<String, State> entry : states.entrySet() )
+        {
+            State state = entry.getValue();
+            if ( state.contextId.equals( szContextId ) )
+            {
+                synchronized ( state )
+                {
+                    state.updates++;
+                    state.isStale = true;
+                }
+                if ( state.isReloading.compareAndSet( false, true ) )
+                {
+                    reload( entry.getKey(), state.contextId, state );
+                }
+            }
+        }
+    }
+
+
+    private HierGraph load( String key, String contextId, State state )
+    {
+        HierGraph graph = null;
+        try
+        {
+            graph = source.load( contextId );
+            state.loaded = System.nanoTime();
+        }
+        finally
+        {
+            // releases the cache's lock on the key, even if the load failed:
+            cache.put( key, graph );
+        }
+        HierClosure.get( closures, key, graph );
+        return graph;
+    }
+
+
+    private void reload( final String key, final String contextId, final State state )
+    {
+        RELOADER.execute( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    HierGraph graph = null;
+                    while ( graph == null )
+                    {
+                        long updates;
+                        synchronized ( state )
+                        {
+                            updates = state.updates;
+                            state.isStale = false;
+                        }
+                        HierGraph loaded = source.load( contextId );
+                        synchronized ( state )
+                        {
+                            if ( updates == state.updates )
+                            {
+                                cache.put( key, loaded );
+                                HierClosure.publish( closures, key, loaded );
+                                state.loaded = System.nanoTime();
+                                graph = loaded;
+                            }
+                        }
+                    }
+                }
+                catch ( RuntimeException e )
+                {
+                    LOG.warn( "reload key [{}] caught RuntimeException={}", key, e );
+                }
+                finally
+                {
+                    state.isReloading.set( false );
+                }
+                // a refresh that arrived after the new graph was stored found this reload still running:
+                if ( state.isStale && state.isReloading.compareAndSet( false, true ) )
+                {
+                    reload( key, contextId, state );
+                }
+            }
+        } );
+    }
+
+
+    private State getState( String key, String contextId )
+    {
+        State state = states.get( key );
+        if ( state == null )
+        {
+            State newState = new State( getContextId( contextId ) );
+            state = states.putIfAbsent( key, newState );
+            if ( state == null )
+            {
+                state = newState;
+            }
+        }
+        return state;
+    }
+
+
+    /**
+     * The contextId of null, "null" and HOME all map to the root of the DIT.
+     */
+    private static String getContextId( String contextId )
+    {
+        if ( StringUtils.isEmpty( contextId ) || contextId.equalsIgnoreCase( GlobalIds.NULL ) )
+        {
+            return GlobalIds.HOME;
+        }
+        return contextId;
+    }
+
+
+    /**
+     * The contextId of a key, when its graph was loaded, whether it is being reloaded, whether a refresh has been asked
+     * for since the last reload read ldap, and the number of edge changes applied to it.  The count is guarded by the
+     * instance lock.
+     */
+    private static final class State
+    {
+        private final String contextId;
+        private volatile long loaded = System.nanoTime();
+        private final AtomicBoolean isReloading = new AtomicBoolean();
+        private volatile boolean isStale;
+        private long updates;
+
+
+        private State( String contextId )
+        {
+            this.contextId = contextId;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * This class contains the precomputed transitive closure of a single hierarchy graph, i.e. the roles or ous of one contextId.
+ * The ascendants and descendants of every vertex are held as {@link java.util.BitSet}s indexed by the vertex ids of its
+ * {@link HierGraph}.  Lookups that used to walk the graph recursively, via {@link HierUtil}, become an id lookup followed
+ * by a bitset read or OR.
+ * <p>
+ * Instances are built from a graph by {@link #build(HierGraph)} and never change afterwards.  The
+ * hierarchy utilities, {@link RoleUtil}, {@link AdminRoleUtil}, {@link UsoUtil} and {@link PsoUtil}, replace the instance for a
+ * contextId whenever its graph is loaded or updated.  Graphs are not changed once they are cached, updates replace them with a
+ * modified copy, so neither building nor reading a closure needs a lock.  Each instance carries a {@link #getVersion() version} that is unique within
+ * the process and increases with every rebuild so callers may tell when a closure they used has been replaced.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class HierClosure
+{
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private static final BitSet EMPTY = new BitSet();
+
+    private final HierGraph graph;
+    private final long version;
+    private final BitSet[] ascendants;
+    private final BitSet[] descendants;
+
+
+    /**
+     * Private constructor
+     *
+     */
+    private HierClosure( HierGraph graph, BitSet[] ascendants, BitSet[] descendants )
+    {
+        this.graph = graph;
+        this.version = VERSIONS.incrementAndGet();
+        this.ascendants = ascendants;
+        this.descendants = descendants;
+    }
+
+
+    /**
+     * Compute the closure of the given graph.
+     *
+     * @param graph contains a reference to the hierarchy graph, may be null.
+     * @return new closure, never null.
+     */
+    static HierClosure build( HierGraph graph )
+    {
+        if ( graph == null )
+        {
+            return new HierClosure( null, new BitSet[0], new BitSet[0] );
+        }
+
+        // edges point from child to parent:
+        int size = graph.size();
+        int[][] parents = new int[size][];
+        for ( int i = 0; i < size; i++ )
+        {
+            parents[i] = graph.getParents( i );
+        }
+
+        BitSet[] ascendants = new BitSet[size];
+        boolean[] visiting = new boolean[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            computeAscendants( i, parents, ascendants, visiting );
+        }
+
+        BitSet[] descendants = new BitSet[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            descendants[i] = new BitSet( size );
+        }
+        for ( int i = 0; i < size; i++ )
+        {
+            BitSet a = ascendants[i];
+            for ( int p = a.nextSetBit( 0 ); p >= 0; p = a.nextSetBit( p + 1 ) )
+            {
+                descendants[p].set( i );
+            }
+        }
+        return new HierClosure( graph, ascendants, descendants );
+    }
+
+
+    /**
+     * Return the closure held in the map for this key, building and storing a new one if it is missing or was built from a
+     * different graph instance, i.e. after the cache entry holding the graph expired and was reloaded.
+     *
+     * @param closures contains the closures of a hierarchy utility keyed the same as its graph cache.
+     * @param key      to the graph's cache entry.
+     * @param graph    currently held in the cache for this key.
+     * @return closure of the given graph.
+     */
+    static HierClosure get( ConcurrentMap<String, HierClosure> closures, String key,
+        HierGraph graph )
+    {
+        HierClosure closure = closures.get( key );
+        if ( closure != null && closure.graph == graph )
+        {
+            return closure;
+        }
+        HierClosure built = build( graph );
+        // Only store it if the closure read above is still current.  A caller that lost the race returns its own closure, which
+        // matches the graph it was given:
+        if ( closure == null )
+        {
+            closures.putIfAbsent( key, built );
+        }
+        else
+        {
+            closures.replace( key, closure, built );
+        }
+        return built;
+    }
+
+
+    /**
+     * Build the closure of a graph that has just replaced the one in the cache and store it for this key.  Called by
+     * {@link GraphLoader} once the new graph has been published, so readers see either the old graph and closure or the new ones.
+     *
+     * @param closures contains the closures of a hierarchy utility keyed the same as its graph cache.
+     * @param key      to the graph's cache entry.
+     * @param graph    now held in the cache for this key.
+     * @return closure of the given graph.
+     */
+    static HierClosure publish( ConcurrentMap<String, HierClosure> closures, String key,
+        HierGraph graph )
+    {
+        HierClosure closure = build( graph );
+        closures.put( key, closure );
+        return closure;
+    }
+
+
+    /**
+     * Memoized depth first traversal, child to parents.  Cycles, which the graph does not prevent, are cut where they are found.
+     */
+    private static BitSet computeAscendants( int id, int[][] parents, BitSet[] ascendants, boolean[] visiting )
+    {
+        if ( ascendants[id] != null )
+        {
+            return ascendants[id];
+        }
+        if ( visiting[id] )
+        {
+            return EMPTY;
+        }
+        visiting[id] = true;
+        BitSet result = new BitSet( parents.length );
+        for ( int parent : parents[id] )
+        {
+            result.set( parent );
+            result.or( computeAscendants( parent, parents, ascendants, visiting ) );
+        }
+        visiting[id] = false;
+        ascendants[id] = result;
+        return result;
+    }
+
+
+    /**
+     * @return number that identifies this closure, unique within the process and greater than that of any closure built before it.
+     */
+    long getVersion()
+    {
+        return version;
+    }
+
+
+    /**
+     * @param name of the vertex, case insensitive.
+     * @return id of the vertex or -1 if the name is not contained in the graph.
+     */
+    int getId( String name )
+    {
+        if ( name == null )
+        {
+            return -1;
+        }
+        return graph == null ? -1 : graph.getId( name.toUpperCase() );
+    }
+
+
+    /**
+     * Determine if parent is one of the ascendants of child.
+     *
+     * @param child  name of the child vertex, case insensitive.
+     * @param parent name of the parent vertex, case insensitive.
+     * @return boolean value.  true indicates the parent is an ascendant of the child.
+     */
+    boolean isAscendant( String child, String parent )
+    {
+        int c = getId( child );
+        int p = getId( parent );
+        return c >= 0 && p >= 0 && ascendants[c].get( p );
+    }
+
+
+    /**
+     * Return all of the ascendants of a given vertex.
+     *
+     * @param name of the vertex, case insensitive.
+     * @return new Set, sorted case insensitive, of names that are ascendants of given vertex.
+     */
+    Set<String> getAscendants( String name )
+    {
+        return toNames( bits( ascendants, getId( name ) ), new TreeSet<>( String.CASE_INSENSITIVE_ORDER ) );
+    }
+
+
+    /**
+     * Return all of the descendants of a given vertex.
+     *
+     * @param name of the vertex, case insensitive.
+     * @return new Set, sorted case insensitive, of names that are descendants of given vertex.
+     */
+    Set<String> getDescendants( String name )
+    {
+        return toNames( bits( descendants, getId( name ) ), new TreeSet<>( String.CASE_INSENSITIVE_ORDER ) );
+    }
+
+
+    /**
+     * Return the given names plus all of their ascendants.  Names that are not contained in the graph are passed through.
+     *
+     * @param names of the vertices, case insensitive.
+     * @return new Set, sorted case insensitive, of the names and their ascendants.
+     */
+    Set<String> getInherited( Collection<String> names )
+    {
+        return expand( names, ascendants );
+    }
+
+
+    /**
+     * Return the given names plus all of their descendants.  Names that are not contained in the graph are passed through.
+     *
+     * @param names of the vertices, case insensitive.
+     * @return new Set, sorted case insensitive, of the names and their descendants.
+     */
+    Set<String> getDescendants( Collection<String> names )
+    {
+        return expand( names, descendants );
+    }
+
+
+    /**
+     * Return the ids of the given names plus those of all of their descendants, i.e. the scope of an admin role over an
+     * ou hierarchy.  Names that are not contained in the graph have no id and are left out.
+     *
+     * @param names of the vertices, case insensitive.
+     * @return new BitSet indexed by vertex id.
+     */
+    BitSet getScope( Collection<String> names )
+    {
+        BitSet scope = new BitSet( descendants.length );
+        if ( names != null )
+        {
+            for ( String name : names )
+            {
+                int id = getId( name );
+                if ( id >= 0 )
+                {
+                    scope.set( id );
+                    scope.or( descendants[id] );
+                }
+            }
+        }
+        return scope;
+    }
+
+
+    /**
+     * Determine if a vertex lies within a scope returned by {@link #getScope(Collection)} for the given names, i.e. it is
+     * one of the names or a descendant of one of them.
+     *
+     * @param scope returned by {@link #getScope(Collection)} of this closure.
+     * @param names the scope was computed from, case insensitive.
+     * @param name  of the vertex, case insensitive.
+     * @return boolean value.  true indicates the vertex is within the scope.
+     */
+    boolean isInScope( BitSet scope, Collection<String> names, String name )
+    {
+        int id = getId( name );
+        if ( id >= 0 )
+        {
+            return scope.get( id );
+        }
+        // a name that is not in the graph can only match one of the names:
+        if ( names != null && name != null )
+        {
+            for ( String candidate : names )
+            {
+                if ( name.equalsIgnoreCase( candidate ) )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+    private Set<String> expand( Collection<String> in, BitSet[] closure )
+    {
+        Set<String> out = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        if ( in == null )
+        {
+            return out;
+        }
+        BitSet bits = new BitSet( ascendants.length );
+        for ( String name : in )
+        {
+            out.add( name );
+            int id = getId( name );
+            if ( id >= 0 )
+            {
+                bits.or( closure[id] );
+            }
+        }
+        return toNames( bits, out );
+    }
+
+
+    private static BitSet bits( BitSet[] closure, int id )
+    {
+        return id < 0 ? EMPTY : closure[id];
+    }
+
+
+    private Set<String> toNames( BitSet bits, Set<String> out )
+    {
+        for ( int i = bits.nextSetBit( 0 ); i >= 0; i = bits.nextSetBit( i + 1 ) )
+        {
+            out.add( graph.getName( i ) );
+        }
+        return out;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import org.apache.directory.fortress.core.model.Relationship;
+
+
+/**
+ * A hierarchy graph, i.e. the roles, admin roles or ous of one contextId and their parent-child relationships, as used by
+ * {@link HierUtil}, {@link HierClosure} and the hierarchy utilities, {@link RoleUtil}, {@link AdminRoleUtil},
+ * {@link UsoUtil} and {@link PsoUtil}.
+ * <p>
+ * Every vertex is assigned an integer id, from 0 to {@link #size()} - 1, which stays the same for the life of the instance.
+ * Vertex names are held as they were given, upper case when loaded from ldap by {@link HierUtil#loadHier}, and looked up
+ * exactly.
+ * <p>
+ * Implementations are immutable.  Edge changes return a new instance, so a graph held in a cache may be read without locks.
+ * Two engines are provided, {@link CsrHierGraph}, the default, and {@link JGraphHierGraph}, which wraps a
+ * {@code org.jgrapht.graph.SimpleDirectedGraph}.  The engine is selected by the {@code hier.engine} property.
+ * <p>
+ * Implementations are thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+interface HierGraph
+{
+    /**
+     * @return number of vertices.
+     */
+    int size();
+
+
+    /**
+     * @param name of the vertex, matched exactly.
+     * @return id of the vertex or -1 if the name is null or not contained in the graph.
+     */
+    int getId( String name );
+
+
+    /**
+     * @param id of the vertex.
+     * @return name of the vertex.
+     */
+    String getName( int id );
+
+
+    /**
+     * @param id of the child vertex.
+     * @return new array containing the ids of the parents (direct ascendants) of the vertex, in the order they were added.
+     */
+    int[] getParents( int id );
+
+
+    /**
+     * @param id of the parent vertex.
+     * @return new array containing the ids of the children (direct descendants) of the vertex.
+     */
+    int[] getChildren( int id );
+
+
+    /**
+     * @param id of the parent vertex.
+     * @return number of children (direct descendants) of the vertex.
+     */
+    int getChildCount( int id );
+
+
+    /**
+     * @param child  name of the child vertex, matched exactly.
+     * @param parent name of the parent vertex, matched exactly.
+     * @return boolean value.  true indicates the parent-child relationship is contained in the graph.
+     */
+    boolean containsEdge( String child, String parent );
+
+
+    /**
+     * Return a copy of this graph with an edge, and its vertices if missing, added.  The vertex names are upper cased.
+     *
+     * @param relationship contains parent-child relationship targeted for addition.
+     * @return new graph containing the edge.
+     */
+    HierGraph addEdge( Relationship relationship );
+
+
+    /**
+     * Return a copy of this graph with an edge removed.  Its vertices are kept.
+     *
+     * @param relationship contains parent-child relationship targeted for removal.
+     * @return new graph without the edge.
+     */
+    HierGraph removeEdge( Relationship relationship );
+}
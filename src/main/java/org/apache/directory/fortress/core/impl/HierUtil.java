@@ -20,18 +20,17 @@
 package org.apache.directory.fortress.core.impl;
 
 
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.locks.ReadWriteLock;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.directory.fortress.core.model.Graphable;
 import org.apache.directory.fortress.core.model.Hier;
 import org.apache.directory.fortress.core.model.Relationship;
+import org.apache.directory.fortress.core.util.Config;
 import org.jgrapht.graph.SimpleDirectedGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,7 +40,7 @@ import org.apache.directory.fortress.core.ValidationException;
 
 
 /**
- * This utility performs base hierarchical processing using this software <a href="http://www.jgrapht.org/">JGraphT</a></li>.
+ * This utility performs base hierarchical processing on {@link HierGraph}s.
  * <p>
  * It is used to provide hierarchical processing APIs for the following data sets:
  * <ol>
@@ -53,7 +52,7 @@ import org.apache.directory.fortress.core.ValidationException;
  * This class...
  * <ol>
  * <li>manipulates data that is stored as singleton inside other classes with vertices of {@code String}, and edges, as {@link org.apache.directory.fortress.core.model.Relationship}s</li>
- * <li>utilizes open source library, see <a href="http://www.jgrapht.org/">JGraphT</a>.</li>
+ * <li>builds {@link CsrHierGraph}s, or {@link JGraphHierGraph}s over <a href="http://www.jgrapht.org/">JGraphT</a> if {@code hier.engine} is set to {@code jgrapht}.</li>
  * <li>processes general hierarchical data structure i.e. allows multiple inheritance with parents.</li>
  * <li>constructs and parses simple directed graphs.</li>
  * </ol>
@@ -70,7 +69,8 @@ final class HierUtil
      */
     private static final String CLS_NM = HierUtil.class.getName();
     private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
-    private static final String VERTEX = "Vertex";
+    private static final String HIER_ENGINE = "hier.engine";
+    private static final String JGRAPHT = "jgrapht";
 
     /**
      * The 'Type' attribute corresponds to what type of hierarchy is being referred to.
@@ -83,9 +83,6 @@ final class HierUtil
         PSO
     }
 
-    private static final Map<String, ReadWriteLock> synchMap = new HashMap<String, ReadWriteLock>();
-
-
     /**
      * Private constructor
      *
@@ -105,15 +102,14 @@ final class HierUtil
      * Method will throw {@link org.apache.directory.fortress.core.ValidationException} if rule check fails meaning caller failed validation
      * attempt to add/remove hierarchical relationship failed.
      *
-     * @param graph     contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     * @param graph     contains a reference to the hierarchy, {@link HierGraph}.
      * @param child     contains name of child.
      * @param parent    contains name of parent.
      * @param mustExist boolean is used to specify if relationship must be true.
      * @throws org.apache.directory.fortress.core.ValidationException
      *          in the event it fails one of the 3 checks.
      */
-    static void validateRelationship( SimpleDirectedGraph<String, Relationship> graph, String child, String parent,
-        boolean mustExist )
+    static void validateRelationship( HierGraph graph, String child, String parent, boolean mustExist )
         throws ValidationException
     {
         // Ensure the two nodes aren't the same:
@@ -122,9 +118,8 @@ final class HierUtil
             String error = "validateRelationship child [" + child + "] same as parent [" + parent + "]";
             throw new ValidationException( GlobalErrIds.HIER_REL_INVLD, error );
         }
-        Relationship rel = new Relationship( child.toUpperCase(), parent.toUpperCase() );
         // Ensure there is a valid child to parent relationship.
-        if ( mustExist && !isRelationship( graph, rel ) )
+        if ( mustExist && !graph.containsEdge( child.toUpperCase(), parent.toUpperCase() ) )
         {
             String error = "validateRelationship child [" + child + "] does not have parent [" + parent + "]";
             throw new ValidationException( GlobalErrIds.HIER_REL_NOT_EXIST, error );
@@ -144,6 +139,24 @@ final class HierUtil
     }
 
 
+    /**
+     * Adapter of {@link #validateRelationship(HierGraph, String, String, boolean)} for a {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     *
+     * @param graph     contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     * @param child     contains name of child.
+     * @param parent    contains name of parent.
+     * @param mustExist boolean is used to specify if relationship must be true.
+     * @throws org.apache.directory.fortress.core.ValidationException
+     *          in the event it fails one of the 3 checks.
+     */
+    static void validateRelationship( SimpleDirectedGraph<String, Relationship> graph, String child, String parent,
+        boolean mustExist )
+        throws ValidationException
+    {
+        validateRelationship( adapt( graph ), child, parent, mustExist );
+    }
+
+
     /**
      * This method converts from physical ldap entity format, {@link Hier} to logical {@code org.jgrapht.graph.SimpleDirectedGraph}.
      *
@@ -182,101 +195,58 @@ final class HierUtil
     }
 
 
-    /**
-     * This method is synchronized and adds an edge and its associated vertices to simple directed graph stored in static memory of this process.
-     *
-     * @param graph synchronized parameter contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
-     * @param relation contains parent-child relationship targeted for addition.
-     * @return {@code org.jgrapht.graph.SimpleDirectedGraph} containing the vertices of {@code String}, and edges, as {@link Relationship}s that correspond to relational data.
-     */
-    private static void addEdge( SimpleDirectedGraph<String, Relationship> graph, Relationship relation )
-    {
-        LOG.debug( "addEdge" );
-        synchronized ( graph )
-        {
-            graph.addVertex( relation.getChild().toUpperCase() );
-            graph.addVertex( relation.getParent().toUpperCase() );
-            graph.addEdge( relation.getChild().toUpperCase(), relation.getParent().toUpperCase(), relation );
-        }
-    }
-
-
-    /**
-     * This method is synchronized and removes an edge from a simple directed graph stored in static memory of this process.
-     *
-     * @param graph synchronized parameter contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
-     * @param relation contains parent-child relationship targeted for removal.
-     * @return {@code org.jgrapht.graph.SimpleDirectedGraph} containing the vertices of {@code String}, and edges, as {@link Relationship}s that correspond to relational data.
-     */
-    private static void removeEdge( SimpleDirectedGraph<String, Relationship> graph, Relationship relation )
-    {
-        LOG.debug( "removeEdge" );
-        synchronized ( graph )
-        {
-            graph.removeEdge( relation );
-        }
-    }
-
-
     /**
      * Return number of children (direct descendants) a given parent node has.
      *
      * @param name  contains the vertex of graph to gather descendants from.
-     * @param graph contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     * @param graph contains a reference to the hierarchy graph.
      * @return int value contains the number of children of a given parent vertex.
      */
-    static int numChildren( String name, SimpleDirectedGraph<String, Relationship> graph )
+    static int numChildren( String name, HierGraph graph )
     {
-        Map<String, String> vx = new HashMap<>();
-        vx.put( VERTEX, name.toUpperCase() );
-        return numChildren( vx, graph );
+        LOG.debug( "hasChildren [{}]", name );
+        int id = graph == null ? -1 : graph.getId( name.toUpperCase() );
+        // a vertex not found is a leaf:
+        return id < 0 ? 0 : graph.getChildCount( id );
     }
 
 
     /**
-     * Determine if parent-child relationship exists in supplied digraph.
+     * Adapter of {@link #numChildren(String, HierGraph)} for a {@code org.jgrapht.graph.SimpleDirectedGraph}.
      *
+     * @param name  contains the vertex of graph to gather descendants from.
      * @param graph contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
-     * @param rel   contains parent and child names.
-     * @return boolean value.  true indicates parent-child relationship exists in digraph.
+     * @return int value contains the number of children of a given parent vertex.
      */
-    private static boolean isRelationship( SimpleDirectedGraph<String, Relationship> graph, Relationship rel )
+    static int numChildren( String name, SimpleDirectedGraph<String, Relationship> graph )
     {
-        return graph.containsEdge( rel );
+        return numChildren( name, adapt( graph ) );
     }
 
 
     /**
-     * Determine how many children a given parent node has.
+     * Traverse the hierarchical graph and return all of the ascendants of a given node.
      *
-     * @param vertex of parent.
-     * @param graph  contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
-     * @return
+     * @param childName maps to vertex to determine parentage.
+     * @param graph     contains a reference to the hierarchy graph.
+     * @return Set of names that are parents of given child.
      */
-    private static int numChildren( Map<String, String> vertex, SimpleDirectedGraph<String, Relationship> graph )
+    static Set<String> getAscendants( String childName, HierGraph graph )
     {
-        int numChildren = 0;
-        try
-        {
-            String v = vertex.get( VERTEX );
-            if ( v == null )
-            {
-                //log.debug("getDescendants vertex is null");
-                return 0;
-            }
-            LOG.debug( "hasChildren [{}]", v );
-            numChildren = graph.inDegreeOf( v );
-        }
-        catch ( java.lang.IllegalArgumentException e )
+        // TreeSet will return in sorted order:
+        // create Set with case insensitive comparator:
+        Set<String> parents = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        if ( graph != null )
         {
-            // vertex is leaf.
+            LOG.debug( "getAscendants [{}]", childName );
+            traverse( graph, graph.getId( childName.toUpperCase() ), -1, true, parents );
         }
-        return numChildren;
+        return parents;
     }
 
 
     /**
-     * Recursively traverse the hierarchical graph and return all of the ascendants of a given node.
+     * Adapter of {@link #getAscendants(String, HierGraph)} for a {@code org.jgrapht.graph.SimpleDirectedGraph}.
      *
      * @param childName maps to vertex to determine parentage.
      * @param graph     contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
@@ -284,60 +254,33 @@ final class HierUtil
      */
     static Set<String> getAscendants( String childName, SimpleDirectedGraph<String, Relationship> graph )
     {
-        Map<String, String> vx = new HashMap<>();
-        // TreeSet will return in sorted order:
-        // create Set with case insensitive comparator:
-        Set<String> parents = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
-        vx.put( VERTEX, childName.toUpperCase() );
-        getAscendants( vx, graph, parents );
-        return parents;
+        return getAscendants( childName, adapt( graph ) );
     }
 
 
     /**
-     * Utility function recursively traverses a given digraph to build a set of all ascendant names.
+     * Traverse the hierarchical graph and return all of the descendants for a given node.
      *
-     * @param vertex     contains the position of the cursor for traversal of graph.
-     * @param graph      contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
-     * @param ascendants contains the result set of ascendant names.
-     * @return value contains the vertex of current position.
+     * @param parentName maps to vertex to determine parentage.
+     * @param graph      contains a reference to the hierarchy graph.
+     * @return Set of names that are children of given parent.
      */
-    private static String getAscendants( Map<String, String> vertex, SimpleDirectedGraph<String, Relationship> graph,
-        Set<String> ascendants )
+    static Set<String> getDescendants( String parentName, HierGraph graph )
     {
-        String v = vertex.get( VERTEX );
-        if ( v == null )
-        {
-            return null;
-        }
-        else if ( graph == null )
-        {
-            return null;
-        }
-        LOG.debug( "getAscendants [{}]", v);
-        Set<Relationship> edges;
-        try
-        {
-            edges = graph.outgoingEdgesOf( v );
-
-        }
-        catch ( java.lang.IllegalArgumentException iae )
-        {
-            // vertex is leaf.
-            return null;
-        }
-        for ( Relationship edge : edges )
+        // TreeSet will return in sorted order:
+        // create Set with case insensitive comparator:
+        Set<String> children = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        if ( graph != null )
         {
-            vertex.put( VERTEX, edge.getParent() );
-            ascendants.add( edge.getParent() );
-            v = getAscendants( vertex, graph, ascendants );
+            LOG.debug( "getDescendants [{}]", parentName );
+            traverse( graph, graph.getId( parentName.toUpperCase() ), -1, false, children );
         }
-        return v;
+        return children;
     }
 
 
     /**
-     * Recursively traverse the hierarchical graph and return all of the descendants for a given node.
+     * Adapter of {@link #getDescendants(String, HierGraph)} for a {@code org.jgrapht.graph.SimpleDirectedGraph}.
      *
      * @param parentName maps to vertex to determine parentage.
      * @param graph      contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
@@ -345,249 +288,253 @@ final class HierUtil
      */
     static Set<String> getDescendants( String parentName, SimpleDirectedGraph<String, Relationship> graph )
     {
-        Map<String, String> vx = new HashMap<>();
-        // TreeSet will return in sorted order:
-        // create Set with case insensitive comparator:
-        Set<String> children = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
-        vx.put( VERTEX, parentName.toUpperCase() );
-        getDescendants( vx, graph, children );
-        return children;
+        return getDescendants( parentName, adapt( graph ) );
     }
 
 
     /**
-     * Recursively traverse the hierarchical graph and determine child node contains a given parent as one of its ascendants.
+     * Traverse the hierarchical graph and determine child node contains a given parent as one of its ascendants.
      *
      * @param childName maps to vertex to determine parentage.
      * @param parentName maps to vertex to determine parentage.
-     * @param graph      contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
-     * @return Set of names that are children of given parent.
+     * @param graph      contains a reference to the hierarchy graph.
+     * @return boolean value.  true indicates the parent is an ascendant of the child.
      */
-    private static boolean isAscendant( String childName, String parentName,
-        SimpleDirectedGraph<String, Relationship> graph )
+    private static boolean isAscendant( String childName, String parentName, HierGraph graph )
     {
-        boolean isAscendant = false;
-        Set<String> ascendants = getAscendants( childName, graph );
-        if ( ascendants.contains( parentName ) )
-        {
-            isAscendant = true;
-        }
-        return isAscendant;
+        int parent = graph.getId( parentName.toUpperCase() );
+        return parent >= 0 && traverse( graph, graph.getId( childName.toUpperCase() ), parent, true, null );
     }
 
 
     /**
-     * Recursively traverse the hierarchical graph and determine if parent node contains a given child as one of its descendants.
+     * Traverse the hierarchical graph and determine if parent node contains a given child as one of its descendants.
      *
      * @param childName maps to vertex to determine parentage.
      * @param parentName maps to vertex to determine parentage.
-     * @param graph      contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
-     * @return Set of names that are children of given parent.
+     * @param graph      contains a reference to the hierarchy graph.
+     * @return boolean value.  true indicates the child is a descendant of the parent.
      */
-    private static boolean isDescedant( String childName, String parentName,
-        SimpleDirectedGraph<String, Relationship> graph )
+    private static boolean isDescedant( String childName, String parentName, HierGraph graph )
     {
-        boolean isDescendant = false;
-        Set<String> descendants = getDescendants( parentName, graph );
-        if ( descendants.contains( childName ) )
-        {
-            isDescendant = true;
-        }
-        return isDescendant;
+        int child = graph.getId( childName.toUpperCase() );
+        return child >= 0 && traverse( graph, graph.getId( parentName.toUpperCase() ), child, false, null );
     }
 
 
     /**
-     * Utility function recursively traverses a given digraph to build a set of all descendants names.
+     * Utility function traverses a given graph, depth first, from a vertex to all of its ascendants or descendants.  Each
+     * vertex is visited once.
      *
-     * @param vertex      contains the position of the cursor for traversal of graph.
-     * @param graph       contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
-     * @param descendants contains the result set of names of all descendants of node.
-     * @return value contains the vertex of current position.
+     * @param graph       contains a reference to the hierarchy graph.
+     * @param id          of the vertex the traversal starts from, -1 if it is not contained in the graph.
+     * @param target      id of the vertex that ends the traversal when it is reached, -1 to visit every vertex.
+     * @param isAscending if true the traversal follows child to parent edges, otherwise parent to child.
+     * @param names       if not null contains the result set of names visited.
+     * @return boolean value.  true indicates the target was reached.
      */
-    private static String getDescendants( Map<String, String> vertex, SimpleDirectedGraph<String, Relationship> graph,
-        Set<String> descendants )
+    private static boolean traverse( HierGraph graph, int id, int target, boolean isAscending, Set<String> names )
     {
-        String v = vertex.get( VERTEX );
-        if ( v == null )
-        {
-            // vertex is null
-            return null;
-        }
-        else if ( graph == null )
-        {
-            // graph is null
-            return null;
-        }
-        LOG.debug( "getDescendants [{}]", v);
-        Set<Relationship> edges;
-        try
-        {
-            edges = graph.incomingEdgesOf( v );
-        }
-        catch ( java.lang.IllegalArgumentException iae )
+        if ( id < 0 )
         {
             // vertex is leaf.
-            return null;
+            return false;
         }
-        for ( Relationship edge : edges )
+        BitSet visited = new BitSet( graph.size() );
+        int[] stack = new int[graph.size()];
+        int top = 0;
+        stack[top++] = id;
+        visited.set( id );
+        while ( top > 0 )
         {
-            vertex.put( VERTEX, edge.getChild() );
-            descendants.add( edge.getChild() );
-            v = getDescendants( vertex, graph, descendants );
+            int vertex = stack[--top];
+            for ( int v : isAscending ? graph.getParents( vertex ) : graph.getChildren( vertex ) )
+            {
+                if ( v == target )
+                {
+                    return true;
+                }
+                if ( !visited.get( v ) )
+                {
+                    visited.set( v );
+                    stack[top++] = v;
+                    if ( names != null )
+                    {
+                        names.add( graph.getName( v ) );
+                    }
+                }
+            }
         }
-        return v;
+        return false;
     }
 
 
     /**
      * Utility function returns a set of all children (direct descendant) names.
      *
-     * @param vertex contains the position of the cursor for traversal of graph.
-     * @param graph  contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
-     * @return value contains the vertex of current position.
+     * @param vertex contains the name of the parent, matched exactly.
+     * @param graph  contains a reference to the hierarchy graph.
+     * @return Set of names that are children of given parent or null if the parent is not contained in the graph.
      */
-    static Set<String> getChildren( String vertex, SimpleDirectedGraph<String, Relationship> graph )
+    static Set<String> getChildren( String vertex, HierGraph graph )
     {
-        Set<String> descendants = new HashSet<>();
         if ( graph == null )
         {
             // graph is null
             return null;
         }
-
         LOG.debug( "getChildren [{}]", vertex );
-        Set<Relationship> edges;
-        try
-        {
-            edges = graph.incomingEdgesOf( vertex );
-        }
-        catch ( java.lang.IllegalArgumentException iae )
+        int id = graph.getId( vertex );
+        if ( id < 0 )
         {
             // vertex is leaf.
             return null;
         }
-        for ( Relationship edge : edges )
+        Set<String> descendants = new HashSet<>();
+        for ( int child : graph.getChildren( id ) )
         {
-            descendants.add( edge.getChild() );
+            descendants.add( graph.getName( child ) );
         }
         return descendants;
     }
 
 
+    /**
+     * Adapter of {@link #getChildren(String, HierGraph)} for a {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     *
+     * @param vertex contains the name of the parent, matched exactly.
+     * @param graph  contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     * @return Set of names that are children of given parent or null if the parent is not contained in the graph.
+     */
+    static Set<String> getChildren( String vertex, SimpleDirectedGraph<String, Relationship> graph )
+    {
+        return getChildren( vertex, adapt( graph ) );
+    }
+
+
     /**
      * Recursively traverse the hierarchical graph and return all of the ascendants of a given node.
      *
      * @param childName   maps to vertex to determine parentage.
      * @param parentName  points to top most ascendant where traversal must stop.
      * @param isInclusive if set to true will include the parentName in the result set.  False will not return specified parentName.
-     * @param graph       contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     * @param graph       contains a reference to the hierarchy graph.
      * @return Set of names that are parents of given child.
      */
-    static Set<String> getAscendants( String childName, String parentName, boolean isInclusive,
-        SimpleDirectedGraph<String, Relationship> graph )
+    static Set<String> getAscendants( String childName, String parentName, boolean isInclusive, HierGraph graph )
     {
-        Map<String, String> vx = new HashMap<>();
         // TreeSet will return in sorted order:
         // create Set with case insensitive comparator:
         Set<String> parents = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
-
-        vx.put( VERTEX, childName.toUpperCase() );
-        getAscendants( vx, graph, parents, parentName, isInclusive );
+        if ( graph != null )
+        {
+            getAscendants( graph, graph.getId( childName.toUpperCase() ), parents, parentName, isInclusive,
+                new BitSet( graph.size() ) );
+        }
         return parents;
     }
 
 
     /**
-     * Private utility to recursively traverse the hierarchical graph and return all of the ascendants of a given child node.
+     * Adapter of {@link #getAscendants(String, String, boolean, HierGraph)} for a {@code org.jgrapht.graph.SimpleDirectedGraph}.
      *
-     * @param vertex      contains node name and acts as cursor for current location.
+     * @param childName   maps to vertex to determine parentage.
+     * @param parentName  points to top most ascendant where traversal must stop.
+     * @param isInclusive if set to true will include the parentName in the result set.  False will not return specified parentName.
      * @param graph       contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     * @return Set of names that are parents of given child.
+     */
+    static Set<String> getAscendants( String childName, String parentName, boolean isInclusive,
+        SimpleDirectedGraph<String, Relationship> graph )
+    {
+        return getAscendants( childName, parentName, isInclusive, adapt( graph ) );
+    }
+
+
+    /**
+     * Private utility to recursively traverse the hierarchical graph and return all of the ascendants of a given child node.
+     * The remaining parents of a vertex are skipped once the stop name is found among them.
+     *
+     * @param graph       contains a reference to the hierarchy graph.
+     * @param id          of the vertex and acts as cursor for current location.
      * @param parents     contains the result set of parent nodes.
      * @param stopName    contains the name of node where traversal ends.
      * @param isInclusive if set to true will include the parentName in the result set. False will not return specified parentName.
-     * @return Set of names that are parents of given child.
+     * @param visited     contains the ids of the vertices already traversed.
      */
-    private static String getAscendants( Map<String, String> vertex, SimpleDirectedGraph<String, Relationship> graph,
-        Set<String> parents, String stopName, boolean isInclusive )
+    private static void getAscendants( HierGraph graph, int id, Set<String> parents, String stopName, boolean isInclusive,
+        BitSet visited )
     {
-        String v = vertex.get( VERTEX );
-        if ( v == null )
+        if ( id < 0 || visited.get( id ) )
         {
-            // vertex is null
-            return null;
+            // vertex is leaf or has been traversed.
+            return;
         }
-        else if ( graph == null )
+        visited.set( id );
+        LOG.debug( "getAscendants [{}]", graph.getName( id ) );
+        for ( int parent : graph.getParents( id ) )
         {
-            // graph is null
-            return null;
-        }
-        LOG.debug( "getAscendants [{}]", v);
-        Set<Relationship> edges;
-        try
-        {
-            edges = graph.outgoingEdgesOf( v );
-        }
-        catch ( java.lang.IllegalArgumentException iae )
-        {
-            // vertex is leaf.
-            return null;
-        }
-        for ( Relationship edge : edges )
-        {
-            if ( edge.getParent().equalsIgnoreCase( stopName ) )
+            String name = graph.getName( parent );
+            if ( name.equalsIgnoreCase( stopName ) )
             {
                 if ( isInclusive )
                 {
-                    parents.add( edge.getParent() );
+                    parents.add( name );
                 }
                 break;
             }
             else
             {
-                vertex.put( VERTEX, edge.getParent() );
-                parents.add( edge.getParent() );
-                v = getAscendants( vertex, graph, parents, stopName, isInclusive );
+                parents.add( name );
+                getAscendants( graph, parent, parents, stopName, isInclusive, visited );
             }
         }
-        return v;
     }
 
 
     /**
      * Private utility to return the parents (direct ascendants) of a given child node.
      *
-     * @param vertex contains node name and acts as cursor for current location.
-     * @param graph  contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
-     * @return Set of names that are parents of given child.
+     * @param vertex contains the name of the child, matched exactly.
+     * @param graph  contains a reference to the hierarchy graph.
+     * @return Set of names that are parents of given child or null if the child is not contained in the graph.
      */
-    static Set<String> getParents( String vertex, SimpleDirectedGraph<String, Relationship> graph )
+    static Set<String> getParents( String vertex, HierGraph graph )
     {
-        Set<String> parents = new HashSet<>();
         if ( graph == null )
         {
             // graph is null
             return null;
         }
-        LOG.debug( "getParents [{}]", vertex);
-        Set<Relationship> edges;
-        try
-        {
-            edges = graph.outgoingEdgesOf( vertex );
-        }
-        catch ( java.lang.IllegalArgumentException iae )
+        LOG.debug( "getParents [{}]", vertex );
+        int id = graph.getId( vertex );
+        if ( id < 0 )
         {
             // vertex is leaf.
             return null;
         }
-        for ( Relationship edge : edges )
+        Set<String> parents = new HashSet<>();
+        for ( int parent : graph.getParents( id ) )
         {
-            parents.add( edge.getParent() );
+            parents.add( graph.getName( parent ) );
         }
         return parents;
     }
 
 
+    /**
+     * Adapter of {@link #getParents(String, HierGraph)} for a {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     *
+     * @param vertex contains the name of the child, matched exactly.
+     * @param graph  contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     * @return Set of names that are parents of given child or null if the child is not contained in the graph.
+     */
+    static Set<String> getParents( String vertex, SimpleDirectedGraph<String, Relationship> graph )
+    {
+        return getParents( vertex, adapt( graph ) );
+    }
+
+
     /**
      * This method will retrieve the list of all parent-child relationships for a given node.  If the node was not found in
      * ldap this method will create a new node and store default data.
@@ -628,27 +575,57 @@ final class HierUtil
 
 
     /**
-     * This api allows synchronized access to allow updates to hierarchical relationships.
-     * Method will update the hierarchical data set and reload the JGraphT simple digraph with latest.
+     * This api applies an update to hierarchical relationships without modifying the graph that is passed in.
+     * Graphs held in the caches are read without locks and so are never changed once published.  Instead a copy containing
+     * the change is returned, and the caller replaces the cached graph with it.
      *
-     * @param graph contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     * @param graph contains a reference to the hierarchy graph, left unchanged.
      * @param relationship contains parent-child relationship targeted for addition.
      * @param op   used to pass the ldap op {@link Hier.Op#ADD}, {@link Hier.Op#MOD}, {@link org.apache.directory.fortress.core.model.Hier.Op#REM}
+     * @return new graph containing the change.
      * @throws org.apache.directory.fortress.core.SecurityException in the event of a system error.
      */
-    static void updateHier( SimpleDirectedGraph<String, Relationship> graph, Relationship relationship, Hier.Op op )
-        throws SecurityException
+    static HierGraph updateHier( HierGraph graph, Relationship relationship, Hier.Op op ) throws SecurityException
     {
         if ( op == Hier.Op.ADD )
-            HierUtil.addEdge( graph, relationship );
+        {
+            LOG.debug( "addEdge" );
+            return graph.addEdge( relationship );
+        }
         else if ( op == Hier.Op.REM )
-            HierUtil.removeEdge( graph, relationship );
+        {
+            LOG.debug( "removeEdge" );
+            return graph.removeEdge( relationship );
+        }
         else
             throw new SecurityException( GlobalErrIds.HIER_CANNOT_PERFORM, CLS_NM
                 + "updateHier Cannot perform hierarchical operation" );
     }
 
 
+    /**
+     * Method instantiates a new hierarchy graph using data passed in via {@link Hier} entity.  The engine is selected by the
+     * {@code hier.engine} property, {@code csr}, the default, for {@link CsrHierGraph} or {@code jgrapht} for
+     * {@link JGraphHierGraph}.
+     *
+     * @param hier contains the source data for the graph.
+     * @return reference to the new graph, null if hier is null.
+     */
+    static HierGraph buildHierGraph( Hier hier )
+    {
+        if ( hier == null )
+        {
+            LOG.error( "buildHierGraph detected null hier=" );
+            return null;
+        }
+        if ( JGRAPHT.equalsIgnoreCase( Config.getInstance().getProperty( HIER_ENGINE, "csr" ) ) )
+        {
+            return new JGraphHierGraph( toGraph( hier ) );
+        }
+        return CsrHierGraph.build( hier );
+    }
+
+
     /**
      * Method instantiates a new digraph, {@code org.jgrapht.graph.SimpleDirectedGraph}, using data passed in via
      * {@link Hier} entity.
@@ -671,4 +648,10 @@ final class HierUtil
         LOG.debug( "buildGraph is success" );
         return graph;
     }
+
+
+    private static HierGraph adapt( SimpleDirectedGraph<String, Relationship> graph )
+    {
+        return graph == null ? null : new JGraphHierGraph( graph );
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.directory.fortress.core.model.Relationship;
+import org.jgrapht.Graphs;
+import org.jgrapht.graph.SimpleDirectedGraph;
+
+
+/**
+ * The {@link HierGraph} engine backed by a {@code org.jgrapht.graph.SimpleDirectedGraph}, the form hierarchies were held in
+ * before {@link CsrHierGraph}.  It is selected with {@code hier.engine=jgrapht} and also adapts graphs passed to the
+ * {@link HierUtil} methods that still accept a {@code SimpleDirectedGraph}.
+ * <p>
+ * Edges point from child to parent.  The wrapped graph must not be changed after it is passed in.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class JGraphHierGraph implements HierGraph
+{
+    private final SimpleDirectedGraph<String, Relationship> graph;
+    private final String[] names;
+    private final Map<String, Integer> ids;
+
+
+    /**
+     * @param graph contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     */
+    JGraphHierGraph( SimpleDirectedGraph<String, Relationship> graph )
+    {
+        this.graph = graph;
+        Set<String> vertices = graph.vertexSet();
+        this.names = vertices.toArray( new String[vertices.size()] );
+        this.ids = new HashMap<>( names.length * 2 );
+        for ( int id = 0; id < names.length; id++ )
+        {
+            ids.put( names[id], id );
+        }
+    }
+
+
+    @Override
+    public int size()
+    {
+        return names.length;
+    }
+
+
+    @Override
+    public int getId( String name )
+    {
+        Integer id = name == null ? null : ids.get( name );
+        return id == null ? -1 : id;
+    }
+
+
+    @Override
+    public String getName( int id )
+    {
+        return names[id];
+    }
+
+
+    @Override
+    public int[] getParents( int id )
+    {
+        Set<Relationship> edges = graph.outgoingEdgesOf( names[id] );
+        int[] parents = new int[edges.size()];
+        int i = 0;
+        for ( Relationship edge : edges )
+        {
+            parents[i++] = ids.get( graph.getEdgeTarget( edge ) );
+        }
+        return parents;
+    }
+
+
+    @Override
+    public int[] getChildren( int id )
+    {
+        Set<Relationship> edges = graph.incomingEdgesOf( names[id] );
+        int[] children = new int[edges.size()];
+        int i = 0;
+        for ( Relationship edge : edges )
+        {
+            children[i++] = ids.get( graph.getEdgeSource( edge ) );
+        }
+        return children;
+    }
+
+
+    @Override
+    public int getChildCount( int id )
+    {
+        return graph.inDegreeOf( names[id] );
+    }
+
+
+    @Override
+    public boolean containsEdge( String child, String parent )
+    {
+        return graph.containsEdge( new Relationship( child, parent ) );
+    }
+
+
+    @Override
+    public HierGraph addEdge( Relationship relationship )
+    {
+        SimpleDirectedGraph<String, Relationship> copy = copy();
+        copy.addVertex( relationship.getChild().toUpperCase() );
+        copy.addVertex( relationship.getParent().toUpperCase() );
+        copy.addEdge( relationship.getChild().toUpperCase(), relationship.getParent().toUpperCase(), relationship );
+        return new JGraphHierGraph( copy );
+    }
+
+
+    @Override
+    public HierGraph removeEdge( Relationship relationship )
+    {
+        SimpleDirectedGraph<String, Relationship> copy = copy();
+        copy.removeEdge( relationship );
+        return new JGraphHierGraph( copy );
+    }
+
+
+    private SimpleDirectedGraph<String, Relationship> copy()
+    {
+        SimpleDirectedGraph<String, Relationship> copy = new SimpleDirectedGraph<>( Relationship.class );
+        Graphs.addGraph( copy, graph );
+        return copy;
+    }
+}
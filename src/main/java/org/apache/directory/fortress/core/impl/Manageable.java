@@ -24,7 +24,13 @@ import org.apache.directory.fortress.core.ValidationException;
 import org.apache.directory.fortress.core.model.FortEntity;
 import org.apache.directory.fortress.core.model.Permission;
 import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.UserAdminRole;
+import org.apache.directory.fortress.core.model.UserRole;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.cache.SessionStore;
+import org.apache.directory.fortress.core.util.cache.SessionStoreFactory;
+
+import java.util.List;
 
 /**
  * Abstract class allows outside clients to manage security and multi-tenant concerns within the Fortress runtime.
@@ -179,4 +185,40 @@ public abstract class Manageable implements org.apache.directory.fortress.core.M
     {
         return className + "." + opName;
     }
+
+    /**
+     * Return the number of roles and admin roles activated in a session.  Constraint checks only ever remove roles from a
+     * session, so a change in the count means it must be stored again.
+     *
+     * @param session contains the roles activated.
+     * @return count of roles and admin roles.
+     */
+    protected final int getRoleCount( Session session )
+    {
+        List<UserRole> roles = session.getRoles();
+        List<UserAdminRole> adminRoles = session.getAdminRoles();
+        return ( roles == null ? 0 : roles.size() ) + ( adminRoles == null ? 0 : adminRoles.size() );
+    }
+
+    /**
+     * Update a session read from the {@link SessionStore} after it has been used.  It is stored again if roles were
+     * removed from it, else only its last access time is recorded.  A session deleted while it was used is not stored
+     * again.
+     *
+     * @param session as returned by {@link SessionStore#get(String)} and since checked.
+     * @param roleCount as returned by {@link #getRoleCount(Session)} before the check.
+     * @throws SecurityException in the event the session store cannot be created.
+     */
+    protected final void storeSession( Session session, int roleCount ) throws SecurityException
+    {
+        SessionStore store = SessionStoreFactory.getInstance();
+        if ( getRoleCount( session ) != roleCount )
+        {
+            store.replace( session );
+        }
+        else
+        {
+            store.setLastAccess( session.getSessionId(), session.getLastAccess() );
+        }
+    }
 }
\ No newline at end of file
@@ -79,6 +79,30 @@ final class OrgUnitP
     {
         CacheMgr cacheMgr = CacheMgr.getInstance();
         OrgUnitP.ouCache = cacheMgr.getCache( FORTRESS_OUS );
+        CacheSync.start();
+    }
+
+
+    /**
+     * Remove a tenant's set of User or Perm OU names from the cache after another process has changed them in ldap.
+     * The set is reloaded by the next caller.
+     *
+     * @param type either {@link OrgUnit.Type#USER} or {@link OrgUnit.Type#PERM}.
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     */
+    static void clearCache( OrgUnit.Type type, String contextId )
+    {
+        if ( ouCache == null )
+        {
+            return;
+        }
+        String name = type == OrgUnit.Type.USER ? USER_OUS : PERM_OUS;
+        ouCache.clear( getKey( name, contextId ) );
+        if ( GlobalIds.HOME.equals( contextId ) )
+        {
+            // callers that don't pass a contextId use the key without one:
+            ouCache.clear( getKey( name, null ) );
+        }
     }
 
 
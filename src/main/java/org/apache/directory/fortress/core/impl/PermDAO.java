@@ -22,8 +22,11 @@ package org.apache.directory.fortress.core.impl;
 
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -48,6 +51,8 @@ import org.apache.directory.fortress.core.FinderException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.RemoveException;
+import org.apache.directory.fortress.core.SearchHandler;
+import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.UpdateException;
 import org.apache.directory.fortress.core.ldap.LdapDataProvider;
 import org.apache.directory.fortress.core.model.AdminRole;
@@ -62,6 +67,7 @@ import org.apache.directory.fortress.core.model.Role;
 import org.apache.directory.fortress.core.model.Session;
 import org.apache.directory.fortress.core.model.User;
 import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.audit.AuthZEvent;
 import org.apache.directory.ldap.client.api.LdapConnection;
 
 
@@ -1230,6 +1236,8 @@ class PermDAO extends LdapDataProvider
      * This method performs fortress authorization using data passed in (session) and stored on ldap server (permission).  It has been recently changed to use ldap compare operations in order to trigger slapd access log updates in directory.
      * It performs ldap operations:  read and (optionally) compare.  The first is to pull back the permission to see if user has access or not.  The second is to trigger audit
      * record storage on ldap server but can be disabled.
+     * <p>
+     * When the permission index is enabled, {@code enable.perm.cache=true}, the read is served from {@link PermUtil} and only occurs on a cache miss.
      *
      * @param session contains {@link Session#getUserId()}, for impl check {@link org.apache.directory.fortress.core.model.Session#getRoles()}, for arbac check: {@link org.apache.directory.fortress.core.model.Session#getAdminRoles()}.
      * @param inPerm  must contain required attributes {@link Permission#objName} and {@link Permission#opName}.  {@link org.apache.directory.fortress.core.model.Permission#objId} is optional.
@@ -1246,26 +1254,39 @@ class PermDAO extends LdapDataProvider
 
         try
         {
-            ld = getAdminConnection();
-
-            // LDAP Operation #1: Read the targeted permission from ldap server
-            Entry entry = read( ld, dn, PERMISSION_OP_ATRS );
-            if ( entry == null )
+            // Use the permission index if enabled.  A miss locks the key, so other readers of it wait for this read:
+            boolean isCached = PermUtil.isEnabled();
+            Permission outPerm = null;
+            if ( isCached )
             {
-                // if permission not found, cannot continue.
-                String error = "checkPermission DOES NOT EXIST : obj name [" + inPerm.getObjName() + "], obj id ["
-                    + inPerm.getObjId() + "], op name [" + inPerm.getOpName() + "], idAdmin [" + inPerm.isAdmin() + "]";
-                throw new FinderException( GlobalErrIds.PERM_NOT_EXIST, error );
+                outPerm = PermUtil.getInstance().getPerm( inPerm );
             }
 
-            // load the permission entity with data retrieved from the permission node:
-            Permission outPerm = unloadPopLdapEntry( entry, 0, inPerm.isAdmin() );
-
-            // The admin flag will be set to 'true' if this is an administrative permission:
-            outPerm.setAdmin( inPerm.isAdmin() );
+            if ( outPerm == null )
+            {
+                try
+                {
+                    ld = getReadConnection();
 
-            // Pass the tenant id along:
-            outPerm.setContextId( inPerm.getContextId() );
+                    // LDAP Operation #1: Read the targeted permission from ldap server
+                    outPerm = readPermission( ld, inPerm, dn );
+                }
+                finally
+                {
+                    if ( isCached )
+                    {
+                        // Store the result, or if the read failed, release the lock held by the cache on this key:
+                        if ( outPerm != null )
+                        {
+                            PermUtil.getInstance().putPerm( inPerm, outPerm );
+                        }
+                        else
+                        {
+                            PermUtil.getInstance().releasePerm( inPerm );
+                        }
+                    }
+                }
+            }
 
             // The objective of these next steps is to evaluate the outcome of authorization attempt and trigger a write to slapd access logger containing the result.
             // The objectClass triggered by slapd access log write for upcoming ldap op is 'auditCompare'.
@@ -1292,7 +1313,8 @@ class PermDAO extends LdapDataProvider
             // LDAP Operation #2: Compare.
             if ( !session.isGroupSession() )
             {
-                addAuthZAudit( ld, dn, session.getUser().getDn(), attributeValue );
+                addAuthZAudit( ld, new AuthZEvent( dn, session.getUser().getDn(), attributeValue, inPerm.getContextId(),
+                    isAuthZd ) );
             }
         }
         catch ( LdapException e ) {
@@ -1305,12 +1327,13 @@ class PermDAO extends LdapDataProvider
             // There is a switch in fortress config to disable the audit ops.
             if (!session.isGroupSession())
             {
-                addAuthZAudit(ld, dn, session.getUser().getDn(), "AuthZ Invalid");
+                addAuthZAudit( ld, new AuthZEvent( dn, session.getUser().getDn(), "AuthZ Invalid", inPerm.getContextId(),
+                    false ) );
             }
         }
         finally
         {
-            closeAdminConnection( ld );
+            closeReadConnection( ld );
         }
 
         return isAuthZd;
@@ -1318,25 +1341,302 @@ class PermDAO extends LdapDataProvider
 
 
     /**
-     * Perform LDAP compare operation here to associate audit record with user authorization event.
+     * This method performs fortress authorization on a list of permissions for a single session.  It follows the same rules as
+     * {@link #checkPermission(Session, Permission)} but reads every permission that is not already held in the permission index
+     * with a single OR-filtered subtree search per permission root, evaluates the session's effective roles once and records the
+     * audit events as one batch.
+     * <p>
+     * Unlike the single check, a permission that does not exist does not cause an exception.  Its decision is false and its audit
+     * record carries the same 'AuthZ Invalid' value used when the permission's object is missing.
+     *
+     * @param session contains {@link Session#getUserId()}, for impl check {@link org.apache.directory.fortress.core.model.Session#getRoles()}, for arbac check: {@link org.apache.directory.fortress.core.model.Session#getAdminRoles()}.
+     * @param inPerms each must contain required attributes {@link Permission#objName} and {@link Permission#opName}.  {@link org.apache.directory.fortress.core.model.Permission#objId} is optional.
+     * @return List of decisions in the same order as the permissions passed in.
+     * @throws org.apache.directory.fortress.core.FinderException
+     *          In the event system error occurs looking up data on ldap server.
+     */
+    List<Boolean> checkPermissions( Session session, List<Permission> inPerms ) throws FinderException
+    {
+        // Collapse duplicates, keyed by permission root and coordinates:
+        Map<String, Permission> targets = new LinkedHashMap<>();
+        String[] keys = new String[inPerms.size()];
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            Permission inPerm = inPerms.get( i );
+            keys[i] = getPermKey( getRootDn( inPerm.isAdmin(), inPerm.getContextId() ), inPerm.getObjName(),
+                inPerm.getObjId(), inPerm.getOpName() );
+            if ( !targets.containsKey( keys[i] ) )
+            {
+                targets.put( keys[i], inPerm );
+            }
+        }
+
+        Map<String, Permission> found = new HashMap<>();
+        Map<String, Boolean> decisions = new HashMap<>();
+        LdapConnection ld = null;
+        try
+        {
+            // Use the permission index if enabled.  Its keys are looked up without locking them, since taking the lock
+            // of several missing keys at once could deadlock with another bulk call that wants them in another order:
+            boolean isCached = PermUtil.isEnabled();
+            Map<String, List<String>> missing = new LinkedHashMap<>();
+            for ( Map.Entry<String, Permission> target : targets.entrySet() )
+            {
+                Permission inPerm = target.getValue();
+                Permission outPerm = isCached ? PermUtil.getInstance().getPermQuiet( inPerm ) : null;
+                if ( outPerm != null )
+                {
+                    found.put( target.getKey(), outPerm );
+                }
+                else
+                {
+                    String root = getRootDn( inPerm.isAdmin(), inPerm.getContextId() );
+                    List<String> rootKeys = missing.get( root );
+                    if ( rootKeys == null )
+                    {
+                        rootKeys = new ArrayList<>();
+                        missing.put( root, rootKeys );
+                    }
+                    rootKeys.add( target.getKey() );
+                }
+            }
+
+            if ( !missing.isEmpty() )
+            {
+                ld = getReadConnection();
+
+                // LDAP Operation #1: One search per permission root for all of the permissions not already held:
+                for ( Map.Entry<String, List<String>> root : missing.entrySet() )
+                {
+                    readPermissions( ld, root.getKey(), root.getValue(), targets, found );
+                }
+                if ( isCached )
+                {
+                    // Store the results.  No lock was taken on the missing keys, so those not found are left alone:
+                    for ( List<String> rootKeys : missing.values() )
+                    {
+                        for ( String key : rootKeys )
+                        {
+                            Permission outPerm = found.get( key );
+                            if ( outPerm != null )
+                            {
+                                PermUtil.getInstance().putPerm( targets.get( key ), outPerm );
+                            }
+                        }
+                    }
+                }
+            }
+
+            List<AuthZEvent> events = new ArrayList<>( targets.size() );
+            for ( Map.Entry<String, Permission> target : targets.entrySet() )
+            {
+                Permission inPerm = target.getValue();
+                Permission outPerm = found.get( target.getKey() );
+                String dn = getOpRdn( inPerm.getOpName(), inPerm.getObjId() ) + "," + GlobalIds.POBJ_NAME + "="
+                    + inPerm.getObjName() + "," + getRootDn( inPerm.isAdmin(), inPerm.getContextId() );
+                String attributeValue;
+                boolean isAuthZd = false;
+                if ( outPerm == null )
+                {
+                    attributeValue = "AuthZ Invalid";
+                }
+                else
+                {
+                    // The session's effective roles are computed on the first call and reused for the rest:
+                    isAuthZd = isAuthorized( session, outPerm );
+                    attributeValue = isAuthZd ? outPerm.getOpName() : outPerm.getOpName()
+                        + GlobalIds.FAILED_AUTHZ_INDICATOR;
+                }
+                decisions.put( target.getKey(), isAuthZd );
+                events.add( new AuthZEvent( dn, session.isGroupSession() ? null : session.getUser().getDn(),
+                    attributeValue, inPerm.getContextId(), isAuthZd ) );
+            }
+
+            // LDAP Operation #2: Compare, once per permission, on the same connection:
+            if ( !session.isGroupSession() )
+            {
+                addAuthZAudit( ld, events );
+            }
+        }
+        catch ( LdapException e )
+        {
+            String error = "checkPermissions caught LdapException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.PERM_READ_OP_FAILED, error, e );
+        }
+        finally
+        {
+            closeReadConnection( ld );
+        }
+
+        List<Boolean> results = new ArrayList<>( keys.length );
+        for ( String key : keys )
+        {
+            results.add( decisions.get( key ) );
+        }
+        return results;
+    }
+
+
+    /**
+     * Read the permission operations targeted by a checkPermissions call, all located under one permission root, with a single search.
      *
      * @param ld this method expects the ldap connection to be good
-     * @param permDn contains distinguished name of the permission object.
-     * @param userDn contains the distinguished name of the user object.
-     * @param attributeValue string value will be associated with the 'audit' record stored in ldap.
+     * @param root contains the distinguished name of the permission root, i.e. ou=Permissions.
+     * @param rootKeys contains the keys, see {@link #getPermKey(String, String, String, String)}, of the permissions to read.
+     * @param targets contains the permissions requested, by key.
+     * @param found receives the permissions read, by key.
      * @throws FinderException in the event ldap system exception occurs.
      */
-    private void addAuthZAudit( LdapConnection ld, String permDn, String userDn, String attributeValue )
+    private void readPermissions( LdapConnection ld, String root, List<String> rootKeys, Map<String, Permission> targets,
+        Map<String, Permission> found ) throws FinderException
+    {
+        try
+        {
+            StringBuilder filterbuf = new StringBuilder();
+            filterbuf.append( GlobalIds.FILTER_PREFIX );
+            filterbuf.append( PERM_OP_OBJECT_CLASS_NAME );
+            filterbuf.append( ")(|" );
+            boolean isAdmin = false;
+            for ( String key : rootKeys )
+            {
+                Permission inPerm = targets.get( key );
+                isAdmin = inPerm.isAdmin();
+                filterbuf.append( "(&(" );
+                filterbuf.append( GlobalIds.POBJ_NAME );
+                filterbuf.append( "=" );
+                filterbuf.append( encodeSafeText( inPerm.getObjName(), GlobalIds.PERM_LEN ) );
+                filterbuf.append( ")(" );
+                filterbuf.append( GlobalIds.POP_NAME );
+                filterbuf.append( "=" );
+                filterbuf.append( encodeSafeText( inPerm.getOpName(), GlobalIds.PERM_LEN ) );
+                if ( StringUtils.isNotEmpty( inPerm.getObjId() ) )
+                {
+                    filterbuf.append( ")(" );
+                    filterbuf.append( GlobalIds.POBJ_ID );
+                    filterbuf.append( "=" );
+                    filterbuf.append( encodeSafeText( inPerm.getObjId(), GlobalIds.PERM_LEN ) );
+                    filterbuf.append( "))" );
+                }
+                else
+                {
+                    filterbuf.append( ")(!(" );
+                    filterbuf.append( GlobalIds.POBJ_ID );
+                    filterbuf.append( "=*)))" );
+                }
+            }
+            filterbuf.append( "))" );
+
+            SearchCursor searchResults = search( ld, root, SearchScope.SUBTREE, filterbuf.toString(),
+                PERMISSION_OP_ATRS, false, GlobalIds.BATCH_SIZE );
+            long sequence = 0;
+            while ( searchResults.next() )
+            {
+                Permission outPerm = unloadPopLdapEntry( searchResults.getEntry(), sequence++, isAdmin );
+                String key = getPermKey( root, outPerm.getObjName(), outPerm.getObjId(), outPerm.getOpName() );
+                Permission inPerm = targets.get( key );
+                if ( inPerm != null )
+                {
+                    // Pass the tenant id along:
+                    outPerm.setContextId( inPerm.getContextId() );
+                    found.put( key, outPerm );
+                }
+            }
+        }
+        catch ( LdapNoSuchObjectException e )
+        {
+            // The permission root does not exist, none of these permissions will be found.
+        }
+        catch ( LdapException e )
+        {
+            String error = "checkPermissions caught LdapException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.PERM_READ_OP_FAILED, error, e );
+        }
+        catch ( CursorException e )
+        {
+            String error = "checkPermissions caught CursorException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.PERM_READ_OP_FAILED, error, e );
+        }
+    }
+
+
+    /**
+     * @return key used to match requested permissions with the entries returned by {@link #readPermissions}.
+     */
+    private static String getPermKey( String root, String objName, String objId, String opName )
+    {
+        return ( root + ":" + objName + ":" + StringUtils.defaultString( objId ) + ":" + opName ).toUpperCase();
+    }
+
+
+    /**
+     * Read the permission operation targeted by a checkPermission call from ldap.
+     *
+     * @param ld this method expects the ldap connection to be good
+     * @param inPerm must contain required attributes {@link Permission#objName} and {@link Permission#opName}.  {@link org.apache.directory.fortress.core.model.Permission#objId} is optional.
+     * @param dn contains distinguished name of the permission operation.
+     * @return Permission containing the users and roles that have been granted.
+     * @throws FinderException if the permission does not exist.
+     * @throws LdapException in the event ldap system exception occurs.
+     */
+    private Permission readPermission( LdapConnection ld, Permission inPerm, String dn )
+        throws FinderException, LdapException
+    {
+        Entry entry = read( ld, dn, PERMISSION_OP_ATRS );
+        if ( entry == null )
+        {
+            // if permission not found, cannot continue.
+            String error = "checkPermission DOES NOT EXIST : obj name [" + inPerm.getObjName() + "], obj id ["
+                + inPerm.getObjId() + "], op name [" + inPerm.getOpName() + "], idAdmin [" + inPerm.isAdmin() + "]";
+            throw new FinderException( GlobalErrIds.PERM_NOT_EXIST, error );
+        }
+
+        // load the permission entity with data retrieved from the permission node:
+        Permission outPerm = unloadPopLdapEntry( entry, 0, inPerm.isAdmin() );
+
+        // The admin flag will be set to 'true' if this is an administrative permission:
+        outPerm.setAdmin( inPerm.isAdmin() );
+
+        // Pass the tenant id along:
+        outPerm.setContextId( inPerm.getContextId() );
+        return outPerm;
+    }
+
+
+    /**
+     * Perform LDAP compare operation here to associate audit record with user authorization event.
+     * <p>
+     * When {@code audit.mode=async} is set the event is handed to {@link AuditWriter} and no ldap operation occurs on the caller's thread.
+     *
+     * @param ld uses this connection if not null, otherwise a connection is taken from the admin pool only when audit is enabled.
+     * @param event contains the permission dn, user dn and the value that will be associated with the 'audit' record stored in ldap.
+     * @throws FinderException in the event ldap system exception occurs.
+     */
+    private void addAuthZAudit( LdapConnection ld, AuthZEvent event )
         throws FinderException
     {
         // Audit can be turned off here with fortress config param: 'disable.audit=true'
-        if ( Config.getInstance().isOpenldap() && ! Config.getInstance().isAuditDisabled() )
+        if ( Config.getInstance().isAuditDisabled() )
+        {
+            return;
+        }
+        if ( AuditWriter.isAsync() )
         {
+            AuditWriter.getInstance().offer( event );
+        }
+        else if ( Config.getInstance().isOpenldap() )
+        {
+            LdapConnection auditLd = ld;
             try
             {
+                if ( auditLd == null )
+                {
+                    // The permission was found in the permission index, borrow a connection for the compare:
+                    auditLd = getAdminConnection();
+                }
                 // The compare method uses OpenLDAP's Proxy Authorization Control to assert identity of end user onto connection:
                 // LDAP Operation #2: Compare:
-                compareNode( ld, permDn, userDn, new DefaultAttribute( GlobalIds.POP_NAME, attributeValue ) );
+                compareNode( auditLd, event.getPermDn(), event.getUserDn(),
+                    new DefaultAttribute( GlobalIds.POP_NAME, event.getAssertionValue() ) );
             }
             catch ( UnsupportedEncodingException ee )
             {
@@ -1351,6 +1651,67 @@ class PermDAO extends LdapDataProvider
                     throw new FinderException( GlobalErrIds.PERM_COMPARE_OP_FAILED, error, e );
                 }
             }
+            finally
+            {
+                if ( ld == null )
+                {
+                    closeAdminConnection( auditLd );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Record the audit events of a checkPermissions call.  When {@code audit.mode=async} is set the events are handed to
+     * {@link AuditWriter}, otherwise a compare is performed for each on a single connection.
+     *
+     * @param ld uses this connection if not null, otherwise a connection is taken from the admin pool only when audit is enabled.
+     * @param events contains the permission dn, user dn and the value that will be associated with each 'audit' record stored in ldap.
+     * @throws FinderException in the event ldap system exception occurs.
+     */
+    private void addAuthZAudit( LdapConnection ld, List<AuthZEvent> events )
+        throws FinderException
+    {
+        if ( Config.getInstance().isAuditDisabled() || events.isEmpty() )
+        {
+            return;
+        }
+        if ( AuditWriter.isAsync() )
+        {
+            AuditWriter writer = AuditWriter.getInstance();
+            for ( AuthZEvent event : events )
+            {
+                writer.offer( event );
+            }
+        }
+        else if ( Config.getInstance().isOpenldap() )
+        {
+            LdapConnection auditLd = ld;
+            try
+            {
+                if ( auditLd == null )
+                {
+                    // Every permission was found in the permission index, borrow a connection for the compares:
+                    auditLd = getAdminConnection();
+                }
+                for ( AuthZEvent event : events )
+                {
+                    addAuthZAudit( auditLd, event );
+                }
+            }
+            catch ( LdapException e )
+            {
+                String error = "addAuthZAudit caught LdapException=" + e.getMessage();
+                throw new FinderException( GlobalErrIds.PERM_COMPARE_OP_FAILED, error, e );
+            }
+            finally
+            {
+                if ( ld == null )
+                {
+                    closeAdminConnection( auditLd );
+                }
+            }
         }
     }
 
@@ -1383,8 +1744,7 @@ class PermDAO extends LdapDataProvider
             if ( permission.isAdmin() )
             {
                 // ARBAC Permission check include's User's inherited admin roles:
-                Set<String> activatedRoles = AdminRoleUtil.getInheritedRoles( session.getAdminRoles(),
-                    permission.getContextId() );
+                Set<String> activatedRoles = AdminRoleUtil.getInheritedRoles( session, permission.getContextId() );
 
                 for ( String role : roles )
                 {
@@ -1399,7 +1759,7 @@ class PermDAO extends LdapDataProvider
             else
             {
                 // RBAC Permission check include's User's inherited roles:
-                Set<String> activatedRoles = RoleUtil.getInstance().getInheritedRoles( session.getRoles(), permission.getContextId() );
+                Set<String> activatedRoles = RoleUtil.getInstance().getInheritedRoles( session, permission.getContextId() );
 
                 for ( String role : roles )
                 {
@@ -1525,23 +1885,10 @@ class PermDAO extends LdapDataProvider
 
         try
         {
-            String permObjVal = encodeSafeText( permission.getObjName(), GlobalIds.PERM_LEN );
-            String permOpVal = encodeSafeText( permission.getOpName(), GlobalIds.PERM_LEN );
-            StringBuilder filterbuf = new StringBuilder();
-            filterbuf.append( GlobalIds.FILTER_PREFIX );
-            filterbuf.append( PERM_OP_OBJECT_CLASS_NAME );
-            filterbuf.append( ")(" );
-            filterbuf.append( GlobalIds.POBJ_NAME );
-            filterbuf.append( "=" );
-            filterbuf.append( permObjVal );
-            filterbuf.append( "*)(" );
-            filterbuf.append( GlobalIds.POP_NAME );
-            filterbuf.append( "=" );
-            filterbuf.append( permOpVal );
-            filterbuf.append(  "*))" );
+            String filter = getFindPermissionsFilter( permission );
             ld = getAdminConnection();
             SearchCursor searchResults = search( ld, permRoot,
-                SearchScope.SUBTREE, filterbuf.toString(), PERMISSION_OP_ATRS, false, GlobalIds.BATCH_SIZE );
+                SearchScope.SUBTREE, filter, PERMISSION_OP_ATRS, false, GlobalIds.BATCH_SIZE );
             long sequence = 0;
 
             while ( searchResults.next() )
@@ -1566,6 +1913,79 @@ class PermDAO extends LdapDataProvider
         return permList;
     }
 
+
+    /**
+     * Stream the permission operations matching the search criteria to the handler, reading them from ldap a page at
+     * a time.
+     *
+     * @param permission contains all or partial object name and/or all or partial operation name.
+     * @param handler    is called once for each permission found.
+     * @return number of permissions passed to the handler.
+     * @throws SecurityException in the event of ldap search error or thrown by the handler.
+     */
+    long findPermissions( final Permission permission, final SearchHandler<Permission> handler )
+        throws SecurityException
+    {
+        LdapConnection ld = null;
+        String permRoot = getRootDn( permission.isAdmin(), permission.getContextId() );
+
+        try
+        {
+            String filter = getFindPermissionsFilter( permission );
+            ld = getAdminConnection();
+            return searchPaged( ld, permRoot, SearchScope.SUBTREE, filter, PERMISSION_OP_ATRS, false,
+                new EntryHandler()
+                {
+                    private long sequence = 0;
+
+                    @Override
+                    public boolean handle( Entry entry ) throws LdapException, SecurityException
+                    {
+                        return handler.handle( unloadPopLdapEntry( entry, sequence++, permission.isAdmin() ) );
+                    }
+                } );
+        }
+        catch ( LdapException e )
+        {
+            String error = "findPermissions caught LdapException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.PERM_SEARCH_FAILED, error, e );
+        }
+        catch ( CursorException e )
+        {
+            String error = "findPermissions caught CursorException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.PERM_SEARCH_FAILED, error, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+    }
+
+
+    /**
+     * @param permission contains all or partial object name and/or all or partial operation name.
+     * @return search filter used by the permission finders.
+     * @throws LdapException if the search values could not be encoded.
+     */
+    private String getFindPermissionsFilter( Permission permission ) throws LdapException
+    {
+        String permObjVal = encodeSafeText( permission.getObjName(), GlobalIds.PERM_LEN );
+        String permOpVal = encodeSafeText( permission.getOpName(), GlobalIds.PERM_LEN );
+        StringBuilder filterbuf = new StringBuilder();
+        filterbuf.append( GlobalIds.FILTER_PREFIX );
+        filterbuf.append( PERM_OP_OBJECT_CLASS_NAME );
+        filterbuf.append( ")(" );
+        filterbuf.append( GlobalIds.POBJ_NAME );
+        filterbuf.append( "=" );
+        filterbuf.append( permObjVal );
+        filterbuf.append( "*)(" );
+        filterbuf.append( GlobalIds.POP_NAME );
+        filterbuf.append( "=" );
+        filterbuf.append( permOpVal );
+        filterbuf.append(  "*))" );
+        return filterbuf.toString();
+    }
+
     List<Permission> findPermissionOperations( PermObj permObj )
             throws FinderException
         {
@@ -2044,11 +2464,11 @@ class PermDAO extends LdapDataProvider
             Set<String> roles;
             if ( isAdmin )
             {
-                roles = AdminRoleUtil.getInheritedRoles( session.getAdminRoles(), session.getContextId() );
+                roles = AdminRoleUtil.getInheritedRoles( session, session.getContextId() );
             }
             else
             {
-                roles = RoleUtil.getInstance().getInheritedRoles( session.getRoles(), session.getContextId() );
+                roles = RoleUtil.getInstance().getInheritedRoles( session, session.getContextId() );
             }
             if ( CollectionUtils.isNotEmpty( roles ) )
             {
@@ -28,6 +28,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.directory.fortress.core.FinderException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.SearchHandler;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.ValidationException;
 import org.apache.directory.fortress.core.model.AdminRole;
@@ -90,6 +91,21 @@ final class PermP
     }
 
 
+    /**
+     * This function returns a Boolean value for each of the given permissions, meaning whether the subject of a given session is
+     * allowed or not to perform the permission's operation on its object.  The permissions are read from the directory together.
+     *
+     * @param session     This object must be instantiated by calling {@link AccessMgrImpl#createSession} method before passing into the method.  No variables need to be set by client after returned from createSession.
+     * @param permissions each contains the name of the object and the operation name for the object.
+     * @return List of decisions in the same order as the permissions.  A permission that does not exist is false.
+     * @throws SecurityException in the event of data validation failure, security policy violation or DAO error.
+     */
+    List<Boolean> checkPermissions( Session session, List<Permission> permissions ) throws SecurityException
+    {
+        return pDao.checkPermissions( session, permissions );
+    }
+
+
     /**
      * Takes a Permission entity that contains full or partial object name and/or full or partial operation name for search.
      *
@@ -101,6 +117,21 @@ final class PermP
     {
         return pDao.findPermissions( permission );
     }
+
+
+    /**
+     * Takes a Permission entity that contains full or partial object name and/or full or partial operation name and
+     * passes each matching Permission to the handler, reading them from the directory a page at a time.
+     *
+     * @param permission contains all or partial object name and/or all or partial operation name.
+     * @param handler    is called once for each permission found.
+     * @return number of permissions passed to the handler.
+     * @throws SecurityException in the event of DAO search error or thrown by the handler.
+     */
+    long search( Permission permission, SearchHandler<Permission> handler ) throws SecurityException
+    {
+        return pDao.findPermissions( permission, handler );
+    }
     
     /**
      * Takes a permission object that contains an object name and returns permisison operations for that object
@@ -454,7 +485,12 @@ final class PermP
         {
             validate( entity, true );
         }
-        return pDao.updateObj( entity );
+        PermObj permObj = pDao.updateObj( entity );
+        if ( StringUtils.isNotEmpty( entity.getOu() ) )
+        {
+            EntityOuCache.clearPermObj( entity.getContextId(), entity.getObjName() );
+        }
+        return permObj;
     }
 
 
@@ -506,6 +542,7 @@ final class PermP
     void delete( PermObj entity ) throws SecurityException
     {
         pDao.deleteObj( entity );
+        EntityOuCache.clearPermObj( entity.getContextId(), entity.getObjName() );
     }
 
 
@@ -0,0 +1,201 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.model.Permission;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.cache.Cache;
+import org.apache.directory.fortress.core.util.cache.CacheMgr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This utility maintains the permission index used by {@link PermDAO#checkPermission} to make authorization decisions
+ * without reading the permission operation entry from ldap on every call.  Each element contains the
+ * {@link org.apache.directory.fortress.core.model.Permission#getRoles()} and {@link org.apache.directory.fortress.core.model.Permission#getUsers()}
+ * sets of a single permission operation and is keyed by contextId, objName, objId, opName and the admin flag.
+ * <p>
+ * The index is stored in the {@code fortress.perms} cache.  Its size bound and time-to-live are set in {@code ehcache.xml}.
+ * It is switched off by default and may be enabled by setting {@code enable.perm.cache=true} in the fortress properties.
+ * Entries are cleared by {@link AdminMgrImpl} and {@link DelAdminMgrImpl} whenever the grants of a permission change,
+ * and by {@link CacheSync} when they are changed by another process.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class PermUtil
+{
+    private Cache permCache;
+    private static final String FORTRESS_PERMS = "fortress.perms";
+    private static final String IS_PERM_CACHE_ENABLED_PARM = "enable.perm.cache";
+    private static final String CLS_NM = PermUtil.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+
+    private static volatile PermUtil sINSTANCE = null;
+
+    static PermUtil getInstance()
+    {
+        if ( sINSTANCE == null )
+        {
+            synchronized ( PermUtil.class )
+            {
+                if ( sINSTANCE == null )
+                {
+                    sINSTANCE = new PermUtil();
+                }
+            }
+        }
+        return sINSTANCE;
+    }
+
+
+    /**
+     * Private constructor
+     *
+     */
+    private PermUtil()
+    {
+        init();
+    }
+
+
+    private void init()
+    {
+        CacheMgr cacheMgr = CacheMgr.getInstance();
+        permCache = cacheMgr.getCache( FORTRESS_PERMS );
+        CacheSync.start();
+    }
+
+
+    /**
+     * Return true if the permission index has been switched on with the {@code enable.perm.cache} property.
+     *
+     * @return boolean value, default is false.
+     */
+    static boolean isEnabled()
+    {
+        return Config.getInstance().getBoolean( IS_PERM_CACHE_ENABLED_PARM, false );
+    }
+
+
+    /**
+     * Return the permission operation stored in the index for the given coordinates.
+     * <p>
+     * The backing cache blocks concurrent readers of a key that was not found until the caller either adds an element
+     * with {@link #putPerm(Permission, Permission)} or releases it with {@link #releasePerm(Permission)}.  This ensures only
+     * one thread reads a missing permission from ldap.
+     *
+     * @param permission contains {@link Permission#objName}, {@link Permission#opName}, optional {@link Permission#objId}, the admin flag and contextId.
+     * @return the stored Permission or null if not found.
+     */
+    Permission getPerm( Permission permission )
+    {
+        return ( Permission ) permCache.get( getKey( permission ) );
+    }
+
+
+    /**
+     * Return the permission operation stored in the index for the given coordinates, without taking the lock that
+     * {@link #getPerm(Permission)} holds on a key that was not found.  Used when many keys are looked up at once, so
+     * a caller never holds the lock of one key while it waits for another.  An entry found this way may be added
+     * with {@link #putPerm(Permission, Permission)} and must not be released.
+     *
+     * @param permission contains {@link Permission#objName}, {@link Permission#opName}, optional {@link Permission#objId}, the admin flag and contextId.
+     * @return the stored Permission or null if not found.
+     */
+    Permission getPermQuiet( Permission permission )
+    {
+        return ( Permission ) permCache.getQuiet( getKey( permission ) );
+    }
+
+
+    /**
+     * Add the permission operation read from ldap to the index.
+     *
+     * @param permission contains the coordinates used to look up the entry.
+     * @param entity contains the permission, including its granted users and roles, read from ldap.
+     */
+    void putPerm( Permission permission, Permission entity )
+    {
+        permCache.put( getKey( permission ), entity );
+    }
+
+
+    /**
+     * Release the lock held on a key that was not found in the index and could not be loaded from ldap.
+     *
+     * @param permission contains the coordinates used to look up the entry.
+     */
+    void releasePerm( Permission permission )
+    {
+        permCache.put( getKey( permission ), null );
+    }
+
+
+    /**
+     * Remove a single permission operation from the index.  Called after its grants have been changed in ldap.
+     * Does nothing if the index is not enabled.
+     *
+     * @param permission contains the coordinates of the entry to clear.
+     */
+    static void clearPerm( Permission permission )
+    {
+        if ( isEnabled() )
+        {
+            getInstance().permCache.clear( getKey( permission ) );
+        }
+    }
+
+
+    /**
+     * Remove every entry from the index.  Called after operations that change the grants of many permissions at once,
+     * i.e. deletion of a permission object, a user or a role.  Does nothing if the index is not enabled.
+     */
+    static void clearAll()
+    {
+        if ( isEnabled() )
+        {
+            LOG.debug( "clearAll flushing the permission index" );
+            getInstance().permCache.flush();
+        }
+    }
+
+
+    /**
+     * @param permission contains the coordinates of the entry.
+     * @return key to this permission's cache entry.
+     */
+    private static String getKey( Permission permission )
+    {
+        String contextId = GlobalIds.HOME;
+        if ( StringUtils.isNotEmpty( permission.getContextId() ) && !permission.getContextId().equals( GlobalIds.NULL ) )
+        {
+            contextId = permission.getContextId();
+        }
+        String key = contextId + ":" + permission.getObjName() + ":" + StringUtils.defaultString( permission.getObjId() )
+            + ":" + permission.getOpName() + ":" + permission.isAdmin();
+        return key.toUpperCase();
+    }
+}
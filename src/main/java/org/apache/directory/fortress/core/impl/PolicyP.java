@@ -79,6 +79,28 @@ final class PolicyP
     {
         CacheMgr cacheMgr = CacheMgr.getInstance();
         PolicyP.policyCache = cacheMgr.getCache( FORTRESS_POLICIES );
+        CacheSync.start();
+    }
+
+
+    /**
+     * Remove a tenant's set of policy names from the cache after another process has changed them in ldap.  The set is
+     * reloaded by the next caller.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     */
+    static void clearCache( String contextId )
+    {
+        if ( policyCache == null )
+        {
+            return;
+        }
+        policyCache.clear( getKey( contextId ) );
+        if ( GlobalIds.HOME.equals( contextId ) )
+        {
+            // callers that don't pass a contextId use the key without one:
+            policyCache.clear( getKey( null ) );
+        }
     }
 
 
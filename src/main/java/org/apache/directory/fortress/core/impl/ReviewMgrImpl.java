@@ -32,6 +32,7 @@ import org.apache.directory.fortress.annotation.AdminPermissionOperation;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.ReviewMgr;
+import org.apache.directory.fortress.core.SearchHandler;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.model.OrgUnit;
 import org.apache.directory.fortress.core.model.PermObj;
@@ -155,6 +156,22 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         return permP.search( permission );
     }
 
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @AdminPermissionOperation( operationName = "findPermissions" )
+    public long findPermissions(Permission permission, SearchHandler<Permission> handler)
+        throws SecurityException
+    {
+        String methodName = "findPermissions";
+        assertContext( CLS_NM, methodName, permission, GlobalErrIds.PERM_OPERATION_NULL );
+        VUtil.assertNotNull( handler, GlobalErrIds.FT_SEARCH_HANDLER_NULL, CLS_NM + "." + methodName );
+        checkAccess(CLS_NM, methodName);
+        return permP.search( permission, handler );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -288,6 +305,22 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         return userP.search( user );
     }
 
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @AdminPermissionOperation( operationName = "findUsers" )
+    public long findUsers(User user, SearchHandler<User> handler)
+        throws SecurityException
+    {
+        String methodName = "findUsers";
+        assertContext( CLS_NM, methodName, user, GlobalErrIds.USER_NULL );
+        VUtil.assertNotNull( handler, GlobalErrIds.FT_SEARCH_HANDLER_NULL, CLS_NM + "." + methodName );
+        checkAccess(CLS_NM, methodName);
+        return userP.search( user, handler );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -444,6 +477,22 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         return userP.getAuthorizedUsers( role );
     }
 
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @AdminPermissionOperation( operationName = "authorizedUsers" )
+    public long authorizedUsers( Role role, SearchHandler<String> handler )
+        throws SecurityException
+    {
+        String methodName = "authorizedUsers";
+        assertContext( CLS_NM, methodName, role, GlobalErrIds.ROLE_NULL );
+        VUtil.assertNotNull( handler, GlobalErrIds.FT_SEARCH_HANDLER_NULL, CLS_NM + "." + methodName );
+        checkAccess( CLS_NM, methodName );
+        return userP.getAuthorizedUsers( role, handler );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -647,7 +696,7 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         Set<String> authorizedRoles = null;
         if (assignedRoles != null)
         {
-            // Get the descendant roles of all assigned roles from jgrapht hierarchical roles data set:
+            // Get the descendant roles of all assigned roles from the cached role hierarchy:
             authorizedRoles = RoleUtil.getInstance().getDescendantRoles(assignedRoles, this.contextId);
         }
         return authorizedRoles;
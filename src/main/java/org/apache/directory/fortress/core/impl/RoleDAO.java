@@ -21,6 +21,7 @@ package org.apache.directory.fortress.core.impl;
 
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -314,6 +315,43 @@ final class RoleDAO extends LdapDataProvider implements PropertyProvider<Role>
     }
 
 
+    /**
+     * Add several occupants to a role with a single modify.
+     *
+     * @param entity
+     * @param userDns
+     * @return
+     * @throws org.apache.directory.fortress.core.UpdateException
+     *
+     */
+    Role assign( Role entity, Collection<String> userDns ) throws UpdateException
+    {
+        LdapConnection ld = null;
+        String dn = getDn( entity.getName(), entity.getContextId() );
+
+        try
+        {
+            List<Modification> mods = new ArrayList<Modification>();
+            mods.add( new DefaultModification( ModificationOperation.ADD_ATTRIBUTE, SchemaConstants.ROLE_OCCUPANT_AT,
+                userDns.toArray( new String[userDns.size()] ) ) );
+            ld = getAdminConnection();
+            modify( ld, dn, mods, entity );
+        }
+        catch ( LdapException e )
+        {
+            String error = "assign role name [" + entity.getName() + "] user dns [" + userDns.size()
+                + "] caught LdapException=" + e.getMessage();
+            throw new UpdateException( GlobalErrIds.ROLE_USER_ASSIGN_FAILED, error, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+
+        return entity;
+    }
+
+
     /**
      * @param entity
      * @param userDn
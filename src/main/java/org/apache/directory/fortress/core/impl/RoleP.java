@@ -20,6 +20,7 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -194,6 +195,20 @@ final class RoleP
     }
 
 
+    /**
+     * Method will add the "roleOccupant" attribute for several users onto an OpenLDAP entry with a single modify.
+     *
+     * @param entity contains the role name targeted.
+     * @param userDns contains the dns for the user entries that are being assigned the RBAC Role.
+     * @return Role containing copy of input data.
+     * @throws SecurityException in the event of data validation or DAO system error.
+     */
+    Role assign( Role entity, Collection<String> userDns ) throws SecurityException
+    {
+        return rDao.assign( entity, userDns );
+    }
+
+
     /**
      * Method will remove the "roleOccupant" attribute on OpenLDAP entry which represents an RBAC Role assignment in Fortress.
      *
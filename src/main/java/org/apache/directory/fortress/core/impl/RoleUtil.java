@@ -20,9 +20,13 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -33,11 +37,11 @@ import org.apache.directory.fortress.core.model.Graphable;
 import org.apache.directory.fortress.core.model.Hier;
 import org.apache.directory.fortress.core.model.ParentUtil;
 import org.apache.directory.fortress.core.model.Relationship;
+import org.apache.directory.fortress.core.model.Session;
 import org.apache.directory.fortress.core.model.Role;
 import org.apache.directory.fortress.core.model.UserRole;
 import org.apache.directory.fortress.core.util.cache.Cache;
 import org.apache.directory.fortress.core.util.cache.CacheMgr;
-import org.jgrapht.graph.SimpleDirectedGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,15 +49,16 @@ import org.slf4j.LoggerFactory;
 /**
  * This utility wraps {@link org.apache.directory.fortress.core.impl.HierUtil} methods to provide hierarchical functionality for the {@link org.apache.directory.fortress.core.model.Role} data set.
  * The {@code cn=Hierarchies, ou=Roles} data is stored within a cache, {@link #roleCache}, contained within this class.  The parent-child edges are contained in LDAP,
- * in {@code ftParents} attribute.  The ldap data is retrieved {@link org.apache.directory.fortress.core.impl.RoleP#getAllDescendants(String)} and loaded into {@code org.jgrapht.graph.SimpleDirectedGraph}.
+ * in {@code ftParents} attribute.  The ldap data is retrieved {@link org.apache.directory.fortress.core.impl.RoleP#getAllDescendants(String)} and loaded into {@link HierGraph}.
  * The graph...
  * <ol>
  * <li>is stored as singleton in this class with vertices of {@code String}, and edges, as {@link org.apache.directory.fortress.core.model.Relationship}s</li>
- * <li>utilizes open source library, see <a href="http://www.jgrapht.org/">JGraphT</a>.</li>
+ * <li>is held by {@link CsrHierGraph} as arrays of vertex ids, or by {@link JGraphHierGraph} if {@code hier.engine} is set to {@code jgrapht}.</li>
  * <li>contains a general hierarchical data structure i.e. allows multiple inheritance with parents.</li>
  * <li>is a simple directed graph thus does not allow cycles.</li>
  * </ol>
- * After update is performed to ldap, the singleton is refreshed with latest info.
+ * After update is performed to ldap, the singleton is refreshed with latest info.  The graph is reloaded in the background
+ * before its cache entry expires, see {@link GraphLoader}.
  * <p>
  * Static methods on this class are intended for use by other Fortress classes, i.e. {@link org.apache.directory.fortress.core.impl.UserDAO} and {@link org.apache.directory.fortress.core.impl.PermDAO}
  * and cannot be directly invoked by outside programs.
@@ -65,6 +70,8 @@ import org.slf4j.LoggerFactory;
 final class RoleUtil implements ParentUtil
 {
     private Cache roleCache;
+    private GraphLoader graphLoader;
+    private final ConcurrentMap<String, HierClosure> closures = new ConcurrentHashMap<>();
     private RoleP roleP = new RoleP();
     private static final String CLS_NM = RoleUtil.class.getName();
     private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
@@ -92,7 +99,7 @@ final class RoleUtil implements ParentUtil
     
     /**
      * Initialize the Role hierarchies.  This will read the {@link org.apache.directory.fortress.core.model.Hier} data set from ldap and load into
-     * the JGraphT simple digraph that referenced statically within this class.
+     * the {@link HierGraph} held in the cache of this class.
      */
     private void init()
     {
@@ -100,6 +107,14 @@ final class RoleUtil implements ParentUtil
     	
         CacheMgr cacheMgr = CacheMgr.getInstance();
         roleCache = cacheMgr.getCache( "fortress.roles" );
+        graphLoader = new GraphLoader( roleCache, closures, new GraphLoader.Source()
+        {
+            @Override
+            public HierGraph load( String contextId )
+            {
+                return loadGraph( contextId );
+            }
+        } );
     }
 
     /**
@@ -112,7 +127,7 @@ final class RoleUtil implements ParentUtil
 
     /**
      * Used to determine if one {@link org.apache.directory.fortress.core.model.Role} is the parent of another.  This method
-     * will call recursive routine {@link #getAscendants(String, String)} to walk the {@code org.jgrapht.graph.SimpleDirectedGraph} data structure
+     * will consult the precomputed {@link HierClosure} of the {@link HierGraph} data structure
      * returning flag indicating if parent-child relationship is valid.
      *
      * @param child  maps to logical {@link org.apache.directory.fortress.core.model.Role#name} on 'ftRls' object class.
@@ -122,18 +137,12 @@ final class RoleUtil implements ParentUtil
      */
     boolean isParent( String child, String parent, String contextId )
     {
-        boolean result = false;
-        Set<String> parents = getAscendants( child, contextId );
-        if ( parents != null && parents.size() > 0 )
-        {
-            result = parents.contains( parent.toUpperCase() );
-        }
-        return result;
+        return getClosure( contextId ).isAscendant( child, parent );
     }
 
 
     /**
-     * Recursively traverse the {@link org.apache.directory.fortress.core.model.Role} graph and return all of the descendants of a given node {@link org.apache.directory.fortress.core.model.Role#name}.
+     * Use the precomputed closure of the {@link org.apache.directory.fortress.core.model.Role} graph and return all of the descendants of a given node {@link org.apache.directory.fortress.core.model.Role#name}.
      *
      * @param roleName {@link org.apache.directory.fortress.core.model.Role#name} on 'ftRls' object class.
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
@@ -141,7 +150,7 @@ final class RoleUtil implements ParentUtil
      */
     Set<String> getDescendants( String roleName, String contextId )
     {
-        return HierUtil.getDescendants( roleName.toUpperCase(), getGraph( contextId ) );
+        return getClosure( contextId ).getDescendants( roleName );
     }
 
 
@@ -159,7 +168,7 @@ final class RoleUtil implements ParentUtil
 
 
     /**
-     * Recursively traverse the hierarchical role graph and return all of the ascendants of a given role.
+     * Use the precomputed closure of the hierarchical role graph and return all of the ascendants of a given role.
      *
      * @param roleName maps to logical {@link org.apache.directory.fortress.core.model.Role#name} on 'ftRls' object class.
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
@@ -167,7 +176,7 @@ final class RoleUtil implements ParentUtil
      */
     Set<String> getAscendants( String roleName, String contextId )
     {
-        return HierUtil.getAscendants( roleName.toUpperCase(), getGraph( contextId ) );
+        return getClosure( contextId ).getAscendants( roleName );
     }
 
 
@@ -220,25 +229,47 @@ final class RoleUtil implements ParentUtil
      */
     Set<String> getInheritedRoles( List<UserRole> uRoles, String contextId )
     {
-        // create Set with case insensitive comparator:
-        Set<String> iRoles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
-        if ( CollectionUtils.isNotEmpty( uRoles ) )
+        return getInheritedRoles( uRoles, getClosure( contextId ) );
+    }
+
+
+    /**
+     * Return the RBAC roles, activated plus inherited, of a given session.  The set is computed once per session and role
+     * hierarchy version and stored on the session with {@link org.apache.directory.fortress.core.model.Session#setEffectiveRoles(java.util.Set, long)}.
+     * Later calls return the stored set until the session's activated roles change or the hierarchy is updated.
+     *
+     * @param session contains the RBAC roles activated into a User's {@link org.apache.directory.fortress.core.model.Session}.
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @return unmodifiable Set of all authorized RBAC Roles for the session.
+     */
+    Set<String> getInheritedRoles( Session session, String contextId )
+    {
+        HierClosure closure = getClosure( contextId );
+        Set<String> iRoles = session.getEffectiveRoles( closure.getVersion() );
+        if ( iRoles == null )
         {
-            for ( UserRole uRole : uRoles )
-            {
-                String rleName = uRole.getName();
-                iRoles.add( rleName );
-                Set<String> parents = HierUtil.getAscendants( rleName, getGraph( contextId ) );
-                if ( CollectionUtils.isNotEmpty( parents ) )
-                {
-                    iRoles.addAll( parents );
-                }
-            }
+            iRoles = Collections.unmodifiableSet( getInheritedRoles( session.getRoles(), closure ) );
+            session.setEffectiveRoles( iRoles, closure.getVersion() );
         }
         return iRoles;
     }
 
 
+    private static Set<String> getInheritedRoles( List<UserRole> uRoles, HierClosure closure )
+    {
+        if ( CollectionUtils.isEmpty( uRoles ) )
+        {
+            return new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        }
+        List<String> names = new ArrayList<>( uRoles.size() );
+        for ( UserRole uRole : uRoles )
+        {
+            names.add( uRole.getName() );
+        }
+        return closure.getInherited( names );
+    }
+
+
     /**
      *
      * @param roles
@@ -247,21 +278,7 @@ final class RoleUtil implements ParentUtil
      */
     Set<String> getAscendantRoles( List<String> roles, String contextId )
     {
-        // create Set with case insensitive comparator:
-        Set<String> iRoles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
-        if ( CollectionUtils.isNotEmpty( roles ) )
-        {
-            for ( String role : roles )
-            {
-                iRoles.add( role );
-                Set<String> parents = HierUtil.getAscendants( role, getGraph( contextId ) );
-                if ( CollectionUtils.isNotEmpty( parents ) )
-                {
-                    iRoles.addAll( parents );
-                }
-            }
-        }
-        return iRoles;
+        return getClosure( contextId ).getInherited( roles );
     }
 
 
@@ -273,21 +290,7 @@ final class RoleUtil implements ParentUtil
      */
     Set<String> getDescendantRoles( Set<String> roles, String contextId )
     {
-        // create Set with case insensitive comparator:
-        Set<String> iRoles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
-        if ( CollectionUtils.isNotEmpty( roles ) )
-        {
-            for ( String role : roles )
-            {
-                iRoles.add( role );
-                Set<String> children = HierUtil.getDescendants( role, getGraph( contextId ) );
-                if ( CollectionUtils.isNotEmpty( children ) )
-                {
-                    iRoles.addAll( children );
-                }
-            }
-        }
-        return iRoles;
+        return getClosure( contextId ).getDescendants( roles );
     }
 
 
@@ -308,7 +311,7 @@ final class RoleUtil implements ParentUtil
 
     /**
      * This api is used by {@link AdminMgrImpl} to determine parentage for Hierarchical RBAC processing.
-     * It calls {@link HierUtil#validateRelationship(org.jgrapht.graph.SimpleDirectedGraph, String, String, boolean)} to evaluate three adminRole relationship expressions:
+     * It calls {@link HierUtil#validateRelationship(HierGraph, String, String, boolean)} to evaluate three adminRole relationship expressions:
      * <ol>
      * <li>If child equals parent</li>
      * <li>If mustExist true and parent-child relationship exists</li>
@@ -333,7 +336,7 @@ final class RoleUtil implements ParentUtil
 
     /**
      * This api allows synchronized access to allow updates to hierarchical relationships.
-     * Method will update the hierarchical data set and reload the JGraphT simple digraph with latest.
+     * Method will update the hierarchical data set and reload the {@link HierGraph} with latest.
      *
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
      * @param relationship contains parent-child relationship targeted for addition.
@@ -342,18 +345,29 @@ final class RoleUtil implements ParentUtil
      */
     void updateHier( String contextId, Relationship relationship, Hier.Op op ) throws SecurityException
     {
-        HierUtil.updateHier( getGraph( contextId ), relationship, op );
+        graphLoader.updateHier( getKey( contextId ), contextId, relationship, op );
+    }
+
+
+    /**
+     * Reload the hierarchy of a contextId in the background after it was changed in ldap by another process.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     */
+    void refreshGraph( String contextId )
+    {
+        graphLoader.refresh( contextId );
     }
 
 
     /**
-     * Read this ldap record,{@code cn=Hierarchies, ou=OS-P} into this entity, {@link Hier}, before loading into this collection class,{@code org.jgrapht.graph.SimpleDirectedGraph}
-     * using 3rd party lib, <a href="http://www.jgrapht.org/">JGraphT</a>.
+     * Read this ldap record,{@code cn=Hierarchies, ou=OS-P} into this entity, {@link Hier}, before loading into this collection class,{@link HierGraph}
+     * built by {@link HierUtil#buildHierGraph(Hier)}.
      *
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
-     * @return handle to simple digraph containing role hierarchies.
+     * @return handle to the graph containing role hierarchies.
      */
-    private synchronized SimpleDirectedGraph<String, Relationship> loadGraph( String contextId )
+    private HierGraph loadGraph( String contextId )
     {
         Hier inHier = new Hier( Hier.Type.ROLE );
         inHier.setContextId( contextId );
@@ -370,15 +384,26 @@ final class RoleUtil implements ParentUtil
         }
 
         Hier hier = HierUtil.loadHier( contextId, descendants );
-        SimpleDirectedGraph<String, Relationship> graph;
+        HierGraph graph;
 
-        graph = HierUtil.buildGraph( hier );
-        roleCache.put( getKey( contextId ), graph );
+        graph = HierUtil.buildHierGraph( hier );
 
         return graph;
     }
 
 
+    /**
+     * Return the precomputed ascendant and descendant closure of the role graph, rebuilding it if the graph was reloaded.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @return closure of this tenant's role hierarchy.
+     */
+    private HierClosure getClosure( String contextId )
+    {
+        return HierClosure.get( closures, getKey( contextId ), getGraph( contextId ) );
+    }
+
+
     /**
      *
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
@@ -400,23 +425,10 @@ final class RoleUtil implements ParentUtil
     /**
      *
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
-     * @return handle to simple digraph containing role hierarchies.
+     * @return handle to the graph containing role hierarchies.
      */
-    private SimpleDirectedGraph<String, Relationship> getGraph( String contextId )
+    private HierGraph getGraph( String contextId )
     {
-        String key = getKey( contextId );        
-        LOG.debug("Getting graph for key " + contextId);
-         
-        SimpleDirectedGraph<String, Relationship> graph = ( SimpleDirectedGraph<String, Relationship> ) roleCache
-                 .get( key );
-             
-        if(graph == null){
-            LOG.debug("Graph was null, creating... " + contextId);
-            return loadGraph( contextId );
-        }
-        else{
-            LOG.debug("Graph found in cache, returning...");
-            return graph;
-        }
+        return graphLoader.get( getKey( contextId ), contextId );
     }
 }
@@ -19,30 +19,33 @@
  */
 package org.apache.directory.fortress.core.impl;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-
-import net.sf.ehcache.search.Attribute;
-import net.sf.ehcache.search.Query;
-import net.sf.ehcache.search.Result;
-import net.sf.ehcache.search.Results;
+import java.util.TreeSet;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
-import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.fortress.core.*;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.model.*;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.cache.Cache;
 import org.apache.directory.fortress.core.util.cache.CacheMgr;
-import org.apache.directory.fortress.core.util.cache.DsdCacheEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This utilty provides functionality necessary for SSD and DSD processing and cannot be called by components outside fortress.
  * This class also contains utility functions for maintaining the SSD and DSD cache.
  * <p>
+ * The DSD cache holds one {@link SdIndex} per tenant, loaded with every DSD of the tenant on first use.  It is kept
+ * current by {@link SdP} as sets are created, updated and deleted, so an index is only read from ldap again after it
+ * expires or is cleared.
+ * <p>
  * This class is thread safe.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
@@ -56,9 +59,9 @@ final class SDUtil
     private static final String FORTRESS_SSDS = "fortress.ssd";
     private SdP sp;
     private static final String IS_DSD_CACHE_DISABLED_PARM = "enable.dsd.cache";
-    private static final String DSD_NAME = "name";
-    private static final String EMPTY_ELEMENT = "empty";
-    private static final String CONTEXT_ID = "contextId";
+    private static final String DSD_INDEX = "dsdIndex";
+    private final Object dsdIndexLock = new Object();
+    private static final Logger LOG = LoggerFactory.getLogger(SDUtil.class.getName());
 
     private static volatile SDUtil sINSTANCE = null;
 
@@ -83,10 +86,11 @@ final class SDUtil
     	
         // Get a reference to the CacheManager Singleton object:
         CacheMgr cacheMgr = CacheMgr.getInstance();
-        // This cache contains a wrapper entry for DSD and is searchable by both DSD and Role name:
+        // This cache contains a SdIndex for each tenant:
         m_dsdCache = cacheMgr.getCache(FORTRESS_DSDS);
         // This cache is not searchable and contains Lists of SSD objects by Role:
         m_ssdCache = cacheMgr.getCache(FORTRESS_SSDS);
+        CacheSync.start();
     }
 
     /**
@@ -152,6 +156,82 @@ final class SDUtil
         checkSSD( role, rls, contextId);
     }
 
+    /**
+     * This method is called by AdminMgr.assignUsers and is used to validate Static Separation of Duty
+     * constraints for a batch of role assignments.  Every SSD of the tenant is read into an index once, and the roles
+     * already assigned to the users are passed in by the caller, which reads them for all users at once.  The roles
+     * authorized to a user are counted per set, and the counts are updated as each assignment passes, so an assignment is checked against the
+     * earlier assignments of the batch as well as those in ldap.
+     *
+     * @param userRoles contains the assignments of the batch grouped by userId.
+     * @param assignedRoles contains the names of the roles already assigned to each of the users.
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @throws org.apache.directory.fortress.core.SecurityException if an assignment violates an SSD or a user is not found.
+     */
+    void validateSSD( Map<String, List<UserRole>> userRoles, Map<String, List<String>> assignedRoles, String contextId )
+        throws SecurityException
+    {
+        contextId = getContextId( contextId );
+        SdIndex ssdIndex = new SdIndex( searchSets( SDSet.SDType.STATIC, contextId ) );
+        if ( ssdIndex.isEmpty() )
+        {
+            return;
+        }
+        // number of roles authorized to the user that are members of each SSD set, by set id:
+        int[] matchCounts = new int[ssdIndex.size()];
+        for ( Map.Entry<String, List<UserRole>> entry : userRoles.entrySet() )
+        {
+            List<String> assigned = assignedRoles.get( entry.getKey() );
+            if ( assigned == null )
+            {
+                String warning = "validateSSD userId [" + entry.getKey() + "] not found";
+                throw new FinderException( GlobalErrIds.USER_NOT_FOUND, warning );
+            }
+            Arrays.fill( matchCounts, 0 );
+            Set<String> authorizedRls = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+            for ( String roleName : assigned )
+            {
+                authorize( roleName, authorizedRls, ssdIndex, matchCounts, contextId );
+            }
+            for ( UserRole uRole : entry.getValue() )
+            {
+                for ( int id : ssdIndex.getSets( uRole.getName() ) )
+                {
+                    // does the match count exceed the cardinality allowed for this particular SSD set?
+                    if ( matchCounts[id] >= ssdIndex.getCardinality( id ) - 1 )
+                    {
+                        SDSet ssd = ssdIndex.getSet( id );
+                        String error = "validateSSD userId [" + uRole.getUserId() + "] new role [" + uRole.getName()
+                            + "] validates SSD Set Name:" + ssd.getName() + " Cardinality:" + ssd.getCardinality();
+                        throw new SecurityException( GlobalErrIds.SSD_VALIDATION_FAILED, error );
+                    }
+                }
+                authorize( uRole.getName(), authorizedRls, ssdIndex, matchCounts, contextId );
+            }
+        }
+    }
+
+    /**
+     * Add a role and the roles it inherits to those authorized to a user, counting each one that is new against the
+     * SSD sets it is a member of.
+     */
+    private static void authorize( String roleName, Set<String> authorizedRls, SdIndex ssdIndex, int[] matchCounts,
+        String contextId )
+    {
+        List<String> roles = new ArrayList<>( RoleUtil.getInstance().getAscendants( roleName, contextId ) );
+        roles.add( roleName );
+        for ( String role : roles )
+        {
+            if ( authorizedRls.add( role ) )
+            {
+                for ( int id : ssdIndex.getSets( role ) )
+                {
+                    matchCounts[id]++;
+                }
+            }
+        }
+    }
+
     private void checkSSD( Role role, Set<String> authorizedRls, String contextId ) throws SecurityException
     {
         int matchCount;
@@ -209,9 +289,10 @@ final class SDUtil
         }
 
         // get all DSD sets that contain the target role
-        Set<SDSet> dsdSets = getDsdCache(role.getName(), session.getContextId());
-        for (SDSet dsd : dsdSets)
+        SdIndex dsdIndex = getDsdIndex(Collections.singleton(role.getName()), session.getContextId());
+        for (int id : dsdIndex.getSets(role.getName()))
         {
+            SDSet dsd = dsdIndex.getSet(id);
             // Keeps the number of matched roles to a particular DSD set.
             int matchCount = 0;
 
@@ -262,88 +343,30 @@ final class SDUtil
     }
 
     /**
-     * Given DSD entry name, clear its corresponding object values from the cache.
-     *
-     * @param name contains the name of object to be cleared.
-     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.     *
-     * @throws SecurityException in the event of system or rule violation.
-     */
-    void clearDsdCacheEntry(String name, String contextId)
-    {
-        Attribute<String> context = m_dsdCache.getSearchAttribute(CONTEXT_ID);
-        Attribute<String> dsdName = m_dsdCache.getSearchAttribute(DSD_NAME);
-        Query query = m_dsdCache.createQuery();
-        query.includeKeys();
-        query.includeValues();
-        query.addCriteria(dsdName.eq(name).and(context.eq(contextId)));
-        Results results = query.execute();
-        for (Result result : results.all())
-        {
-            m_dsdCache.clear(result.getKey());
-        }
-    }
-
-    /**
-     * Given a role name, return the set of DSD's that have a matching member.
+     * Clear the DSD index and the SSD entries of a tenant after an SSD or DSD was changed in ldap by another process.
+     * The SSD cache is flushed because it is keyed by Role and the members removed from the set are not known.
      *
-     * @param name contains name of authorized Role used to search the cache.
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
-     * @return un-ordered set of matching DSD's.
-     * @throws SecurityException in the event of system or rule violation.
      */
-    private Set<SDSet> getDsdCache(String name, String contextId)
-        throws SecurityException
+    void clearSdCache(String contextId)
     {
-        contextId = getContextId(contextId);
-        Set<SDSet> finalSet = new HashSet<>();
-        Attribute<String> context = m_dsdCache.getSearchAttribute(CONTEXT_ID);
-        Attribute<String> member = m_dsdCache.getSearchAttribute(SchemaConstants.MEMBER_AT);
-        Query query = m_dsdCache.createQuery();
-        query.includeKeys();
-        query.includeValues();
-        query.addCriteria(member.eq(name).and(context.eq(contextId)));
-        Results results = query.execute();
-        boolean empty = false;
-        for (Result result : results.all())
-        {
-            DsdCacheEntry entry = (DsdCacheEntry) result.getValue();
-            if (!entry.isEmpty())
-            {
-                finalSet.add(entry.getSdSet());
-                finalSet = putDsdCache(name, contextId);
-            }
-            else
-            {
-                empty = true;
-            }
-            finalSet.add(entry.getSdSet());
-        }
-        // If nothing was found in the cache, determine if it needs to be seeded:
-        if (finalSet.size() == 0 && !empty)
-        {
-            finalSet = putDsdCache(name, contextId);
-        }
-        return finalSet;
+        m_dsdCache.clear(getKey(DSD_INDEX, contextId));
+        m_ssdCache.flush();
     }
 
     /**
-     * Given a Set of authorized Roles, return the set of DSD's that have matching members.
+     * Return the index of the DSD's of a tenant, loading it from ldap on first use.  If the DSD cache was switched off
+     * with {@code enable.dsd.cache=true} an index is built for this call from the DSD's that contain an authorized role.
      *
      * @param authorizedRoleSet contains an un-order Set of authorized Roles.
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
-     * @return un-ordered set of matching DSD's.
+     * @return index of the DSD's, never null.
      * @throws SecurityException in the event of system or rule violation.
      */
-    Set<SDSet> getDsdCache(Set<String> authorizedRoleSet, String contextId)
+    SdIndex getDsdIndex(Set<String> authorizedRoleSet, String contextId)
         throws SecurityException
     {
         contextId = getContextId(contextId);
-        Set<SDSet> dsdRetSets = new HashSet<>();
-        // Need to proceed?
-        if (!CollectionUtils.isNotEmpty( authorizedRoleSet ))
-        {
-            return dsdRetSets;
-        }
         // Was the DSD Cache switched off?
         boolean isCacheDisabled = Config.getInstance().getBoolean(IS_DSD_CACHE_DISABLED_PARM, false);
         // If so, get DSD's from LDAP:
@@ -352,150 +375,116 @@ final class SDUtil
             SDSet sdSet = new SDSet();
             sdSet.setType(SDSet.SDType.DYNAMIC);
             sdSet.setContextId(contextId);
-            dsdRetSets = sp.search(authorizedRoleSet, sdSet);
+            return new SdIndex(sp.search(authorizedRoleSet, sdSet));
         }
-        // Search the DSD cache for matching Role members:
-        else
+        String key = getKey(DSD_INDEX, contextId);
+        SdIndex dsdIndex = (SdIndex) m_dsdCache.get(key);
+        if (dsdIndex == null)
         {
-            // Search on roleName attribute which maps to 'member' attr on the cache record:
-            Attribute<String> member = m_dsdCache.getSearchAttribute(SchemaConstants.MEMBER_AT);
-            Attribute<String> context = m_dsdCache.getSearchAttribute(CONTEXT_ID);
-            Query query = m_dsdCache.createQuery();
-            query.includeKeys();
-            query.includeValues();
-            // Add the passed in authorized Role names to this cache query:
-            Set<String> roles = new HashSet<>(authorizedRoleSet);
-            query.addCriteria(member.in(roles).and(context.eq(contextId)));
-            // Return all DSD cache entries that match roleName to the 'member' attribute in cache entry:
-            Results results = query.execute();
-            for (Result result : results.all())
+            dsdIndex = putDsdIndex(key, contextId);
+        }
+        return dsdIndex;
+    }
+
+    /**
+     * Apply a DSD that was created or updated in ldap to the index of its tenant.  The set is read back from ldap
+     * because an update may carry only the attributes that changed.  Does nothing if the index has not been loaded.
+     * If the set cannot be read the index is dropped, to be loaded again on next use.
+     *
+     * @param dsdSet contains the name and contextId of the DSD.
+     */
+    void putDsdIndexEntry(SDSet dsdSet)
+    {
+        String contextId = getContextId(dsdSet.getContextId());
+        String key = getKey(DSD_INDEX, contextId);
+        synchronized (dsdIndexLock)
+        {
+            SdIndex dsdIndex = (SdIndex) m_dsdCache.get(key);
+            SdIndex updated = null;
+            try
             {
-                DsdCacheEntry entry = (DsdCacheEntry) result.getValue();
-                // Do not add dummy DSD sets to the final list:
-                if (!entry.isEmpty())
+                if (dsdIndex != null)
                 {
-                    dsdRetSets.add(entry.getSdSet());
+                    SDSet entity = sp.read(dsdSet);
+                    entity.setType(SDSet.SDType.DYNAMIC);
+                    entity.setContextId(contextId);
+                    updated = dsdIndex.put(entity);
                 }
-                // Remove role member from authorizedRoleSet to preclude from upcoming DSD search:
-                //authorizedRoleSet.remove(entry.getMember());
             }
-            // Authorized roles remaining in this set correspond to missed cache hits from above:
-            if (authorizedRoleSet.size() > 0)
+            catch (SecurityException e)
             {
-                dsdRetSets = putDsdCache(authorizedRoleSet, contextId);
+                LOG.warn("putDsdIndexEntry name [{}] contextId [{}] could not be read, dropping index: {}",
+                    dsdSet.getName(), contextId, e.getMessage());
             }
+            finally
+            {
+                // always put, a null releases the lock the cache holds on a missed key:
+                m_dsdCache.put(key, updated);
+            }
+        }
+    }
+
+    /**
+     * Remove a DSD that was deleted from ldap from the index of its tenant.  Does nothing if the index has not been
+     * loaded.
+     *
+     * @param dsdSet contains the name and contextId of the DSD.
+     */
+    void removeDsdIndexEntry(SDSet dsdSet)
+    {
+        String key = getKey(DSD_INDEX, dsdSet.getContextId());
+        synchronized (dsdIndexLock)
+        {
+            SdIndex dsdIndex = (SdIndex) m_dsdCache.get(key);
+            m_dsdCache.put(key, dsdIndex != null ? dsdIndex.remove(dsdSet.getName()) : null);
         }
-        return dsdRetSets;
     }
 
     /**
-     * Get the matching DSD's from directory and add to the cache (if found).  If matching DSD not found,
-     * add dummy entry to cache to prevent repeated searches.
+     * Read every DSD of the tenant from the directory and add its index to the cache.
      *
-     * @param authorizedRoleSet contains set of Roles used to search directory for matching DSD's.
+     * @param key of the index in the cache.
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
-     * @return List of DSD's who have matching Role members.
+     * @return index of the DSD's.
      * @throws SecurityException in the event of system or rule violation.
      */
-    private Set<SDSet> putDsdCache(Set<String> authorizedRoleSet, String contextId)
+    private SdIndex putDsdIndex(String key, String contextId)
         throws SecurityException
     {
-        contextId = getContextId(contextId);
-        Set<SDSet> dsdSets = new HashSet<>();
-        // Search the DSD's iteratively to seed the DSD cache by Role name:
-        for (String roleName : authorizedRoleSet)
+        SdIndex dsdIndex = null;
+        try
         {
-            Role role = new Role(roleName);
-            role.setContextId(contextId);
-            List<SDSet> dsdList = sp.search(role, SDSet.SDType.DYNAMIC);
-            if (CollectionUtils.isNotEmpty( dsdList ))
-            {
-                for (SDSet dsd : dsdList)
-                {
-                    dsd.setContextId(contextId);
-                    Set<String> members = dsd.getMembers();
-                    if (members != null)
-                    {
-                        // Seed the cache with DSD objects mapped to role name:
-                        for (String member : members)
-                        {
-                            String key = buildKey(dsd.getName(), member);
-                            DsdCacheEntry entry = new DsdCacheEntry(member, dsd, false);
-                            entry.setName(dsd.getName());
-                            m_dsdCache.put(getKey(key, contextId), entry);
-                        }
-                    }
-                }
-                // Maintain the set of DSD's to be returned to the caller:
-                dsdSets.addAll(dsdList);
-            }
-            else
-            {
-                // Seed the cache with dummy entry for a Role that is not referenced by DSD:
-                String key = buildKey(EMPTY_ELEMENT, roleName);
-                SDSet sdSet = new SDSet();
-                sdSet.setType(SDSet.SDType.DYNAMIC);
-                sdSet.setName(key);
-                sdSet.setMember(roleName);
-                sdSet.setContextId(contextId);
-                DsdCacheEntry entry = new DsdCacheEntry(roleName, sdSet, true);
-                entry.setName(key);
-                m_dsdCache.put(getKey(sdSet.getName(), contextId), entry);
-            }
+            dsdIndex = new SdIndex(searchSets(SDSet.SDType.DYNAMIC, contextId));
+        }
+        finally
+        {
+            // always put, a null releases the lock the cache holds on the missed key:
+            m_dsdCache.put(key, dsdIndex);
         }
-        return dsdSets;
+        return dsdIndex;
     }
 
     /**
-     * Get the matching DSD's from directory and add to the cache (if found).  If matching DSD not found,
-     * add dummy entry to cache to prevent repeated searches.
+     * Read every SSD or DSD of the tenant from the directory.
      *
-     * @param roleName of Role is used to search directory for matching DSD's.
+     * @param type either STATIC or DYNAMIC.
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
-     * @return Set of DSD's who have matching Role member.
+     * @return List of the sets found, with their contextId set.
      * @throws SecurityException in the event of system or rule violation.
      */
-    private Set<SDSet> putDsdCache(String roleName, String contextId)
+    private List<SDSet> searchSets(SDSet.SDType type, String contextId)
         throws SecurityException
     {
-        contextId = getContextId(contextId);
-        Role role = new Role(roleName);
-        role.setContextId(contextId);
-        List<SDSet> dsdList = sp.search(role, SDSet.SDType.DYNAMIC);
-        Set<SDSet> finalSet = new HashSet<>(dsdList);
-        if ( CollectionUtils.isNotEmpty( dsdList ))
+        SDSet sdSet = new SDSet();
+        sdSet.setName("");
+        sdSet.setType(type);
+        sdSet.setContextId(contextId);
+        List<SDSet> sdList = sp.search(sdSet);
+        for (SDSet sd : sdList)
         {
-            for (SDSet dsd : dsdList)
-            {
-                dsd.setContextId(contextId);
-                Set<String> members = dsd.getMembers();
-                if (members != null)
-                {
-                    // Seed the cache with DSD objects mapped to role name:
-                    for (String member : members)
-                    {
-                        String key = buildKey(dsd.getName(), member);
-                        DsdCacheEntry entry = new DsdCacheEntry(member, dsd, false);
-                        entry.setName(dsd.getName());
-                        m_dsdCache.put(getKey(key, contextId), entry);
-                    }
-                }
-            }
-        }
-        else
-        {
-            // Seed the cache with dummy entry for Role that does not have DSD:
-            String key = buildKey(EMPTY_ELEMENT, roleName);
-            SDSet sdSet = new SDSet();
-            sdSet.setType(SDSet.SDType.DYNAMIC);
-            sdSet.setName(key);
-            sdSet.setMember(roleName);
-            sdSet.setContextId(contextId);
-            DsdCacheEntry entry = new DsdCacheEntry(roleName, sdSet, true);
-            entry.setName(key);
-            m_dsdCache.put(getKey(sdSet.getName(), contextId), entry);
+            sd.setContextId(contextId);
         }
-        return finalSet;
+        return sdList;
     }
 
     /**
@@ -0,0 +1,203 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.directory.fortress.core.model.SDSet;
+
+
+/**
+ * Inverted index of the Static or Dynamic Separation of Duty sets of a single tenant.  Each set is given an id, its
+ * position in the index, and every member role maps to the ids of the sets that contain it.  Role and set names are
+ * matched case insensitively, the same as ldap.  {@link DSDChecker} uses the ids to keep a count per set in a plain
+ * array while it walks the roles being activated, and {@link SDUtil} does the same for the roles authorized to a user
+ * while it checks a batch of SSD assignments.
+ * <p>
+ * An index is never changed once built.  {@link #put(SDSet)} and {@link #remove(String)} return a new index with the
+ * change applied, so readers never need a lock.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class SdIndex
+{
+    private static final int[] NONE = new int[0];
+
+    private final SDSet[] sets;
+    private final int[] cardinalities;
+    private final Map<String, int[]> roleSets;
+
+
+    /**
+     * Build the index over the given sets.
+     *
+     * @param sdSets contains every SSD or DSD of the tenant, or the subset relevant to the caller.
+     */
+    SdIndex( Collection<SDSet> sdSets )
+    {
+        sets = sdSets.toArray( new SDSet[sdSets.size()] );
+        cardinalities = new int[sets.length];
+        roleSets = new HashMap<>();
+        for ( int id = 0; id < sets.length; id++ )
+        {
+            cardinalities[id] = sets[id].getCardinality() != null ? sets[id].getCardinality() : 0;
+            Set<String> members = sets[id].getMembers();
+            if ( members == null )
+            {
+                continue;
+            }
+            for ( String member : members )
+            {
+                String key = member.toUpperCase();
+                int[] ids = roleSets.get( key );
+                if ( ids == null )
+                {
+                    roleSets.put( key, new int[]{ id } );
+                }
+                // ids are added in ascending order, skip a member repeated in another case:
+                else if ( ids[ids.length - 1] != id )
+                {
+                    ids = Arrays.copyOf( ids, ids.length + 1 );
+                    ids[ids.length - 1] = id;
+                    roleSets.put( key, ids );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Return the number of sets in the index.  Set ids range from zero to one less than this.
+     *
+     * @return int containing the number of sets.
+     */
+    int size()
+    {
+        return sets.length;
+    }
+
+
+    /**
+     * Return true if the index contains no sets.
+     *
+     * @return boolean value.
+     */
+    boolean isEmpty()
+    {
+        return sets.length == 0;
+    }
+
+
+    /**
+     * Return the ids of the sets that have the role as a member.
+     *
+     * @param roleName contains the name of the role.
+     * @return sorted array of set ids, empty if the role is not a member of any set.  The array is shared and must not
+     * be modified.
+     */
+    int[] getSets( String roleName )
+    {
+        int[] ids = roleSets.get( roleName.toUpperCase() );
+        return ids != null ? ids : NONE;
+    }
+
+
+    /**
+     * Return true if the id is contained by an array returned from {@link #getSets(String)}.
+     *
+     * @param ids sorted array of set ids.
+     * @param id of the set.
+     * @return boolean value.
+     */
+    static boolean contains( int[] ids, int id )
+    {
+        return Arrays.binarySearch( ids, id ) >= 0;
+    }
+
+
+    /**
+     * @param id of the set.
+     * @return the set.
+     */
+    SDSet getSet( int id )
+    {
+        return sets[id];
+    }
+
+
+    /**
+     * @param id of the set.
+     * @return the cardinality of the set, the number of its roles that may not be active together.
+     */
+    int getCardinality( int id )
+    {
+        return cardinalities[id];
+    }
+
+
+    /**
+     * Return a copy of this index with the set added, or replacing the set of the same name.
+     *
+     * @param sdSet contains the set as stored in ldap.
+     * @return new index.
+     */
+    SdIndex put( SDSet sdSet )
+    {
+        List<SDSet> sdSets = copy( sdSet.getName() );
+        sdSets.add( sdSet );
+        return new SdIndex( sdSets );
+    }
+
+
+    /**
+     * Return a copy of this index without the named set.
+     *
+     * @param name contains the name of the set.
+     * @return new index, or this one if the set is not present.
+     */
+    SdIndex remove( String name )
+    {
+        List<SDSet> sdSets = copy( name );
+        return sdSets.size() == sets.length ? this : new SdIndex( sdSets );
+    }
+
+
+    private List<SDSet> copy( String excludeName )
+    {
+        List<SDSet> sdSets = new ArrayList<>( sets.length + 1 );
+        for ( SDSet set : sets )
+        {
+            if ( !set.getName().equalsIgnoreCase( excludeName ) )
+            {
+                sdSets.add( set );
+            }
+        }
+        return sdSets;
+    }
+}
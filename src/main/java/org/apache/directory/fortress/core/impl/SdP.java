@@ -73,7 +73,12 @@ final class SdP
     SDSet add( SDSet entity ) throws SecurityException
     {
         validate( entity );
-        return sdDao.create( entity );
+        SDSet sdSet = sdDao.create( entity );
+        if ( entity.getType() == SDSet.SDType.DYNAMIC )
+        {
+            SDUtil.getInstance().putDsdIndexEntry( entity );
+        }
+        return sdSet;
     }
 
 
@@ -90,7 +95,12 @@ final class SdP
     SDSet update( SDSet entity ) throws SecurityException
     {
         validate( entity );
-        return sdDao.update( entity );
+        SDSet sdSet = sdDao.update( entity );
+        if ( entity.getType() == SDSet.SDType.DYNAMIC )
+        {
+            SDUtil.getInstance().putDsdIndexEntry( entity );
+        }
+        return sdSet;
     }
 
 
@@ -105,7 +115,12 @@ final class SdP
      */
     SDSet delete( SDSet entity ) throws SecurityException
     {
-        return sdDao.remove( entity );
+        SDSet sdSet = sdDao.remove( entity );
+        if ( entity.getType() == SDSet.SDType.DYNAMIC )
+        {
+            SDUtil.getInstance().removeDsdIndexEntry( entity );
+        }
+        return sdSet;
     }
 
 
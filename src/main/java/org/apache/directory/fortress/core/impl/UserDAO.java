@@ -21,11 +21,13 @@ package org.apache.directory.fortress.core.impl;
 
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.ArrayUtils;
@@ -58,6 +60,7 @@ import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.PasswordException;
 import org.apache.directory.fortress.core.RemoveException;
+import org.apache.directory.fortress.core.SearchHandler;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.UpdateException;
 import org.apache.directory.fortress.core.ldap.LdapDataProvider;
@@ -198,6 +201,9 @@ final class UserDAO extends LdapDataProvider
     private static final String[] ROLE_ATR = { GlobalIds.USER_ROLE_DATA };
     private static final String[] AROLE_ATR = { GlobalIds.USER_ADMINROLE_DATA };
     private static final String[] USERID_ATR = { SchemaConstants.UID_AT };
+    private static final String[] USERID_ROLES_ATRS = { SchemaConstants.UID_AT, GlobalIds.USER_ROLE_ASSIGN };
+    // Number of userIds or'ed together in the filter of a single search:
+    private static final int USERID_FILTER_SIZE = 100;
 
     /**
      * Default constructor is public
@@ -598,6 +604,19 @@ final class UserDAO extends LdapDataProvider
      * @throws org.apache.directory.fortress.core.FinderException
      */
     User getUser( User user, boolean isRoles ) throws FinderException
+    {
+        return getUser( user, isRoles, false );
+    }
+
+
+    /**
+     * @param user
+     * @param isRoles
+     * @param isReplica if true the read may be served by a read replica.
+     * @return
+     * @throws org.apache.directory.fortress.core.FinderException
+     */
+    User getUser( User user, boolean isRoles, boolean isReplica ) throws FinderException
     {
         User entity = null;
         LdapConnection ld = null;
@@ -622,7 +641,7 @@ final class UserDAO extends LdapDataProvider
 
         try
         {
-            ld = getAdminConnection();
+            ld = isReplica ? getReadConnection() : getAdminConnection();
             findEntry = read( ld, userDn, uATTRS );
         }
         catch ( LdapNoSuchObjectException e )
@@ -637,7 +656,14 @@ final class UserDAO extends LdapDataProvider
         }
         finally
         {
-            closeAdminConnection( ld );
+            if ( isReplica )
+            {
+                closeReadConnection( ld );
+            }
+            else
+            {
+                closeAdminConnection( ld );
+            }
         }
 
         try
@@ -743,6 +769,73 @@ final class UserDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Read the role assignments of many users.  The users are searched 100 at a time, over a single connection.
+     *
+     * @param userIds contains the userIds to read.
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @return Map of userId to the names of its assigned roles, ordered case insensitively.  Users not found are absent.
+     * @throws FinderException
+     */
+    Map<String, List<String>> getRoles( Collection<String> userIds, String contextId ) throws FinderException
+    {
+        Map<String, List<String>> userRoles = new TreeMap<>( String.CASE_INSENSITIVE_ORDER );
+        LdapConnection ld = null;
+        String userRoot = getRootDn( contextId, GlobalIds.USER_ROOT );
+
+        try
+        {
+            ld = getAdminConnection();
+            List<String> ids = new ArrayList<>( userIds );
+
+            for ( int start = 0; start < ids.size(); start += USERID_FILTER_SIZE )
+            {
+                StringBuilder filterbuf = new StringBuilder();
+                filterbuf.append( GlobalIds.FILTER_PREFIX );
+                filterbuf.append( Config.getInstance().getProperty( USER_OBJECT_CLASS ) );
+                filterbuf.append( ")(|" );
+
+                for ( String userId : ids.subList( start, Math.min( start + USERID_FILTER_SIZE, ids.size() ) ) )
+                {
+                    filterbuf.append( "(" );
+                    filterbuf.append( SchemaConstants.UID_AT );
+                    filterbuf.append( "=" );
+                    filterbuf.append( encodeSafeText( userId, GlobalIds.USERID_LEN ) );
+                    filterbuf.append( ")" );
+                }
+
+                filterbuf.append( "))" );
+                SearchCursor searchResults = search( ld, userRoot, SearchScope.ONELEVEL, filterbuf.toString(),
+                    USERID_ROLES_ATRS, false, GlobalIds.BATCH_SIZE );
+
+                while ( searchResults.next() )
+                {
+                    Entry entry = searchResults.getEntry();
+                    List<String> roles = getAttributes( entry, GlobalIds.USER_ROLE_ASSIGN );
+                    userRoles.put( getAttribute( entry, SchemaConstants.UID_AT ),
+                        roles != null ? roles : new ArrayList<String>() );
+                }
+            }
+        }
+        catch ( LdapException e )
+        {
+            String warning = "getRoles users [" + userIds.size() + "] caught LDAPException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.URLE_SEARCH_FAILED, warning, e );
+        }
+        catch ( CursorException e )
+        {
+            String warning = "getRoles users [" + userIds.size() + "] caught CursorException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.URLE_SEARCH_FAILED, warning, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+
+        return userRoles;
+    }
+
+
     /**
      * @param user
      * @return
@@ -759,7 +852,7 @@ final class UserDAO extends LdapDataProvider
             session = new ObjectFactory().createSession();
             session.setAuthenticated( false );
             session.setUserId( user.getUserId() );
-            ld = getUserConnection();
+            ld = getBindConnection();
             BindResponse bindResponse = bind( ld, userDn, user.getPassword() );
             String info;
 
@@ -801,7 +894,7 @@ final class UserDAO extends LdapDataProvider
         }
         finally
         {
-            closeUserConnection( ld );
+            closeBindConnection( ld );
         }
 
         return session;
@@ -931,43 +1024,9 @@ final class UserDAO extends LdapDataProvider
 
         try
         {
-            //String filter;
-            StringBuilder filterbuf = new StringBuilder();
-            if ( StringUtils.isNotEmpty( user.getUserId() ) )
-            {
-                // place a wild card after the input userId:
-                String searchVal = encodeSafeText( user.getUserId(), GlobalIds.USERID_LEN );
-                filterbuf.append( GlobalIds.FILTER_PREFIX );
-                filterbuf.append( Config.getInstance().getProperty( USER_OBJECT_CLASS ) );
-                filterbuf.append( ")(" );
-                filterbuf.append( SchemaConstants.UID_AT );
-                filterbuf.append( "=" );
-                filterbuf.append( searchVal );
-                filterbuf.append( "*))" );
-            }
-            else if ( StringUtils.isNotEmpty( user.getInternalId() ) )
-            {
-                // internalUserId search
-                String searchVal = encodeSafeText( user.getInternalId(), GlobalIds.USERID_LEN );
-                // this is not a wildcard search. Must be exact match.
-                filterbuf.append( GlobalIds.FILTER_PREFIX );
-                filterbuf.append( Config.getInstance().getProperty( USER_OBJECT_CLASS ) );
-                filterbuf.append( ")(" );
-                filterbuf.append( GlobalIds.FT_IID );
-                filterbuf.append( "=" );
-                filterbuf.append( searchVal );
-                filterbuf.append( "))" );
-            }
-            else
-            {
-                // Beware - returns ALL users!!:"
-                filterbuf.append( "(objectclass=" );
-                filterbuf.append( Config.getInstance().getProperty( USER_OBJECT_CLASS ) );
-                filterbuf.append( ")" );
-            }
-
+            String filter = getFindUsersFilter( user );
             ld = getAdminConnection();
-            SearchCursor searchResults = search( ld, userRoot, SearchScope.ONELEVEL, filterbuf.toString(), defaultAtrs, false,
+            SearchCursor searchResults = search( ld, userRoot, SearchScope.ONELEVEL, filter, defaultAtrs, false,
                 GlobalIds.BATCH_SIZE );
             long sequence = 0;
 
@@ -995,6 +1054,96 @@ final class UserDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Stream the users matching the search criteria to the handler, reading them from ldap a page at a time.
+     *
+     * @param user    contains all or partial userId or full internal userId.
+     * @param handler is called once for each user found.
+     * @return number of users passed to the handler.
+     * @throws SecurityException in the event of ldap search error or thrown by the handler.
+     */
+    long findUsers( final User user, final SearchHandler<User> handler ) throws SecurityException
+    {
+        LdapConnection ld = null;
+        String userRoot = getRootDn( user.getContextId(), GlobalIds.USER_ROOT );
+
+        try
+        {
+            String filter = getFindUsersFilter( user );
+            ld = getAdminConnection();
+            return searchPaged( ld, userRoot, SearchScope.ONELEVEL, filter, defaultAtrs, false, new EntryHandler()
+            {
+                private long sequence = 0;
+
+                @Override
+                public boolean handle( Entry entry ) throws LdapException, SecurityException
+                {
+                    return handler.handle( unloadLdapEntry( entry, sequence++, user.getContextId() ) );
+                }
+            } );
+        }
+        catch ( LdapException e )
+        {
+            String warning = "findUsers userRoot [" + userRoot + "] caught LDAPException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.USER_SEARCH_FAILED, warning, e );
+        }
+        catch ( CursorException e )
+        {
+            String warning = "findUsers userRoot [" + userRoot + "] caught LDAPException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.USER_SEARCH_FAILED, warning, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+    }
+
+
+    /**
+     * @param user contains all or partial userId or full internal userId.
+     * @return search filter used by the user finders.
+     * @throws LdapException if the search value could not be encoded.
+     */
+    private String getFindUsersFilter( User user ) throws LdapException
+    {
+        StringBuilder filterbuf = new StringBuilder();
+        if ( StringUtils.isNotEmpty( user.getUserId() ) )
+        {
+            // place a wild card after the input userId:
+            String searchVal = encodeSafeText( user.getUserId(), GlobalIds.USERID_LEN );
+            filterbuf.append( GlobalIds.FILTER_PREFIX );
+            filterbuf.append( Config.getInstance().getProperty( USER_OBJECT_CLASS ) );
+            filterbuf.append( ")(" );
+            filterbuf.append( SchemaConstants.UID_AT );
+            filterbuf.append( "=" );
+            filterbuf.append( searchVal );
+            filterbuf.append( "*))" );
+        }
+        else if ( StringUtils.isNotEmpty( user.getInternalId() ) )
+        {
+            // internalUserId search
+            String searchVal = encodeSafeText( user.getInternalId(), GlobalIds.USERID_LEN );
+            // this is not a wildcard search. Must be exact match.
+            filterbuf.append( GlobalIds.FILTER_PREFIX );
+            filterbuf.append( Config.getInstance().getProperty( USER_OBJECT_CLASS ) );
+            filterbuf.append( ")(" );
+            filterbuf.append( GlobalIds.FT_IID );
+            filterbuf.append( "=" );
+            filterbuf.append( searchVal );
+            filterbuf.append( "))" );
+        }
+        else
+        {
+            // Beware - returns ALL users!!:"
+            filterbuf.append( "(objectclass=" );
+            filterbuf.append( Config.getInstance().getProperty( USER_OBJECT_CLASS ) );
+            filterbuf.append( ")" );
+        }
+
+        return filterbuf.toString();
+    }
+
+
     /**
      * @param user
      * @param limit
@@ -1049,82 +1198,204 @@ final class UserDAO extends LdapDataProvider
 
 
     /**
-     * @param role
-     * @return
-     * @throws FinderException
+     * Return the users assigned to a role or to one of its descendants.  The search is paged, so the result is not
+     * capped at {@link GlobalIds#BATCH_SIZE}.
+     *
+     * @param role contains the role name and contextId.
+     * @return List of users, each loaded with the default attributes.
+     * @throws FinderException in the event of ldap error.
      */
-    List<User> getAuthorizedUsers( Role role ) throws FinderException
+    List<User> getAuthorizedUsers( final Role role ) throws FinderException
     {
-        List<User> userList = new ArrayList<>();
+        final List<User> userList = new ArrayList<>();
         LdapConnection ld = null;
         String userRoot = getRootDn( role.getContextId(), GlobalIds.USER_ROOT );
 
         try
         {
-            String roleVal = encodeSafeText( role.getName(), GlobalIds.USERID_LEN );
-            StringBuilder filterbuf = new StringBuilder();
-            filterbuf.append( GlobalIds.FILTER_PREFIX );
-            filterbuf.append( USERS_AUX_OBJECT_CLASS_NAME );
-            filterbuf.append( ")(" );
+            String filter = getAuthorizedUsersFilter( role );
+            ld = getAdminConnection();
+            searchPaged( ld, userRoot, SearchScope.ONELEVEL, filter, defaultAtrs, false, new EntryHandler()
+            {
+                private long sequence = 0;
 
-            Set<String> roles = RoleUtil.getInstance().getDescendants( role.getName(), role.getContextId() );
+                @Override
+                public boolean handle( Entry entry ) throws LdapException
+                {
+                    userList.add( unloadLdapEntry( entry, sequence++, role.getContextId() ) );
+                    return true;
+                }
+            } );
+        }
+        catch ( LdapException e )
+        {
+            String warning = "getAuthorizedUsers role name [" + role.getName() + "] caught LDAPException=" + e
+                .getMessage();
+            throw new FinderException( GlobalErrIds.URLE_SEARCH_FAILED, warning, e );
+        }
+        catch ( CursorException e )
+        {
+            String warning = "getAuthorizedUsers role name [" + role.getName() + "] caught LDAPException=" + e
+                .getMessage();
+            throw new FinderException( GlobalErrIds.URLE_SEARCH_FAILED, warning, e );
+        }
+        catch ( SecurityException e )
+        {
+            throw new FinderException( e.getErrorId(), e.getMessage(), e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
 
-            if ( CollectionUtils.isNotEmpty( roles ) )
-            {
-                filterbuf.append( "|(" );
-                filterbuf.append( GlobalIds.USER_ROLE_ASSIGN );
-                filterbuf.append( "=" );
-                filterbuf.append( roleVal );
-                filterbuf.append( ")" );
+        return userList;
+    }
 
-                for ( String uRole : roles )
+
+    /**
+     * Pass the userIds assigned to a role or to one of its descendants to a handler, one page at a time.
+     *
+     * @param role contains the role name and contextId.
+     * @param handler receives each userId.  Returning false stops the search.
+     * @return number of userIds passed to the handler.
+     * @throws SecurityException in the event of ldap error or if thrown by the handler.
+     */
+    long getAuthorizedUsers( Role role, final SearchHandler<String> handler ) throws SecurityException
+    {
+        LdapConnection ld = null;
+        String userRoot = getRootDn( role.getContextId(), GlobalIds.USER_ROOT );
+
+        try
+        {
+            String filter = getAuthorizedUsersFilter( role );
+            ld = getAdminConnection();
+            return searchPaged( ld, userRoot, SearchScope.ONELEVEL, filter, USERID, false, new EntryHandler()
+            {
+                @Override
+                public boolean handle( Entry entry ) throws LdapException, SecurityException
                 {
-                    filterbuf.append( "(" );
-                    filterbuf.append( GlobalIds.USER_ROLE_ASSIGN );
-                    filterbuf.append( "=" );
-                    filterbuf.append( uRole );
-                    filterbuf.append( ")" );
+                    return handler.handle( getAttribute( entry, SchemaConstants.UID_AT ) );
                 }
+            } );
+        }
+        catch ( LdapException e )
+        {
+            String warning = "getAuthorizedUsers role name [" + role.getName() + "] caught LDAPException=" + e
+                .getMessage();
+            throw new FinderException( GlobalErrIds.URLE_SEARCH_FAILED, warning, e );
+        }
+        catch ( CursorException e )
+        {
+            String warning = "getAuthorizedUsers role name [" + role.getName() + "] caught LDAPException=" + e
+                .getMessage();
+            throw new FinderException( GlobalErrIds.URLE_SEARCH_FAILED, warning, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+    }
 
-                filterbuf.append( ")" );
-            }
-            else
+
+    /**
+     * @param role contains the role name and contextId.
+     * @return filter matching users assigned to the role or to one of its descendants.
+     * @throws LdapException if the role name could not be encoded.
+     */
+    private String getAuthorizedUsersFilter( Role role ) throws LdapException
+    {
+        String roleVal = encodeSafeText( role.getName(), GlobalIds.USERID_LEN );
+        StringBuilder filterbuf = new StringBuilder();
+        filterbuf.append( GlobalIds.FILTER_PREFIX );
+        filterbuf.append( USERS_AUX_OBJECT_CLASS_NAME );
+        filterbuf.append( ")(" );
+
+        Set<String> roles = RoleUtil.getInstance().getDescendants( role.getName(), role.getContextId() );
+
+        if ( CollectionUtils.isNotEmpty( roles ) )
+        {
+            filterbuf.append( "|(" );
+            filterbuf.append( GlobalIds.USER_ROLE_ASSIGN );
+            filterbuf.append( "=" );
+            filterbuf.append( roleVal );
+            filterbuf.append( ")" );
+
+            for ( String uRole : roles )
             {
+                filterbuf.append( "(" );
                 filterbuf.append( GlobalIds.USER_ROLE_ASSIGN );
                 filterbuf.append( "=" );
-                filterbuf.append( roleVal );
+                filterbuf.append( uRole );
                 filterbuf.append( ")" );
             }
 
             filterbuf.append( ")" );
-            ld = getAdminConnection();
-            SearchCursor searchResults = search( ld, userRoot, SearchScope.ONELEVEL, filterbuf.toString(), defaultAtrs, false,
-                GlobalIds.BATCH_SIZE );
-            long sequence = 0;
+        }
+        else
+        {
+            filterbuf.append( GlobalIds.USER_ROLE_ASSIGN );
+            filterbuf.append( "=" );
+            filterbuf.append( roleVal );
+            filterbuf.append( ")" );
+        }
 
-            while ( searchResults.next() )
-            {
-                userList.add( unloadLdapEntry( searchResults.getEntry(), sequence++, role.getContextId() ) );
-            }
+        filterbuf.append( ")" );
+        return filterbuf.toString();
+    }
+
+
+    /**
+     * Pass every user of a tenant that has at least one role assignment to a handler, one page at a time.  Each user
+     * carries only its userId and the names of its assigned roles.  Used to load the {@link UserRoleIndex}.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @param handler receives each user.  Returning false stops the search.
+     * @return number of users passed to the handler.
+     * @throws SecurityException in the event of ldap error or if thrown by the handler.
+     */
+    long getRoleAssignments( String contextId, final SearchHandler<User> handler ) throws SecurityException
+    {
+        LdapConnection ld = null;
+        String userRoot = getRootDn( contextId, GlobalIds.USER_ROOT );
+
+        try
+        {
+            String filter = GlobalIds.FILTER_PREFIX + USERS_AUX_OBJECT_CLASS_NAME + ")(" + GlobalIds.USER_ROLE_ASSIGN
+                + "=*))";
+            ld = getAdminConnection();
+            return searchPaged( ld, userRoot, SearchScope.ONELEVEL, filter, USERID_ROLES_ATRS, false,
+                new EntryHandler()
+                {
+                    @Override
+                    public boolean handle( Entry entry ) throws LdapException, SecurityException
+                    {
+                        User user = new User( getAttribute( entry, SchemaConstants.UID_AT ) );
+                        List<String> roles = getAttributes( entry, GlobalIds.USER_ROLE_ASSIGN );
+                        if ( roles != null )
+                        {
+                            for ( String roleName : roles )
+                            {
+                                user.setRoleName( roleName );
+                            }
+                        }
+                        return handler.handle( user );
+                    }
+                } );
         }
         catch ( LdapException e )
         {
-            String warning = "getAuthorizedUsers role name [" + role.getName() + "] caught LDAPException=" + e
-                .getMessage();
+            String warning = "getRoleAssignments userRoot [" + userRoot + "] caught LDAPException=" + e.getMessage();
             throw new FinderException( GlobalErrIds.URLE_SEARCH_FAILED, warning, e );
         }
         catch ( CursorException e )
         {
-            String warning = "getAuthorizedUsers role name [" + role.getName() + "] caught LDAPException=" + e
-                .getMessage();
+            String warning = "getRoleAssignments userRoot [" + userRoot + "] caught CursorException=" + e.getMessage();
             throw new FinderException( GlobalErrIds.URLE_SEARCH_FAILED, warning, e );
         }
         finally
         {
             closeAdminConnection( ld );
         }
-
-        return userList;
     }
 
 
@@ -1794,6 +2065,60 @@ final class UserDAO extends LdapDataProvider
         return userDn;
     }
 
+    /**
+     * Add several role assignments to one user with a single modify.
+     *
+     * @param uRoles contains the assignments, all of the same userId and contextId.
+     * @return String containing the user's DN.
+     * @throws UpdateException
+     * @throws FinderException if one of the assignments already exists.
+     */
+    String assign( List<UserRole> uRoles ) throws UpdateException, FinderException
+    {
+        LdapConnection ld = null;
+        UserRole first = uRoles.get( 0 );
+        String userDn = getDn( first.getUserId(), first.getContextId() );
+
+        try
+        {
+            String[] szUserRoles = new String[uRoles.size()];
+            String[] names = new String[uRoles.size()];
+            for ( int i = 0; i < uRoles.size(); i++ )
+            {
+                szUserRoles[i] = uRoles.get( i ).getRawData();
+                names[i] = uRoles.get( i ).getName();
+            }
+
+            List<Modification> mods = new ArrayList<Modification>();
+            mods.add( new DefaultModification( ModificationOperation.ADD_ATTRIBUTE, GlobalIds.USER_ROLE_DATA,
+                szUserRoles ) );
+            mods.add( new DefaultModification( ModificationOperation.ADD_ATTRIBUTE, GlobalIds.USER_ROLE_ASSIGN, names ) );
+
+            ld = getAdminConnection();
+            modify( ld, userDn, mods, first );
+        }
+        catch ( LdapAttributeInUseException e )
+        {
+            String warning = "assign userId [" + first.getUserId() + "] roles [" + uRoles.size() + "] ";
+
+            warning += "assignment already exists.";
+            throw new FinderException( GlobalErrIds.URLE_ASSIGN_EXIST, warning );
+        }
+        catch ( LdapException e )
+        {
+            String warning = "assign userId [" + first.getUserId() + "] roles [" + uRoles.size() + "] ";
+
+            warning += "caught LDAPException=" + e.getMessage();
+            throw new UpdateException( GlobalErrIds.URLE_ASSIGN_FAILED, warning, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+
+        return userDn;
+    }
+
     /**
      * @param uRole
      * @param roleConstraint
@@ -21,7 +21,11 @@ package org.apache.directory.fortress.core.impl;
 
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -29,6 +33,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.PasswordException;
+import org.apache.directory.fortress.core.SearchHandler;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.ValidationException;
 import org.apache.directory.fortress.core.model.AdminRole;
@@ -89,6 +94,21 @@ final class UserP
     }
 
 
+    /**
+     * Takes a User entity that contains full or partial userId OR a full internal userId and passes each matching User
+     * to the handler, reading them from the directory a page at a time.
+     *
+     * @param user    contains all or partial userId or full internal userId.
+     * @param handler is called once for each user found.
+     * @return number of users passed to the handler.
+     * @throws SecurityException in the event of DAO search error or thrown by the handler.
+     */
+    long search( User user, SearchHandler<User> handler ) throws SecurityException
+    {
+        return uDao.findUsers( user, handler );
+    }
+
+
     List<User> search( OrgUnit ou, boolean limitSize ) throws SecurityException
     {
         return uDao.findUsers( ou, limitSize );
@@ -123,6 +143,32 @@ final class UserP
     }
 
 
+    /**
+     * Pass the userIds of the users authorized for the given Role, i.e. assigned to it or to one of its descendants, to
+     * a handler.  The ids are read from the {@link UserRoleIndex} if it is enabled, otherwise with a paged ldap search.
+     *
+     * @param role    contains the role name and contextId.
+     * @param handler receives each userId.  Returning false stops the search.
+     * @return number of userIds passed to the handler.
+     * @throws SecurityException in the event of DAO search error or if thrown by the handler.
+     */
+    long getAuthorizedUsers( Role role, SearchHandler<String> handler ) throws SecurityException
+    {
+        if ( UserRoleIndex.isEnabled() )
+        {
+            Set<String> roles = new LinkedHashSet<>();
+            roles.add( role.getName() );
+            Set<String> descendants = RoleUtil.getInstance().getDescendants( role.getName(), role.getContextId() );
+            if ( descendants != null )
+            {
+                roles.addAll( descendants );
+            }
+            return UserRoleIndex.getInstance().getAssignedUsers( roles, role.getContextId(), handler );
+        }
+        return uDao.getAuthorizedUsers( role, handler );
+    }
+
+
     /**
      * Return a list of Users that are authorized the given Role.
      *
@@ -133,6 +179,20 @@ final class UserP
      */
     Set<String> getAssignedUsers( Set<String> roles, String contextId ) throws SecurityException
     {
+        if ( UserRoleIndex.isEnabled() && CollectionUtils.isNotEmpty( roles ) )
+        {
+            final Set<String> userSet = new HashSet<>();
+            UserRoleIndex.getInstance().getAssignedUsers( roles, contextId, new SearchHandler<String>()
+            {
+                @Override
+                public boolean handle( String userId )
+                {
+                    userSet.add( userId );
+                    return true;
+                }
+            } );
+            return userSet;
+        }
         return uDao.getAssignedUsers( roles, contextId );
     }
 
@@ -338,6 +398,10 @@ final class UserP
             validate( entity, true );
         }
         entity = uDao.update( entity );
+        if ( StringUtils.isNotEmpty( entity.getOu() ) )
+        {
+            EntityOuCache.clearUser( entity.getContextId(), entity.getUserId() );
+        }
         return entity;
     }
 
@@ -386,7 +450,10 @@ final class UserP
                 + "] can't be removed due to policy violation, rc=" + GlobalErrIds.USER_PLCY_VIOLATION;
             throw new SecurityException( GlobalErrIds.USER_PLCY_VIOLATION, warning );
         }
-        return uDao.remove( user );
+        String dn = uDao.remove( user );
+        UserRoleIndex.setRoles( user.getContextId(), user.getUserId(), null );
+        EntityOuCache.clearUser( user.getContextId(), user.getUserId() );
+        return dn;
     }
 
 
@@ -529,8 +596,8 @@ final class UserP
     private Session createSession( User inUser )
         throws SecurityException
     {
-        // read user entity:
-        User user = read( inUser, true );
+        // read user entity, from a replica if any, or the master within the read after write window:
+        User user = uDao.getUser( inUser, true, true );
         user.setContextId( inUser.getContextId() );
 
         // authenticate password, check pw policies and validate user temporal constraints:
@@ -552,7 +619,7 @@ final class UserP
     private Session createSessionTrusted( User inUser )
         throws SecurityException
     {
-        User user = read( inUser, true );
+        User user = uDao.getUser( inUser, true, true );
         user.setContextId( inUser.getContextId() );
 
         if ( user.isLocked() )
@@ -665,9 +732,48 @@ final class UserP
     {
         validate( uRole );
         // "assign" custom Fortress role data, i.e. temporal constraints, onto the user node:
-        return uDao.assign( uRole );
+        String dn = uDao.assign( uRole );
+        UserRoleIndex.assign( uRole.getContextId(), uRole.getUserId(), uRole.getName() );
+        return dn;
     }
     
+    /**
+     * Add several role assignments to one user with a single ldap modify.  The roles and SSD constraints are not
+     * validated here.
+     *
+     * @param uRoles contains the assignments, all of the same userId.
+     * @return String containing the user's DN.
+     * @throws SecurityException in the event data error in user or role objects or system error.
+     */
+    String assign( List<UserRole> uRoles ) throws SecurityException
+    {
+        for ( UserRole uRole : uRoles )
+        {
+            validate( uRole );
+        }
+        String dn = uDao.assign( uRoles );
+        for ( UserRole uRole : uRoles )
+        {
+            UserRoleIndex.assign( uRole.getContextId(), uRole.getUserId(), uRole.getName() );
+        }
+        return dn;
+    }
+
+
+    /**
+     * Return the names of the roles assigned to each of the users, read with as few ldap searches as possible.
+     *
+     * @param userIds contains the userIds.
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @return Map of userId to role names, ordered case insensitively.  Users not found are absent.
+     * @throws SecurityException in the event of system error.
+     */
+    Map<String, List<String>> getAssignedRoles( Collection<String> userIds, String contextId ) throws SecurityException
+    {
+        return uDao.getRoles( userIds, contextId );
+    }
+
+
     //TODO: add documentation
     void assign( UserRole uRole, RoleConstraint roleConstraint ) throws SecurityException
     {    	
@@ -703,7 +809,9 @@ final class UserP
     {
         validate( uRole );
         // "deassign" custom Fortress role data from the user's node:
-        return uDao.deassign( uRole );
+        String dn = uDao.deassign( uRole );
+        UserRoleIndex.deassign( uRole.getContextId(), uRole.getUserId(), uRole.getName() );
+        return dn;
     }
 
 
@@ -0,0 +1,473 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.SearchHandler;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This utility maintains, for each tenant, an index from every RBAC role to the userIds of the users directly assigned
+ * to it.  It answers {@link org.apache.directory.fortress.core.ReviewMgr#authorizedUsers} and
+ * {@link org.apache.directory.fortress.core.ReviewMgr#authorizedPermissionUsers} from memory, as the union of the users
+ * of a role and of its descendants in {@link RoleUtil}, instead of searching ldap with a filter that names every role.
+ * <p>
+ * It is switched off by default and may be enabled by setting {@code enable.user.role.index=true} in the fortress
+ * properties.  The index of a tenant is read from ldap, with a paged search of the users that have role assignments, the
+ * first time it is used.  It is then kept current by {@link UserP} as roles are assigned and deassigned and users are
+ * deleted, and by {@link CacheSync} when another process changes the users.  The index of a tenant is read again when it is
+ * used more than {@code user.role.index.ttl} seconds, default 600, after it was loaded, to pick up changes made by other
+ * processes when cache sync is not running.  0 keeps it until the process ends.
+ * <p>
+ * Changes made while the index of a tenant is being read from ldap might not be in the result, so they are kept and
+ * applied again to the index read before it is used.  The changes are the state of an assignment after it was written,
+ * so applying one the load has already seen leaves the index as it was.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class UserRoleIndex
+{
+    private static final String CLS_NM = UserRoleIndex.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String ENABLE_USER_ROLE_INDEX = "enable.user.role.index";
+    private static final String USER_ROLE_INDEX_TTL = "user.role.index.ttl";
+
+    private static volatile UserRoleIndex sINSTANCE = null;
+
+    private final UserDAO uDao = new UserDAO();
+    private final ConcurrentMap<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> loadLocks = new ConcurrentHashMap<>();
+    // the changes made to each tenant being loaded, in the order they were made, guarded by this:
+    private final Map<String, List<Change>> pending = new HashMap<>();
+    // incremented each time the whole index is cleared, guarded by this:
+    private long clears = 0;
+    private final long ttlNanos;
+
+
+    static UserRoleIndex getInstance()
+    {
+        if ( sINSTANCE == null )
+        {
+            synchronized ( UserRoleIndex.class )
+            {
+                if ( sINSTANCE == null )
+                {
+                    sINSTANCE = new UserRoleIndex();
+                }
+            }
+        }
+        return sINSTANCE;
+    }
+
+
+    /**
+     * Private constructor
+     *
+     */
+    private UserRoleIndex()
+    {
+        ttlNanos = TimeUnit.SECONDS.toNanos( Config.getInstance().getInt( USER_ROLE_INDEX_TTL, 600 ) );
+        CacheSync.start();
+    }
+
+
+    /**
+     * Return true if the index has been switched on with the {@code enable.user.role.index} property.
+     *
+     * @return boolean value, default is false.
+     */
+    static boolean isEnabled()
+    {
+        return Config.getInstance().getBoolean( ENABLE_USER_ROLE_INDEX, false );
+    }
+
+
+    /**
+     * Pass the userIds of the users assigned to any of the given roles to a handler.  Each userId is passed once, even if
+     * the user is assigned to more than one of the roles.
+     *
+     * @param roleNames contains the names of the roles.
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @param handler   receives each userId.  Returning false stops the iteration.
+     * @return number of userIds passed to the handler.
+     * @throws SecurityException if the index could not be read from ldap or if thrown by the handler.
+     */
+    long getAssignedUsers( Collection<String> roleNames, String contextId, SearchHandler<String> handler )
+        throws SecurityException
+    {
+        Tenant tenant = getTenant( contextId );
+        Set<String> passed = new HashSet<>();
+        long count = 0;
+        for ( String roleName : roleNames )
+        {
+            Set<String> userIds = tenant.usersByRole.get( roleName.toUpperCase() );
+            if ( userIds == null )
+            {
+                continue;
+            }
+            for ( String userId : userIds )
+            {
+                if ( passed.add( userId.toUpperCase() ) )
+                {
+                    count++;
+                    if ( !handler.handle( userId ) )
+                    {
+                        return count;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * Add a role assignment to the index.  Called after it has been written to ldap.  Does nothing if the index is not
+     * enabled.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @param userId    of the user.
+     * @param roleName  of the role assigned.
+     */
+    static void assign( String contextId, final String userId, final String roleName )
+    {
+        if ( isEnabled() )
+        {
+            getInstance().onChange( contextId, new Change()
+            {
+                @Override
+                void apply( Tenant tenant )
+                {
+                    tenant.assign( userId, roleName );
+                }
+            } );
+        }
+    }
+
+
+    /**
+     * Remove a role assignment from the index.  Called after it has been removed from ldap.  Does nothing if the index
+     * is not enabled.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @param userId    of the user.
+     * @param roleName  of the role deassigned.
+     */
+    static void deassign( String contextId, final String userId, final String roleName )
+    {
+        if ( isEnabled() )
+        {
+            getInstance().onChange( contextId, new Change()
+            {
+                @Override
+                void apply( Tenant tenant )
+                {
+                    tenant.deassign( userId, roleName );
+                }
+            } );
+        }
+    }
+
+
+    /**
+     * Replace every role assignment of a user in the index.  Called after the user has been deleted or changed.  Does
+     * nothing if the index is not enabled.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @param userId    of the user.
+     * @param roleNames contains the names of the roles the user is now assigned to, null or empty if none or the user
+     *                  was deleted.
+     */
+    static void setRoles( String contextId, final String userId, Collection<String> roleNames )
+    {
+        if ( isEnabled() )
+        {
+            final Collection<String> newRoles = roleNames != null ? new ArrayList<>( roleNames )
+                : Collections.<String>emptySet();
+            getInstance().onChange( contextId, new Change()
+            {
+                @Override
+                void apply( Tenant tenant )
+                {
+                    tenant.setRoles( userId, newRoles );
+                }
+            } );
+        }
+    }
+
+
+    /**
+     * Remove the index of every tenant.  Called when changes made by other processes may have been missed.  Does
+     * nothing if the index is not enabled.
+     */
+    static void clearAll()
+    {
+        if ( isEnabled() )
+        {
+            LOG.debug( "clearAll removing the user role index" );
+            UserRoleIndex index = getInstance();
+            synchronized ( index )
+            {
+                index.clears++;
+                index.tenants.clear();
+            }
+        }
+    }
+
+
+    /**
+     * Apply a change to the index of a tenant if it is loaded, and keep it for the load in progress if there is one.
+     */
+    private synchronized void onChange( String contextId, Change change )
+    {
+        String key = getKey( contextId );
+        Tenant tenant = tenants.get( key );
+        if ( tenant != null )
+        {
+            change.apply( tenant );
+        }
+        List<Change> changes = pending.get( key );
+        if ( changes != null )
+        {
+            changes.add( change );
+        }
+    }
+
+
+    /**
+     * Return the index of a tenant, reading it from ldap if it is not loaded or has expired.  Only one thread reads a
+     * tenant at a time, the others wait for its result.
+     */
+    private Tenant getTenant( String contextId ) throws SecurityException
+    {
+        String key = getKey( contextId );
+        Tenant tenant = tenants.get( key );
+        if ( tenant != null && !isExpired( tenant ) )
+        {
+            return tenant;
+        }
+        Object lock = loadLocks.get( key );
+        if ( lock == null )
+        {
+            Object newLock = new Object();
+            lock = loadLocks.putIfAbsent( key, newLock );
+            if ( lock == null )
+            {
+                lock = newLock;
+            }
+        }
+        synchronized ( lock )
+        {
+            tenant = tenants.get( key );
+            if ( tenant != null && !isExpired( tenant ) )
+            {
+                return tenant;
+            }
+            long before;
+            synchronized ( this )
+            {
+                before = clears;
+                pending.put( key, new ArrayList<Change>() );
+            }
+            Tenant loaded = null;
+            try
+            {
+                loaded = load( contextId );
+            }
+            finally
+            {
+                synchronized ( this )
+                {
+                    List<Change> changes = pending.remove( key );
+                    if ( loaded != null )
+                    {
+                        LOG.debug( "getTenant contextId [{}] applying [{}] changes made while loading", key,
+                            changes.size() );
+                        for ( Change change : changes )
+                        {
+                            change.apply( loaded );
+                        }
+                        // if the index was cleared while loading, changes may have been missed so it is not kept:
+                        if ( clears == before )
+                        {
+                            tenants.put( key, loaded );
+                        }
+                    }
+                }
+            }
+            return loaded;
+        }
+    }
+
+
+    private Tenant load( String contextId ) throws SecurityException
+    {
+        long start = System.nanoTime();
+        final Tenant tenant = new Tenant();
+        long count = uDao.getRoleAssignments( contextId, new SearchHandler<User>()
+        {
+            @Override
+            public boolean handle( User user )
+            {
+                for ( UserRole role : user.getRoles() )
+                {
+                    tenant.assign( user.getUserId(), role.getName() );
+                }
+                return true;
+            }
+        } );
+        LOG.info( "load contextId [{}] users [{}] roles [{}] in [{}] ms", contextId, count, tenant.usersByRole.size(),
+            TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) );
+        return tenant;
+    }
+
+
+    private boolean isExpired( Tenant tenant )
+    {
+        return ttlNanos > 0 && System.nanoTime() - tenant.loadTime > ttlNanos;
+    }
+
+
+    private static String getKey( String contextId )
+    {
+        String key = GlobalIds.HOME;
+        if ( StringUtils.isNotEmpty( contextId ) && !contextId.equals( GlobalIds.NULL ) )
+        {
+            key = contextId;
+        }
+        return key.toUpperCase();
+    }
+
+
+    /**
+     * A change to the assignments of a user, made to the index of a tenant.
+     */
+    private abstract static class Change
+    {
+        abstract void apply( Tenant tenant );
+    }
+
+
+    /**
+     * The index of a single tenant.  Readers iterate {@link #usersByRole} without locking, changes are made by one
+     * thread at a time, with the lock of the {@link UserRoleIndex} held or before the tenant is published.
+     */
+    private static final class Tenant
+    {
+        private final long loadTime = System.nanoTime();
+        // upper-cased role name to userIds, in case-insensitive order:
+        private final ConcurrentMap<String, Set<String>> usersByRole = new ConcurrentHashMap<>();
+        // upper-cased userId to upper-cased role names:
+        private final Map<String, Set<String>> rolesByUser = new HashMap<>();
+
+
+        private void assign( String userId, String roleName )
+        {
+            String roleKey = roleName.toUpperCase();
+            Set<String> roles = rolesByUser.get( userId.toUpperCase() );
+            if ( roles == null )
+            {
+                roles = new HashSet<>();
+                rolesByUser.put( userId.toUpperCase(), roles );
+            }
+            if ( roles.add( roleKey ) )
+            {
+                Set<String> userIds = usersByRole.get( roleKey );
+                if ( userIds == null )
+                {
+                    userIds = new ConcurrentSkipListSet<>( String.CASE_INSENSITIVE_ORDER );
+                    usersByRole.put( roleKey, userIds );
+                }
+                userIds.add( userId );
+            }
+        }
+
+
+        private void deassign( String userId, String roleName )
+        {
+            String roleKey = roleName.toUpperCase();
+            Set<String> roles = rolesByUser.get( userId.toUpperCase() );
+            if ( roles != null && roles.remove( roleKey ) )
+            {
+                if ( roles.isEmpty() )
+                {
+                    rolesByUser.remove( userId.toUpperCase() );
+                }
+                Set<String> userIds = usersByRole.get( roleKey );
+                if ( userIds != null )
+                {
+                    userIds.remove( userId );
+                    if ( userIds.isEmpty() )
+                    {
+                        usersByRole.remove( roleKey );
+                    }
+                }
+            }
+        }
+
+
+        private void setRoles( String userId, Collection<String> roleNames )
+        {
+            Set<String> newRoles = new HashSet<>();
+            for ( String roleName : roleNames )
+            {
+                newRoles.add( roleName.toUpperCase() );
+            }
+            Set<String> roles = rolesByUser.get( userId.toUpperCase() );
+            if ( roles != null )
+            {
+                for ( String roleKey : new ArrayList<>( roles ) )
+                {
+                    if ( !newRoles.remove( roleKey ) )
+                    {
+                        deassign( userId, roleKey );
+                    }
+                }
+            }
+            for ( String roleKey : newRoles )
+            {
+                assign( userId, roleKey );
+            }
+        }
+    }
+}
@@ -20,9 +20,13 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -33,9 +37,9 @@ import org.apache.directory.fortress.core.model.Graphable;
 import org.apache.directory.fortress.core.model.Hier;
 import org.apache.directory.fortress.core.model.OrgUnit;
 import org.apache.directory.fortress.core.model.Relationship;
+import org.apache.directory.fortress.core.model.UserAdminRole;
 import org.apache.directory.fortress.core.util.cache.Cache;
 import org.apache.directory.fortress.core.util.cache.CacheMgr;
-import org.jgrapht.graph.SimpleDirectedGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,15 +47,16 @@ import org.slf4j.LoggerFactory;
 /**
  * This utility wraps {@link HierUtil} methods to provide hierarchical functionality using the {@link org.apache.directory.fortress.core.model.OrgUnit} data set for User type {@link org.apache.directory.fortress.core.model.OrgUnit.Type#USER}.
  * The {@code cn=Hierarchies, ou=OS-U} data contains User OU pools is stored within a data cache, {@link #usoCache}, contained within this class.  The parent-child edges are contained in LDAP,
- * in {@code ftParents} attribute.  The ldap data is retrieved {@link OrgUnitP#getAllDescendants(org.apache.directory.fortress.core.model.OrgUnit)} and loaded into {@code org.jgrapht.graph.SimpleDirectedGraph}.
+ * in {@code ftParents} attribute.  The ldap data is retrieved {@link OrgUnitP#getAllDescendants(org.apache.directory.fortress.core.model.OrgUnit)} and loaded into {@link HierGraph}.
  * The graph...
  * <ol>
  * <li>is stored as singleton in this class with vertices of {@code String}, and edges, as {@link org.apache.directory.fortress.core.model.Relationship}s</li>
- * <li>utilizes open source library, see <a href="http://www.jgrapht.org/">JGraphT</a>.</li>
+ * <li>is held by {@link CsrHierGraph} as arrays of vertex ids, or by {@link JGraphHierGraph} if {@code hier.engine} is set to {@code jgrapht}.</li>
  * <li>contains a general hierarchical data structure i.e. allows multiple inheritance with parents.</li>
  * <li>is a simple directed graph thus does not allow cycles.</li>
  * </ol>
- * After update is performed to ldap, the singleton is refreshed with latest info.
+ * After update is performed to ldap, the singleton is refreshed with latest info.  The graph is reloaded in the background
+ * before its cache entry expires, see {@link GraphLoader}.
  * <p>
  * Static methods on this class are intended for use by other Fortress classes, i.e. {@link DelAdminMgrImpl}.
  * and cannot be directly invoked by outside programs.
@@ -63,6 +68,8 @@ import org.slf4j.LoggerFactory;
 final class UsoUtil
 {
     private Cache usoCache;
+    private GraphLoader graphLoader;
+    private final ConcurrentMap<String, HierClosure> closures = new ConcurrentHashMap<>();
     private OrgUnitP orgUnitP;
     private static final String CLS_NM = UsoUtil.class.getName();
     private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
@@ -87,7 +94,7 @@ final class UsoUtil
     
     /**
      * Initialize the User OU hierarchies.  This will read the {@link org.apache.directory.fortress.core.model.Hier} data set from ldap and load into
-     * the JGraphT simple digraph that referenced statically within this class.
+     * the {@link HierGraph} held in the cache of this class.
      */
     private void init()
     {
@@ -95,6 +102,14 @@ final class UsoUtil
     	
         CacheMgr cacheMgr = CacheMgr.getInstance();
         usoCache = cacheMgr.getCache( "fortress.uso" );
+        graphLoader = new GraphLoader( usoCache, closures, new GraphLoader.Source()
+        {
+            @Override
+            public HierGraph load( String contextId )
+            {
+                return loadGraph( contextId );
+            }
+        } );
     }
 
     /**
@@ -107,26 +122,50 @@ final class UsoUtil
     }
 
     /**
-     * Recursively traverse the {@link org.apache.directory.fortress.core.model.OrgUnit} graph and return all of the descendants of a given parent {@link org.apache.directory.fortress.core.model.OrgUnit#name}.
+     * Use the precomputed closure of the {@link org.apache.directory.fortress.core.model.OrgUnit} graph and return all of the descendants of a given parent {@link org.apache.directory.fortress.core.model.OrgUnit#name}.
      *
      * @param name {@link org.apache.directory.fortress.core.model.OrgUnit#name} on 'ftOrgUnit' object class.
      * @return Set of names of descendants {@link org.apache.directory.fortress.core.model.OrgUnit}s of given parent.
      */
     Set<String> getDescendants( String name, String contextId )
     {
-        return HierUtil.getDescendants( name, getGraph( contextId ) );
+        return getClosure( contextId ).getDescendants( name );
+    }
+
+
+    /**
+     * Determine if an ou lies within the User OU scope of an admin role, i.e. it is one of the role's
+     * {@link UserAdminRole#getOsUSet()} or one of their descendants.  The scope is computed once from the precomputed
+     * closure of the {@link org.apache.directory.fortress.core.model.OrgUnit.Type#USER} graph and kept on the admin role
+     * until the graph changes.
+     *
+     * @param uaRole contains the User OUs of the admin role.
+     * @param ou maps to logical {@link org.apache.directory.fortress.core.model.OrgUnit#name} on 'ftOrgUnit' object class.
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @return boolean value.  true indicates the ou is within the scope of the admin role.
+     */
+    boolean isInScope( UserAdminRole uaRole, String ou, String contextId )
+    {
+        HierClosure closure = getClosure( contextId );
+        BitSet scope = uaRole.getOsUScope( closure.getVersion() );
+        if ( scope == null )
+        {
+            scope = closure.getScope( uaRole.getOsUSet() );
+            uaRole.setOsUScope( scope, closure.getVersion() );
+        }
+        return closure.isInScope( scope, uaRole.getOsUSet(), ou );
     }
 
 
     /**
-     * Recursively traverse the {@link org.apache.directory.fortress.core.model.OrgUnit.Type#USER} graph and return all of the ascendants of a given child ou.
+     * Use the precomputed closure of the {@link org.apache.directory.fortress.core.model.OrgUnit.Type#USER} graph and return all of the ascendants of a given child ou.
      *
      * @param name maps to logical {@link org.apache.directory.fortress.core.model.OrgUnit#name} on 'ftOrgUnit' object class.
      * @return Set of ou names that are ascendants of given child.
      */
     Set<String> getAscendants( String name, String contextId )
     {
-        return HierUtil.getAscendants( name, getGraph( contextId ) );
+        return getClosure( contextId ).getAscendants( name );
     }
 
 
@@ -174,31 +213,22 @@ final class UsoUtil
      */
     Set<String> getInherited( List<OrgUnit> ous, String contextId )
     {
-        // create Set with case insensitive comparator:
-        Set<String> iOUs = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
-        
-        if ( CollectionUtils.isNotEmpty( ous ) )
+        if ( CollectionUtils.isEmpty( ous ) )
         {
-            for ( OrgUnit ou : ous )
-            {
-                String name = ou.getName();
-                iOUs.add( name );
-                Set<String> parents = HierUtil.getAscendants( name, getGraph( contextId ) );
-                
-                if ( CollectionUtils.isNotEmpty( parents ) )
-                {
-                    iOUs.addAll( parents );
-                }
-            }
+            return new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
         }
-        
-        return iOUs;
+        List<String> names = new ArrayList<>( ous.size() );
+        for ( OrgUnit ou : ous )
+        {
+            names.add( ou.getName() );
+        }
+        return getClosure( contextId ).getInherited( names );
     }
 
 
     /**
      * This api is used by {@link DelAdminMgrImpl} to determine parentage for User OU processing.
-     * It calls {@link HierUtil#validateRelationship(org.jgrapht.graph.SimpleDirectedGraph, String, String, boolean)} to evaluate three OU relationship expressions:
+     * It calls {@link HierUtil#validateRelationship(HierGraph, String, String, boolean)} to evaluate three OU relationship expressions:
      * <ol>
      * <li>If child equals parent</li>
      * <li>If mustExist true and parent-child relationship exists</li>
@@ -222,7 +252,7 @@ final class UsoUtil
 
     /**
      * This api allows synchronized access to allow updates to hierarchical relationships.
-     * Method will update the hierarchical data set and reload the JGraphT simple digraph with latest.
+     * Method will update the hierarchical data set and reload the {@link HierGraph} with latest.
      *
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
      * @param relationship contains parent-child relationship targeted for addition.
@@ -231,18 +261,29 @@ final class UsoUtil
      */
     void updateHier( String contextId, Relationship relationship, Hier.Op op ) throws SecurityException
     {
-        HierUtil.updateHier( getGraph( contextId ), relationship, op );
+        graphLoader.updateHier( getKey( contextId ), contextId, relationship, op );
+    }
+
+
+    /**
+     * Reload the hierarchy of a contextId in the background after it was changed in ldap by another process.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     */
+    void refreshGraph( String contextId )
+    {
+        graphLoader.refresh( contextId );
     }
 
 
     /**
-     * Read this ldap record,{@code cn=Hierarchies, ou=OS-P} into this entity, {@link Hier}, before loading into this collection class,{@code org.jgrapht.graph.SimpleDirectedGraph}
-     * using 3rd party lib, <a href="http://www.jgrapht.org/">JGraphT</a>.
+     * Read this ldap record,{@code cn=Hierarchies, ou=OS-P} into this entity, {@link Hier}, before loading into this collection class,{@link HierGraph}
+     * built by {@link HierUtil#buildHierGraph(Hier)}.
      *
      * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
-     * @return handle to simple digraph containing user ou hierarchies.
+     * @return handle to the graph containing user ou hierarchies.
      */
-    private synchronized SimpleDirectedGraph<String, Relationship> loadGraph( String contextId )
+    private HierGraph loadGraph( String contextId )
     {
         Hier inHier = new Hier( Hier.Type.ROLE );
         inHier.setContextId( contextId );
@@ -262,35 +303,33 @@ final class UsoUtil
         }
         
         Hier hier = HierUtil.loadHier( contextId, descendants );
-        SimpleDirectedGraph<String, Relationship> graph;
+        HierGraph graph;
         
-        graph = HierUtil.buildGraph( hier );
-        usoCache.put( getKey( contextId ), graph );
+        graph = HierUtil.buildHierGraph( hier );
         
         return graph;
     }
 
 
     /**
+     * Return the precomputed ascendant and descendant closure of the user ou graph, rebuilding it if the graph was reloaded.
      *
-     * @return handle to simple digraph containing user ou hierarchies.
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @return closure of this tenant's user ou hierarchy.
      */
-    private SimpleDirectedGraph<String, Relationship> getGraph( String contextId )
+    private HierClosure getClosure( String contextId )
     {
-        String key = getKey( contextId );        
-        LOG.debug("Getting graph for key " + contextId);
-         
-        SimpleDirectedGraph<String, Relationship> graph = ( SimpleDirectedGraph<String, Relationship> ) usoCache
-                 .get( key );
-             
-        if(graph == null){
-            LOG.debug("Graph was null, creating... " + contextId);
-            return loadGraph( contextId );
-        }
-        else{
-            LOG.debug("Graph found in cache, returning...");
-            return graph;
-        }
+        return HierClosure.get( closures, getKey( contextId ), getGraph( contextId ) );
+    }
+
+
+    /**
+     *
+     * @return handle to the graph containing user ou hierarchies.
+     */
+    private HierGraph getGraph( String contextId )
+    {
+        return graphLoader.get( getKey( contextId ), contextId );
     }
 
 
@@ -0,0 +1,203 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.ldap;
+
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Fixed size histogram of latencies recorded in nanoseconds.  Values are placed into log-linear buckets, each power
+ * of two is split into 16 equal sub-buckets, so a percentile is reported within 1/16th (6.25%) of the value that was
+ * recorded.  Values above one hour are counted in the highest bucket.
+ * <p>
+ * Recording does not lock or allocate.  Reads taken while other threads are recording are not an atomic snapshot
+ * but each bucket is always consistent.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_VALUE = TimeUnit.HOURS.toNanos( 1 );
+    private static final int BUCKET_COUNT = getIndex( MAX_VALUE ) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray( BUCKET_COUNT );
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+
+    /**
+     * Record a single latency.
+     *
+     * @param nanos elapsed time in nanoseconds.  Negative values are recorded as zero.
+     */
+    public void record( long nanos )
+    {
+        long value = Math.min( Math.max( 0, nanos ), MAX_VALUE );
+        buckets.incrementAndGet( getIndex( value ) );
+        count.increment();
+        sum.add( value );
+        long current = max.get();
+        while ( value > current && !max.compareAndSet( current, value ) )
+        {
+            current = max.get();
+        }
+    }
+
+
+    /**
+     * Return the number of latencies recorded.
+     *
+     * @return long containing count.
+     */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+
+    /**
+     * Return the mean of the latencies recorded.
+     *
+     * @return mean in nanoseconds, zero if nothing has been recorded.
+     */
+    public long getMean()
+    {
+        long total = count.sum();
+        return total == 0 ? 0 : sum.sum() / total;
+    }
+
+
+    /**
+     * Return the highest latency recorded.
+     *
+     * @return max in nanoseconds.
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+
+    /**
+     * Return the latency at or below which the given percentage of recorded values fall.
+     *
+     * @param percentile between 0 and 100, i.e. 99.9
+     * @return the highest value of the bucket containing the percentile, in nanoseconds.  Zero if nothing has been
+     * recorded.
+     */
+    public long getValueAtPercentile( double percentile )
+    {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            snapshot[i] = buckets.get( i );
+            total += snapshot[i];
+        }
+        if ( total == 0 )
+        {
+            return 0;
+        }
+        double pct = Math.min( Math.max( 0, percentile ), 100 );
+        long target = Math.max( 1, ( long ) Math.ceil( pct / 100 * total ) );
+        long running = 0;
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            running += snapshot[i];
+            if ( running >= target )
+            {
+                return Math.min( getHighestValue( i ), max.get() );
+            }
+        }
+        return max.get();
+    }
+
+
+    /**
+     * Discard every value recorded.
+     */
+    public void reset()
+    {
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            buckets.set( i, 0 );
+        }
+        count.reset();
+        sum.reset();
+        max.set( 0 );
+    }
+
+
+    /**
+     * Return a one line summary with latencies in microseconds.
+     *
+     * @return String containing count, mean, p50, p90, p99, p99.9 and max.
+     */
+    @Override
+    public String toString()
+    {
+        return "count=" + getCount() + " mean=" + toMicros( getMean() ) + " p50=" + toMicros( getValueAtPercentile( 50 ) )
+            + " p90=" + toMicros( getValueAtPercentile( 90 ) ) + " p99=" + toMicros( getValueAtPercentile( 99 ) )
+            + " p99.9=" + toMicros( getValueAtPercentile( 99.9 ) ) + " max=" + toMicros( getMax() ) + " (us)";
+    }
+
+
+    private static long toMicros( long nanos )
+    {
+        return TimeUnit.NANOSECONDS.toMicros( nanos );
+    }
+
+
+    /**
+     * Values below 16 have a bucket each.  Above that, the top four bits of each value select one of the 16 buckets
+     * that cover its power of two.
+     */
+    private static int getIndex( long value )
+    {
+        if ( value < SUB_BUCKET_COUNT )
+        {
+            return ( int ) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros( value );
+        int subBucket = ( int ) ( value >>> ( exponent - SUB_BUCKET_BITS ) ) - SUB_BUCKET_COUNT;
+        return ( exponent - SUB_BUCKET_BITS + 1 ) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+
+    private static long getHighestValue( int index )
+    {
+        if ( index < SUB_BUCKET_COUNT )
+        {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long mantissa = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ( ( mantissa + 1 ) << shift ) - 1;
+    }
+}
@@ -20,7 +20,13 @@
 package org.apache.directory.fortress.core.ldap;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.pool.PoolableObjectFactory;
@@ -34,9 +40,12 @@ import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.EncryptUtil;
+import org.apache.directory.ldap.client.api.DefaultLdapConnectionFactory;
 import org.apache.directory.ldap.client.api.LdapConnection;
 import org.apache.directory.ldap.client.api.LdapConnectionConfig;
 import org.apache.directory.ldap.client.api.LdapConnectionPool;
+import org.apache.directory.ldap.client.api.LdapConnectionValidator;
+import org.apache.directory.ldap.client.api.LookupLdapConnectionValidator;
 import org.apache.directory.ldap.client.api.ValidatingPoolableLdapConnectionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,8 +56,31 @@ import org.slf4j.LoggerFactory;
  *   <li>Admin Connections - bound with ldap service account creds</li>
  *   <li>User Connections - unbound used for authentication</li>
  *   <li>Audit Log Connections - bound with slapo access log service account creds (OpenLDAP only)</li>
+ *   <li>Read Connections - bound with ldap service account creds to one of the read replicas, if any</li>
+ *   <li>Bind Connections - used only to check passwords, if {@code enable.ldap.bind.pool=true}</li>
  * </ul>
  *
+ * A connection from the user pool is checked with a root DSE lookup when it is borrowed and rebound as the service
+ * account when it is returned, so each password check costs three round trips to the server.  The bind pool skips
+ * both.  Its connections are only ever used for a simple bind, which replaces whatever identity the connection held
+ * before, so they are returned as they are, and are checked on borrow without a network call.  Its size is set with
+ * {@code min.bind.conn} and {@code max.bind.conn}, and defaults to that of the admin pool.
+ *
+ * Idle connections are validated by a background thread of each pool every {@code ldap.test.interval} milliseconds,
+ * rather than when they are borrowed, which would cost each dao call a root DSE lookup.  A borrowed connection the
+ * ldap api knows to be closed is reopened by the pool before it is handed out, and a read that finds its connection
+ * closed is retried once by {@link LdapDataProvider}.  Set {@code ldap.test.on.borrow=true} to validate on borrow as
+ * well.  The connections on loan and idle, and the validation failures, of each pool are returned by
+ * {@link #getPoolSummary()}.
+ *
+ * The read replicas are listed in {@code ldap.read.hosts}, i.e. {@code replica1:389,replica2:389}, and each is given a
+ * pool the size of the admin pool.  {@link #getReadConnection()} borrows from the replica with the fewest connections
+ * on loan.  A replica whose connection cannot be borrowed is skipped for {@code ldap.read.retry.interval}
+ * milliseconds, and if none is available the connection comes from the admin pool, i.e. the master.  For
+ * {@code ldap.read.after.write} milliseconds after this process writes to the directory, reads go to the master as
+ * well, so the write may be read back before it has replicated.  A failed bind starts the window too, since the
+ * password policy records the failure, and may lock the account, on the master.
+ *
  * Each connection pool is initialized on first invocation of getInstance() which stores a reference to self used by subsequent callers.
  * <p>
  * This class is not thread safe.
@@ -67,6 +99,19 @@ public class LdapConnectionProvider
     private static final String LDAP_LOG_POOL_MAX = "max.log.conn";
 
     private static final String ENABLE_LDAP_STARTTLS = "enable.ldap.starttls";
+    private static final String ADMIN_POOL = "admin";
+    private static final String LOG_POOL = "log";
+    private static final String USER_POOL = "user";
+    private static final String READ_POOL = "read:";
+    private static final String LDAP_READ_HOSTS = "ldap.read.hosts";
+    private static final String LDAP_READ_RETRY_INTERVAL = "ldap.read.retry.interval";
+    private static final String LDAP_READ_AFTER_WRITE = "ldap.read.after.write";
+    private static final String BIND_POOL = "bind";
+    private static final String ENABLE_LDAP_BIND_POOL = "enable.ldap.bind.pool";
+    private static final String LDAP_BIND_POOL_MIN = "min.bind.conn";
+    private static final String LDAP_BIND_POOL_MAX = "max.bind.conn";
+    private static final String LDAP_TEST_ON_BORROW = "ldap.test.on.borrow";
+    private static final String LDAP_TEST_INTERVAL = "ldap.test.interval";
     private boolean IS_SSL;
 
     /**
@@ -84,6 +129,39 @@ public class LdapConnectionProvider
      */
     private static LdapConnectionPool userPool;
 
+    /**
+     * The Bind connection pool, null unless enabled
+     */
+    private static LdapConnectionPool bindPool;
+
+    /**
+     * The Read connection pools, one per replica, empty if none are configured
+     */
+    private static List<ReadReplica> readReplicas = Collections.emptyList();
+
+    /**
+     * The replica each read connection on loan was borrowed from
+     */
+    private static final ConcurrentMap<LdapConnection, ReadReplica> readLeases = new ConcurrentHashMap<>();
+
+    /**
+     * The validator of each pool, by pool name
+     */
+    private static final ConcurrentMap<String, CountingValidator> validators = new ConcurrentHashMap<>();
+
+    /**
+     * The settings of the admin pool, used to open connections that are not pooled
+     */
+    private LdapConnectionConfig adminConfig;
+
+    private boolean isTestOnBorrow;
+    private long testInterval;
+
+    private long readRetryNanos;
+    private long readAfterWriteNanos;
+    private volatile long lastWriteNanos;
+    private volatile boolean isWritten;
+
     private static volatile LdapConnectionProvider sINSTANCE = null;
 
     /**
@@ -131,6 +209,8 @@ public class LdapConnectionProvider
         int max = Config.getInstance().getInt( GlobalIds.LDAP_ADMIN_POOL_MAX, 10 );
         int logmin = Config.getInstance().getInt( LDAP_LOG_POOL_MIN, 1 );
         int logmax = Config.getInstance().getInt( LDAP_LOG_POOL_MAX, 10 );
+        isTestOnBorrow = Config.getInstance().getBoolean( LDAP_TEST_ON_BORROW, false );
+        testInterval = Config.getInstance().getInt( LDAP_TEST_INTERVAL, 30000 );
         LOG.info( "LDAP POOL:  host=[{}], port=[{}], min=[{}], max=[{}]", host, port, min, max );
 
         LdapConnectionConfig config = new LdapConnectionConfig();
@@ -190,23 +270,13 @@ public class LdapConnectionProvider
             throw new CfgRuntimeException( GlobalErrIds.FT_APACHE_LDAP_POOL_INIT_FAILED, error, ex );
         }
 
-        PoolableObjectFactory<LdapConnection> poolFactory = new ValidatingPoolableLdapConnectionFactory( config );
-
         // Create the Admin pool
-        adminPool = new LdapConnectionPool( poolFactory );
-        adminPool.setTestOnBorrow( true );
-        adminPool.setWhenExhaustedAction( GenericObjectPool.WHEN_EXHAUSTED_GROW );
-        adminPool.setMaxActive( max );
-        adminPool.setMinIdle( min );
+        adminPool = createPool( ADMIN_POOL, config, min, max );
         adminPool.setMaxIdle( -1 );
         //adminPool.setMaxWait( 0 );
 
         // Create the User pool
-        userPool = new LdapConnectionPool( poolFactory );
-        userPool.setTestOnBorrow( true );
-        userPool.setWhenExhaustedAction( GenericObjectPool.WHEN_EXHAUSTED_GROW );
-        userPool.setMaxActive( max );
-        userPool.setMinIdle( min );
+        userPool = createPool( USER_POOL, config, min, max );
         userPool.setMaxIdle( -1 );
 
         // This pool of access log connections is used by {@link org.apache.directory.fortress.AuditMgr}.
@@ -243,13 +313,131 @@ public class LdapConnectionProvider
                 logPw = Config.getInstance().getProperty( LDAP_LOG_POOL_PW, true );
             }
             logConfig.setCredentials( logPw );
-            poolFactory = new ValidatingPoolableLdapConnectionFactory( logConfig );
-            logPool = new LdapConnectionPool( poolFactory );
-            logPool.setTestOnBorrow( true );
-            logPool.setWhenExhaustedAction( GenericObjectPool.WHEN_EXHAUSTED_GROW );
-            logPool.setMaxActive( logmax );
-            logPool.setMinIdle( logmin );
+            logPool = createPool( LOG_POOL, logConfig, logmin, logmax );
         }
+
+        initReadReplicas( config, min, max );
+        initBindPool( config, min, max );
+        adminConfig = config;
+    }
+
+
+    /**
+     * Create a pool of connections bound with the credentials in the given config.  Its connections are validated with
+     * a root DSE lookup, and the validations that fail are counted under the pool's name.
+     */
+    private LdapConnectionPool createPool( String name, LdapConnectionConfig config, int min, int max )
+    {
+        ValidatingPoolableLdapConnectionFactory poolFactory = new ValidatingPoolableLdapConnectionFactory( config );
+        CountingValidator validator = new CountingValidator( new LookupLdapConnectionValidator() );
+        poolFactory.setValidator( validator );
+        validators.put( name, validator );
+        LdapConnectionPool pool = new LdapConnectionPool( poolFactory );
+        configurePool( pool, min, max );
+        return pool;
+    }
+
+
+    /**
+     * Set the size of a pool and have a background thread validate its idle connections every
+     * {@code ldap.test.interval} milliseconds.  It also restores the minimum number of idle connections.
+     */
+    private void configurePool( LdapConnectionPool pool, int min, int max )
+    {
+        pool.setTestOnBorrow( isTestOnBorrow );
+        pool.setTestWhileIdle( true );
+        pool.setTimeBetweenEvictionRunsMillis( testInterval );
+        // test every idle connection on each run
+        pool.setNumTestsPerEvictionRun( -1 );
+        pool.setWhenExhaustedAction( GenericObjectPool.WHEN_EXHAUSTED_GROW );
+        pool.setMaxActive( max );
+        pool.setMinIdle( min );
+    }
+
+
+    /**
+     * Create the pool used to check passwords if {@code enable.ldap.bind.pool} is set.  Its connections are opened with
+     * the host and ssl settings of the admin pool but are not bound as the service account.
+     */
+    private void initBindPool( LdapConnectionConfig adminConfig, int min, int max )
+    {
+        if ( !Config.getInstance().getBoolean( ENABLE_LDAP_BIND_POOL, false ) )
+        {
+            return;
+        }
+
+        int bindmin = Config.getInstance().getInt( LDAP_BIND_POOL_MIN, min );
+        int bindmax = Config.getInstance().getInt( LDAP_BIND_POOL_MAX, max );
+        CountingValidator validator = new CountingValidator( new LdapConnectionValidator()
+        {
+            @Override
+            public boolean validate( LdapConnection connection )
+            {
+                return connection.isConnected();
+            }
+        } );
+        validators.put( BIND_POOL, validator );
+        bindPool = new LdapConnectionPool( new BindConnectionFactory( adminConfig, validator ) );
+        configurePool( bindPool, bindmin, bindmax );
+        // its validation doesn't use the network
+        bindPool.setTestOnBorrow( true );
+        bindPool.setMaxIdle( -1 );
+        LOG.info( "LDAP BIND POOL:  host=[{}], port=[{}], min=[{}], max=[{}]", adminConfig.getLdapHost(),
+            adminConfig.getLdapPort(), bindmin, bindmax );
+    }
+
+
+    /**
+     * Create a pool for each of the read replicas listed in {@code ldap.read.hosts}.  They use the credentials, ssl
+     * settings and sizes of the admin pool.
+     */
+    private void initReadReplicas( LdapConnectionConfig adminConfig, int min, int max )
+    {
+        readRetryNanos = TimeUnit.MILLISECONDS.toNanos( Config.getInstance().getInt( LDAP_READ_RETRY_INTERVAL,
+            30000 ) );
+        readAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos( Config.getInstance().getInt( LDAP_READ_AFTER_WRITE, 0 ) );
+        String hosts = Config.getInstance().getProperty( LDAP_READ_HOSTS );
+        if ( StringUtils.isEmpty( hosts ) )
+        {
+            return;
+        }
+
+        List<ReadReplica> replicas = new ArrayList<>();
+        for ( String endpoint : StringUtils.split( hosts, ", " ) )
+        {
+            String host = endpoint;
+            int port = adminConfig.getLdapPort();
+            int index = endpoint.lastIndexOf( ':' );
+            if ( index > 0 )
+            {
+                host = endpoint.substring( 0, index );
+                try
+                {
+                    port = Integer.parseInt( endpoint.substring( index + 1 ) );
+                }
+                catch ( NumberFormatException nfe )
+                {
+                    String error = "initReadReplicas invalid port in " + LDAP_READ_HOSTS + " [" + endpoint + "]";
+                    throw new CfgRuntimeException( GlobalErrIds.FT_APACHE_LDAP_POOL_INIT_FAILED, error, nfe );
+                }
+            }
+
+            LdapConnectionConfig config = new LdapConnectionConfig();
+            config.setLdapHost( host );
+            config.setLdapPort( port );
+            config.setName( adminConfig.getName() );
+            config.setCredentials( adminConfig.getCredentials() );
+            config.setUseSsl( adminConfig.isUseSsl() );
+            config.setUseTls( adminConfig.isUseTls() );
+            config.setTrustManagers( adminConfig.getTrustManagers() );
+            config.setLdapApiService( adminConfig.getLdapApiService() );
+
+            LdapConnectionPool pool = createPool( READ_POOL + host + ":" + port, config, min, max );
+            pool.setMaxIdle( -1 );
+            replicas.add( new ReadReplica( host + ":" + port, pool ) );
+            LOG.info( "LDAP READ POOL:  host=[{}], port=[{}], min=[{}], max=[{}]", host, port, min, max );
+        }
+        readReplicas = Collections.unmodifiableList( replicas );
     }
 
 
@@ -315,6 +503,8 @@ public class LdapConnectionProvider
      */
     public LdapConnection getAdminConnection() throws LdapException
     {
+        LdapCounters counters = LdapDataProvider.getLdapCounters();
+        long begin = counters.begin();
         try
         {
             return adminPool.getConnection();
@@ -323,6 +513,10 @@ public class LdapConnectionProvider
         {
             throw new LdapException( e.getMessage(), e );
         }
+        finally
+        {
+            counters.recordBorrow( ADMIN_POOL, begin );
+        }
     }
 
 
@@ -334,6 +528,8 @@ public class LdapConnectionProvider
      */
     public LdapConnection getLogConnection() throws LdapException
     {
+        LdapCounters counters = LdapDataProvider.getLdapCounters();
+        long begin = counters.begin();
         try
         {
             return logPool.getConnection();
@@ -342,6 +538,10 @@ public class LdapConnectionProvider
         {
             throw new LdapException( e.getMessage(), e );
         }
+        finally
+        {
+            counters.recordBorrow( LOG_POOL, begin );
+        }
     }
 
 
@@ -353,6 +553,8 @@ public class LdapConnectionProvider
      */
     public LdapConnection getUserConnection() throws LdapException
     {
+        LdapCounters counters = LdapDataProvider.getLdapCounters();
+        long begin = counters.begin();
         try
         {
             return userPool.getConnection();
@@ -361,8 +563,376 @@ public class LdapConnectionProvider
         {
             throw new LdapException( e.getMessage(), e );
         }
+        finally
+        {
+            counters.recordBorrow( USER_POOL, begin );
+        }
+    }
+
+
+    /**
+     * Get a connection used to check a user's password with a simple bind.  Comes from the bind pool if it is enabled,
+     * otherwise from the user pool.  The connection must not be used for anything but binds and must be returned with
+     * {@link #closeBindConnection(LdapConnection)}.
+     *
+     * @return ldap connection.
+     * @throws LdapException If we had an issue getting an LDAP connection
+     */
+    public LdapConnection getBindConnection() throws LdapException
+    {
+        if ( bindPool == null )
+        {
+            return getUserConnection();
+        }
+
+        LdapCounters counters = LdapDataProvider.getLdapCounters();
+        long begin = counters.begin();
+        try
+        {
+            return bindPool.getConnection();
+        }
+        catch ( Exception e )
+        {
+            throw new LdapException( e.getMessage(), e );
+        }
+        finally
+        {
+            counters.recordBorrow( BIND_POOL, begin );
+        }
+    }
+
+
+    /**
+     * Return a connection obtained from {@link #getBindConnection()}.  One that has lost its connection to the server
+     * is discarded rather than pooled.
+     *
+     * @param connection handle to ldap connection object, may be null.
+     */
+    public void closeBindConnection( LdapConnection connection )
+    {
+        if ( bindPool == null )
+        {
+            closeUserConnection( connection );
+            return;
+        }
+        if ( connection == null )
+        {
+            return;
+        }
+
+        try
+        {
+            if ( connection.isConnected() )
+            {
+                bindPool.releaseConnection( connection );
+            }
+            else
+            {
+                bindPool.invalidateObject( connection );
+            }
+        }
+        catch ( Exception e )
+        {
+            throw new RuntimeException( e.getMessage(), e );
+        }
+    }
+
+
+    /**
+     * Get a connection for a read, i.e. a search, lookup or compare, that may be served by a read replica.  Comes from
+     * the admin pool if no replica is configured or available, or this process has written to the directory within
+     * the last {@code ldap.read.after.write} milliseconds.  Must be returned with {@link #closeReadConnection}.
+     *
+     * @return ldap connection.
+     * @throws LdapException If we had an issue getting an LDAP connection
+     */
+    public LdapConnection getReadConnection() throws LdapException
+    {
+        List<ReadReplica> replicas = readReplicas;
+        if ( replicas.isEmpty() || isWithinWriteWindow() )
+        {
+            return getAdminConnection();
+        }
+
+        boolean[] isTried = new boolean[replicas.size()];
+        LdapCounters counters = LdapDataProvider.getLdapCounters();
+        ReadReplica replica;
+        while ( ( replica = selectReplica( replicas, isTried ) ) != null )
+        {
+            long begin = counters.begin();
+            try
+            {
+                LdapConnection connection = replica.pool.getConnection();
+                replica.outstanding.incrementAndGet();
+                readLeases.put( connection, replica );
+                return connection;
+            }
+            catch ( Exception e )
+            {
+                replica.downUntil = System.nanoTime() + readRetryNanos;
+                LOG.warn( "getReadConnection replica [{}] unavailable, skipped for [{}] ms, caught {}", replica.name,
+                    TimeUnit.NANOSECONDS.toMillis( readRetryNanos ), e.toString() );
+            }
+            finally
+            {
+                counters.recordBorrow( READ_POOL + replica.name, begin );
+            }
+        }
+
+        // Every replica failed, fall back to the master:
+        return getAdminConnection();
+    }
+
+
+    /**
+     * Return a connection obtained from {@link #getReadConnection()} to the pool it came from.
+     *
+     * @param connection handle to ldap connection object.
+     */
+    public void closeReadConnection( LdapConnection connection )
+    {
+        ReadReplica replica = connection != null ? readLeases.remove( connection ) : null;
+        if ( replica == null )
+        {
+            closeAdminConnection( connection );
+            return;
+        }
+
+        replica.outstanding.decrementAndGet();
+        try
+        {
+            replica.pool.releaseConnection( connection );
+        }
+        catch ( Exception e )
+        {
+            throw new RuntimeException( e.getMessage(), e );
+        }
+    }
+
+
+    /**
+     * Open a connection bound as the service account of the admin pool that belongs to no pool and whose operations
+     * never time out.  Used by a search that runs for the life of the process, i.e. one listening for changes, which
+     * would otherwise keep a pooled connection out of circulation.  The caller must close it.
+     *
+     * @return ldap connection.
+     * @throws LdapException If we had an issue opening or binding the LDAP connection
+     */
+    public LdapConnection getListenerConnection() throws LdapException
+    {
+        // operations take their timeout from the config, so the admin config is copied rather than shared:
+        LdapConnectionConfig config = new LdapConnectionConfig();
+        config.setLdapHost( adminConfig.getLdapHost() );
+        config.setLdapPort( adminConfig.getLdapPort() );
+        config.setName( adminConfig.getName() );
+        config.setCredentials( adminConfig.getCredentials() );
+        config.setUseSsl( adminConfig.isUseSsl() );
+        config.setUseTls( adminConfig.isUseTls() );
+        if ( adminConfig.getTrustManagers() != null )
+        {
+            config.setTrustManagers( adminConfig.getTrustManagers() );
+        }
+        config.setLdapApiService( adminConfig.getLdapApiService() );
+        LdapConnection connection = new DefaultLdapConnectionFactory( config ).newLdapConnection();
+        // once connected and bound, zero means no timeout:
+        config.setTimeout( 0 );
+        return connection;
     }
 
+
+    /**
+     * Called after a write to the directory succeeds, or a bind fails, to start the read after write window.  Does
+     * nothing if there are no read replicas or the window is not enabled.
+     */
+    public void recordWrite()
+    {
+        if ( readAfterWriteNanos > 0 && !readReplicas.isEmpty() )
+        {
+            lastWriteNanos = System.nanoTime();
+            isWritten = true;
+        }
+    }
+
+
+    private boolean isWithinWriteWindow()
+    {
+        return isWritten && System.nanoTime() - lastWriteNanos < readAfterWriteNanos;
+    }
+
+
+    /**
+     * Pick the replica not yet tried, and not marked down, with the fewest connections on loan.  A replica marked down
+     * whose retry interval has passed is eligible again.
+     */
+    private static ReadReplica selectReplica( List<ReadReplica> replicas, boolean[] isTried )
+    {
+        long now = System.nanoTime();
+        int selected = -1;
+        int fewest = Integer.MAX_VALUE;
+        for ( int i = 0; i < replicas.size(); i++ )
+        {
+            ReadReplica replica = replicas.get( i );
+            int outstanding = replica.outstanding.get();
+            if ( !isTried[i] && now - replica.downUntil >= 0 && outstanding < fewest )
+            {
+                selected = i;
+                fewest = outstanding;
+            }
+        }
+        if ( selected < 0 )
+        {
+            return null;
+        }
+        isTried[selected] = true;
+        return replicas.get( selected );
+    }
+
+
+    /**
+     * A read replica, its pool and the state used to balance reads across replicas.
+     */
+    private static final class ReadReplica
+    {
+        private final String name;
+        private final LdapConnectionPool pool;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile long downUntil = System.nanoTime();
+
+
+        private ReadReplica( String name, LdapConnectionPool pool )
+        {
+            this.name = name;
+            this.pool = pool;
+        }
+    }
+
+
+    /**
+     * Creates the connections of the bind pool.  Unlike the factories supplied with the ldap api, it neither binds a
+     * connection as the service account when it is created or returned, nor looks up the root DSE to validate it.  A
+     * connection is valid while its socket is open.
+     */
+    private static final class BindConnectionFactory implements PoolableObjectFactory<LdapConnection>
+    {
+        private final DefaultLdapConnectionFactory connectionFactory;
+        private final LdapConnectionValidator validator;
+
+
+        private BindConnectionFactory( LdapConnectionConfig config, LdapConnectionValidator validator )
+        {
+            connectionFactory = new DefaultLdapConnectionFactory( config );
+            this.validator = validator;
+        }
+
+
+        @Override
+        public LdapConnection makeObject() throws Exception
+        {
+            LdapConnection connection = connectionFactory.newUnboundLdapConnection();
+            connection.connect();
+            return connection;
+        }
+
+
+        @Override
+        public void destroyObject( LdapConnection connection ) throws Exception
+        {
+            connection.close();
+        }
+
+
+        @Override
+        public boolean validateObject( LdapConnection connection )
+        {
+            return validator.validate( connection );
+        }
+
+
+        @Override
+        public void activateObject( LdapConnection connection )
+        {
+        }
+
+
+        @Override
+        public void passivateObject( LdapConnection connection )
+        {
+        }
+    }
+
+
+    /**
+     * Counts the connections that fail validation, whether on borrow or in the background.
+     */
+    private static final class CountingValidator implements LdapConnectionValidator
+    {
+        private final LdapConnectionValidator validator;
+        private final LongAdder failures = new LongAdder();
+
+
+        private CountingValidator( LdapConnectionValidator validator )
+        {
+            this.validator = validator;
+        }
+
+
+        @Override
+        public boolean validate( LdapConnection connection )
+        {
+            boolean isValid = validator.validate( connection );
+            if ( !isValid )
+            {
+                failures.increment();
+            }
+            return isValid;
+        }
+    }
+
+
+    /**
+     * Return the state of each connection pool that has been created.
+     *
+     * @return one element per pool with the connections on loan, the connections idle and the number of connections
+     * that failed validation, i.e. {@code admin active=2 idle=8 validationFailures=0}.
+     */
+    public static String[] getPoolSummary()
+    {
+        List<String> summary = new ArrayList<>();
+        summarize( summary, ADMIN_POOL, adminPool );
+        summarize( summary, USER_POOL, userPool );
+        summarize( summary, LOG_POOL, logPool );
+        summarize( summary, BIND_POOL, bindPool );
+        for ( ReadReplica replica : readReplicas )
+        {
+            summarize( summary, READ_POOL + replica.name, replica.pool );
+        }
+        return summary.toArray( new String[summary.size()] );
+    }
+
+
+    /**
+     * Return the number of connections of a pool that failed validation.
+     *
+     * @param pool name of the pool, i.e. admin, user, log, bind or read:host:port.
+     * @return count of failures, zero if there is no such pool.
+     */
+    public static long getValidationFailures( String pool )
+    {
+        CountingValidator validator = validators.get( pool );
+        return validator == null ? 0 : validator.failures.sum();
+    }
+
+
+    private static void summarize( List<String> summary, String name, LdapConnectionPool pool )
+    {
+        if ( pool != null )
+        {
+            summary.add( name + " active=" + pool.getNumActive() + " idle=" + pool.getNumIdle() +
+                " validationFailures=" + getValidationFailures( name ) );
+        }
+    }
+
+
     /**
      * Closes all the ldap connection pools.
      */
@@ -397,5 +967,31 @@ public class LdapConnectionProvider
         {
             LOG.warn( "Error closing log pool: " + e.getMessage() );
         }
+
+        if ( bindPool != null )
+        {
+            try
+            {
+                LOG.info( "Closing bind pool" );
+                bindPool.close();
+            }
+            catch ( Exception e )
+            {
+                LOG.warn( "Error closing bind pool: " + e.getMessage() );
+            }
+        }
+
+        for ( ReadReplica replica : readReplicas )
+        {
+            try
+            {
+                LOG.info( "Closing read pool {}", replica.name );
+                replica.pool.close();
+            }
+            catch ( Exception e )
+            {
+                LOG.warn( "Error closing read pool " + replica.name + ": " + e.getMessage() );
+            }
+        }
     }
 }
@@ -20,22 +20,350 @@
 package org.apache.directory.fortress.core.ldap;
 
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.CfgException;
+import org.apache.directory.fortress.core.util.ClassUtil;
+import org.apache.directory.fortress.core.util.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
  * This class handles simple counters that correspond to ldap operations.
+ * <p>
+ * When {@code enable.ldap.metrics=true} it also keeps a {@link LatencyHistogram} per ldap operation and per connection
+ * pool borrow, and a count of operations made by each calling dao, or dao method when {@code ldap.metrics.caller=method}.
+ * Every measurement is passed to the {@link LdapMetricsRegistry} named by {@code ldap.metrics.registry}, if any.  The
+ * counters are exposed over JMX when {@code enable.ldap.metrics.jmx=true}.
+ * <p>
+ * The latency of a search that returns its entries through a cursor, or a handler with searchPaged, covers sending the
+ * request only, since the entries are read by the caller.  The latency of searchNode covers reading its result.
+ * <p>
+ * These properties are read from the local fortress.properties when the first connection is made.
+ * <p>
+ * This class is thread safe.
  *
  */
-public class LdapCounters
+public class LdapCounters implements LdapCountersMBean
 {
-    private AtomicInteger readCtr = new AtomicInteger( 0 );
-    private AtomicInteger searchCtr = new AtomicInteger( 0 );
-    private AtomicInteger compareCtr = new AtomicInteger( 0 );
-    private AtomicInteger addCtr = new AtomicInteger( 0 );
-    private AtomicInteger modCtr = new AtomicInteger( 0 );
-    private AtomicInteger deleteCtr = new AtomicInteger( 0 );
-    private AtomicInteger bindCtr = new AtomicInteger( 0 );
+    public static final String READ = "read";
+    public static final String SEARCH = "search";
+    public static final String COMPARE = "compare";
+    public static final String ADD = "add";
+    public static final String MOD = "mod";
+    public static final String DELETE = "delete";
+    public static final String BIND = "bind";
+    public static final String OBJECT_NAME = "org.apache.directory.fortress.core:type=LdapCounters";
+
+    private static final String CLS_NM = LdapCounters.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String ENABLE_LDAP_METRICS = "enable.ldap.metrics";
+    private static final String ENABLE_LDAP_METRICS_JMX = "enable.ldap.metrics.jmx";
+    private static final String LDAP_METRICS_REGISTRY = "ldap.metrics.registry";
+    private static final String LDAP_METRICS_CALLER = "ldap.metrics.caller";
+    private static final String CALLER_METHOD = "method";
+
+    private final LongAdder readCtr = new LongAdder();
+    private final LongAdder searchCtr = new LongAdder();
+    private final LongAdder compareCtr = new LongAdder();
+    private final LongAdder addCtr = new LongAdder();
+    private final LongAdder modCtr = new LongAdder();
+    private final LongAdder deleteCtr = new LongAdder();
+    private final LongAdder bindCtr = new LongAdder();
+    private final LongAdder retryCtr = new LongAdder();
+    private final ConcurrentMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> borrowWaits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> callers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, String> callerNames = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final boolean callerMethod;
+    private final LdapMetricsRegistry registry;
+
+
+    /**
+     * Create the counters using the ldap metrics properties.
+     */
+    public LdapCounters()
+    {
+        Config cfg = Config.getInstance();
+        enabled = cfg.getBoolean( ENABLE_LDAP_METRICS, false );
+        callerMethod = CALLER_METHOD.equalsIgnoreCase( cfg.getProperty( LDAP_METRICS_CALLER, "class" ) );
+        registry = enabled ? createRegistry( cfg.getProperty( LDAP_METRICS_REGISTRY ) ) : null;
+        for ( String operation : new String[]{ READ, SEARCH, COMPARE, ADD, MOD, DELETE, BIND } )
+        {
+            latencies.put( operation, new LatencyHistogram() );
+        }
+        if ( cfg.getBoolean( ENABLE_LDAP_METRICS_JMX, false ) )
+        {
+            registerMBean();
+        }
+    }
+
+
+    private static LdapMetricsRegistry createRegistry( String className )
+    {
+        if ( StringUtils.isEmpty( className ) )
+        {
+            return null;
+        }
+        try
+        {
+            return ( LdapMetricsRegistry ) ClassUtil.createInstance( className );
+        }
+        catch ( CfgException | ClassCastException e )
+        {
+            LOG.warn( "LdapCounters could not create metrics registry [{}] caught {}", className, e.toString() );
+            return null;
+        }
+    }
+
+
+    private void registerMBean()
+    {
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean( this, new ObjectName( OBJECT_NAME ) );
+        }
+        catch ( InstanceAlreadyExistsException e )
+        {
+            LOG.warn( "LdapCounters MBean [{}] already registered by another instance", OBJECT_NAME );
+        }
+        catch ( JMException e )
+        {
+            LOG.warn( "LdapCounters could not register MBean [{}] caught {}", OBJECT_NAME, e.toString() );
+        }
+    }
+
+
+    /**
+     * Return true if latency histograms and per caller counts are being kept, {@code enable.ldap.metrics=true}.
+     *
+     * @return boolean value, default is false.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+
+    /**
+     * Mark the start of a timed ldap operation or pool borrow.
+     *
+     * @return the current value of {@link System#nanoTime()}, or zero when metrics are not enabled.
+     */
+    public long begin()
+    {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+
+    /**
+     * Record the completion of an ldap operation started with {@link #begin()}.  Does nothing if metrics are not
+     * enabled.
+     *
+     * @param operation one of {@link #READ}, {@link #SEARCH}, {@link #COMPARE}, {@link #ADD}, {@link #MOD},
+     *                  {@link #DELETE} or {@link #BIND}.
+     * @param caller    the dao that performed the operation.
+     * @param begin     value returned by {@link #begin()}.
+     */
+    public void record( String operation, Object caller, long begin )
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+        long nanos = System.nanoTime() - begin;
+        latencies.get( operation ).record( nanos );
+        String callerName = getCallerName( caller );
+        String key = callerName + "[" + operation + "]";
+        LongAdder counter = callers.get( key );
+        if ( counter == null )
+        {
+            LongAdder newCounter = new LongAdder();
+            counter = callers.putIfAbsent( key, newCounter );
+            if ( counter == null )
+            {
+                counter = newCounter;
+            }
+        }
+        counter.increment();
+        if ( registry != null )
+        {
+            registry.recordOperation( operation, callerName, nanos );
+        }
+    }
+
+
+    /**
+     * Record the time taken to borrow a connection, started with {@link #begin()}.  Does nothing if metrics are not
+     * enabled.
+     *
+     * @param pool  name of the connection pool, i.e. admin, user or log.
+     * @param begin value returned by {@link #begin()}.
+     */
+    public void recordBorrow( String pool, long begin )
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+        long nanos = System.nanoTime() - begin;
+        LatencyHistogram histogram = borrowWaits.get( pool );
+        if ( histogram == null )
+        {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = borrowWaits.putIfAbsent( pool, newHistogram );
+            if ( histogram == null )
+            {
+                histogram = newHistogram;
+            }
+        }
+        histogram.record( nanos );
+        if ( registry != null )
+        {
+            registry.recordBorrow( pool, nanos );
+        }
+    }
+
+
+    /**
+     * The simple class name of the dao is cached.  Finding the method name requires a stack trace so is only done
+     * when {@code ldap.metrics.caller=method}.
+     */
+    private String getCallerName( Object caller )
+    {
+        Class<?> callerClass = caller.getClass();
+        String name = callerNames.get( callerClass );
+        if ( name == null )
+        {
+            name = callerClass.getSimpleName();
+            callerNames.put( callerClass, name );
+        }
+        if ( callerMethod )
+        {
+            for ( StackTraceElement element : new Throwable().getStackTrace() )
+            {
+                if ( element.getClassName().equals( callerClass.getName() ) )
+                {
+                    return name + "." + element.getMethodName();
+                }
+            }
+        }
+        return name;
+    }
+
+
+    /**
+     * Return the latency histogram of an ldap operation.
+     *
+     * @param operation one of {@link #READ}, {@link #SEARCH}, {@link #COMPARE}, {@link #ADD}, {@link #MOD},
+     *                  {@link #DELETE} or {@link #BIND}.
+     * @return histogram, empty if metrics are not enabled, or null if the operation is not known.
+     */
+    public LatencyHistogram getLatency( String operation )
+    {
+        return latencies.get( operation );
+    }
+
+
+    /**
+     * Return the borrow wait histogram of a connection pool.
+     *
+     * @param pool name of the connection pool, i.e. admin, user or log.
+     * @return histogram or null if no connection has been borrowed from the pool while metrics are enabled.
+     */
+    public LatencyHistogram getBorrowWait( String pool )
+    {
+        return borrowWaits.get( pool );
+    }
+
+
+    /**
+     * Return the number of ldap operations made by each dao, or dao method.
+     *
+     * @return map keyed by caller and operation, i.e. PermDAO.checkPermission[read], sorted by key.
+     */
+    public Map<String, Long> getCallerCounts()
+    {
+        Map<String, Long> counts = new TreeMap<>();
+        for ( Map.Entry<String, LongAdder> entry : callers.entrySet() )
+        {
+            counts.put( entry.getKey(), entry.getValue().sum() );
+        }
+        return counts;
+    }
+
+
+    @Override
+    public String[] getLatencySummary()
+    {
+        return summarize( latencies );
+    }
+
+
+    @Override
+    public String[] getBorrowWaitSummary()
+    {
+        return summarize( borrowWaits );
+    }
+
+
+    @Override
+    public String[] getCallerSummary()
+    {
+        List<String> summary = new ArrayList<>();
+        for ( Map.Entry<String, Long> entry : getCallerCounts().entrySet() )
+        {
+            summary.add( entry.getKey() + "=" + entry.getValue() );
+        }
+        return summary.toArray( new String[summary.size()] );
+    }
+
+
+    @Override
+    public String[] getPoolSummary()
+    {
+        return LdapConnectionProvider.getPoolSummary();
+    }
+
+
+    private static String[] summarize( Map<String, LatencyHistogram> histograms )
+    {
+        List<String> summary = new ArrayList<>();
+        for ( Map.Entry<String, LatencyHistogram> entry : new TreeMap<>( histograms ).entrySet() )
+        {
+            summary.add( entry.getKey() + " " + entry.getValue() );
+        }
+        return summary.toArray( new String[summary.size()] );
+    }
+
+
+    @Override
+    public void reset()
+    {
+        for ( LatencyHistogram histogram : latencies.values() )
+        {
+            histogram.reset();
+        }
+        for ( LatencyHistogram histogram : borrowWaits.values() )
+        {
+            histogram.reset();
+        }
+        callers.clear();
+    }
 
 
     /**
@@ -43,7 +371,7 @@ public class LdapCounters
      */
     public void incrementSearch()
     {
-        searchCtr.incrementAndGet();
+        searchCtr.increment();
     }
 
 
@@ -52,7 +380,7 @@ public class LdapCounters
      */
     public void incrementRead()
     {
-        readCtr.incrementAndGet();
+        readCtr.increment();
     }
 
 
@@ -61,7 +389,7 @@ public class LdapCounters
      */
     public void incrementCompare()
     {
-        compareCtr.incrementAndGet();
+        compareCtr.increment();
     }
 
 
@@ -70,7 +398,7 @@ public class LdapCounters
      */
     public void incrementAdd()
     {
-        addCtr.incrementAndGet();
+        addCtr.increment();
     }
 
 
@@ -79,7 +407,7 @@ public class LdapCounters
      */
     public void incrementMod()
     {
-        modCtr.incrementAndGet();
+        modCtr.increment();
     }
 
 
@@ -88,7 +416,7 @@ public class LdapCounters
      */
     public void incrementDelete()
     {
-        deleteCtr.incrementAndGet();
+        deleteCtr.increment();
     }
 
     /**
@@ -97,7 +425,16 @@ public class LdapCounters
 
     public void incrementBind()
     {
-        bindCtr.incrementAndGet();
+        bindCtr.increment();
+    }
+
+
+    /**
+     *  Increment the retry counter.
+     */
+    public void incrementRetry()
+    {
+        retryCtr.increment();
     }
 
 
@@ -107,7 +444,7 @@ public class LdapCounters
      */
     public long getSearch()
     {
-        return searchCtr.intValue();
+        return searchCtr.sum();
     }
 
 
@@ -117,7 +454,7 @@ public class LdapCounters
      */
     public long getRead()
     {
-        return readCtr.intValue();
+        return readCtr.sum();
     }
 
 
@@ -127,7 +464,7 @@ public class LdapCounters
      */
     public long getCompare()
     {
-        return compareCtr.intValue();
+        return compareCtr.sum();
     }
 
 
@@ -137,7 +474,7 @@ public class LdapCounters
      */
     public long getAdd()
     {
-        return addCtr.intValue();
+        return addCtr.sum();
     }
 
 
@@ -147,7 +484,7 @@ public class LdapCounters
      */
     public long getMod()
     {
-        return modCtr.intValue();
+        return modCtr.sum();
     }
 
 
@@ -157,7 +494,7 @@ public class LdapCounters
      */
     public long getDelete()
     {
-        return deleteCtr.intValue();
+        return deleteCtr.sum();
     }
 
 
@@ -167,6 +504,16 @@ public class LdapCounters
      */
     public long getBind()
     {
-        return bindCtr.intValue();
+        return bindCtr.sum();
+    }
+
+
+    /**
+     * Return the number of operations retried after their connection was found to be closed.
+     * @return long containing retry.
+     */
+    public long getRetry()
+    {
+        return retryCtr.sum();
     }
-}
\ No newline at end of file
+}
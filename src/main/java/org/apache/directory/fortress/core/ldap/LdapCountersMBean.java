@@ -0,0 +1,92 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.ldap;
+
+
+/**
+ * Management interface for {@link LdapCounters}.  Registered with the platform MBean server under
+ * {@link LdapCounters#OBJECT_NAME} when {@code enable.ldap.metrics.jmx=true}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface LdapCountersMBean
+{
+    long getRead();
+
+
+    long getSearch();
+
+
+    long getCompare();
+
+
+    long getAdd();
+
+
+    long getMod();
+
+
+    long getDelete();
+
+
+    long getBind();
+
+
+    long getRetry();
+
+
+    /**
+     * Return a summary of the latency histogram kept for each ldap operation.
+     *
+     * @return one element per operation with count, mean and percentiles in microseconds.
+     */
+    String[] getLatencySummary();
+
+
+    /**
+     * Return a summary of the borrow wait histogram kept for each connection pool.
+     *
+     * @return one element per pool with count, mean and percentiles in microseconds.
+     */
+    String[] getBorrowWaitSummary();
+
+
+    /**
+     * Return the state of each connection pool.
+     *
+     * @return one element per pool with the connections on loan, the connections idle and the number of connections
+     * that failed validation.
+     */
+    String[] getPoolSummary();
+
+
+    /**
+     * Return the number of ldap operations made by each dao, or dao method.
+     *
+     * @return one element per caller and operation, i.e. PermDAO.checkPermission[read]=12
+     */
+    String[] getCallerSummary();
+
+
+    /**
+     * Discard the latency histograms and the per caller counts.  The operation totals are not changed.
+     */
+    void reset();
+}
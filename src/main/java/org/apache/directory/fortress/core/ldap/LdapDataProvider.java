@@ -34,6 +34,7 @@ import org.apache.directory.api.ldap.extras.controls.ppolicy.PasswordPolicy;
 import org.apache.directory.api.ldap.extras.controls.ppolicy.PasswordPolicyImpl;
 import org.apache.directory.api.ldap.extras.controls.ppolicy_impl.PasswordPolicyDecorator;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.cursor.AbstractCursor;
 import org.apache.directory.api.ldap.model.cursor.CursorException;
 import org.apache.directory.api.ldap.model.cursor.SearchCursor;
 import org.apache.directory.api.ldap.model.entry.Attribute;
@@ -43,6 +44,7 @@ import org.apache.directory.api.ldap.model.entry.Entry;
 import org.apache.directory.api.ldap.model.entry.Modification;
 import org.apache.directory.api.ldap.model.entry.ModificationOperation;
 import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.exception.LdapAuthenticationException;
 import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.exception.LdapInvalidAttributeValueException;
 import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
@@ -54,15 +56,22 @@ import org.apache.directory.api.ldap.model.message.CompareRequest;
 import org.apache.directory.api.ldap.model.message.CompareRequestImpl;
 import org.apache.directory.api.ldap.model.message.CompareResponse;
 import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.IntermediateResponse;
+import org.apache.directory.api.ldap.model.message.Referral;
 import org.apache.directory.api.ldap.model.message.Response;
 import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.ResultResponse;
 import org.apache.directory.api.ldap.model.message.SearchRequest;
 import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
+import org.apache.directory.api.ldap.model.message.SearchResultDone;
 import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.message.controls.PagedResultsImpl;
 import org.apache.directory.api.ldap.model.message.controls.ProxiedAuthz;
 import org.apache.directory.api.ldap.model.message.controls.ProxiedAuthzImpl;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.model.Constraint;
 import org.apache.directory.fortress.core.model.ConstraintUtil;
 import org.apache.directory.fortress.core.model.FortEntity;
@@ -71,6 +80,9 @@ import org.apache.directory.fortress.core.model.Relationship;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.LdapUtil;
 import org.apache.directory.ldap.client.api.LdapConnection;
+import org.apache.directory.ldap.client.api.exception.InvalidConnectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
@@ -87,7 +99,9 @@ public abstract class LdapDataProvider
 {
     // Logging
     private static final String CLS_NM = LdapDataProvider.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
     private static final int MAX_DEPTH = 100;
+    private static final String SEARCH_PAGE_SIZE = "search.page.size";
     private static final LdapCounters COUNTERS = new LdapCounters();
     private static final PasswordPolicy PP_REQ_CTRL = new PasswordPolicyImpl();
     
@@ -163,8 +177,23 @@ public abstract class LdapDataProvider
     protected Entry read( LdapConnection connection, String dn, String[] attrs ) throws LdapException
     {
         COUNTERS.incrementRead();
-
-        return connection.lookup( dn, attrs );
+        long begin = COUNTERS.begin();
+        try
+        {
+            return lookup( connection, dn, attrs );
+        }
+        catch ( LdapException e )
+        {
+            if ( !reconnect( connection, e, true ) )
+            {
+                throw e;
+            }
+            return lookup( connection, dn, attrs );
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.READ, this, begin );
+        }
     }
 
 
@@ -180,8 +209,23 @@ public abstract class LdapDataProvider
     protected Entry read( LdapConnection connection, Dn dn, String[] attrs ) throws LdapException
     {
         COUNTERS.incrementRead();
-
-        return connection.lookup( dn, attrs );
+        long begin = COUNTERS.begin();
+        try
+        {
+            return lookup( connection, dn, attrs );
+        }
+        catch ( LdapException e )
+        {
+            if ( !reconnect( connection, e, true ) )
+            {
+                throw e;
+            }
+            return lookup( connection, dn, attrs );
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.READ, this, begin );
+        }
     }
 
 
@@ -201,8 +245,23 @@ public abstract class LdapDataProvider
     protected Entry read( LdapConnection connection, String dn, String[] attrs, String userDn ) throws LdapException
     {
         COUNTERS.incrementRead();
-
-        return connection.lookup( dn, attrs );
+        long begin = COUNTERS.begin();
+        try
+        {
+            return lookup( connection, dn, attrs );
+        }
+        catch ( LdapException e )
+        {
+            if ( !reconnect( connection, e, true ) )
+            {
+                throw e;
+            }
+            return lookup( connection, dn, attrs );
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.READ, this, begin );
+        }
     }
 
 
@@ -216,7 +275,16 @@ public abstract class LdapDataProvider
     protected void add( LdapConnection connection, Entry entry ) throws LdapException
     {
         COUNTERS.incrementAdd();
-        connection.add( entry );
+        long begin = COUNTERS.begin();
+        try
+        {
+            connection.add( entry );
+            LdapConnectionProvider.getInstance().recordWrite();
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.ADD, this, begin );
+        }
     }
 
 
@@ -250,7 +318,16 @@ public abstract class LdapDataProvider
             }
         }
 
-        connection.add( entry );
+        long begin = COUNTERS.begin();
+        try
+        {
+            connection.add( entry );
+            LdapConnectionProvider.getInstance().recordWrite();
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.ADD, this, begin );
+        }
     }
 
 
@@ -265,8 +342,17 @@ public abstract class LdapDataProvider
     protected void modify( LdapConnection connection, String dn, List<Modification> mods ) throws LdapException
     {
         COUNTERS.incrementMod();
-        connection.modify( dn, mods.toArray( new Modification[]
-            {} ) );
+        long begin = COUNTERS.begin();
+        try
+        {
+            connection.modify( dn, mods.toArray( new Modification[]
+                {} ) );
+            LdapConnectionProvider.getInstance().recordWrite();
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.MOD, this, begin );
+        }
     }
 
 
@@ -281,8 +367,17 @@ public abstract class LdapDataProvider
     protected void modify( LdapConnection connection, Dn dn, List<Modification> mods ) throws LdapException
     {
         COUNTERS.incrementMod();
-        connection.modify( dn, mods.toArray( new Modification[]
-            {} ) );
+        long begin = COUNTERS.begin();
+        try
+        {
+            connection.modify( dn, mods.toArray( new Modification[]
+                {} ) );
+            LdapConnectionProvider.getInstance().recordWrite();
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.MOD, this, begin );
+        }
     }
 
 
@@ -300,8 +395,17 @@ public abstract class LdapDataProvider
     {
         COUNTERS.incrementMod();
         audit( mods, entity );
-        connection.modify( dn, mods.toArray( new Modification[]
-            {} ) );
+        long begin = COUNTERS.begin();
+        try
+        {
+            connection.modify( dn, mods.toArray( new Modification[]
+                {} ) );
+            LdapConnectionProvider.getInstance().recordWrite();
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.MOD, this, begin );
+        }
     }
 
 
@@ -319,8 +423,17 @@ public abstract class LdapDataProvider
     {
         COUNTERS.incrementMod();
         audit( mods, entity );
-        connection.modify( dn, mods.toArray( new Modification[]
-            {} ) );
+        long begin = COUNTERS.begin();
+        try
+        {
+            connection.modify( dn, mods.toArray( new Modification[]
+                {} ) );
+            LdapConnectionProvider.getInstance().recordWrite();
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.MOD, this, begin );
+        }
     }
 
 
@@ -334,7 +447,16 @@ public abstract class LdapDataProvider
     protected void delete( LdapConnection connection, String dn ) throws LdapException
     {
         COUNTERS.incrementDelete();
-        connection.delete( dn );
+        long begin = COUNTERS.begin();
+        try
+        {
+            connection.delete( dn );
+            LdapConnectionProvider.getInstance().recordWrite();
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.DELETE, this, begin );
+        }
     }
 
 
@@ -359,7 +481,16 @@ public abstract class LdapDataProvider
             modify( connection, dn, mods );
         }
 
-        connection.delete( dn );
+        long begin = COUNTERS.begin();
+        try
+        {
+            connection.delete( dn );
+            LdapConnectionProvider.getInstance().recordWrite();
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.DELETE, this, begin );
+        }
     }
 
 
@@ -384,7 +515,16 @@ public abstract class LdapDataProvider
             modify( connection, dn, mods );
         }
 
-        connection.delete( dn );
+        long begin = COUNTERS.begin();
+        try
+        {
+            connection.delete( dn );
+            LdapConnectionProvider.getInstance().recordWrite();
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.DELETE, this, begin );
+        }
     }
 
 
@@ -544,7 +684,15 @@ public abstract class LdapDataProvider
         searchRequest.setTypesOnly( attrsOnly );
         searchRequest.addAttributes( attrs );
 
-        return connection.search( searchRequest );
+        long begin = COUNTERS.begin();
+        try
+        {
+            return sendSearch( connection, searchRequest );
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.SEARCH, this, begin );
+        }
     }
 
 
@@ -576,7 +724,248 @@ public abstract class LdapDataProvider
         searchRequest.setTypesOnly( attrsOnly );
         searchRequest.addAttributes( attrs );
 
-        return connection.search( searchRequest );
+        long begin = COUNTERS.begin();
+        try
+        {
+            return sendSearch( connection, searchRequest );
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.SEARCH, this, begin );
+        }
+    }
+
+
+    /**
+     * Callback used by {@link #searchPaged} to hand each entry of a paged search to its caller as soon as it arrives.
+     */
+    protected interface EntryHandler
+    {
+        /**
+         * Process a single entry returned from the directory.
+         *
+         * @param entry contains the ldap entry.
+         * @return true to continue the search, false to stop it.
+         * @throws LdapException     thrown in the event of error in ldap client or server code.
+         * @throws SecurityException thrown by the caller's handler, will abandon the search.
+         */
+        boolean handle( Entry entry ) throws LdapException, SecurityException;
+    }
+
+
+    /**
+     * Perform an ldap search using the RFC 2696 simple paged results control.  Entries are pulled from the server one
+     * page at a time and passed to the handler, so the result set is never held in memory and is not truncated at
+     * {@link GlobalIds#BATCH_SIZE}.  The page size is set by the {@code search.page.size} property and defaults to
+     * {@link GlobalIds#BATCH_SIZE}.
+     * <p>
+     * The control is sent as non-critical.  A server that doesn't support it will return the entire result set in a
+     * single page, subject to its own size limits.
+     * <p>
+     * If the handler stops the search, or throws, before the last page, the remainder of the current page is read
+     * to obtain the server's cookie and a final request with a page size of 0 is sent, so the server can discard the
+     * state it holds for the search rather than keeping it until the connection is closed.
+     * <p>
+     * If the connection is lost the search is retried once on a reopened connection.  The cookie belonged to the lost
+     * connection, so paging restarts from the first page and the entries already passed to the handler are skipped.
+     * This expects the server to return the same entries in the same order, entries added or removed meanwhile may be
+     * missed or passed twice.
+     *
+     * @param connection is LdapConnection object used for all communication with host.
+     * @param baseDn     contains address of distinguished name to begin ldap search
+     * @param scope      indicates depth of search starting at basedn.  0 (base dn),
+     *                   1 (one level down) or 2 (infinite) are valid values.
+     * @param filter     contains the search criteria
+     * @param attrs      is the requested list of attritubutes to return from directory search.
+     * @param attrsOnly  if true pull back attribute names only.
+     * @param handler    is called once for every entry returned.  The search stops when it returns false.
+     * @return number of entries passed to the handler.
+     * @throws LdapException     thrown in the event of error in ldap client or server code.
+     * @throws CursorException   If we weren't able to fetch an element from the search result
+     * @throws SecurityException thrown by the handler.
+     */
+    protected long searchPaged( LdapConnection connection, String baseDn, SearchScope scope, String filter,
+        String[] attrs, boolean attrsOnly, EntryHandler handler ) throws LdapException, CursorException,
+        SecurityException
+    {
+        int pageSize = Config.getInstance().getInt( SEARCH_PAGE_SIZE, GlobalIds.BATCH_SIZE );
+        long count = 0;
+        long skip = 0;
+        boolean isRetried = false;
+        byte[] cookie = null;
+        boolean more = true;
+
+        while ( more )
+        {
+            COUNTERS.incrementSearch();
+
+            SearchRequest searchRequest = newPagedRequest( baseDn, scope, filter, attrs, attrsOnly, pageSize, cookie );
+            SearchCursor cursor = null;
+            cookie = null;
+            try
+            {
+                long begin = COUNTERS.begin();
+                try
+                {
+                    cursor = connection.search( searchRequest );
+                }
+                finally
+                {
+                    COUNTERS.record( LdapCounters.SEARCH, this, begin );
+                }
+
+                while ( more && cursor.next() )
+                {
+                    if ( !cursor.isEntry() )
+                    {
+                        continue;
+                    }
+
+                    if ( skip > 0 )
+                    {
+                        skip--;
+                    }
+                    else
+                    {
+                        count++;
+                        more = handler.handle( cursor.getEntry() );
+                    }
+                }
+
+                if ( more )
+                {
+                    checkConnection( connection, cursor.getSearchResultDone(), "searchPaged" );
+                    cookie = getPagedCookie( cursor, baseDn, filter );
+                }
+                else
+                {
+                    releasePagedSearch( connection, cursor, baseDn, scope, filter );
+                }
+            }
+            catch ( SecurityException e )
+            {
+                releasePagedSearch( connection, cursor, baseDn, scope, filter );
+                throw e;
+            }
+            catch ( LdapException | CursorException e )
+            {
+                if ( isRetried || !reconnect( connection, e, true ) )
+                {
+                    throw e;
+                }
+
+                // the server's cookie went with the old connection, start again from the first page.
+                isRetried = true;
+                skip = count;
+                continue;
+            }
+            finally
+            {
+                if ( cursor != null )
+                {
+                    // abandons the operation if the page could not be read to the end.
+                    closeCursor( cursor );
+                }
+            }
+
+            if ( cookie == null || cookie.length == 0 )
+            {
+                break;
+            }
+        }
+
+        return count;
+    }
+
+
+    private static SearchRequest newPagedRequest( String baseDn, SearchScope scope, String filter, String[] attrs,
+        boolean attrsOnly, int pageSize, byte[] cookie ) throws LdapException
+    {
+        SearchRequest searchRequest = new SearchRequestImpl();
+        searchRequest.setBase( new Dn( baseDn ) );
+        searchRequest.setFilter( filter );
+        searchRequest.setScope( scope );
+        searchRequest.setTypesOnly( attrsOnly );
+        searchRequest.addAttributes( attrs );
+
+        PagedResults pagedControl = new PagedResultsImpl();
+        pagedControl.setSize( pageSize );
+        pagedControl.setCookie( cookie );
+        searchRequest.addControl( pagedControl );
+        return searchRequest;
+    }
+
+
+    /**
+     * Return the cookie the server sent back with a page that was read to the end.  Null or empty means it was the
+     * last page.
+     */
+    private static byte[] getPagedCookie( SearchCursor cursor, String baseDn, String filter ) throws LdapException
+    {
+        SearchResultDone done = cursor.getSearchResultDone();
+        if ( done != null && done.getLdapResult().getResultCode() != ResultCodeEnum.SUCCESS )
+        {
+            throw new LdapOperationErrorException( "searchPaged base DN [" + baseDn + "] filter [" + filter
+                + "] failed with result code [" + done.getLdapResult().getResultCode() + "]" );
+        }
+
+        Control responseControl = done != null ? done.getControl( PagedResults.OID ) : null;
+        return responseControl instanceof PagedResults ? ( ( PagedResults ) responseControl ).getCookie() : null;
+    }
+
+
+    /**
+     * Tell the server a paged search will not be continued.  Per RFC 2696 this is a request carrying the cookie of
+     * the last page and a size of 0, so the remainder of the current page is read first to obtain that cookie.
+     * Failures are logged and ignored, the search is abandoned when its cursor is closed and the server releases
+     * its state when the connection is closed.
+     */
+    private void releasePagedSearch( LdapConnection connection, SearchCursor cursor, String baseDn,
+        SearchScope scope, String filter )
+    {
+        try
+        {
+            while ( cursor.next() )
+            {
+                // skip the rest of the page, its entries are not wanted.
+            }
+
+            byte[] cookie = getPagedCookie( cursor, baseDn, filter );
+            if ( cookie != null && cookie.length > 0 )
+            {
+                SearchCursor releaseCursor = connection.search( newPagedRequest( baseDn, scope, filter,
+                    SchemaConstants.NO_ATTRIBUTE_ARRAY, false, 0, cookie ) );
+                try
+                {
+                    while ( releaseCursor.next() )
+                    {
+                        // a size of 0 returns no entries.
+                    }
+                }
+                finally
+                {
+                    closeCursor( releaseCursor );
+                }
+            }
+        }
+        catch ( LdapException | CursorException e )
+        {
+            LOG.warn( "releasePagedSearch base DN [" + baseDn + "] filter [" + filter + "] caught "
+                + e.getClass().getSimpleName() + "=" + e.getMessage() );
+        }
+    }
+
+
+    private static void closeCursor( SearchCursor cursor )
+    {
+        try
+        {
+            cursor.close();
+        }
+        catch ( IOException e )
+        {
+            LOG.warn( "closeCursor caught IOException=" + e.getMessage() );
+        }
     }
 
 
@@ -598,6 +987,8 @@ public abstract class LdapDataProvider
     protected Entry searchNode( LdapConnection connection, String baseDn, SearchScope scope, String filter,
         String[] attrs, boolean attrsOnly ) throws LdapException, CursorException
     {
+        COUNTERS.incrementSearch();
+
         SearchRequest searchRequest = new SearchRequestImpl();
 
         searchRequest.setBase( new Dn( baseDn ) );
@@ -606,17 +997,25 @@ public abstract class LdapDataProvider
         searchRequest.setTypesOnly( attrsOnly );
         searchRequest.addAttributes( attrs );
 
-        SearchCursor result = connection.search( searchRequest );
+        long begin = COUNTERS.begin();
+        try
+        {
+            SearchCursor result = sendSearch( connection, searchRequest );
+
+            Entry entry = result.getEntry();
 
-        Entry entry = result.getEntry();
+            if ( result.next() )
+            {
+                throw new LdapException( "searchNode failed to return unique record for LDAP search of base DN [" +
+                    baseDn + "] filter [" + filter + "]" );
+            }
 
-        if ( result.next() )
+            return entry;
+        }
+        finally
         {
-            throw new LdapException( "searchNode failed to return unique record for LDAP search of base DN [" +
-                baseDn + "] filter [" + filter + "]" );
+            COUNTERS.record( LdapCounters.SEARCH, this, begin );
         }
-
-        return entry;
     }
 
 
@@ -649,17 +1048,25 @@ public abstract class LdapDataProvider
         searchRequest.setTypesOnly( attrsOnly );
         searchRequest.addAttributes( attrs );
 
-        SearchCursor result = connection.search( searchRequest );
+        long begin = COUNTERS.begin();
+        try
+        {
+            SearchCursor result = sendSearch( connection, searchRequest );
+
+            Entry entry = result.getEntry();
 
-        Entry entry = result.getEntry();
+            if ( result.next() )
+            {
+                throw new LdapException( "searchNode failed to return unique record for LDAP search of base DN [" +
+                    baseDn + "] filter [" + filter + "]" );
+            }
 
-        if ( result.next() )
+            return entry;
+        }
+        finally
         {
-            throw new LdapException( "searchNode failed to return unique record for LDAP search of base DN [" +
-                baseDn + "] filter [" + filter + "]" );
+            COUNTERS.record( LdapCounters.SEARCH, this, begin );
         }
-
-        return entry;
     }
 
 
@@ -693,7 +1100,26 @@ public abstract class LdapDataProvider
         ProxiedAuthz proxiedAuthzControl = new ProxiedAuthzImpl();
         proxiedAuthzControl.setAuthzId( "dn: " + userDn );
         compareRequest.addControl( proxiedAuthzControl );
-        CompareResponse response = connection.compare( compareRequest );
+        long begin = COUNTERS.begin();
+        CompareResponse response;
+        try
+        {
+            response = connection.compare( compareRequest );
+            checkConnection( connection, response, "compareNode" );
+        }
+        catch ( LdapException e )
+        {
+            if ( !reconnect( connection, e, true ) )
+            {
+                throw e;
+            }
+            response = connection.compare( compareRequest );
+            checkConnection( connection, response, "compareNode" );
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.COMPARE, this, begin );
+        }
         return response.getLdapResult().getResultCode() == ResultCodeEnum.SUCCESS;
     }
 
@@ -1189,7 +1615,359 @@ public abstract class LdapDataProvider
         bindReq.setDn( userDn );
         bindReq.setCredentials( password );
         bindReq.addControl( PP_REQ_CTRL );
-        return connection.bind( bindReq );
+        long begin = COUNTERS.begin();
+        try
+        {
+            BindResponse response;
+            try
+            {
+                response = connection.bind( bindReq );
+            }
+            catch ( LdapException e )
+            {
+                if ( !reconnect( connection, e, false ) )
+                {
+                    throw e;
+                }
+                response = connection.bind( bindReq );
+            }
+
+            if ( response.getLdapResult().getResultCode() != ResultCodeEnum.SUCCESS )
+            {
+                recordBindFailure();
+            }
+            return response;
+        }
+        catch ( LdapAuthenticationException e )
+        {
+            recordBindFailure();
+            throw e;
+        }
+        finally
+        {
+            COUNTERS.record( LdapCounters.BIND, this, begin );
+        }
+    }
+
+
+    /**
+     * A failed bind is a write on the master when a password policy is in force, pwdFailureTime is recorded and the
+     * account may be locked.  Start the read after write window so createSession reads that lock state from the master
+     * rather than from a replica it hasn't reached yet.
+     */
+    private static void recordBindFailure()
+    {
+        LdapConnectionProvider.getInstance().recordWrite();
+    }
+
+
+    /**
+     * Look up an entry, throwing rather than returning null if the connection was lost during the lookup.
+     */
+    private static Entry lookup( LdapConnection connection, String dn, String[] attrs ) throws LdapException
+    {
+        return lookup( connection, new Dn( dn ), attrs );
+    }
+
+
+    private static Entry lookup( LdapConnection connection, Dn dn, String[] attrs ) throws LdapException
+    {
+        Entry entry = connection.lookup( dn, attrs );
+        if ( entry == null && !connection.isConnected() )
+        {
+            throw new InvalidConnectionException( "lookup dn [" + dn + "] connection lost" );
+        }
+        return entry;
+    }
+
+
+    /**
+     * Throw if a result was made up by the ldap api because the connection closed before the server replied.
+     *
+     * @param connection the connection the request was sent on.
+     * @param result     the compare response or search result done, null if a search ended without one.
+     * @param operation  name used in the exception message.
+     * @throws InvalidConnectionException if the connection was lost.
+     */
+    private static void checkConnection( LdapConnection connection, ResultResponse result, String operation )
+        throws InvalidConnectionException
+    {
+        if ( !connection.isConnected()
+            && ( result == null || result.getLdapResult().getResultCode() == ResultCodeEnum.PROTOCOL_ERROR ) )
+        {
+            throw new InvalidConnectionException( operation + " connection lost"
+                + ( result != null ? ", " + result.getLdapResult().getDiagnosticMessage() : "" ) );
+        }
+    }
+
+
+    /**
+     * Send a search and return a cursor over its results that retries it once if the connection was lost.
+     */
+    private SearchCursor sendSearch( LdapConnection connection, SearchRequest searchRequest ) throws LdapException
+    {
+        try
+        {
+            return new ReconnectingSearchCursor( connection, searchRequest, connection.search( searchRequest ),
+                false );
+        }
+        catch ( LdapException e )
+        {
+            if ( !reconnect( connection, e, true ) )
+            {
+                throw e;
+            }
+            return new ReconnectingSearchCursor( connection, searchRequest, connection.search( searchRequest ),
+                true );
+        }
+    }
+
+
+    /**
+     * The cursor returned by {@link #search}.  A connection lost after the search was sent shows up as an exception
+     * from next(), or as the end of the results with a PROTOCOL_ERROR done made up by the ldap api, which looks like a
+     * short result set.  The first time, unless the search itself was already retried, the connection is reopened and
+     * the search sent again, and the responses the caller has already read are skipped.  This expects the server to
+     * return the same results in the same order, entries added or removed meanwhile may be missed or repeated.
+     * Otherwise the loss is thrown as an {@link InvalidConnectionException}.
+     */
+    private final class ReconnectingSearchCursor extends AbstractCursor<Response> implements SearchCursor
+    {
+        private final LdapConnection connection;
+        private final SearchRequest searchRequest;
+        private SearchCursor cursor;
+        private boolean isRetried;
+        private long returned;
+
+
+        private ReconnectingSearchCursor( LdapConnection connection, SearchRequest searchRequest,
+            SearchCursor cursor, boolean isRetried )
+        {
+            this.connection = connection;
+            this.searchRequest = searchRequest;
+            this.cursor = cursor;
+            this.isRetried = isRetried;
+        }
+
+
+        @Override
+        public boolean next() throws LdapException, CursorException
+        {
+            while ( true )
+            {
+                try
+                {
+                    if ( cursor.next() )
+                    {
+                        returned++;
+                        return true;
+                    }
+                    checkConnection( connection, cursor.getSearchResultDone(), "search" );
+                    return false;
+                }
+                catch ( LdapException | CursorException e )
+                {
+                    if ( isRetried || !reconnect( connection, e, true ) )
+                    {
+                        throw e;
+                    }
+                    isRetried = true;
+                    closeCursor( cursor );
+                    cursor = connection.search( searchRequest );
+                    for ( long skipped = 0; skipped < returned && cursor.next(); skipped++ )
+                    {
+                        // already returned before the connection was lost.
+                    }
+                }
+            }
+        }
+
+
+        @Override
+        public Response get() throws CursorException
+        {
+            return cursor.get();
+        }
+
+
+        @Override
+        public boolean available()
+        {
+            return cursor.available();
+        }
+
+
+        @Override
+        public boolean isDone()
+        {
+            return cursor.isDone();
+        }
+
+
+        @Override
+        public SearchResultDone getSearchResultDone()
+        {
+            return cursor.getSearchResultDone();
+        }
+
+
+        @Override
+        public boolean isEntry()
+        {
+            return cursor.isEntry();
+        }
+
+
+        @Override
+        public Entry getEntry() throws LdapException
+        {
+            return cursor.getEntry();
+        }
+
+
+        @Override
+        public boolean isReferral()
+        {
+            return cursor.isReferral();
+        }
+
+
+        @Override
+        public Referral getReferral() throws LdapException
+        {
+            return cursor.getReferral();
+        }
+
+
+        @Override
+        public boolean isIntermediate()
+        {
+            return cursor.isIntermediate();
+        }
+
+
+        @Override
+        public IntermediateResponse getIntermediate() throws LdapException
+        {
+            return cursor.getIntermediate();
+        }
+
+
+        @Override
+        public void before( Response element ) throws LdapException, CursorException
+        {
+            cursor.before( element );
+        }
+
+
+        @Override
+        public void after( Response element ) throws LdapException, CursorException
+        {
+            cursor.after( element );
+        }
+
+
+        @Override
+        public void beforeFirst() throws LdapException, CursorException
+        {
+            cursor.beforeFirst();
+        }
+
+
+        @Override
+        public void afterLast() throws LdapException, CursorException
+        {
+            cursor.afterLast();
+        }
+
+
+        @Override
+        public boolean first() throws LdapException, CursorException
+        {
+            return cursor.first();
+        }
+
+
+        @Override
+        public boolean last() throws LdapException, CursorException
+        {
+            return cursor.last();
+        }
+
+
+        @Override
+        public boolean previous() throws LdapException, CursorException
+        {
+            return cursor.previous();
+        }
+
+
+        @Override
+        public void close() throws IOException
+        {
+            cursor.close();
+            super.close();
+        }
+
+
+        @Override
+        public void close( Exception cause ) throws IOException
+        {
+            cursor.close( cause );
+            super.close( cause );
+        }
+    }
+
+
+    /**
+     * Reopen a connection that an operation found had been dropped, i.e. closed by the server or a firewall while it sat
+     * in the pool, so the operation can be retried once.  This is done only for reads, searches, compares and binds.
+     * Writes are not retried because the server may have applied them before the connection was lost.
+     * <p>
+     * A connection is only reopened if the ldap api has marked it as closed.  An error returned by the server, or a
+     * timeout on a connection that still looks open, is passed on to the caller.
+     * <p>
+     * The loss is seldom reported by the call that sends a request.  The ldap api completes outstanding requests with
+     * a PROTOCOL_ERROR result of its own, and lookup returns null, so those are turned into an
+     * {@link InvalidConnectionException} by {@link #checkConnection} and, for searches, while the results are read by
+     * the cursor returned from {@link #search}.
+     *
+     * @param connection the connection used by the failed operation.
+     * @param e          the failure.
+     * @param isRebind   if true bind the reopened connection as the identity of the pool it came from.  A connection
+     *                   used to bind as a user is reopened without binding since the retried operation is the bind.
+     * @return true if the connection was reopened and the operation may be retried.
+     */
+    private boolean reconnect( LdapConnection connection, Exception e, boolean isRebind )
+    {
+        if ( connection == null || connection.isConnected() )
+        {
+            return false;
+        }
+
+        LOG.warn( "reconnect ldap connection lost, retrying operation once: {}", e.getMessage() );
+        try
+        {
+            // the ldap api marks the connection closed before it disposes of its connector, close waits for that
+            // so the connection isn't reopened with a connector being disposed.
+            connection.close();
+            if ( isRebind )
+            {
+                // binding opens the connection first
+                connection.bind();
+            }
+            else
+            {
+                connection.connect();
+            }
+        }
+        catch ( LdapException | IOException | IllegalStateException le )
+        {
+            LOG.warn( "reconnect failed: {}", le.getMessage() );
+            return false;
+        }
+        COUNTERS.incrementRetry();
+        return true;
     }
 
 
@@ -1238,6 +2016,30 @@ public abstract class LdapDataProvider
     }
 
 
+    /**
+     * Calls the PoolMgr to get a connection for reads that may be served by a read replica.  Only for operations that
+     * don't write, and don't need to see writes made by other processes the moment they occur.
+     *
+     * @return ldap connection.
+     * @throws LdapException If we had an issue getting an LDAP connection
+     */
+    protected LdapConnection getReadConnection() throws LdapException
+    {
+        return LdapConnectionProvider.getInstance().getReadConnection();
+    }
+
+
+    /**
+     * Calls the PoolMgr to close a connection obtained from {@link #getReadConnection()}.
+     *
+     * @param connection handle to ldap connection object.
+     */
+    protected void closeReadConnection( LdapConnection connection )
+    {
+        LdapConnectionProvider.getInstance().closeReadConnection( connection );
+    }
+
+
     /**
      * Calls the PoolMgr to get an Log connection to the LDAP server.
      *
@@ -1262,6 +2064,63 @@ public abstract class LdapDataProvider
     }
 
 
+    /**
+     * Calls the PoolMgr to get a connection used only to check a user's password with a simple bind.
+     *
+     * @return ldap connection.
+     * @throws LdapException If we had an issue getting an LDAP connection
+     */
+    protected LdapConnection getBindConnection() throws LdapException
+    {
+        return LdapConnectionProvider.getInstance().getBindConnection();
+    }
+
+
+    /**
+     * Calls the PoolMgr to close the Bind LDAP connection.
+     *
+     * @param connection handle to ldap connection object.
+     */
+    protected void closeBindConnection( LdapConnection connection )
+    {
+        LdapConnectionProvider.getInstance().closeBindConnection( connection );
+    }
+
+
+    /**
+     * Calls the PoolMgr to open a connection, outside of any pool, for a search that does not end.
+     *
+     * @return ldap connection.
+     * @throws LdapException If we had an issue getting an LDAP connection
+     */
+    protected LdapConnection getListenerConnection() throws LdapException
+    {
+        return LdapConnectionProvider.getInstance().getListenerConnection();
+    }
+
+
+    /**
+     * Close a connection obtained from {@link #getListenerConnection()}.  Errors are logged and ignored.
+     *
+     * @param connection handle to ldap connection object, may be null.
+     */
+    protected void closeListenerConnection( LdapConnection connection )
+    {
+        if ( connection == null )
+        {
+            return;
+        }
+        try
+        {
+            connection.close();
+        }
+        catch ( IOException e )
+        {
+            LOG.warn( "closeListenerConnection caught IOException={}", e.getMessage() );
+        }
+    }
+
+
     /**
      * Return to call reference to dao counter object with running totals for ldap operations add, mod, delete, search, etc.
      *
@@ -0,0 +1,53 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.ldap;
+
+
+/**
+ * Interface used by Fortress to pass ldap latency measurements to an external metrics system, i.e. a Micrometer or
+ * Dropwizard registry.  The class is named by the {@code ldap.metrics.registry} property and is called only when
+ * {@code enable.ldap.metrics=true}.  Every measurement is also kept by {@link LdapCounters}.
+ * <p>
+ * Implementations must have a public, no argument constructor and be thread safe.  They are called on the thread
+ * performing the ldap operation, so must not block.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface LdapMetricsRegistry
+{
+    /**
+     * Record the completion of an ldap operation.
+     *
+     * @param operation one of read, search, compare, add, mod, delete or bind.
+     * @param caller    contains the simple class name of the calling dao, i.e. PermDAO, followed by its method name,
+     *                  i.e. PermDAO.checkPermission, when {@code ldap.metrics.caller=method}.
+     * @param nanos     elapsed time in nanoseconds.
+     */
+    void recordOperation( String operation, String caller, long nanos );
+
+
+    /**
+     * Record the time spent waiting to borrow a connection from a pool.
+     *
+     * @param pool  one of admin, user or log.
+     * @param nanos elapsed time in nanoseconds.
+     */
+    void recordBorrow( String pool, long nanos );
+}
@@ -193,6 +193,15 @@ public class ConstraintUtil
                         }
                     }
                 }
+                // convert the temporal attributes once here rather than on every activation:
+                if ( constraint instanceof UserRole )
+                {
+                    ( ( UserRole ) constraint ).getCompiledConstraint();
+                }
+                else if ( constraint instanceof User )
+                {
+                    ( ( User ) constraint ).getCompiledConstraint();
+                }
             }
         }
     }
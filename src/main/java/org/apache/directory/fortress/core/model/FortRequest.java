@@ -21,6 +21,9 @@ package org.apache.directory.fortress.core.model;
 
 import javax.xml.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * This class is used to pass request data to Fortress Rest server.
  * <p>
@@ -38,7 +41,8 @@ import javax.xml.bind.annotation.*;
     "limit",
     "contextId",
     "session",
-    "isFlag"
+    "isFlag",
+    "entities"
 })
 public class FortRequest
 {
@@ -49,6 +53,7 @@ public class FortRequest
     private Integer limit;
     private String contextId;
     private Boolean isFlag;
+    private List<FortEntity> entities;
     public FortEntity getEntity()
     {
         return entity;
@@ -118,5 +123,14 @@ public class FortRequest
     {
         this.isFlag = isFlag;
     }
-}
 
+    public List<FortEntity> getEntities()
+    {
+        return entities;
+    }
+
+    public void setEntities(List<? extends FortEntity> entities)
+    {
+        this.entities = entities == null ? null : new ArrayList<FortEntity>(entities);
+    }
+}
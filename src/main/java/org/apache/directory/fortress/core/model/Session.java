@@ -27,6 +27,7 @@ import javax.xml.bind.annotation.XmlType;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -189,6 +190,50 @@ public class Session  extends FortEntity implements PwMessage, Serializable
     private boolean isGroupSession;
     private String message;
     private List<Warning> warnings;
+    private transient volatile EffectiveRoles effectiveRoles;
+    private transient volatile EffectiveRoles effectiveAdminRoles;
+
+    /**
+     * Holds the inherited role set computed for the roles activated into this session, along with the names of those roles and
+     * the version of the role hierarchy it was computed against.
+     */
+    private static final class EffectiveRoles
+    {
+        private final long version;
+        private final String[] names;
+        private final Set<String> roles;
+
+
+        private EffectiveRoles( long version, List<? extends UserRole> activated, Set<String> roles )
+        {
+            this.version = version;
+            this.names = new String[activated == null ? 0 : activated.size()];
+            for ( int i = 0; i < names.length; i++ )
+            {
+                names[i] = activated.get( i ).getName();
+            }
+            this.roles = roles;
+        }
+
+
+        private boolean matches( long inVersion, List<? extends UserRole> activated )
+        {
+            int size = activated == null ? 0 : activated.size();
+            if ( version != inVersion || size != names.length )
+            {
+                return false;
+            }
+            for ( int i = 0; i < size; i++ )
+            {
+                String name = activated.get( i ).getName();
+                if ( name == null ? names[i] != null : !name.equals( names[i] ) )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 
     /**
      * A 'true' value here indicates user successfully authenticated with Fortress.
@@ -239,6 +284,8 @@ public class Session  extends FortEntity implements PwMessage, Serializable
         this.isGroupSession = inSession.isGroupSession();
         this.message = inSession.getMsg();
         this.warnings = inSession.getWarnings();
+        this.effectiveRoles = null;
+        this.effectiveAdminRoles = null;
     }
     
 
@@ -456,6 +503,71 @@ public class Session  extends FortEntity implements PwMessage, Serializable
         return roles;
     }
 
+
+    /**
+     * Return the RBAC roles, activated plus inherited, previously stored with {@link #setEffectiveRoles(java.util.Set, long)}.
+     * The stored set is only returned if it was computed against the same role hierarchy version and the roles activated into
+     * this session have not changed since.
+     * <p>
+     * This method is intended for use by Fortress' authorization functions, which compute the set using
+     * {@link org.apache.directory.fortress.core.impl.AccessMgrImpl#authorizedRoles(Session)} semantics.
+     *
+     * @param version of the role hierarchy the caller is evaluating against.
+     * @return Set of role names, or null if not stored or stale.
+     */
+    public Set<String> getEffectiveRoles( long version )
+    {
+        EffectiveRoles memo = effectiveRoles;
+        if ( memo != null && memo.matches( version, getRoles() ) )
+        {
+            return memo.roles;
+        }
+        return null;
+    }
+
+
+    /**
+     * Store the RBAC roles, activated plus inherited, computed for this session so that later authorization checks may reuse them.
+     *
+     * @param roles contains the activated and inherited role names.  Must not be modified after it is stored.
+     * @param version of the role hierarchy the set was computed against.
+     */
+    public void setEffectiveRoles( Set<String> roles, long version )
+    {
+        effectiveRoles = new EffectiveRoles( version, getRoles(), roles );
+    }
+
+
+    /**
+     * Return the ARBAC roles, activated plus inherited, previously stored with {@link #setEffectiveAdminRoles(java.util.Set, long)}.
+     * The stored set is only returned if it was computed against the same admin role hierarchy version and the admin roles
+     * activated into this session have not changed since.
+     *
+     * @param version of the admin role hierarchy the caller is evaluating against.
+     * @return Set of admin role names, or null if not stored or stale.
+     */
+    public Set<String> getEffectiveAdminRoles( long version )
+    {
+        EffectiveRoles memo = effectiveAdminRoles;
+        if ( memo != null && memo.matches( version, getAdminRoles() ) )
+        {
+            return memo.roles;
+        }
+        return null;
+    }
+
+
+    /**
+     * Store the ARBAC roles, activated plus inherited, computed for this session so that later administrative checks may reuse them.
+     *
+     * @param roles contains the activated and inherited admin role names.  Must not be modified after it is stored.
+     * @param version of the admin role hierarchy the set was computed against.
+     */
+    public void setEffectiveAdminRoles( Set<String> roles, long version )
+    {
+        effectiveAdminRoles = new EffectiveRoles( version, getAdminRoles(), roles );
+    }
+
     /**
      * Returns the last access time in milliseconds. Note that while the unit of time of the return value is a millisecond,
      * the granularity of the value depends on the underlying operating system and may be larger. For example, many
@@ -681,6 +793,7 @@ public class Session  extends FortEntity implements PwMessage, Serializable
      */
     public void setRoles( List<UserRole> roles )
     {
+        effectiveRoles = null;
         if ( isGroupSession )
         {
             group.setRoles( roles );
@@ -699,6 +812,7 @@ public class Session  extends FortEntity implements PwMessage, Serializable
      */
     public void setRole( UserRole role )
     {
+        effectiveRoles = null;
         if ( isGroupSession )
         {
             group.getRoles().add( role );
@@ -731,6 +845,18 @@ public class Session  extends FortEntity implements PwMessage, Serializable
     {
         lastAccess = System.currentTimeMillis();
     }
+
+
+    /**
+     * Set the last access time in milliseconds.  Used to put back the time of the caller's last access after constraints
+     * have been checked on its behalf, i.e. by {@link org.apache.directory.fortress.core.util.time.SessionMonitor}.
+     *
+     * @param lastAccess milliseconds since January 1, 1970 UTC.
+     */
+    public void setLastAccess( long lastAccess )
+    {
+        this.lastAccess = lastAccess;
+    }
     
 
     /**
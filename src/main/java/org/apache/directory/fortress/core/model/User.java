@@ -33,6 +33,8 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
 
+import org.apache.directory.fortress.core.util.time.CompiledConstraint;
+
 
 /**
  * All entities ({@link User}, {@link org.apache.directory.fortress.core.model.Role}, 
@@ -316,6 +318,8 @@ public class User extends FortEntity implements Constraint, Serializable
     private String homeDirectory;
     private String loginShell;
     private String gecos;
+    // Not shipped over http, rebuilt from the temporal attributes when needed.
+    private transient CompiledConstraint compiledConstraint;
 
 
     public String getUidNumber()
@@ -1044,6 +1048,7 @@ public class User extends FortEntity implements Constraint, Serializable
     public void setBeginTime( String beginTime )
     {
         this.beginTime = beginTime;
+        compiledConstraint = null;
     }
 
 
@@ -1070,6 +1075,7 @@ public class User extends FortEntity implements Constraint, Serializable
     public void setEndTime( String endTime )
     {
         this.endTime = endTime;
+        compiledConstraint = null;
     }
 
 
@@ -1096,6 +1102,7 @@ public class User extends FortEntity implements Constraint, Serializable
     public void setBeginDate( String beginDate )
     {
         this.beginDate = beginDate;
+        compiledConstraint = null;
     }
 
 
@@ -1122,6 +1129,7 @@ public class User extends FortEntity implements Constraint, Serializable
     public void setEndDate( String endDate )
     {
         this.endDate = endDate;
+        compiledConstraint = null;
     }
 
 
@@ -1148,6 +1156,7 @@ public class User extends FortEntity implements Constraint, Serializable
     public void setBeginLockDate( String beginLockDate )
     {
         this.beginLockDate = beginLockDate;
+        compiledConstraint = null;
     }
 
 
@@ -1174,6 +1183,7 @@ public class User extends FortEntity implements Constraint, Serializable
     public void setEndLockDate( String endLockDate )
     {
         this.endLockDate = endLockDate;
+        compiledConstraint = null;
     }
 
 
@@ -1200,6 +1210,25 @@ public class User extends FortEntity implements Constraint, Serializable
     public void setDayMask( String dayMask )
     {
         this.dayMask = dayMask;
+        compiledConstraint = null;
+    }
+
+
+    /**
+     * Return the temporal attributes converted for use by the constraint validators.  They are converted on first use
+     * and again after any of them are changed.  For internal use only.
+     *
+     * @return CompiledConstraint reflecting the current temporal attributes.
+     */
+    public CompiledConstraint getCompiledConstraint()
+    {
+        CompiledConstraint compiled = compiledConstraint;
+        if ( compiled == null )
+        {
+            compiled = CompiledConstraint.compile( this );
+            compiledConstraint = compiled;
+        }
+        return compiled;
     }
 
 
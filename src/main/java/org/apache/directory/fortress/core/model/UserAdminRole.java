@@ -20,6 +20,8 @@
 package org.apache.directory.fortress.core.model;
 
 
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -89,6 +91,9 @@ public class UserAdminRole extends UserRole implements Administrator
     private boolean beginInclusive;
     private boolean endInclusive;
     private Set<String> parents;
+    // Not shipped over http, computed by the delegated admin checks when needed.
+    private transient volatile OuScope osUScope;
+    private transient volatile OuScope osPScope;
 
     // Used for formatting raw data:
     private static final String P = "P";
@@ -414,6 +419,7 @@ public class UserAdminRole extends UserRole implements Administrator
     public void setOsPSet(Set<String> osPs)
     {
         this.osPs = osPs;
+        osPScope = null;
     }
 
 
@@ -431,6 +437,7 @@ public class UserAdminRole extends UserRole implements Administrator
             osPs = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
         }
         osPs.add( osP );
+        osPScope = null;
     }
 
 
@@ -455,6 +462,7 @@ public class UserAdminRole extends UserRole implements Administrator
     public void setOsUSet(Set<String> osUs)
     {
         this.osUs = osUs;
+        osUScope = null;
     }
 
 
@@ -472,6 +480,63 @@ public class UserAdminRole extends UserRole implements Administrator
             osUs = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
         }
         osUs.add( osU );
+        osUScope = null;
+    }
+
+
+    /**
+     * Return the User OU scope previously stored with {@link #setOsUScope(java.util.BitSet, long)}.  The scope is only
+     * returned if it was computed against the same User OU hierarchy version and the User OUs have not changed since.
+     * <p>
+     * This method is intended for use by Fortress' delegated administration checks.
+     *
+     * @param version of the User OU hierarchy the caller is evaluating against.
+     * @return BitSet of the ids of the User OUs and their descendants, or null if not stored or stale.
+     */
+    public BitSet getOsUScope( long version )
+    {
+        OuScope scope = osUScope;
+        return scope != null && scope.matches( version, osUs ) ? scope.ids : null;
+    }
+
+
+    /**
+     * Store the User OU scope computed for this admin role so that later checks may reuse it.
+     *
+     * @param ids     of the User OUs and their descendants.  Must not be modified after it is stored.
+     * @param version of the User OU hierarchy the scope was computed against.
+     */
+    public void setOsUScope( BitSet ids, long version )
+    {
+        osUScope = new OuScope( version, osUs, ids );
+    }
+
+
+    /**
+     * Return the Perm OU scope previously stored with {@link #setOsPScope(java.util.BitSet, long)}.  The scope is only
+     * returned if it was computed against the same Perm OU hierarchy version and the Perm OUs have not changed since.
+     * <p>
+     * This method is intended for use by Fortress' delegated administration checks.
+     *
+     * @param version of the Perm OU hierarchy the caller is evaluating against.
+     * @return BitSet of the ids of the Perm OUs and their descendants, or null if not stored or stale.
+     */
+    public BitSet getOsPScope( long version )
+    {
+        OuScope scope = osPScope;
+        return scope != null && scope.matches( version, osPs ) ? scope.ids : null;
+    }
+
+
+    /**
+     * Store the Perm OU scope computed for this admin role so that later checks may reuse it.
+     *
+     * @param ids     of the Perm OUs and their descendants.  Must not be modified after it is stored.
+     * @param version of the Perm OU hierarchy the scope was computed against.
+     */
+    public void setOsPScope( BitSet ids, long version )
+    {
+        osPScope = new OuScope( version, osPs, ids );
     }
 
 
@@ -640,4 +705,30 @@ public class UserAdminRole extends UserRole implements Administrator
         result = 31 * result + ( parents != null ? parents.hashCode() : 0 );
         return result;
     }
+
+
+    /**
+     * Holds the ids of an OU set and its descendants, along with a copy of the OU set and the version of the hierarchy
+     * they were computed against.  The OU set is copied as the one returned by the getter may be changed in place.
+     */
+    private static final class OuScope
+    {
+        private final long version;
+        private final Set<String> ous;
+        private final BitSet ids;
+
+
+        private OuScope( long version, Set<String> ous, BitSet ids )
+        {
+            this.version = version;
+            this.ous = ous == null ? null : new HashSet<>( ous );
+            this.ids = ids;
+        }
+
+
+        private boolean matches( long inVersion, Set<String> inOus )
+        {
+            return version == inVersion && ( ous == null ? inOus == null : ous.equals( inOus ) );
+        }
+    }
 }
@@ -33,6 +33,7 @@ import javax.xml.bind.annotation.XmlType;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.time.CompiledConstraint;
 
 
 /**
@@ -108,6 +109,8 @@ public class UserRole extends FortEntity implements Serializable, Constraint
     private String dayMask;
     private Set<String> parents;
     private List<RoleConstraint> roleConstraints;
+    // Not shipped over http, rebuilt from the temporal attributes when needed.
+    private transient CompiledConstraint compiledConstraint;
 
     /**
      * Default constructor is used by internal Fortress classes.
@@ -393,6 +396,7 @@ public class UserRole extends FortEntity implements Serializable, Constraint
     public void setBeginTime( String beginTime )
     {
         this.beginTime = beginTime;
+        compiledConstraint = null;
     }
 
 
@@ -407,6 +411,7 @@ public class UserRole extends FortEntity implements Serializable, Constraint
     public void setEndTime( String endTime )
     {
         this.endTime = endTime;
+        compiledConstraint = null;
     }
 
 
@@ -421,6 +426,7 @@ public class UserRole extends FortEntity implements Serializable, Constraint
     public void setBeginDate( String beginDate )
     {
         this.beginDate = beginDate;
+        compiledConstraint = null;
     }
 
 
@@ -435,6 +441,7 @@ public class UserRole extends FortEntity implements Serializable, Constraint
     public void setEndDate( String endDate )
     {
         this.endDate = endDate;
+        compiledConstraint = null;
     }
 
 
@@ -449,6 +456,25 @@ public class UserRole extends FortEntity implements Serializable, Constraint
     public void setDayMask( String dayMask )
     {
         this.dayMask = dayMask;
+        compiledConstraint = null;
+    }
+
+
+    /**
+     * Return the temporal attributes converted for use by the constraint validators.  They are converted on first use
+     * and again after any of them are changed.  For internal use only.
+     *
+     * @return CompiledConstraint reflecting the current temporal attributes.
+     */
+    public CompiledConstraint getCompiledConstraint()
+    {
+        CompiledConstraint compiled = compiledConstraint;
+        if ( compiled == null )
+        {
+            compiled = CompiledConstraint.compile( this );
+            compiledConstraint = compiled;
+        }
+        return compiled;
     }
 
 
@@ -463,6 +489,7 @@ public class UserRole extends FortEntity implements Serializable, Constraint
     public void setBeginLockDate( String beginLockDate )
     {
         this.beginLockDate = beginLockDate;
+        compiledConstraint = null;
     }
 
 
@@ -477,6 +504,7 @@ public class UserRole extends FortEntity implements Serializable, Constraint
     public void setEndLockDate( String endLockDate )
     {
         this.endLockDate = endLockDate;
+        compiledConstraint = null;
     }
 
 
@@ -19,16 +19,19 @@
  */
 package org.apache.directory.fortress.core.rest;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
 import org.apache.directory.fortress.core.AccessMgr;
+import org.apache.directory.fortress.core.FinderException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.impl.Manageable;
 import org.apache.directory.fortress.core.model.*;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.cache.SessionStoreFactory;
 
 /**
  * Implementation class that performs runtime access control operations on data objects of type Fortress entities
@@ -86,9 +89,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         Session retSession;
         FortRequest request = RestUtils.getRequest( this.contextId );
         request.setEntity( new User( userId, password ) );
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_AUTHN);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.RBAC_AUTHN);
         if (response.getErrorCode() == 0)
         {
             retSession = response.getSession();
@@ -111,17 +112,15 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         Session retSession;
         FortRequest request = RestUtils.getRequest( this.contextId );
         request.setEntity(user);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse;
+        FortResponse response;
         if(isTrusted)
         {
-            szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_CREATE_TRUSTED);
+            response = RestUtils.getInstance().post(request, HttpIds.RBAC_CREATE_TRUSTED);
         }
         else
         {
-            szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_CREATE);
+            response = RestUtils.getInstance().post(request, HttpIds.RBAC_CREATE);
         }
-        FortResponse response = RestUtils.unmarshall(szResponse);
         if (response.getErrorCode() == 0)
         {
             retSession = response.getSession();
@@ -140,9 +139,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         Session retSession;
         FortRequest request = RestUtils.getRequest( this.contextId );
         request.setEntity( group );
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.RBAC_CREATE_GROUP_SESSION );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.RBAC_CREATE_GROUP_SESSION );
         if (response.getErrorCode() == 0)
         {
             retSession = response.getSession();
@@ -167,9 +164,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         FortRequest request = RestUtils.getRequest( this.contextId );
         request.setSession(session);
         request.setEntity(perm);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_AUTHZ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.RBAC_AUTHZ);
         if (response.getErrorCode() == 0)
         {
             result = response.getAuthorized();
@@ -183,6 +178,26 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The REST server has no bulk authorization service, so each permission is checked with its own
+     * {@link #checkAccess(Session, Permission)} request.
+     */
+    @Override
+    public List<Boolean> checkAccess(Session session, List<Permission> perms)
+        throws SecurityException
+    {
+        VUtil.assertNotNull(perms, GlobalErrIds.PERM_NULL, CLS_NM + ".checkAccess");
+        VUtil.assertNotNull(session, GlobalErrIds.USER_SESS_NULL, CLS_NM + ".checkAccess");
+        List<Boolean> results = new ArrayList<>(perms.size());
+        for (Permission perm : perms)
+        {
+            results.add(checkAccess(session, perm));
+        }
+        return results;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -194,9 +209,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         List<Permission> retPerms;
         FortRequest request = RestUtils.getRequest( this.contextId );
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_PERMS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.RBAC_PERMS);
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
@@ -221,9 +234,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         List<UserRole> retRoles;
         FortRequest request = RestUtils.getRequest( this.contextId );
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_ROLES);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.RBAC_ROLES);
         if (response.getErrorCode() == 0)
         {
             retRoles = response.getEntities();
@@ -248,9 +259,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         Set<String> retRoleNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
         FortRequest request = RestUtils.getRequest( this.contextId );
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_AUTHZ_ROLES);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.RBAC_AUTHZ_ROLES);
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -279,9 +288,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         FortRequest request = RestUtils.getRequest( this.contextId );
         request.setSession(session);
         request.setEntity(role);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_ADD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.RBAC_ADD);
         if (response.getErrorCode() == 0)
         {
             Session outSession = response.getSession();
@@ -306,9 +313,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         FortRequest request = RestUtils.getRequest( this.contextId );
         request.setSession(session);
         request.setEntity(role);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_DROP);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.RBAC_DROP);
         if (response.getErrorCode() == 0)
         {
             Session outSession = response.getSession();
@@ -331,9 +336,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         String userId;
         FortRequest request = RestUtils.getRequest( this.contextId );
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_USERID);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.RBAC_USERID);
         if (response.getErrorCode() == 0)
         {
             User outUser = (User) response.getEntity();
@@ -360,9 +363,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         FortRequest request = new FortRequest();
         request.setContextId(this.contextId);
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_USER);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.RBAC_USER);
         if (response.getErrorCode() == 0)
         {
             retUser = (User) response.getEntity();
@@ -375,4 +376,80 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         }
         return retUser;
     }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The session is kept in a store on the client, and sent to the server with each call made with its id.
+     */
+    @Override
+    public String createSessionId( User user, boolean isTrusted )
+        throws SecurityException
+    {
+        Session session = createSession( user, isTrusted );
+        SessionStoreFactory.getInstance().put( session );
+        return session.getSessionId();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Session getSession( String sessionId )
+        throws SecurityException
+    {
+        String methodName = "getSession";
+        VUtil.getInstance().assertNotNullOrEmpty( sessionId, GlobalErrIds.USER_SESS_NULL, CLS_NM + "." + methodName );
+        Session session = SessionStoreFactory.getInstance().get( sessionId );
+        if ( session == null )
+        {
+            String info = CLS_NM + "." + methodName + " session [" + sessionId + "] not found";
+            throw new FinderException( GlobalErrIds.USER_SESS_NOT_FOUND, info );
+        }
+        return session;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean checkAccess( String sessionId, Permission perm )
+        throws SecurityException
+    {
+        Session session = getSession( sessionId );
+        int roleCount = getRoleCount( session );
+        boolean result = checkAccess( session, perm );
+        storeSession( session, roleCount );
+        return result;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Boolean> checkAccess( String sessionId, List<Permission> perms )
+        throws SecurityException
+    {
+        Session session = getSession( sessionId );
+        int roleCount = getRoleCount( session );
+        List<Boolean> results = checkAccess( session, perms );
+        storeSession( session, roleCount );
+        return results;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteSession( String sessionId )
+        throws SecurityException
+    {
+        VUtil.getInstance().assertNotNullOrEmpty( sessionId, GlobalErrIds.USER_SESS_NULL, CLS_NM + ".deleteSession" );
+        SessionStoreFactory.getInstance().remove( sessionId );
+    }
 }
@@ -20,6 +20,8 @@
 package org.apache.directory.fortress.core.rest;
 
 
+import java.util.List;
+
 import org.apache.directory.fortress.core.AdminMgr;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.SecurityException;
@@ -96,9 +98,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_ADD );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_ADD );
         if ( response.getErrorCode() == 0 )
         {
             retUser = ( User ) response.getEntity();
@@ -125,9 +125,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_DISABLE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_DISABLE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -149,9 +147,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_DELETE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_DELETE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -174,9 +170,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retUser = ( User ) response.getEntity();
@@ -205,9 +199,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_CHGPW );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_CHGPW );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -229,9 +221,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_LOCK );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_LOCK );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -253,9 +243,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_UNLOCK );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_UNLOCK );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -279,9 +267,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_RESET );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_RESET );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -316,9 +302,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_ADD );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_ADD );
         if ( response.getErrorCode() == 0 )
         {
             retRole = ( Role ) response.getEntity();
@@ -345,9 +329,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_DELETE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_DELETE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -370,9 +352,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retRole = ( Role ) response.getEntity();
@@ -399,9 +379,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_ASGN );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_ASGN );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -409,6 +387,23 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The REST server has no batch operation, each assignment is posted with {@link #assignUser(UserRole)}.
+     */
+    @Override
+    public void assignUsers( List<UserRole> uRoles )
+        throws SecurityException
+    {
+        VUtil.assertNotNull( uRoles, GlobalErrIds.URLE_NULL, CLS_NM + ".assignUsers" );
+        for ( UserRole uRole : uRoles )
+        {
+            assignUser( uRole );
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -423,9 +418,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_DEASGN );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_DEASGN );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -448,9 +441,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.PERM_ADD );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_ADD );
         if ( response.getErrorCode() == 0 )
         {
             retPerm = ( Permission ) response.getEntity();
@@ -478,9 +469,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.PERM_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retPerm = ( Permission ) response.getEntity();
@@ -507,9 +496,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.PERM_DELETE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_DELETE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -532,9 +519,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.OBJ_ADD );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.OBJ_ADD );
         if ( response.getErrorCode() == 0 )
         {
             retObj = ( PermObj ) response.getEntity();
@@ -562,9 +547,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.OBJ_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.OBJ_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retObj = ( PermObj ) response.getEntity();
@@ -591,9 +574,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.OBJ_DELETE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.OBJ_DELETE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -622,9 +603,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_GRANT );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_GRANT );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -653,9 +632,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_REVOKE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_REVOKE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -684,9 +661,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_GRANT );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_GRANT );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -715,9 +690,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_REVOKE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_REVOKE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -743,9 +716,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_DESC );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_DESC );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -771,9 +742,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_ASC );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_ASC );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -799,9 +768,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_ADDINHERIT );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_ADDINHERIT );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -827,9 +794,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_DELINHERIT );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_DELINHERIT );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -852,9 +817,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.SSD_ADD );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_ADD );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -881,9 +844,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.SSD_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -913,9 +874,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.SSD_ADD_MEMBER );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_ADD_MEMBER );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -945,9 +904,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.SSD_DEL_MEMBER );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_DEL_MEMBER );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -975,9 +932,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.SSD_DELETE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_DELETE );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1006,9 +961,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.SSD_CARD_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_CARD_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1036,9 +989,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.DSD_ADD );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_ADD );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1065,9 +1016,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.DSD_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1097,9 +1046,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.DSD_ADD_MEMBER );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_ADD_MEMBER );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1129,9 +1076,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.DSD_DEL_MEMBER );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_DEL_MEMBER );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1159,9 +1104,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.DSD_DELETE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_DELETE );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1190,9 +1133,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.DSD_CARD_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_CARD_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1222,9 +1163,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_ADD_CONSTRAINT );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_ADD_CONSTRAINT );
         if ( response.getErrorCode() == 0 )
         {
             retCnst = ( RoleConstraint ) response.getEntity();
@@ -1252,9 +1191,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_DELETE_CONSTRAINT );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_DELETE_CONSTRAINT );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -1277,9 +1214,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.PERM_ADD_ATTRIBUTE_SET );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_ADD_ATTRIBUTE_SET );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( PermissionAttributeSet ) response.getEntity();
@@ -1306,9 +1241,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.PERM_DELETE_ATTRIBUTE_SET );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_DELETE_ATTRIBUTE_SET );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -1333,9 +1266,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.PERM_ADD_PERM_ATTRIBUTE_TO_SET );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_ADD_PERM_ATTRIBUTE_TO_SET );
         if ( response.getErrorCode() == 0 )
         {
             retAttr = ( PermissionAttribute ) response.getEntity();
@@ -1364,9 +1295,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.PERM_DELETE_PERM_ATTRIBUTE_TO_SET );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_DELETE_PERM_ATTRIBUTE_TO_SET );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -1392,9 +1321,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.PERM_UPDATE_PERM_ATTRIBUTE_IN_SET );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_UPDATE_PERM_ATTRIBUTE_IN_SET );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
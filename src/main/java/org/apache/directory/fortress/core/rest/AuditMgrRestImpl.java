@@ -24,6 +24,7 @@ import java.util.List;
 
 import org.apache.directory.fortress.core.AuditMgr;
 import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.SearchHandler;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.impl.Manageable;
 import org.apache.directory.fortress.core.model.AuthZ;
@@ -125,9 +126,7 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.AUDIT_UAUTHZS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.AUDIT_UAUTHZS);
         if (response.getErrorCode() == 0)
         {
             outRecords = response.getEntities();
@@ -161,9 +160,7 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.AUDIT_AUTHZS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.AUDIT_AUTHZS);
         if (response.getErrorCode() == 0)
         {
             outRecords = response.getEntities();
@@ -181,6 +178,34 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The fortress rest server does not page results, so this method reads the result set with
+     * {@link #searchAuthZs(UserAudit)} and passes its members to the handler.
+     */
+    @Override
+    public long searchAuthZs(UserAudit uAudit, SearchHandler<AuthZ> handler)
+        throws SecurityException
+    {
+        VUtil.assertNotNull(handler, GlobalErrIds.FT_SEARCH_HANDLER_NULL, CLS_NM + ".searchAuthZs");
+        List<AuthZ> entities = searchAuthZs(uAudit);
+        long count = 0;
+        if (entities != null)
+        {
+            for (AuthZ entity : entities)
+            {
+                count++;
+                if (!handler.handle(entity))
+                {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -197,9 +222,7 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.AUDIT_BINDS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.AUDIT_BINDS);
         if (response.getErrorCode() == 0)
         {
             outRecords = response.getEntities();
@@ -233,9 +256,7 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.AUDIT_SESSIONS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.AUDIT_SESSIONS);
         if (response.getErrorCode() == 0)
         {
             outRecords = response.getEntities();
@@ -269,9 +290,7 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.AUDIT_MODS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.AUDIT_MODS);
         if (response.getErrorCode() == 0)
         {
             outRecords = response.getEntities();
@@ -305,9 +324,7 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.AUDIT_INVLD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.AUDIT_INVLD);
         if (response.getErrorCode() == 0)
         {
             outRecords = response.getEntities();
@@ -19,7 +19,10 @@
  */
 package org.apache.directory.fortress.core.rest;
 
-import java.util.Hashtable;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -31,6 +34,12 @@ import javax.xml.bind.Unmarshaller;
  * processing.
  * The intent is to reduce the performance penalty for calling JAXBContext.newInstance( class );
  * <p>
+ * Contexts are looked up without locking.  Marshallers and unmarshallers are not thread safe, so
+ * {@link #getMarshaller(Class)} and {@link #getUnMarshaller(Class)} hand each one to a single caller, which gives it
+ * back with {@link #releaseMarshaller(Class, Marshaller)} or {@link #releaseUnMarshaller(Class, Unmarshaller)} when
+ * done.  Up to {@link #POOL_SIZE} of each are kept per type for reuse, the rest are left to the garbage collector.
+ * Nothing is held by the calling threads, so the instances don't outlive this object in pooled threads.
+ * <p>
  * This class is thread safe.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
@@ -39,7 +48,13 @@ import javax.xml.bind.Unmarshaller;
 public class CachedJaxbContext
 {
 
-    private static volatile Hashtable<Class, JAXBCachedEntry> jaxbInstanceCache = new Hashtable();
+    private static final ConcurrentMap<Class, JAXBCachedEntry> jaxbInstanceCache = new ConcurrentHashMap<>();
+
+    /** Maximum number of idle marshallers, and of idle unmarshallers, kept for each type. */
+    public static final int POOL_SIZE = 8;
+
+    private final ConcurrentMap<Class, Queue<Marshaller>> marshallers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class, Queue<Unmarshaller>> unmarshallers = new ConcurrentHashMap<>();
 
     /**
      * Once constructed this object can be stored as static member of class that performs JAX XML processing.
@@ -48,15 +63,18 @@ public class CachedJaxbContext
      * @return handle to JAXBContext to be used to marshall or unmarshall XML data.
      * @throws JAXBException in the event the JAXBContext cannot be obtained.
      */
-    public synchronized JAXBContext getJaxbContext( Class type ) throws JAXBException
+    public JAXBContext getJaxbContext( Class type ) throws JAXBException
     {
-
         JAXBCachedEntry cache = jaxbInstanceCache.get( type );
         if ( cache == null )
         {
-            cache = new JAXBCachedEntry( type );
-            jaxbInstanceCache.put( type, cache );
-            return cache.getContext();
+            // two threads may both create the context on first use, only one is kept.
+            JAXBCachedEntry newCache = new JAXBCachedEntry( type );
+            cache = jaxbInstanceCache.putIfAbsent( type, newCache );
+            if ( cache == null )
+            {
+                cache = newCache;
+            }
         }
         return cache.getContext();
     }
@@ -87,4 +105,75 @@ public class CachedJaxbContext
         JAXBContext context = getJaxbContext( type );
         return context.createMarshaller();
     }
+
+
+    /**
+     * Take a JAXB marshaller for a particular data type from the pool, creating one if none is idle.  It belongs to
+     * the caller until passed to {@link #releaseMarshaller(Class, Marshaller)}.
+     *
+     * @param type contains the class name associated with a particular data type.
+     * @return handle to JAXB marshaller.
+     * @throws JAXBException in the event the marshaller cannot be created.
+     */
+    public Marshaller getMarshaller( Class type ) throws JAXBException
+    {
+        Marshaller marshaller = pool( marshallers, type ).poll();
+        return marshaller != null ? marshaller : createMarshaller( type );
+    }
+
+
+    /**
+     * Give back a marshaller obtained from {@link #getMarshaller(Class)}.  It must not be used by the caller afterwards.
+     *
+     * @param type       contains the class name the marshaller was obtained for.
+     * @param marshaller the marshaller, dropped if the pool is full.
+     */
+    public void releaseMarshaller( Class type, Marshaller marshaller )
+    {
+        pool( marshallers, type ).offer( marshaller );
+    }
+
+
+    /**
+     * Take a JAXB unmarshaller for a particular data type from the pool, creating one if none is idle.  It belongs to
+     * the caller until passed to {@link #releaseUnMarshaller(Class, Unmarshaller)}.
+     *
+     * @param type contains the class name associated with a particular data type.
+     * @return handle to JAXB unmarshaller.
+     * @throws JAXBException in the event the unmarshaller cannot be created.
+     */
+    public Unmarshaller getUnMarshaller( Class type ) throws JAXBException
+    {
+        Unmarshaller unmarshaller = pool( unmarshallers, type ).poll();
+        return unmarshaller != null ? unmarshaller : createUnMarshaller( type );
+    }
+
+
+    /**
+     * Give back an unmarshaller obtained from {@link #getUnMarshaller(Class)}.  It must not be used by the caller
+     * afterwards.
+     *
+     * @param type         contains the class name the unmarshaller was obtained for.
+     * @param unmarshaller the unmarshaller, dropped if the pool is full.
+     */
+    public void releaseUnMarshaller( Class type, Unmarshaller unmarshaller )
+    {
+        pool( unmarshallers, type ).offer( unmarshaller );
+    }
+
+
+    private static <T> Queue<T> pool( ConcurrentMap<Class, Queue<T>> pools, Class type )
+    {
+        Queue<T> pool = pools.get( type );
+        if ( pool == null )
+        {
+            Queue<T> newPool = new ArrayBlockingQueue<>( POOL_SIZE );
+            pool = pools.putIfAbsent( type, newPool );
+            if ( pool == null )
+            {
+                pool = newPool;
+            }
+        }
+        return pool;
+    }
 }
@@ -73,9 +73,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_ADD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ARLE_ADD);
         if (response.getErrorCode() == 0)
         {
             retRole = (AdminRole) response.getEntity();
@@ -103,9 +101,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_DELETE);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ARLE_DELETE);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -129,9 +125,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_UPDATE);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ARLE_UPDATE);
         if (response.getErrorCode() == 0)
         {
             retRole = (AdminRole) response.getEntity();
@@ -159,9 +153,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_ASGN);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ARLE_ASGN);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -184,9 +176,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_DEASGN);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ARLE_DEASGN);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -210,9 +200,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ORG_ADD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ORG_ADD);
         if (response.getErrorCode() == 0)
         {
             retOrg = (OrgUnit) response.getEntity();
@@ -241,9 +229,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ORG_UPDATE);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ORG_UPDATE);
         if (response.getErrorCode() == 0)
         {
             retOrg = (OrgUnit) response.getEntity();
@@ -272,9 +258,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ORG_DELETE);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ORG_DELETE);
         if (response.getErrorCode() == 0)
         {
             retOrg = (OrgUnit) response.getEntity();
@@ -308,9 +292,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ORG_DESC);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ORG_DESC);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -338,9 +320,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ORG_ASC);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ORG_ASC);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -369,9 +349,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ORG_ADDINHERIT);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ORG_ADDINHERIT);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -400,9 +378,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ORG_DELINHERIT);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ORG_DELINHERIT);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -430,9 +406,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_DESC);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ARLE_DESC);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -460,9 +434,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_ASC);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ARLE_ASC);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -490,9 +462,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_ADDINHERIT);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ARLE_ADDINHERIT);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -520,9 +490,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_DELINHERIT);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ARLE_DELINHERIT);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -547,9 +515,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_ADD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.PERM_ADD);
         if (response.getErrorCode() == 0)
         {
             retPerm = (Permission) response.getEntity();
@@ -579,9 +545,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_UPDATE);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.PERM_UPDATE);
         if (response.getErrorCode() == 0)
         {
             retPerm = (Permission) response.getEntity();
@@ -610,9 +574,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_DELETE);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.PERM_DELETE);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -637,9 +599,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.OBJ_ADD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.OBJ_ADD);
         if (response.getErrorCode() == 0)
         {
             retObj = (PermObj) response.getEntity();
@@ -669,9 +629,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.OBJ_UPDATE);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.OBJ_UPDATE);
         if (response.getErrorCode() == 0)
         {
             retObj = (PermObj) response.getEntity();
@@ -700,9 +658,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.OBJ_DELETE);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.OBJ_DELETE);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -732,9 +688,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_GRANT);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ROLE_GRANT);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -764,9 +718,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_REVOKE);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ROLE_REVOKE);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -796,9 +748,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_GRANT);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.USER_GRANT);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -828,9 +778,7 @@ public final class DelAdminMgrRestImpl extends Manageable implements DelAdminMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_REVOKE);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.USER_REVOKE);
         if (response.getErrorCode() != 0)
         {
             throw new SecurityException(response.getErrorCode(), response.getErrorMessage());
@@ -72,9 +72,7 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ARLE_READ);
         if (response.getErrorCode() == 0)
         {
             retRole = (AdminRole) response.getEntity();
@@ -103,9 +101,7 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ARLE_SEARCH);
         if (response.getErrorCode() == 0)
         {
             retRoles = response.getEntities();
@@ -134,9 +130,7 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_ASGNED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ARLE_ASGNED);
         if (response.getErrorCode() == 0)
         {
             retUserRoles = response.getEntities();
@@ -165,9 +159,7 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_ASGNED_ADMIN);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.USER_ASGNED_ADMIN);
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getEntities();
@@ -201,9 +193,7 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ORG_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ORG_READ);
         if (response.getErrorCode() == 0)
         {
             retOrg = (OrgUnit) response.getEntity();
@@ -233,9 +223,7 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ORG_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ORG_SEARCH);
         if (response.getErrorCode() == 0)
         {
             retOrgs = response.getEntities();
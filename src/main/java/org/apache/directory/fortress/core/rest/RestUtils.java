@@ -20,22 +20,25 @@
 package org.apache.directory.fortress.core.rest;
 
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.io.IOUtils;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.RestException;
 import org.apache.directory.fortress.core.model.FortRequest;
@@ -44,26 +47,54 @@ import org.apache.directory.fortress.core.model.ObjectFactory;
 import org.apache.directory.fortress.core.model.Props;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.EncryptUtil;
+import org.apache.http.Consts;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.AuthCache;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 /**
  * This utility class provides methods that wrap Apache's HTTP Client APIs.  This class is thread safe.
+ * <p>
+ * Every request is sent through a single client backed by a pool of keep-alive connections to the fortress-rest
+ * server.  The pool is sized by {@code http.max.conn} and {@code http.max.conn.route}.  Connections are kept alive for
+ * the time the server asks for, or {@code http.keepalive} milliseconds if it doesn't say, and are closed after
+ * {@code http.idle.timeout} milliseconds unused.  Basic credentials are sent with the first request, rather than in
+ * reply to a 401 challenge.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -76,6 +107,12 @@ public final class RestUtils
     private static final int HTTP_401_UNAUTHORIZED = 401;
     private static final int HTTP_403_FORBIDDEN = 403;
     private static final int HTTP_404_NOT_FOUND = 404;
+    private static final String HTTP_MAX_CONN = "http.max.conn";
+    private static final String HTTP_MAX_CONN_ROUTE = "http.max.conn.route";
+    private static final String HTTP_KEEPALIVE = "http.keepalive";
+    private static final String HTTP_IDLE_TIMEOUT = "http.idle.timeout";
+    // connections idle for longer than this are checked before reuse:
+    private static final int HTTP_VALIDATE_AFTER_INACTIVITY = 2000;
     private static CachedJaxbContext cachedJaxbContext = new CachedJaxbContext();
 
     // static member contains this
@@ -91,6 +128,10 @@ public final class RestUtils
     // These members contain the http coordinates to a running fortress-rest instance:
     private String httpUid, httpPw, httpHost, httpPort, httpProtocol, fortressRestVersion, serviceName, uri;
 
+    // Shared by every request, along with its pool of connections:
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+
     /**
      * create a new request and set its tenant id.
      * @param szContextId contains the tenant id
@@ -135,6 +176,70 @@ public final class RestUtils
         LOG.info( "javax.net.ssl.trustStore: {}", trustStore );
         System.setProperty( "javax.net.ssl.trustStore", trustStore );
         System.setProperty( "javax.net.ssl.trustStorePassword", trustStorePw );
+        initClient();
+    }
+
+
+    /**
+     * Build the pooled client.  Must be called after the JSSE truststore properties are set.
+     */
+    private void initClient()
+    {
+        int maxConn = Config.getInstance().getInt( HTTP_MAX_CONN, 20 );
+        int maxConnRoute = Config.getInstance().getInt( HTTP_MAX_CONN_ROUTE, maxConn );
+        final long keepAlive = Config.getInstance().getInt( HTTP_KEEPALIVE, 30000 );
+        int idleTimeout = Config.getInstance().getInt( HTTP_IDLE_TIMEOUT, 60000 );
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register( "http", PlainConnectionSocketFactory.getSocketFactory() )
+            .register( "https", SSLConnectionSocketFactory.getSystemSocketFactory() )
+            .build();
+        connectionManager = new PoolingHttpClientConnectionManager( socketFactories );
+        connectionManager.setMaxTotal( maxConn );
+        connectionManager.setDefaultMaxPerRoute( maxConnRoute );
+        connectionManager.setValidateAfterInactivity( HTTP_VALIDATE_AFTER_INACTIVITY );
+        httpClient = HttpClientBuilder.create().useSystemProperties()
+            .setConnectionManager( connectionManager )
+            .setKeepAliveStrategy( new ConnectionKeepAliveStrategy()
+            {
+                @Override
+                public long getKeepAliveDuration( HttpResponse response, HttpContext context )
+                {
+                    HeaderElementIterator it = new BasicHeaderElementIterator( response.headerIterator( HTTP
+                        .CONN_KEEP_ALIVE ) );
+                    while ( it.hasNext() )
+                    {
+                        HeaderElement element = it.nextElement();
+                        if ( "timeout".equalsIgnoreCase( element.getName() ) && element.getValue() != null )
+                        {
+                            try
+                            {
+                                return Long.parseLong( element.getValue() ) * 1000;
+                            }
+                            catch ( NumberFormatException nfe )
+                            {
+                                LOG.debug( "getKeepAliveDuration invalid timeout [{}]", element.getValue() );
+                            }
+                        }
+                    }
+                    return keepAlive;
+                }
+            } )
+            .evictExpiredConnections()
+            .evictIdleConnections( idleTimeout, TimeUnit.MILLISECONDS )
+            .build();
+        LOG.info( "RestUtils connection pool max [{}] max per route [{}] keepalive [{}] idle timeout [{}]", maxConn,
+            maxConnRoute, keepAlive, idleTimeout );
+    }
+
+
+    /**
+     * Return the statistics of the pool of connections to the fortress-rest server.
+     *
+     * @return PoolStats contains the number of leased, pending, available and max connections.
+     */
+    public PoolStats getPoolStats()
+    {
+        return connectionManager.getTotalStats();
     }
 
     private RestUtils(){
@@ -153,18 +258,23 @@ public final class RestUtils
         String szRetValue;
         try
         {
-            // Create a JAXB context passing in the class of the object we want to marshal/unmarshal
-            final JAXBContext context = cachedJaxbContext.getJaxbContext( FortRequest.class );
             // =============================================================================================================
             // Marshalling OBJECT to XML
             // =============================================================================================================
-            // Create the marshaller, that will transform the object into XML
-            final Marshaller marshaller = context.createMarshaller();
-            // Create a stringWriter to hold the XML
-            final StringWriter stringWriter = new StringWriter();
-            // Marshal the javaObject and write the XML to the stringWriter
-            marshaller.marshal( request, stringWriter );
-            szRetValue = stringWriter.toString();
+            // Borrow a marshaller, that will transform the object into XML
+            final Marshaller marshaller = cachedJaxbContext.getMarshaller( FortRequest.class );
+            try
+            {
+                // Create a stringWriter to hold the XML
+                final StringWriter stringWriter = new StringWriter();
+                // Marshal the javaObject and write the XML to the stringWriter
+                marshaller.marshal( request, stringWriter );
+                szRetValue = stringWriter.toString();
+            }
+            finally
+            {
+                cachedJaxbContext.releaseMarshaller( FortRequest.class, marshaller );
+            }
         }
         catch ( JAXBException je )
         {
@@ -187,12 +297,16 @@ public final class RestUtils
         FortResponse response;
         try
         {
-            // Create a JAXB context passing in the class of the object we want to marshal/unmarshal
-            final JAXBContext context = cachedJaxbContext.getJaxbContext( FortResponse.class );
-
-            // Create the unmarshaller, that will transform the XML back into an object
-            final Unmarshaller unmarshaller = context.createUnmarshaller();
-            response = ( FortResponse ) unmarshaller.unmarshal( new StringReader( szResponse ) );
+            // Borrow an unmarshaller, that will transform the XML back into an object
+            final Unmarshaller unmarshaller = cachedJaxbContext.getUnMarshaller( FortResponse.class );
+            try
+            {
+                response = ( FortResponse ) unmarshaller.unmarshal( new StringReader( szResponse ) );
+            }
+            finally
+            {
+                cachedJaxbContext.releaseUnMarshaller( FortResponse.class, unmarshaller );
+            }
         }
         catch ( JAXBException je )
         {
@@ -230,8 +344,7 @@ public final class RestUtils
         LOG.debug( "get function1:{}, id1:{}, id2:{}, id3:{}, url:{}", function, id, id2, id3, url );
         HttpGet get = new HttpGet(url);
         setMethodHeaders( get );
-        return handleHttpMethod( get ,HttpClientBuilder.create().useSystemProperties()
-            .setDefaultCredentialsProvider(getCredentialProvider(userId, password)).build() );
+        return handleHttpMethod( get, httpClient, getContext( userId, password ) );
     }
 
 
@@ -272,37 +385,9 @@ public final class RestUtils
         {
             HttpEntity entity = new StringEntity( szInput, ContentType.TEXT_XML );
             post.setEntity( entity );
-            org.apache.http.client.HttpClient httpclient = HttpClientBuilder.create().useSystemProperties()
-                .setDefaultCredentialsProvider(getCredentialProvider(userId, password)).build();
-            HttpResponse response = httpclient.execute( post );
-            String error;
-
-            switch ( response.getStatusLine().getStatusCode() )
-            {
-                case HTTP_OK :
-                    szResponse = IOUtils.toString( response.getEntity().getContent(), "UTF-8" );
-                    LOG.debug( "post uri=[{}], function=[{}], response=[{}]", uri, function, szResponse );
-                    break;
-                case HTTP_401_UNAUTHORIZED :
-                    error = "post uri=[" + uri + "], function=[" + function
-                        + "], 401 function unauthorized on host";
-                    LOG.error( error );
-                    throw new RestException( GlobalErrIds.REST_UNAUTHORIZED_ERR, error );
-                case HTTP_403_FORBIDDEN :
-                    error = "post uri=[" + uri + "], function=[" + function
-                        + "], 403 function forbidden on host";
-                    LOG.error( error );
-                    throw new RestException( GlobalErrIds.REST_FORBIDDEN_ERR, error );
-                case HTTP_404_NOT_FOUND :
-                    error = "post uri=[" + uri + "], function=[" + function + "], 404 not found from host";
-                    LOG.error( error );
-                    throw new RestException( GlobalErrIds.REST_NOT_FOUND_ERR, error );
-                default :
-                    error = "post uri=[" + uri + "], function=[" + function
-                        + "], error received from host: " + response.getStatusLine().getStatusCode();
-                    LOG.error( error );
-                    throw new RestException( GlobalErrIds.REST_UNKNOWN_ERR, error );
-            }
+            HttpResponse response = execute( userId, password, post, function );
+            szResponse = EntityUtils.toString( response.getEntity(), "UTF-8" );
+            LOG.debug( "post uri=[{}], function=[{}], response=[{}]", uri, function, szResponse );
         }
         catch ( IOException ioe )
         {
@@ -334,6 +419,138 @@ public final class RestUtils
     }
 
 
+    /**
+     * Perform an HTTP Post REST operation.  The request is marshalled straight to the connection and the response
+     * unmarshalled as it is read, neither is copied through a String.  When debug logging is enabled the String based
+     * {@link #post(String, String, String, String)} is used instead so both may be logged.
+     *
+     * @param userId
+     * @param password
+     * @param request
+     * @param function
+     * @return FortResponse
+     * @throws RestException
+     */
+    public FortResponse post( String userId, String password, final FortRequest request, String function )
+        throws RestException
+    {
+        if ( LOG.isDebugEnabled() )
+        {
+            return unmarshall( post( userId, password, marshal( request ), function ) );
+        }
+        FortResponse fortResponse;
+        HttpPost post = new HttpPost( uri + function );
+        post.addHeader( "Accept", "text/xml" );
+        setMethodHeaders( post );
+        try
+        {
+            post.setEntity( new MarshallingEntity( request ) );
+            HttpResponse response = execute( userId, password, post, function );
+            HttpEntity entity = response.getEntity();
+            Unmarshaller unmarshaller = cachedJaxbContext.getUnMarshaller( FortResponse.class );
+            try
+            {
+                fortResponse = ( FortResponse ) unmarshaller.unmarshal( entity.getContent() );
+            }
+            finally
+            {
+                cachedJaxbContext.releaseUnMarshaller( FortResponse.class, unmarshaller );
+                // read whatever follows the document so the connection may be reused.
+                EntityUtils.consume( entity );
+            }
+        }
+        catch ( JAXBException je )
+        {
+            String error = "post uri=[" + uri + "], function=[" + function + "] caught JAXBException=" + je;
+            throw new RestException( GlobalErrIds.REST_UNMARSHALL_ERR, error, je );
+        }
+        catch ( IOException ioe )
+        {
+            if ( ioe.getCause() instanceof JAXBException )
+            {
+                JAXBException je = ( JAXBException ) ioe.getCause();
+                String error = "post uri=[" + uri + "], function=[" + function + "] caught JAXBException=" + je;
+                throw new RestException( GlobalErrIds.REST_MARSHALL_ERR, error, je );
+            }
+            String error = "post uri=[" + uri + "], function=[" + function + "] caught IOException=" + ioe;
+            LOG.error( error );
+            throw new RestException( GlobalErrIds.REST_IO_ERR, error, ioe );
+        }
+        catch ( WebApplicationException we )
+        {
+            String error = "post uri=[" + uri + "], function=[" + function
+                + "] caught WebApplicationException=" + we;
+            LOG.error( error );
+            throw new RestException( GlobalErrIds.REST_WEB_ERR, error, we );
+        }
+        finally
+        {
+            // Release current connection to the connection pool.
+            post.releaseConnection();
+        }
+        return fortResponse;
+    }
+
+
+    /**
+     * Perform an HTTP Post REST operation.
+     *
+     * @param request
+     * @param function
+     * @return FortResponse
+     * @throws RestException
+     */
+    public FortResponse post( FortRequest request, String function ) throws RestException
+    {
+        return post( null, null, request, function );
+    }
+
+
+    /**
+     * Send the post and check its status.
+     *
+     * @return the response, its status is always 200.
+     * @throws IOException   in the event of a transport error.
+     * @throws RestException for any other status.
+     */
+    private HttpResponse execute( String userId, String password, HttpPost post, String function )
+        throws IOException, RestException
+    {
+        HttpResponse response = httpClient.execute( post, getContext( userId, password ) );
+        String error;
+        if ( response.getStatusLine().getStatusCode() != HTTP_OK )
+        {
+            // read the body of the error so the connection may be reused.
+            EntityUtils.consumeQuietly( response.getEntity() );
+        }
+
+        switch ( response.getStatusLine().getStatusCode() )
+        {
+            case HTTP_OK :
+                return response;
+            case HTTP_401_UNAUTHORIZED :
+                error = "post uri=[" + uri + "], function=[" + function
+                    + "], 401 function unauthorized on host";
+                LOG.error( error );
+                throw new RestException( GlobalErrIds.REST_UNAUTHORIZED_ERR, error );
+            case HTTP_403_FORBIDDEN :
+                error = "post uri=[" + uri + "], function=[" + function
+                    + "], 403 function forbidden on host";
+                LOG.error( error );
+                throw new RestException( GlobalErrIds.REST_FORBIDDEN_ERR, error );
+            case HTTP_404_NOT_FOUND :
+                error = "post uri=[" + uri + "], function=[" + function + "], 404 not found from host";
+                LOG.error( error );
+                throw new RestException( GlobalErrIds.REST_NOT_FOUND_ERR, error );
+            default :
+                error = "post uri=[" + uri + "], function=[" + function
+                    + "], error received from host: " + response.getStatusLine().getStatusCode();
+                LOG.error( error );
+                throw new RestException( GlobalErrIds.REST_UNKNOWN_ERR, error );
+        }
+    }
+
+
     /**
      * Perform an HTTP Post REST operation.
      *
@@ -347,6 +564,20 @@ public final class RestUtils
         return post(null,null,szInput, function);
     }
 
+    /**
+     * The auth cache makes the client send basic credentials with the request, saving the round trip of a 401
+     * challenge.
+     */
+    private HttpClientContext getContext( String uid, String password )
+    {
+        AuthCache authCache = new BasicAuthCache();
+        authCache.put( new HttpHost( httpHost, Integer.valueOf( httpPort ), httpProtocol ), new BasicScheme() );
+        HttpClientContext context = HttpClientContext.create();
+        context.setCredentialsProvider( getCredentialProvider( uid, password ) );
+        context.setAuthCache( authCache );
+        return context;
+    }
+
     private CredentialsProvider getCredentialProvider(String uid, String password) {
         BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
         credentialsProvider.setCredentials( new AuthScope( httpHost,Integer.valueOf( httpPort )),
@@ -390,35 +621,43 @@ public final class RestUtils
      * Process the HTTP method request.
      *
      * @param httpGetRequest
+     * @param client
+     * @param context
      * @return String containing response
      * @throws Exception
      */
-    private static String handleHttpMethod( HttpRequestBase httpGetRequest ,org.apache.http.client.HttpClient client ) throws RestException
+    private static String handleHttpMethod( HttpRequestBase httpGetRequest, CloseableHttpClient client,
+        HttpClientContext context ) throws RestException
     {
         String szResponse = null;
         try
         {
-            HttpResponse response = client.execute( httpGetRequest );
+            HttpResponse response = client.execute( httpGetRequest, context );
             LOG.debug( "handleHttpMethod Response status : {}", response.getStatusLine().getStatusCode() );
 
             Response.Status status = Response.Status.fromStatusCode( response.getStatusLine().getStatusCode() );
 
             if ( status == Response.Status.OK )
             {
-                szResponse = IOUtils.toString( response.getEntity().getContent() );
+                szResponse = EntityUtils.toString( response.getEntity() );
                 LOG.debug( szResponse );
             }
-            else if ( status == Response.Status.FORBIDDEN )
-            {
-                LOG.debug( "handleHttpMethod Authorization failure" );
-            }
-            else if ( status == Response.Status.UNAUTHORIZED )
-            {
-                LOG.debug( "handleHttpMethod Authentication failure" );
-            }
             else
             {
-                LOG.debug( "handleHttpMethod Unknown error" );
+                // read the body of the error so the connection may be reused.
+                EntityUtils.consumeQuietly( response.getEntity() );
+                if ( status == Response.Status.FORBIDDEN )
+                {
+                    LOG.debug( "handleHttpMethod Authorization failure" );
+                }
+                else if ( status == Response.Status.UNAUTHORIZED )
+                {
+                    LOG.debug( "handleHttpMethod Authentication failure" );
+                }
+                else
+                {
+                    LOG.debug( "handleHttpMethod Unknown error" );
+                }
             }
         }
         catch ( IOException ioe )
@@ -436,6 +675,78 @@ public final class RestUtils
     }
 
 
+    /**
+     * Entity that marshals the request as it is written to the connection, without an intermediate copy.  It is sent
+     * chunked since its length isn't known until it has been written.
+     */
+    private static final class MarshallingEntity extends AbstractHttpEntity
+    {
+        private final FortRequest request;
+
+
+        MarshallingEntity( FortRequest request )
+        {
+            this.request = request;
+            setContentType( ContentType.create( "text/xml", Consts.UTF_8 ).toString() );
+        }
+
+
+        @Override
+        public boolean isRepeatable()
+        {
+            return true;
+        }
+
+
+        @Override
+        public long getContentLength()
+        {
+            return -1;
+        }
+
+
+        @Override
+        public InputStream getContent() throws IOException
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writeTo( out );
+            return new ByteArrayInputStream( out.toByteArray() );
+        }
+
+
+        /**
+         * @throws IOException wraps the JAXBException if the request could not be marshalled.
+         */
+        @Override
+        public void writeTo( OutputStream outStream ) throws IOException
+        {
+            try
+            {
+                Marshaller marshaller = cachedJaxbContext.getMarshaller( FortRequest.class );
+                try
+                {
+                    marshaller.marshal( request, outStream );
+                }
+                finally
+                {
+                    cachedJaxbContext.releaseMarshaller( FortRequest.class, marshaller );
+                }
+            }
+            catch ( JAXBException je )
+            {
+                throw new IOException( je );
+            }
+        }
+
+
+        @Override
+        public boolean isStreaming()
+        {
+            return false;
+        }
+    }
+
+
     /**
      * @param inProps
      * @return Properties
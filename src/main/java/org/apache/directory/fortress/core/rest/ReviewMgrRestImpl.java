@@ -26,6 +26,7 @@ import java.util.TreeSet;
 
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.ReviewMgr;
+import org.apache.directory.fortress.core.SearchHandler;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.impl.Manageable;
 import org.apache.directory.fortress.core.model.FortRequest;
@@ -98,9 +99,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.PERM_READ);
         if (response.getErrorCode() == 0)
         {
             retPerm = (Permission) response.getEntity();
@@ -129,9 +128,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.OBJ_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.OBJ_READ);
         if (response.getErrorCode() == 0)
         {
             retObj = (PermObj) response.getEntity();
@@ -160,9 +157,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.PERM_SEARCH);
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
@@ -175,6 +170,34 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The fortress rest server does not page results, so this method reads the result set with
+     * {@link #findPermissions(Permission)} and passes its members to the handler.
+     */
+    @Override
+    public long findPermissions(Permission permission, SearchHandler<Permission> handler)
+        throws SecurityException
+    {
+        VUtil.assertNotNull(handler, GlobalErrIds.FT_SEARCH_HANDLER_NULL, CLS_NM + ".findPermissions");
+        List<Permission> entities = findPermissions(permission);
+        long count = 0;
+        if (entities != null)
+        {
+            for (Permission entity : entities)
+            {
+                count++;
+                if (!handler.handle(entity))
+                {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -191,9 +214,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_OBJ_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.PERM_OBJ_SEARCH);
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
@@ -222,9 +243,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_SEARCH_ANY);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.PERM_SEARCH_ANY);
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
@@ -253,9 +272,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.OBJ_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.OBJ_SEARCH);
         if (response.getErrorCode() == 0)
         {
             retObjs = response.getEntities();
@@ -286,9 +303,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.OBJ_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.OBJ_SEARCH);
         if (response.getErrorCode() == 0)
         {
             retObjs = response.getEntities();
@@ -317,9 +332,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ROLE_READ);
         if (response.getErrorCode() == 0)
         {
             retRole = (Role) response.getEntity();
@@ -348,9 +361,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ROLE_SEARCH);
         if (response.getErrorCode() == 0)
         {
             retRoles = response.getEntities();
@@ -380,9 +391,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ROLE_SEARCH);
         if (response.getErrorCode() == 0)
         {
             retRoles = response.getValues();
@@ -411,9 +420,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.USER_READ);
         if (response.getErrorCode() == 0)
         {
             retUser = (User) response.getEntity();
@@ -442,9 +449,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.USER_SEARCH);
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getEntities();
@@ -457,6 +462,34 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The fortress rest server does not page results, so this method reads the result set with
+     * {@link #findUsers(User)} and passes its members to the handler.
+     */
+    @Override
+    public long findUsers(User user, SearchHandler<User> handler)
+        throws SecurityException
+    {
+        VUtil.assertNotNull(handler, GlobalErrIds.FT_SEARCH_HANDLER_NULL, CLS_NM + ".findUsers");
+        List<User> entities = findUsers(user);
+        long count = 0;
+        if (entities != null)
+        {
+            for (User entity : entities)
+            {
+                count++;
+                if (!handler.handle(entity))
+                {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -475,9 +508,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.USER_SEARCH);
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getEntities();
@@ -507,9 +538,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.USER_SEARCH);
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getValues();
@@ -539,9 +568,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_ASGNED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.USER_ASGNED);
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getValues();
@@ -574,9 +601,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_ASGNED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.USER_ASGNED);
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getEntities();
@@ -605,9 +630,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_ASGNED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ROLE_ASGNED);
         if (response.getErrorCode() == 0)
         {
             retUserRoles = response.getEntities();
@@ -636,9 +659,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_ASGNED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ROLE_ASGNED);
         if (response.getErrorCode() == 0)
         {
             retUserRoles = response.getValues();
@@ -667,9 +688,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_AUTHZED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ROLE_AUTHZED);
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getEntities();
@@ -686,6 +705,31 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The fortress rest server does not page results, so this method reads the result set with
+     * {@link #authorizedUsers(Role)} and passes the userIds of its members to the handler.
+     */
+    @Override
+    public long authorizedUsers(Role role, SearchHandler<String> handler)
+        throws SecurityException
+    {
+        VUtil.assertNotNull(handler, GlobalErrIds.FT_SEARCH_HANDLER_NULL, CLS_NM + ".authorizedUsers");
+        List<User> users = authorizedUsers(role);
+        long count = 0;
+        for (User user : users)
+        {
+            count++;
+            if (!handler.handle(user.getUserId()))
+            {
+                break;
+            }
+        }
+        return count;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -702,9 +746,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_AUTHZED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.USER_AUTHZED);
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -747,9 +789,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_PERMS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ROLE_PERMS);
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
@@ -778,9 +818,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_PERM_ATTR_SETS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ROLE_PERM_ATTR_SETS);
         if (response.getErrorCode() == 0)
         {
             retAttrSets = response.getEntities();
@@ -808,9 +846,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_PERMS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.USER_PERMS);
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
@@ -839,9 +875,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_ROLES);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.PERM_ROLES);
         if (response.getErrorCode() == 0)
         {
             retRoleNames = response.getValues();
@@ -870,9 +904,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_ROLES_AUTHZED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.PERM_ROLES_AUTHZED);
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -903,9 +935,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_USERS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.PERM_USERS);
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getValues();
@@ -934,9 +964,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_USERS_AUTHZED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.PERM_USERS_AUTHZED);
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -967,9 +995,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.SSD_ROLE_SETS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.SSD_ROLE_SETS);
         if (response.getErrorCode() == 0)
         {
             retSsdRoleSets = response.getEntities();
@@ -1002,9 +1028,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.SSD_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.SSD_READ);
         if (response.getErrorCode() == 0)
         {
             retSet = (SDSet) response.getEntity();
@@ -1032,9 +1056,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
          {
              request.setSession(adminSess);
          }
-         String szRequest = RestUtils.marshal(request);
-         String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.SSD_SETS);
-         FortResponse response = RestUtils.unmarshall(szResponse);
+         FortResponse response = RestUtils.getInstance().post(request, HttpIds.SSD_SETS);
          if (response.getErrorCode() == 0)
          {
              retSsdSets = response.getEntities();
@@ -1067,9 +1089,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.SSD_ROLES);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.SSD_ROLES);
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -1100,9 +1120,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.SSD_CARD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.SSD_CARD);
         if (response.getErrorCode() == 0)
         {
             retSet = (SDSet) response.getEntity();
@@ -1131,9 +1149,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.DSD_ROLE_SETS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.DSD_ROLE_SETS);
         if (response.getErrorCode() == 0)
         {
             retDsdRoleSets = response.getEntities();
@@ -1166,9 +1182,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.DSD_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.DSD_READ);
         if (response.getErrorCode() == 0)
         {
             retSet = (SDSet) response.getEntity();
@@ -1196,9 +1210,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
          {
              request.setSession(adminSess);
          }
-         String szRequest = RestUtils.marshal(request);
-         String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.DSD_SETS);
-         FortResponse response = RestUtils.unmarshall(szResponse);
+         FortResponse response = RestUtils.getInstance().post(request, HttpIds.DSD_SETS);
          if (response.getErrorCode() == 0)
          {
              retDsdSets = response.getEntities();
@@ -1231,9 +1243,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.DSD_ROLES);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.DSD_ROLES);
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -1264,9 +1274,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.DSD_CARD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.DSD_CARD);
         if (response.getErrorCode() == 0)
         {
             retSet = (SDSet) response.getEntity();
@@ -1296,9 +1304,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
             {
                 request.setSession(adminSess);
             }
-            String szRequest = RestUtils.marshal(request);
-            String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_READ_PERM_ATTRIBUTE_SET);
-            FortResponse response = RestUtils.unmarshall(szResponse);
+            FortResponse response = RestUtils.getInstance().post(request, HttpIds.PERM_READ_PERM_ATTRIBUTE_SET);
             if (response.getErrorCode() == 0)
             {
                 retPermSet = (PermissionAttributeSet)response.getEntity();
@@ -1332,9 +1338,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_FIND_CONSTRAINTS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post(request, HttpIds.ROLE_FIND_CONSTRAINTS);
         if (response.getErrorCode() == 0)
         {
             retConstraints = response.getEntities();
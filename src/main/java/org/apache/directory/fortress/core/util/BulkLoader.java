@@ -0,0 +1,499 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.directory.api.ldap.model.exception.LdapOperationException;
+import org.apache.directory.api.ldap.model.exception.LdapServiceUnavailableException;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.ldap.client.api.exception.InvalidConnectionException;
+import org.apache.directory.ldap.client.api.exception.LdapConnectionTimeOutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Applies one kind of administrative operation, i.e. add user or assign user, to many entities at once.  Used by
+ * {@link org.apache.directory.fortress.core.ant.FortressAntTask} to load its xml files and callable by programs that
+ * load data through the manager APIs.
+ * <p>
+ * Each call to {@link #run(String, Collection, Operation)} is one phase.  The entities are split into as many lanes
+ * as the loader's parallelism and the lanes are applied by that many threads, each borrowing its own connection
+ * from the admin pool, so the parallelism should not exceed {@code max.admin.conn}.  Entities with the same
+ * {@link Operation#getKey(Object)}, i.e. the same userId, are placed in the same lane and applied in the order they
+ * were given.  The call returns once every entity of the phase has been applied, so a phase that depends on
+ * another, i.e. the assignment of users to roles, is run after it.  With a parallelism of one the entities are
+ * applied in order on the calling thread.
+ * <p>
+ * An operation that fails because the directory could not be reached, was busy, or no connection could be borrowed
+ * from the pool is tried again up to {@code bulk.load.retries} times, waiting {@code bulk.load.retry.interval}
+ * milliseconds longer before each attempt.  Other failures are passed to {@link Operation#failed(Object, SecurityException)}
+ * and the phase carries on.  An operation whose write was applied before the failure was reported may then fail
+ * with a duplicate error on the next attempt.  The count, failures, retries and throughput of each phase are logged
+ * and returned as a {@link Result}.  If the calling thread is interrupted the phase returns without applying the
+ * entities left, which are counted by {@link Result#getUnapplied()}, and the thread's interrupt status is kept.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class BulkLoader
+{
+    private static final String CLS_NM = BulkLoader.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String PARALLELISM_PARM = "bulk.load.parallelism";
+    private static final String RETRIES_PARM = "bulk.load.retries";
+    private static final String RETRY_INTERVAL_PARM = "bulk.load.retry.interval";
+    private static final AtomicInteger POOL_SEQ = new AtomicInteger();
+
+    private final int parallelism;
+    private final int retries;
+    private final long retryInterval;
+
+
+    /**
+     * A single kind of operation applied to each entity of a phase.
+     *
+     * @param <T> type of entity.
+     */
+    public interface Operation<T>
+    {
+        /**
+         * Return the key that places the entity in its lane.  Entities with equal keys are applied in order, by the
+         * same thread.
+         *
+         * @param entity to be applied.
+         * @return String containing key, or null to place the entity in any lane.
+         */
+        String getKey( T entity );
+
+
+        /**
+         * Apply the operation to one entity.
+         *
+         * @param entity to be applied.
+         * @throws SecurityException if the operation failed.
+         */
+        void apply( T entity ) throws SecurityException;
+
+
+        /**
+         * Called once for an entity whose operation failed and was not tried again, or failed on every attempt.
+         *
+         * @param entity that failed.
+         * @param se the last exception thrown by {@link #apply(Object)}.
+         */
+        void failed( T entity, SecurityException se );
+    }
+
+
+    /**
+     * The outcome of one phase.
+     */
+    public static final class Result
+    {
+        private final String phase;
+        private final long count;
+        private final long failures;
+        private final long retries;
+        private final long elapsed;
+        private final long unapplied;
+
+
+        private Result( String phase, long count, long failures, long retries, long elapsed, long unapplied )
+        {
+            this.phase = phase;
+            this.count = count;
+            this.failures = failures;
+            this.retries = retries;
+            this.elapsed = elapsed;
+            this.unapplied = unapplied;
+        }
+
+
+        /**
+         * @return name of the phase.
+         */
+        public String getPhase()
+        {
+            return phase;
+        }
+
+
+        /**
+         * @return number of entities applied, including those that failed.
+         */
+        public long getCount()
+        {
+            return count;
+        }
+
+
+        /**
+         * @return number of entities that failed.
+         */
+        public long getFailures()
+        {
+            return failures;
+        }
+
+
+        /**
+         * @return number of attempts made again after a transient failure.
+         */
+        public long getRetries()
+        {
+            return retries;
+        }
+
+
+        /**
+         * @return time taken by the phase in milliseconds.
+         */
+        public long getElapsed()
+        {
+            return elapsed;
+        }
+
+
+        /**
+         * @return number of entities not applied because the phase was interrupted.
+         */
+        public long getUnapplied()
+        {
+            return unapplied;
+        }
+
+
+        /**
+         * @return true if every entity of the phase was applied.
+         */
+        public boolean isComplete()
+        {
+            return unapplied == 0;
+        }
+
+
+        /**
+         * @return entities applied per second.
+         */
+        public double getRate()
+        {
+            return elapsed == 0 ? count * 1000d : count * 1000d / elapsed;
+        }
+
+
+        @Override
+        public String toString()
+        {
+            return "phase=" + phase + " count=" + count + " failures=" + failures + " retries=" + retries
+                + " elapsed=" + elapsed + "ms rate=" + String.format( "%.1f", getRate() ) + "/s"
+                + ( unapplied > 0 ? " unapplied=" + unapplied : "" );
+        }
+    }
+
+
+    /**
+     * Create a loader that uses the {@code bulk.load.parallelism}, {@code bulk.load.retries} and
+     * {@code bulk.load.retry.interval} properties, defaults 1, 3 and 1000.
+     */
+    public BulkLoader()
+    {
+        this( Config.getInstance().getInt( PARALLELISM_PARM, 1 ) );
+    }
+
+
+    /**
+     * Create a loader that applies each phase with the given number of threads, and uses the {@code bulk.load.retries}
+     * and {@code bulk.load.retry.interval} properties.
+     *
+     * @param parallelism number of threads, values below one are taken as one.
+     */
+    public BulkLoader( int parallelism )
+    {
+        this( parallelism, Config.getInstance().getInt( RETRIES_PARM, 3 ),
+            Config.getInstance().getInt( RETRY_INTERVAL_PARM, 1000 ) );
+    }
+
+
+    /**
+     * Create a loader.
+     *
+     * @param parallelism number of threads, values below one are taken as one.
+     * @param retries number of times an operation is tried again after a transient failure.
+     * @param retryInterval milliseconds waited before the first retry, increased by as much before each one after.
+     */
+    public BulkLoader( int parallelism, int retries, long retryInterval )
+    {
+        this.parallelism = Math.max( 1, parallelism );
+        this.retries = Math.max( 0, retries );
+        this.retryInterval = Math.max( 0, retryInterval );
+    }
+
+
+    /**
+     * @return number of threads used to apply a phase.
+     */
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+
+    /**
+     * Apply the operation to every entity and return once all have been applied, or the calling thread is interrupted.
+     *
+     * @param phase name of the phase, used in the log.
+     * @param entities to be applied.
+     * @param operation to apply.
+     * @param <T> type of entity.
+     * @return the outcome of the phase, check {@link Result#isComplete()} for an interrupted phase.
+     */
+    public <T> Result run( String phase, Collection<T> entities, final Operation<T> operation )
+    {
+        long begin = System.currentTimeMillis();
+        final AtomicLong applied = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong retried = new AtomicLong();
+        int lanes = Math.min( parallelism, entities.size() );
+        if ( lanes <= 1 )
+        {
+            applyAll( entities, operation, applied, failures, retried );
+        }
+        else
+        {
+            runLanes( phase, split( entities, operation, lanes ), operation, applied, failures, retried );
+        }
+        // a lane stopped by the interrupt may still finish the entity it was applying, it is counted as unapplied:
+        long count = applied.get();
+        Result result = new Result( phase, count, failures.get(), retried.get(),
+            System.currentTimeMillis() - begin, entities.size() - count );
+        if ( !result.isComplete() )
+        {
+            LOG.warn( "run {} threads={} interrupted before it completed", result, lanes );
+        }
+        else if ( !entities.isEmpty() )
+        {
+            LOG.info( "run {} threads={}", result, lanes );
+        }
+        return result;
+    }
+
+
+    /**
+     * Place each entity in the lane selected by its key.  Entities without a key are dealt out in turn.
+     */
+    private <T> List<List<T>> split( Collection<T> entities, Operation<T> operation, int lanes )
+    {
+        List<List<T>> split = new ArrayList<>( lanes );
+        for ( int i = 0; i < lanes; i++ )
+        {
+            split.add( new ArrayList<T>( entities.size() / lanes + 1 ) );
+        }
+        int next = 0;
+        for ( T entity : entities )
+        {
+            String key = operation.getKey( entity );
+            int lane;
+            if ( key == null )
+            {
+                lane = next++ % lanes;
+            }
+            else
+            {
+                lane = Math.floorMod( key.toUpperCase().hashCode(), lanes );
+            }
+            split.get( lane ).add( entity );
+        }
+        return split;
+    }
+
+
+    private <T> void runLanes( String phase, List<List<T>> split, final Operation<T> operation,
+        final AtomicLong applied, final AtomicLong failures, final AtomicLong retried )
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( split.size(), new LaneThreadFactory( phase ) );
+        List<Future<Void>> futures = new ArrayList<>( split.size() );
+        try
+        {
+            for ( final List<T> lane : split )
+            {
+                futures.add( executor.submit( new Callable<Void>()
+                {
+                    @Override
+                    public Void call()
+                    {
+                        applyAll( lane, operation, applied, failures, retried );
+                        return null;
+                    }
+                } ) );
+            }
+            for ( Future<Void> future : futures )
+            {
+                future.get();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof RuntimeException )
+            {
+                throw ( RuntimeException ) e.getCause();
+            }
+            throw new IllegalStateException( "phase " + phase + " failed", e.getCause() );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+
+    private <T> void applyAll( Collection<T> entities, Operation<T> operation, AtomicLong applied,
+        AtomicLong failures, AtomicLong retried )
+    {
+        for ( T entity : entities )
+        {
+            if ( Thread.currentThread().isInterrupted() )
+            {
+                return;
+            }
+            if ( !apply( entity, operation, retried ) )
+            {
+                failures.incrementAndGet();
+            }
+            applied.incrementAndGet();
+        }
+    }
+
+
+    /**
+     * Apply the operation to one entity, trying again after a transient failure.
+     *
+     * @return true if the operation succeeded.
+     */
+    private <T> boolean apply( T entity, Operation<T> operation, AtomicLong retried )
+    {
+        for ( int attempt = 0; ; attempt++ )
+        {
+            try
+            {
+                operation.apply( entity );
+                return true;
+            }
+            catch ( SecurityException se )
+            {
+                if ( attempt >= retries || !isTransient( se ) )
+                {
+                    operation.failed( entity, se );
+                    return false;
+                }
+                retried.incrementAndGet();
+                LOG.debug( "apply attempt={} caught transient SecurityException={}", attempt + 1, se.getMessage() );
+                try
+                {
+                    TimeUnit.MILLISECONDS.sleep( retryInterval * ( attempt + 1 ) );
+                }
+                catch ( InterruptedException ie )
+                {
+                    Thread.currentThread().interrupt();
+                    operation.failed( entity, se );
+                    return false;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Return true if the exception was caused by the directory being unreachable or busy, or by the connection pool
+     * being exhausted, rather than by the entity or the state of the data.
+     */
+    private static boolean isTransient( Throwable t )
+    {
+        for ( Throwable cause = t; cause != null; cause = cause.getCause() )
+        {
+            if ( cause instanceof LdapServiceUnavailableException || cause instanceof LdapConnectionTimeOutException
+                || cause instanceof InvalidConnectionException || cause instanceof IOException
+                || cause instanceof NoSuchElementException )
+            {
+                return true;
+            }
+            if ( cause instanceof LdapOperationException )
+            {
+                ResultCodeEnum code = ( ( LdapOperationException ) cause ).getResultCode();
+                if ( code == ResultCodeEnum.BUSY || code == ResultCodeEnum.UNAVAILABLE
+                    || code == ResultCodeEnum.TIME_LIMIT_EXCEEDED )
+                {
+                    return true;
+                }
+            }
+            if ( cause.getCause() == cause )
+            {
+                break;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Names the threads of a phase and marks them as daemons so an unfinished phase doesn't keep the jvm running.
+     */
+    private static final class LaneThreadFactory implements ThreadFactory
+    {
+        private final String prefix;
+        private final AtomicInteger seq = new AtomicInteger();
+
+
+        private LaneThreadFactory( String phase )
+        {
+            this.prefix = "fortress-bulk-" + POOL_SEQ.incrementAndGet() + "-" + phase + "-";
+        }
+
+
+        @Override
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, prefix + seq.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
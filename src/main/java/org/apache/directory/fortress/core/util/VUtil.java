@@ -23,6 +23,7 @@ package org.apache.directory.fortress.core.util;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Properties;
@@ -41,6 +42,7 @@ import org.apache.directory.fortress.core.model.ObjectFactory;
 import org.apache.directory.fortress.core.model.Session;
 import org.apache.directory.fortress.core.model.UserRole;
 import org.apache.directory.fortress.core.model.Warning;
+import org.apache.directory.fortress.core.util.time.SessionMonitor;
 import org.apache.directory.fortress.core.util.time.TUtil;
 import org.apache.directory.fortress.core.util.time.Time;
 import org.apache.directory.fortress.core.util.time.Validator;
@@ -88,6 +90,7 @@ public final class VUtil implements ConstraintValidator
 
     private List<Validator> validators;
     private String DSDVALIDATOR;
+    private Validator dsdValidator;
 
     public static VUtil getInstance()
     {
@@ -119,6 +122,17 @@ public final class VUtil implements ConstraintValidator
         }
 
         DSDVALIDATOR = Config.getInstance().getProperty( GlobalIds.DSD_VALIDATOR_PROP );
+        if ( StringUtils.isNotEmpty( DSDVALIDATOR ) )
+        {
+            try
+            {
+                dsdValidator = ( Validator ) ClassUtil.createInstance( DSDVALIDATOR );
+            }
+            catch ( CfgException ex )
+            {
+                LOG.error( "static initialzier caught CfgException=" + ex.getMessage(), ex );
+            }
+        }
         String lengthProp = Config.getInstance().getProperty( VALIDATE_LENGTH );
 
         if ( lengthProp != null )
@@ -565,7 +579,14 @@ public final class VUtil implements ConstraintValidator
         String entityType = session.isGroupSession() ? "groupName" : "userId";
         int rc;
 
-        if ( validators == null )
+        SessionMonitor monitor = SessionMonitor.getInstance();
+        if ( !checkDsd && monitor != null && monitor.isCurrent( session, type ) )
+        {
+            // the monitor checks this session's constraints again when the next of them stops holding:
+            session.setLastAccess();
+            return;
+        }
+        else if ( validators == null )
         {
             if ( LOG.isDebugEnabled() )
             {
@@ -583,9 +604,10 @@ public final class VUtil implements ConstraintValidator
             }
             return;
         }
+        // every validator is evaluated against the same snapshot of the clock:
+        Time currTime = TUtil.getCurrentTime();
         for ( Validator val : validators )
         {
-            Time currTime = TUtil.getCurrentTime();
             // first check the constraint on the user:
             if ( type == ConstraintType.USER && !session.isGroupSession() )
             {
@@ -647,7 +669,8 @@ public final class VUtil implements ConstraintValidator
         if ( checkDsd && DSDVALIDATOR != null && DSDVALIDATOR.length() > 0 && type == ConstraintType.ROLE
             && CollectionUtils.isNotEmpty( session.getRoles() ) )
         {
-            Validator dsdVal = ( Validator ) ClassUtil.createInstance( DSDVALIDATOR );
+            // the instance created by init is reused, it is only constructed here if that failed:
+            Validator dsdVal = dsdValidator != null ? dsdValidator : ( Validator ) ClassUtil.createInstance( DSDVALIDATOR );
             if ( session.isGroupSession() )
             {
                 // pass session's group wrapped into constraint interface
@@ -660,6 +683,22 @@ public final class VUtil implements ConstraintValidator
         }
         // reset the user's last access timestamp:
         session.setLastAccess();
+        if ( monitor != null )
+        {
+            monitor.update( session, type );
+        }
+    }
+
+
+    /**
+     * Return the validators loaded from the {@code temporal.validator.*} properties, in the order they are called by
+     * {@link #validateConstraints(Session, ConstraintType, boolean)}.
+     *
+     * @return list of type {@link Validator}, empty if none have been configured.
+     */
+    public List<Validator> getConstraintValidators()
+    {
+        return validators == null ? Collections.<Validator>emptyList() : Collections.unmodifiableList( validators );
     }
 
 
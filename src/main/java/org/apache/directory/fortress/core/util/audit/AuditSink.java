@@ -0,0 +1,60 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.audit;
+
+
+import java.util.List;
+
+import org.apache.directory.fortress.core.SecurityException;
+
+
+/**
+ * Interface used by Fortress to provide pluggable destinations for authorization audit events.  When
+ * {@code audit.mode=async} is set, checkAccess places an {@link AuthZEvent} on a bounded queue and a background
+ * thread passes them, in batches, to the sink named by the {@code audit.sink} property.
+ * <p>
+ * <h4> Audit Sinks </h4>
+ * <ol>
+ * <li>Ldap compare (default): {@link org.apache.directory.fortress.core.impl.CompareAuditSink}</li>
+ * <li>Local file:             {@link FileAuditSink}</li>
+ * <li>Discard:                {@link NoOpAuditSink}</li>
+ * </ol>
+ * <p>
+ * Implementations must have a public, no argument constructor.  Calls to {@link #write(java.util.List)} are made by
+ * a single thread.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface AuditSink
+{
+    /**
+     * Record a batch of authorization events.
+     *
+     * @param events contains one or more events, in the order they occurred.
+     * @throws SecurityException in the event the batch could not be recorded.
+     */
+    void write( List<AuthZEvent> events ) throws SecurityException;
+
+
+    /**
+     * Release the resources held by this sink.  Called once when the process is shutting down.
+     */
+    void close();
+}
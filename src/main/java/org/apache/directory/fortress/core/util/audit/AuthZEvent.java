@@ -0,0 +1,130 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.audit;
+
+
+import java.io.Serializable;
+
+
+/**
+ * Contains the outcome of a single authorization decision made by checkAccess.  Events are passed to an
+ * {@link AuditSink} to record an audit trail of authorization attempts.
+ * <p>
+ * This class is immutable and thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class AuthZEvent implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+    private final String permDn;
+    private final String userDn;
+    private final String assertionValue;
+    private final String contextId;
+    private final boolean authorized;
+    private final long timestamp;
+
+
+    /**
+     * Create an event for an authorization attempt that occurred now.
+     *
+     * @param permDn contains distinguished name of the permission operation.
+     * @param userDn contains the distinguished name of the user object.
+     * @param assertionValue contains the operation name, with failure indicator appended if not authorized, that is asserted in the ldap compare.
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @param authorized contains the result of the authorization check.
+     */
+    public AuthZEvent( String permDn, String userDn, String assertionValue, String contextId, boolean authorized )
+    {
+        this.permDn = permDn;
+        this.userDn = userDn;
+        this.assertionValue = assertionValue;
+        this.contextId = contextId;
+        this.authorized = authorized;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+
+    /**
+     * @return distinguished name of the permission operation.
+     */
+    public String getPermDn()
+    {
+        return permDn;
+    }
+
+
+    /**
+     * @return distinguished name of the user that performed the check.
+     */
+    public String getUserDn()
+    {
+        return userDn;
+    }
+
+
+    /**
+     * @return value asserted against the {@code ftOpNm} attribute of the permission.
+     */
+    public String getAssertionValue()
+    {
+        return assertionValue;
+    }
+
+
+    /**
+     * @return the tenant id of the check.
+     */
+    public String getContextId()
+    {
+        return contextId;
+    }
+
+
+    /**
+     * @return true if the user was authorized.
+     */
+    public boolean isAuthorized()
+    {
+        return authorized;
+    }
+
+
+    /**
+     * @return time, in milliseconds since epoch, the check occurred.
+     */
+    public long getTimestamp()
+    {
+        return timestamp;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "AuthZEvent object: \n" +
+            "    permDn :" + permDn + "\n" +
+            "    userDn :" + userDn + "\n" +
+            "    assertionValue :" + assertionValue + "\n" +
+            "    contextId :" + contextId + "\n" +
+            "    authorized :" + authorized + "\n" +
+            "    timestamp :" + timestamp + "\n";
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.audit;
+
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.apache.directory.fortress.core.CfgRuntimeException;
+import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.util.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This sink appends authorization events to a local file, one line per event.  The file is named by the
+ * {@code audit.file} property and defaults to {@code fortress-authz-audit.log} in the working directory.
+ * <p>
+ * Each line contains these tab separated fields:
+ * <ol>
+ * <li>time of the check, in generalized time format, i.e. {@code 20161017103000.123Z}</li>
+ * <li>contextId</li>
+ * <li>{@code SUCCESS} or {@code FAILURE}</li>
+ * <li>user dn</li>
+ * <li>permission dn</li>
+ * <li>asserted operation name</li>
+ * </ol>
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class FileAuditSink implements AuditSink
+{
+    private static final String CLS_NM = FileAuditSink.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String AUDIT_FILE = "audit.file";
+    private static final String DEFAULT_AUDIT_FILE = "fortress-authz-audit.log";
+    private static final String DATE_FORMAT = "yyyyMMddHHmmss.SSS'Z'";
+    private static final char SEP = '\t';
+    private final Writer writer;
+    private final SimpleDateFormat formatter;
+
+
+    /**
+     * Open the file named by {@code audit.file} for append.
+     */
+    public FileAuditSink()
+    {
+        this( Config.getInstance().getProperty( AUDIT_FILE, DEFAULT_AUDIT_FILE ) );
+    }
+
+
+    /**
+     * Open the given file for append.
+     *
+     * @param fileName name of the file.
+     */
+    public FileAuditSink( String fileName )
+    {
+        try
+        {
+            writer = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( fileName, true ),
+                StandardCharsets.UTF_8 ) );
+        }
+        catch ( IOException e )
+        {
+            String error = "FileAuditSink could not open file [" + fileName + "] caught IOException=" + e.getMessage();
+            throw new CfgRuntimeException( GlobalErrIds.FT_AUDIT_SINK_INIT_FAILED, error, e );
+        }
+        formatter = new SimpleDateFormat( DATE_FORMAT );
+        formatter.setTimeZone( TimeZone.getTimeZone( "UTC" ) );
+        LOG.info( "FileAuditSink writing to file [{}]", fileName );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void write( List<AuthZEvent> events ) throws SecurityException
+    {
+        try
+        {
+            for ( AuthZEvent event : events )
+            {
+                writer.write( formatter.format( new Date( event.getTimestamp() ) ) );
+                writer.write( SEP );
+                writer.write( String.valueOf( event.getContextId() ) );
+                writer.write( SEP );
+                writer.write( event.isAuthorized() ? "SUCCESS" : "FAILURE" );
+                writer.write( SEP );
+                writer.write( String.valueOf( event.getUserDn() ) );
+                writer.write( SEP );
+                writer.write( String.valueOf( event.getPermDn() ) );
+                writer.write( SEP );
+                writer.write( String.valueOf( event.getAssertionValue() ) );
+                writer.write( '\n' );
+            }
+            writer.flush();
+        }
+        catch ( IOException e )
+        {
+            String error = "write caught IOException=" + e.getMessage();
+            throw new SecurityException( GlobalErrIds.FT_AUDIT_SINK_WRITE_FAILED, error, e );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close()
+    {
+        try
+        {
+            writer.close();
+        }
+        catch ( IOException e )
+        {
+            LOG.warn( "close caught IOException={}", e.getMessage() );
+        }
+    }
+}
@@ -41,6 +41,17 @@ public interface Cache
     Object get( Object key ) throws CacheException;
 
 
+    /**
+     * Given a key name, return the corresponding value without waiting for, or taking, the lock that {@link #get(Object)}
+     * holds on a key that was not found until the caller adds it.  The entry's access statistics are not updated.
+     *
+     * @param key is the name used to store the entry.
+     * @return entry stored in the cache, or null if not found.
+     * @throws CacheException will wraps the implementation's exception.
+     */
+    Object getQuiet( Object key ) throws CacheException;
+
+
     /**
      * Add a new entry to the cache.
      *
@@ -104,6 +104,36 @@ public class EhCacheImpl implements Cache
     }
 
 
+    /**
+     * Given a key name, return the corresponding value without waiting for, or taking, the lock that {@link #get(Object)}
+     * holds on a key that was not found until the caller adds it.
+     *
+     * @param key is the name used to store the entry.
+     * @return entry stored in the cache, or null if not found.
+     * @throws CacheException in the event ehcache throws an exception it will be wrapped.
+     */
+    @Override
+    public Object getQuiet( Object key ) throws CacheException
+    {
+        if ( cache == null )
+        {
+            String error = "getQuiet detected null cache name [" + name + "]";
+            throw new CacheException( GlobalErrIds.FT_NULL_CACHE, error );
+        }
+        try
+        {
+            Element element = cache.getQuiet( key );
+            return element != null ? element.getObjectValue() : null;
+        }
+        catch ( net.sf.ehcache.CacheException ce )
+        {
+            String error = "getQuiet cache name [" + name + "] key [" + key + "] caught CacheException="
+                + ce.getMessage();
+            throw new CacheException( GlobalErrIds.FT_CACHE_GET_ERR, error, ce );
+        }
+    }
+
+
     /**
      * Add a new entry to the cache.
      *
@@ -0,0 +1,234 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.util.Config;
+
+
+/**
+ * Keeps sessions in memory in the compact binary form of {@link SessionCodec}.  The store holds at most
+ * {@code session.store.size} sessions, default 10000.  When full, the session least recently used is evicted.
+ * <p>
+ * When {@code session.store.offheap} is true, default false, each session's bytes are held in a direct buffer outside the
+ * java heap, so a large store adds little to garbage collection.  Decoding then makes one extra copy.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class MemorySessionStore implements SessionStore
+{
+    private static final String SESSION_STORE_SIZE = "session.store.size";
+    private static final String SESSION_STORE_OFFHEAP = "session.store.offheap";
+
+    private static volatile MemorySessionStore sINSTANCE = null;
+
+    private final SessionCodec codec = new SessionCodec();
+    private final boolean isOffHeap;
+    // guarded by itself:
+    private final Map<String, Entry> entries;
+
+
+    /**
+     * Return the store configured by the fortress properties.
+     *
+     * @return MemorySessionStore shared by the managers of this process.
+     */
+    public static MemorySessionStore getInstance()
+    {
+        if ( sINSTANCE == null )
+        {
+            synchronized ( MemorySessionStore.class )
+            {
+                if ( sINSTANCE == null )
+                {
+                    sINSTANCE = new MemorySessionStore( Config.getInstance().getInt( SESSION_STORE_SIZE, 10000 ),
+                        Config.getInstance().getBoolean( SESSION_STORE_OFFHEAP, false ) );
+                }
+            }
+        }
+        return sINSTANCE;
+    }
+
+
+    /**
+     * @param maxSize   the most sessions held before the least recently used is evicted.
+     * @param isOffHeap if true, the sessions are held in direct buffers.
+     */
+    public MemorySessionStore( final int maxSize, boolean isOffHeap )
+    {
+        this.isOffHeap = isOffHeap;
+        this.entries = new LinkedHashMap<String, Entry>( 16, 0.75f, true )
+        {
+            private static final long serialVersionUID = 1L;
+
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, Entry> eldest )
+            {
+                return size() > maxSize;
+            }
+        };
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put( Session session )
+    {
+        Entry entry = encode( session );
+        synchronized ( entries )
+        {
+            entries.put( session.getSessionId(), entry );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean replace( Session session )
+    {
+        Entry entry = encode( session );
+        synchronized ( entries )
+        {
+            if ( !entries.containsKey( session.getSessionId() ) )
+            {
+                return false;
+            }
+            entries.put( session.getSessionId(), entry );
+            return true;
+        }
+    }
+
+
+    private Entry encode( Session session )
+    {
+        byte[] data = codec.encode( session );
+        if ( isOffHeap )
+        {
+            ByteBuffer buffer = ByteBuffer.allocateDirect( data.length );
+            buffer.put( data );
+            buffer.flip();
+            return new Entry( null, buffer, session.getLastAccess() );
+        }
+        return new Entry( data, null, session.getLastAccess() );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Session get( String sessionId )
+    {
+        Entry entry;
+        synchronized ( entries )
+        {
+            entry = entries.get( sessionId );
+        }
+        if ( entry == null )
+        {
+            return null;
+        }
+        byte[] data = entry.data;
+        if ( data == null )
+        {
+            data = new byte[entry.buffer.remaining()];
+            // a duplicate has its own position, so concurrent readers do not interfere:
+            entry.buffer.duplicate().get( data );
+        }
+        Session session = codec.decode( data );
+        session.setLastAccess( entry.lastAccess );
+        return session;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLastAccess( String sessionId, long lastAccess )
+    {
+        Entry entry;
+        synchronized ( entries )
+        {
+            entry = entries.get( sessionId );
+        }
+        if ( entry != null )
+        {
+            entry.lastAccess = lastAccess;
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove( String sessionId )
+    {
+        synchronized ( entries )
+        {
+            return entries.remove( sessionId ) != null;
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+        synchronized ( entries )
+        {
+            return entries.size();
+        }
+    }
+
+
+    /**
+     * The encoded session, on or off the heap, and its last access time which changes on every use.
+     */
+    private static final class Entry
+    {
+        private final byte[] data;
+        private final ByteBuffer buffer;
+        private volatile long lastAccess;
+
+
+        private Entry( byte[] data, ByteBuffer buffer, long lastAccess )
+        {
+            this.data = data;
+            this.buffer = buffer;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,513 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.directory.fortress.core.model.Constraint;
+import org.apache.directory.fortress.core.model.Group;
+import org.apache.directory.fortress.core.model.RoleConstraint;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserAdminRole;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.model.Warning;
+
+
+/**
+ * Converts the authorization state of a {@link Session} to and from a compact binary form.  Integers are written as
+ * variable length values.  Role names, ou names, contextIds and constraint values, which repeat across sessions, are
+ * replaced by ids into a symbol table shared by every session encoded with the same codec.  Entries are never removed,
+ * so the ids in stored sessions stay valid, and the table holds at most 65536 values.  Once it is full, values that are
+ * not in it are written in full.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class SessionCodec
+{
+    private static final int VERSION = 1;
+    private static final int AUTHENTICATED = 1;
+    private static final int GROUP_SESSION = 1 << 1;
+    private static final int GROUP_ROLE = 1;
+    private static final int ADMIN_ROLE = 1 << 1;
+    private static final int BEGIN_INCLUSIVE = 1 << 2;
+    private static final int END_INCLUSIVE = 1 << 3;
+    private static final int MAX_SYMBOLS = 1 << 16;
+    // written in place of an id, followed by the value:
+    private static final int INLINE = -1;
+
+    private final int maxSymbols;
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    // id 0 is null, guarded by symbolIds for writes:
+    private volatile String[] symbols;
+    private int symbolCount = 1;
+
+
+    SessionCodec()
+    {
+        this( MAX_SYMBOLS );
+    }
+
+
+    /**
+     * @param maxSymbols the most entries held by the symbol table, including the one for null.
+     */
+    SessionCodec( int maxSymbols )
+    {
+        this.maxSymbols = maxSymbols;
+        this.symbols = new String[Math.min( 256, maxSymbols )];
+    }
+
+
+    /**
+     * @param session contains the user or group and the roles activated.
+     * @return encoded session.
+     */
+    byte[] encode( Session session )
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream( 256 );
+            DataOutputStream out = new DataOutputStream( bytes );
+            out.writeByte( VERSION );
+            writeString( out, session.getSessionId() );
+            out.writeByte( ( session.isAuthenticated() ? AUTHENTICATED : 0 ) | ( session.isGroupSession() ? GROUP_SESSION : 0 ) );
+            writeInt( out, session.getErrorId() );
+            writeInt( out, session.getGraceLogins() );
+            writeInt( out, session.getExpirationSeconds() );
+            writeString( out, session.getMsg() );
+            writeWarnings( out, session.getWarnings() );
+            if ( session.isGroupSession() )
+            {
+                Group group = session.getGroup();
+                writeSymbol( out, group.getName() );
+                writeSymbol( out, group.getContextId() );
+                writeRoles( out, group.getRoles() );
+            }
+            else
+            {
+                User user = session.getUser();
+                writeString( out, user.getUserId() );
+                writeString( out, user.getInternalId() );
+                writeSymbol( out, user.getOu() );
+                writeSymbol( out, user.getContextId() );
+                writeConstraint( out, user );
+                writeRoles( out, user.getRoles() );
+                writeRoles( out, user.getAdminRoles() );
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+        catch ( IOException e )
+        {
+            // not thrown by a byte array stream:
+            throw new IllegalStateException( e );
+        }
+    }
+
+
+    /**
+     * @param data as returned by {@link #encode(Session)}.
+     * @return new Session.
+     */
+    Session decode( byte[] data )
+    {
+        try
+        {
+            DataInputStream in = new DataInputStream( new ByteArrayInputStream( data ) );
+            int version = in.readUnsignedByte();
+            if ( version != VERSION )
+            {
+                throw new IllegalStateException( "decode unsupported version [" + version + "]" );
+            }
+            String sessionId = readString( in );
+            int flags = in.readUnsignedByte();
+            int errorId = readInt( in );
+            int graceLogins = readInt( in );
+            int expirationSeconds = readInt( in );
+            String message = readString( in );
+            List<Warning> warnings = readWarnings( in );
+            Session session;
+            if ( ( flags & GROUP_SESSION ) != 0 )
+            {
+                Group group = new Group( readSymbol( in ) );
+                group.setContextId( readSymbol( in ) );
+                group.setRoles( readRoles( in, group.getName() ) );
+                session = new Session( group, sessionId );
+            }
+            else
+            {
+                User user = new User();
+                user.setUserId( readString( in ) );
+                user.setInternalId( readString( in ) );
+                user.setOu( readSymbol( in ) );
+                user.setContextId( readSymbol( in ) );
+                readConstraint( in, user );
+                List<UserRole> roles = readRoles( in, user.getUserId() );
+                user.setRoles( roles );
+                List<UserAdminRole> adminRoles = new ArrayList<>();
+                for ( UserRole role : readRoles( in, user.getUserId() ) )
+                {
+                    adminRoles.add( ( UserAdminRole ) role );
+                }
+                user.setAdminRoles( adminRoles );
+                session = new Session( user, sessionId );
+            }
+            session.setAuthenticated( ( flags & AUTHENTICATED ) != 0 );
+            session.setErrorId( errorId );
+            session.setGraceLogins( graceLogins );
+            session.setExpirationSeconds( expirationSeconds );
+            session.setMsg( message );
+            session.setWarnings( warnings );
+            return session;
+        }
+        catch ( IOException e )
+        {
+            throw new IllegalStateException( "decode caught IOException=" + e.getMessage(), e );
+        }
+    }
+
+
+    private void writeWarnings( DataOutputStream out, List<Warning> warnings ) throws IOException
+    {
+        if ( warnings == null )
+        {
+            writeInt( out, -1 );
+            return;
+        }
+        writeInt( out, warnings.size() );
+        for ( Warning warning : warnings )
+        {
+            writeInt( out, warning.getId() );
+            writeString( out, warning.getMsg() );
+            writeSymbol( out, warning.getName() );
+            writeInt( out, warning.getType() == null ? -1 : warning.getType().ordinal() );
+        }
+    }
+
+
+    private List<Warning> readWarnings( DataInputStream in ) throws IOException
+    {
+        int size = readInt( in );
+        if ( size < 0 )
+        {
+            return null;
+        }
+        List<Warning> warnings = new ArrayList<>( size );
+        for ( int i = 0; i < size; i++ )
+        {
+            int id = readInt( in );
+            String msg = readString( in );
+            String name = readSymbol( in );
+            int type = readInt( in );
+            warnings.add( new Warning( id, msg, type < 0 ? null : Warning.Type.values()[type], name ) );
+        }
+        return warnings;
+    }
+
+
+    private void writeRoles( DataOutputStream out, List<? extends UserRole> roles ) throws IOException
+    {
+        if ( roles == null )
+        {
+            writeInt( out, -1 );
+            return;
+        }
+        writeInt( out, roles.size() );
+        for ( UserRole role : roles )
+        {
+            boolean isAdmin = role instanceof UserAdminRole;
+            int flags = ( role.isGroupRole() ? GROUP_ROLE : 0 ) | ( isAdmin ? ADMIN_ROLE : 0 );
+            if ( isAdmin )
+            {
+                UserAdminRole adminRole = ( UserAdminRole ) role;
+                flags |= ( adminRole.isBeginInclusive() ? BEGIN_INCLUSIVE : 0 ) | ( adminRole.isEndInclusive() ? END_INCLUSIVE : 0 );
+            }
+            out.writeByte( flags );
+            writeSymbol( out, role.getName() );
+            writeSymbol( out, role.getContextId() );
+            writeConstraint( out, role );
+            writeSymbols( out, role.getParents() );
+            writeRoleConstraints( out, role.getRoleConstraints() );
+            if ( isAdmin )
+            {
+                UserAdminRole adminRole = ( UserAdminRole ) role;
+                writeSymbols( out, adminRole.getOsPSet() );
+                writeSymbols( out, adminRole.getOsUSet() );
+                writeSymbol( out, adminRole.getBeginRange() );
+                writeSymbol( out, adminRole.getEndRange() );
+            }
+        }
+    }
+
+
+    private List<UserRole> readRoles( DataInputStream in, String userId ) throws IOException
+    {
+        int size = readInt( in );
+        if ( size < 0 )
+        {
+            return null;
+        }
+        List<UserRole> roles = new ArrayList<>( size );
+        for ( int i = 0; i < size; i++ )
+        {
+            int flags = in.readUnsignedByte();
+            boolean isAdmin = ( flags & ADMIN_ROLE ) != 0;
+            UserRole role = isAdmin ? new UserAdminRole() : new UserRole();
+            role.setUserId( userId );
+            role.setGroupRole( ( flags & GROUP_ROLE ) != 0 );
+            role.setName( readSymbol( in ) );
+            role.setContextId( readSymbol( in ) );
+            readConstraint( in, role );
+            role.setParents( readSymbols( in ) );
+            role.setRoleConstraints( readRoleConstraints( in ) );
+            if ( isAdmin )
+            {
+                UserAdminRole adminRole = ( UserAdminRole ) role;
+                adminRole.setOsPSet( readSymbols( in ) );
+                adminRole.setOsUSet( readSymbols( in ) );
+                adminRole.setBeginRange( readSymbol( in ) );
+                adminRole.setEndRange( readSymbol( in ) );
+                adminRole.setBeginInclusive( ( flags & BEGIN_INCLUSIVE ) != 0 );
+                adminRole.setEndInclusive( ( flags & END_INCLUSIVE ) != 0 );
+            }
+            roles.add( role );
+        }
+        return roles;
+    }
+
+
+    private void writeRoleConstraints( DataOutputStream out, List<RoleConstraint> constraints ) throws IOException
+    {
+        if ( constraints == null )
+        {
+            writeInt( out, -1 );
+            return;
+        }
+        writeInt( out, constraints.size() );
+        for ( RoleConstraint constraint : constraints )
+        {
+            writeString( out, constraint.getId() );
+            writeInt( out, constraint.getType() == null ? -1 : constraint.getType().ordinal() );
+            writeString( out, constraint.getValue() );
+            writeSymbol( out, constraint.getPaSetName() );
+        }
+    }
+
+
+    private List<RoleConstraint> readRoleConstraints( DataInputStream in ) throws IOException
+    {
+        int size = readInt( in );
+        if ( size < 0 )
+        {
+            return null;
+        }
+        List<RoleConstraint> constraints = new ArrayList<>( size );
+        for ( int i = 0; i < size; i++ )
+        {
+            String id = readString( in );
+            int type = readInt( in );
+            String value = readString( in );
+            String paSetName = readSymbol( in );
+            constraints.add( new RoleConstraint( id, value, type < 0 ? null : RoleConstraint.RCType.values()[type], paSetName ) );
+        }
+        return constraints;
+    }
+
+
+    private void writeConstraint( DataOutputStream out, Constraint constraint ) throws IOException
+    {
+        Integer timeout = constraint.getTimeout();
+        writeInt( out, timeout == null ? -1 : timeout );
+        writeSymbol( out, constraint.getBeginTime() );
+        writeSymbol( out, constraint.getEndTime() );
+        writeSymbol( out, constraint.getBeginDate() );
+        writeSymbol( out, constraint.getEndDate() );
+        writeSymbol( out, constraint.getBeginLockDate() );
+        writeSymbol( out, constraint.getEndLockDate() );
+        writeSymbol( out, constraint.getDayMask() );
+    }
+
+
+    private void readConstraint( DataInputStream in, Constraint constraint ) throws IOException
+    {
+        int timeout = readInt( in );
+        if ( timeout >= 0 )
+        {
+            constraint.setTimeout( timeout );
+        }
+        constraint.setBeginTime( readSymbol( in ) );
+        constraint.setEndTime( readSymbol( in ) );
+        constraint.setBeginDate( readSymbol( in ) );
+        constraint.setEndDate( readSymbol( in ) );
+        constraint.setBeginLockDate( readSymbol( in ) );
+        constraint.setEndLockDate( readSymbol( in ) );
+        constraint.setDayMask( readSymbol( in ) );
+    }
+
+
+    private void writeSymbols( DataOutputStream out, Set<String> values ) throws IOException
+    {
+        if ( values == null )
+        {
+            writeInt( out, -1 );
+            return;
+        }
+        writeInt( out, values.size() );
+        for ( String value : values )
+        {
+            writeSymbol( out, value );
+        }
+    }
+
+
+    private Set<String> readSymbols( DataInputStream in ) throws IOException
+    {
+        int size = readInt( in );
+        if ( size < 0 )
+        {
+            return null;
+        }
+        Set<String> values = new HashSet<>();
+        for ( int i = 0; i < size; i++ )
+        {
+            values.add( readSymbol( in ) );
+        }
+        return values;
+    }
+
+
+    private void writeSymbol( DataOutputStream out, String value ) throws IOException
+    {
+        int id = getSymbolId( value );
+        writeInt( out, id );
+        if ( id == INLINE )
+        {
+            out.writeUTF( value );
+        }
+    }
+
+
+    private String readSymbol( DataInputStream in ) throws IOException
+    {
+        int id = readInt( in );
+        return id == INLINE ? in.readUTF() : symbols[id];
+    }
+
+
+    /**
+     * Return the id of a value, which is added to the table if it is not full.
+     */
+    private int getSymbolId( String value )
+    {
+        if ( value == null )
+        {
+            return 0;
+        }
+        Integer id = symbolIds.get( value );
+        if ( id == null )
+        {
+            synchronized ( symbolIds )
+            {
+                id = symbolIds.get( value );
+                if ( id == null )
+                {
+                    if ( symbolCount == maxSymbols )
+                    {
+                        return INLINE;
+                    }
+                    String[] table = symbols;
+                    if ( symbolCount == table.length )
+                    {
+                        String[] grown = new String[Math.min( table.length * 2, maxSymbols )];
+                        System.arraycopy( table, 0, grown, 0, table.length );
+                        table = grown;
+                    }
+                    id = symbolCount++;
+                    table[id] = value;
+                    // publishes the new entry to readers:
+                    symbols = table;
+                    symbolIds.put( value, id );
+                }
+            }
+        }
+        return id;
+    }
+
+
+    private static void writeString( DataOutputStream out, String value ) throws IOException
+    {
+        out.writeBoolean( value != null );
+        if ( value != null )
+        {
+            out.writeUTF( value );
+        }
+    }
+
+
+    private static String readString( DataInputStream in ) throws IOException
+    {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+
+    /**
+     * Zigzag encoded so small negative values take one byte as well, seven bits to a byte.
+     */
+    private static void writeInt( DataOutputStream out, int value ) throws IOException
+    {
+        int zigzag = ( value << 1 ) ^ ( value >> 31 );
+        while ( ( zigzag & ~0x7F ) != 0 )
+        {
+            out.writeByte( ( zigzag & 0x7F ) | 0x80 );
+            zigzag >>>= 7;
+        }
+        out.writeByte( zigzag );
+    }
+
+
+    private static int readInt( DataInputStream in ) throws IOException
+    {
+        int zigzag = 0;
+        for ( int shift = 0;; shift += 7 )
+        {
+            int b = in.readUnsignedByte();
+            zigzag |= ( b & 0x7F ) << shift;
+            if ( ( b & 0x80 ) == 0 )
+            {
+                break;
+            }
+        }
+        return ( zigzag >>> 1 ) ^ -( zigzag & 1 );
+    }
+}
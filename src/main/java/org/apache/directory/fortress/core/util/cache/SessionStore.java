@@ -0,0 +1,91 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+
+import org.apache.directory.fortress.core.model.Session;
+
+
+/**
+ * Holds sessions on the server so that clients need only keep their session id, {@link Session#getSessionId()}, and
+ * pass it to the session id methods of {@link org.apache.directory.fortress.core.AccessMgr}.
+ * <p>
+ * A store holds the authorization state of each session: the user's id, internal id, ou and temporal constraints, or the
+ * group's name, and the roles and admin roles activated with their constraints.  The user's other attributes, i.e.
+ * address, phones, photo and properties, are not kept.
+ * <p>
+ * Implementations must be thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface SessionStore
+{
+    /**
+     * Add a session, or replace the one stored with the same id.
+     *
+     * @param session contains the session id along with the user or group and the roles activated.
+     */
+    void put( Session session );
+
+
+    /**
+     * Store a session again only if one with the same id is still stored.  Used to write back a session after it was
+     * read and changed, so that a session removed in the meantime is not brought back.
+     *
+     * @param session contains the session id along with the user or group and the roles activated.
+     * @return true if the session was found and replaced.
+     */
+    boolean replace( Session session );
+
+
+    /**
+     * Return a copy of a stored session.  Changes made to it are not kept until it is passed to {@link #put(Session)}.
+     *
+     * @param sessionId as returned by {@link Session#getSessionId()}.
+     * @return Session or null if not found, i.e. it was removed or evicted.
+     */
+    Session get( String sessionId );
+
+
+    /**
+     * Record the time a stored session was last used, without storing the session again.
+     *
+     * @param sessionId as returned by {@link Session#getSessionId()}.
+     * @param lastAccess milliseconds since January 1, 1970 UTC.
+     */
+    void setLastAccess( String sessionId, long lastAccess );
+
+
+    /**
+     * Remove a session.
+     *
+     * @param sessionId as returned by {@link Session#getSessionId()}.
+     * @return true if the session was found and removed.
+     */
+    boolean remove( String sessionId );
+
+
+    /**
+     * Return the number of sessions stored.
+     *
+     * @return int containing count.
+     */
+    int size();
+}
@@ -0,0 +1,78 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.CfgException;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.util.ClassUtil;
+import org.apache.directory.fortress.core.util.Config;
+
+
+/**
+ * Creates the {@link SessionStore} shared by the {@link org.apache.directory.fortress.core.AccessMgr} instances of this
+ * process.  If {@link GlobalIds#SESSION_STORE_IMPLEMENTATION} is placed in Fortress properties its class, which must have
+ * a public default constructor, is used, else {@link MemorySessionStore}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class SessionStoreFactory
+{
+    private static volatile SessionStore sINSTANCE = null;
+
+
+    /**
+     * Private constructor
+     */
+    private SessionStoreFactory()
+    {
+    }
+
+
+    /**
+     * Return the session store, which is created on first use.
+     *
+     * @return instance of {@link SessionStore}.
+     * @throws CfgException in the event the configured class cannot be instantiated.
+     */
+    public static SessionStore getInstance() throws CfgException
+    {
+        if ( sINSTANCE == null )
+        {
+            synchronized ( SessionStoreFactory.class )
+            {
+                if ( sINSTANCE == null )
+                {
+                    String storeClassName = Config.getInstance().getProperty( GlobalIds.SESSION_STORE_IMPLEMENTATION );
+                    if ( StringUtils.isEmpty( storeClassName ) )
+                    {
+                        sINSTANCE = MemorySessionStore.getInstance();
+                    }
+                    else
+                    {
+                        sINSTANCE = ( SessionStore ) ClassUtil.createInstance( storeClassName );
+                    }
+                }
+            }
+        }
+        return sINSTANCE;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.time;
+
+
+import org.apache.directory.fortress.core.model.Constraint;
+import org.apache.directory.fortress.core.model.Session;
+
+
+/**
+ * Implemented by the {@link Validator}s whose result only changes at times that can be known in advance: {@link ClockTime},
+ * {@link Date}, {@link Day}, {@link LockDate} and {@link Timeout}.  {@link SessionMonitor} uses it to check a session's
+ * constraints again at the moment one of them stops holding, rather than on every request.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface BoundaryValidator extends Validator
+{
+    /**
+     * Return the first time, from the given one on, at which {@link #validate} will fail for the constraint.
+     *
+     * @param session    contains the last access time.
+     * @param constraint contains the temporal attributes.
+     * @param time       contains the current time.
+     * @return milliseconds since January 1, 1970 UTC.  The current time if validation already fails, {@link Long#MAX_VALUE}
+     * if it never will.
+     */
+    long getNextBoundary( Session session, Constraint constraint, Time time );
+}
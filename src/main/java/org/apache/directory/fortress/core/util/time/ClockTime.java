@@ -21,7 +21,6 @@ package org.apache.directory.fortress.core.util.time;
 
 
 import org.apache.directory.fortress.core.GlobalErrIds;
-import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.model.Constraint;
 import org.apache.directory.fortress.core.model.Session;
 import org.apache.directory.fortress.core.util.VUtil;
@@ -44,7 +43,7 @@ import org.apache.directory.fortress.core.util.VUtil;
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class ClockTime
-    implements Validator
+    implements BoundaryValidator
 {
     /**
      * This method is called during entity activation, {@link org.apache.directory.fortress.core.util.VUtil#validateConstraints} and ensures the current time is
@@ -61,30 +60,22 @@ public class ClockTime
     {
         int rc = GlobalErrIds.ACTV_FAILED_TIME;
 
-        if ( ( constraint.getBeginTime() == null )
-            || ( constraint.getBeginTime().compareToIgnoreCase( GlobalIds.NONE ) == 0 ) )
+        // begin time of null or 'none', or begin and end times of '0000', pass:
+        if ( CompiledConstraint.of( constraint ).isTimeAllowed( time ) )
         {
             rc = 0;
         }
-        else
-        {
-            Integer beginTime = Integer.valueOf( constraint.getBeginTime() );
-            Integer endTime = Integer.valueOf( constraint.getEndTime() );
-
-            if ( ( beginTime == 0 ) && ( endTime == 0 ) )
-            {
-                rc = 0;
-            }
-            else
-            {
-                if ( beginTime.compareTo( time.currentTime ) <= 0
-                    && endTime.compareTo( time.currentTime ) >= 0 )
-                {
-                    rc = 0;
-                }
-            }
-        }
 
         return rc;
     }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getNextBoundary( Session session, Constraint constraint, Time time )
+    {
+        return TUtil.toMillis( CompiledConstraint.of( constraint ).getTimeBoundary( time ) );
+    }
 }
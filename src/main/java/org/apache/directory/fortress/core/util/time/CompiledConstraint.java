@@ -0,0 +1,318 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.time;
+
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.model.Constraint;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+
+
+/**
+ * Temporal attributes of a {@link Constraint} converted once into the numeric form compared by the {@link ClockTime},
+ * {@link Date}, {@link Day} and {@link LockDate} validators.  Times are held as minutes since midnight, dates as days
+ * since the epoch and the day mask as a bitmask with bit 1 for Sunday through bit 7 for Saturday.
+ * <p>
+ * Attributes that are not set, or are set to {@link GlobalIds#NONE} or {@link GlobalIds#ALL}, compile to a range that
+ * disables the check, the same as the validators treat them.  Values that cannot be parsed compile to a range that
+ * fails the check.
+ * <p>
+ * This class is immutable and thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class CompiledConstraint
+{
+    private static final int ALL_DAYS = 0xFE;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final int beginTime;
+    private final int endTime;
+    private final long beginDate;
+    private final long endDate;
+    private final long beginLockDate;
+    private final long endLockDate;
+    private final int dayMask;
+
+
+    /**
+     * Private constructor, use {@link #compile(Constraint)}.
+     */
+    private CompiledConstraint( Constraint constraint )
+    {
+        int[] times = compileTimes( constraint.getBeginTime(), constraint.getEndTime() );
+        beginTime = times[0];
+        endTime = times[1];
+
+        beginDate = isDisabled( constraint.getBeginDate() ) ? Long.MIN_VALUE : toEpochDay( constraint.getBeginDate(), Long.MAX_VALUE );
+        endDate = isDisabled( constraint.getEndDate() ) ? Long.MAX_VALUE : toEpochDay( constraint.getEndDate(), Long.MIN_VALUE );
+
+        if ( isDisabled( constraint.getBeginLockDate() ) || isDisabled( constraint.getEndLockDate() ) )
+        {
+            // an empty window never locks:
+            beginLockDate = Long.MAX_VALUE;
+            endLockDate = Long.MIN_VALUE;
+        }
+        else
+        {
+            beginLockDate = toEpochDay( constraint.getBeginLockDate(), Long.MIN_VALUE );
+            endLockDate = toEpochDay( constraint.getEndLockDate(), Long.MAX_VALUE );
+        }
+
+        dayMask = compileDayMask( constraint.getDayMask() );
+    }
+
+
+    /**
+     * Convert the temporal attributes of the constraint.
+     *
+     * @param constraint contains the begin and end times, dates, lock dates and day mask.
+     * @return CompiledConstraint reflecting the constraint's current values.
+     */
+    public static CompiledConstraint compile( Constraint constraint )
+    {
+        return new CompiledConstraint( constraint );
+    }
+
+
+    /**
+     * Return the compiled form of the constraint.  {@link User} and {@link UserRole} entities keep theirs from the time
+     * they were loaded until a temporal attribute is changed, all others are converted on every call.
+     *
+     * @param constraint contains the temporal attributes.
+     * @return CompiledConstraint reflecting the constraint's current values.
+     */
+    public static CompiledConstraint of( Constraint constraint )
+    {
+        if ( constraint instanceof UserRole )
+        {
+            return ( ( UserRole ) constraint ).getCompiledConstraint();
+        }
+        else if ( constraint instanceof User )
+        {
+            return ( ( User ) constraint ).getCompiledConstraint();
+        }
+        return compile( constraint );
+    }
+
+
+    /**
+     * @param time contains the current time.
+     * @return true if the current time of day falls between the begin and end times.
+     */
+    public boolean isTimeAllowed( Time time )
+    {
+        return beginTime <= time.minuteOfDay && endTime >= time.minuteOfDay;
+    }
+
+
+    /**
+     * @param time contains the current date.
+     * @return true if the current date falls between the begin and end dates.
+     */
+    public boolean isDateAllowed( Time time )
+    {
+        return beginDate <= time.epochDay && endDate >= time.epochDay;
+    }
+
+
+    /**
+     * @param time contains the current day of week.
+     * @return true if the current day is contained within the day mask.
+     */
+    public boolean isDayAllowed( Time time )
+    {
+        return ( dayMask & ( 1 << time.dayOfWeek ) ) != 0;
+    }
+
+
+    /**
+     * @param time contains the current date.
+     * @return true if the current date falls between the begin and end lock dates.
+     */
+    public boolean isLocked( Time time )
+    {
+        return beginLockDate <= time.epochDay && endLockDate >= time.epochDay;
+    }
+
+
+    /**
+     * @param time contains the current time.
+     * @return local minutes since January 1, 1970 of the first minute at which the time check fails, the current minute
+     * if it already does, or {@link Long#MAX_VALUE} if it never will.
+     */
+    public long getTimeBoundary( Time time )
+    {
+        long today = time.epochDay * MINUTES_PER_DAY;
+        if ( !isTimeAllowed( time ) )
+        {
+            return today + time.minuteOfDay;
+        }
+        else if ( endTime < MINUTES_PER_DAY - 1 )
+        {
+            return today + endTime + 1;
+        }
+        else if ( beginTime > 0 )
+        {
+            // a window that runs to midnight is closed the next day until its begin time:
+            return today + MINUTES_PER_DAY;
+        }
+        return Long.MAX_VALUE;
+    }
+
+
+    /**
+     * @param time contains the current date.
+     * @return local minutes since January 1, 1970 of the first minute at which the date check fails, the current minute
+     * if it already does, or {@link Long#MAX_VALUE} if it never will.
+     */
+    public long getDateBoundary( Time time )
+    {
+        if ( !isDateAllowed( time ) )
+        {
+            return time.epochDay * MINUTES_PER_DAY + time.minuteOfDay;
+        }
+        else if ( endDate != Long.MAX_VALUE )
+        {
+            return ( endDate + 1 ) * MINUTES_PER_DAY;
+        }
+        return Long.MAX_VALUE;
+    }
+
+
+    /**
+     * @param time contains the current day of week.
+     * @return local minutes since January 1, 1970 of the first minute at which the day check fails, the current minute
+     * if it already does, or {@link Long#MAX_VALUE} if it never will.
+     */
+    public long getDayBoundary( Time time )
+    {
+        long today = time.epochDay * MINUTES_PER_DAY;
+        if ( !isDayAllowed( time ) )
+        {
+            return today + time.minuteOfDay;
+        }
+        for ( int i = 1; i < 7; i++ )
+        {
+            if ( ( dayMask & ( 1 << ( ( time.dayOfWeek - 1 + i ) % 7 + 1 ) ) ) == 0 )
+            {
+                return today + i * MINUTES_PER_DAY;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+
+    /**
+     * @param time contains the current date.
+     * @return local minutes since January 1, 1970 of the first minute at which the lock date check fails, the current
+     * minute if it already does, or {@link Long#MAX_VALUE} if it never will.
+     */
+    public long getLockBoundary( Time time )
+    {
+        if ( isLocked( time ) )
+        {
+            return time.epochDay * MINUTES_PER_DAY + time.minuteOfDay;
+        }
+        else if ( beginLockDate <= endLockDate && beginLockDate > time.epochDay )
+        {
+            return beginLockDate * MINUTES_PER_DAY;
+        }
+        return Long.MAX_VALUE;
+    }
+
+
+    /**
+     * The time check passes if begin time is not set, or both times are '0000'.
+     */
+    private static int[] compileTimes( String szBeginTime, String szEndTime )
+    {
+        int[] times = new int[]{ 0, Integer.MAX_VALUE };
+        if ( !isDisabled( szBeginTime ) )
+        {
+            try
+            {
+                int begin = Integer.parseInt( szBeginTime );
+                int end = Integer.parseInt( szEndTime );
+                if ( begin != 0 || end != 0 )
+                {
+                    times[0] = toMinuteOfDay( begin );
+                    times[1] = toMinuteOfDay( end );
+                }
+            }
+            catch ( NumberFormatException e )
+            {
+                times[0] = Integer.MAX_VALUE;
+                times[1] = Integer.MIN_VALUE;
+            }
+        }
+        return times;
+    }
+
+
+    private static int toMinuteOfDay( int hhmm )
+    {
+        return hhmm / 100 * 60 + hhmm % 100;
+    }
+
+
+    private static long toEpochDay( String szDate, long invalid )
+    {
+        try
+        {
+            return LocalDate.parse( szDate, DATE_FORMAT ).toEpochDay();
+        }
+        catch ( DateTimeParseException e )
+        {
+            return invalid;
+        }
+    }
+
+
+    private static int compileDayMask( String szDayMask )
+    {
+        if ( szDayMask == null || szDayMask.compareToIgnoreCase( GlobalIds.ALL ) == 0 )
+        {
+            return ALL_DAYS;
+        }
+        int mask = 0;
+        for ( int i = 0; i < szDayMask.length(); i++ )
+        {
+            char day = szDayMask.charAt( i );
+            if ( day >= '1' && day <= '7' )
+            {
+                mask |= 1 << ( day - '0' );
+            }
+        }
+        return mask;
+    }
+
+
+    private static boolean isDisabled( String value )
+    {
+        return value == null || value.compareToIgnoreCase( GlobalIds.NONE ) == 0;
+    }
+}
@@ -20,7 +20,6 @@
 package org.apache.directory.fortress.core.util.time;
 
 import org.apache.directory.fortress.core.GlobalErrIds;
-import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.model.Constraint;
 import org.apache.directory.fortress.core.model.Session;
 import org.apache.directory.fortress.core.util.VUtil;
@@ -41,7 +40,7 @@ import org.apache.directory.fortress.core.util.VUtil;
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class Date
-    implements Validator
+    implements BoundaryValidator
 {
     /**
      * This method is called during entity activation, {@link org.apache.directory.fortress.core.util.VUtil#validateConstraints} and ensures the current date is
@@ -62,43 +61,21 @@ public class Date
     public int validate(Session session, Constraint constraint, Time time, VUtil.ConstraintType type )
     {
         int rc = GlobalErrIds.ACTV_FAILED_DATE;
-        boolean noBegin = false;
-        boolean noEnd = false;
-        if (constraint.getBeginDate() == null || constraint.getBeginDate().compareToIgnoreCase(GlobalIds.NONE) == 0)
-        {
-            noBegin = true;
-        }
-        if (constraint.getEndDate() == null || constraint.getEndDate().compareToIgnoreCase(GlobalIds.NONE) == 0)
-        {
-            noEnd = true;
-        }
-        if(noBegin && noEnd)
+        // begin or end date of null or 'none' disables the corresponding check:
+        if (CompiledConstraint.of(constraint).isDateAllowed(time))
         {
             rc = 0;
         }
-        else if(noBegin)
-        {
-            if (constraint.getEndDate().compareTo(time.date) >= 0)
-            {
-                rc = 0;
-            }
-        }
-        else if(noEnd)
-        {
-            if (constraint.getBeginDate().compareTo(time.date) <= 0)
-            {
-                rc = 0;
-            }
-        }
-        else
-        {
-            if (constraint.getBeginDate().compareTo(time.date) <= 0
-                && constraint.getEndDate().compareTo(time.date) >= 0)
-            {
-                rc = 0;
-            }
-        }
         return rc;
     }
-}
 
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getNextBoundary( Session session, Constraint constraint, Time time )
+    {
+        return TUtil.toMillis( CompiledConstraint.of( constraint ).getDateBoundary( time ) );
+    }
+}
@@ -20,7 +20,6 @@
 package org.apache.directory.fortress.core.util.time;
 
 import org.apache.directory.fortress.core.GlobalErrIds;
-import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.model.Constraint;
 import org.apache.directory.fortress.core.model.Session;
 import org.apache.directory.fortress.core.util.VUtil;
@@ -41,7 +40,7 @@ import org.apache.directory.fortress.core.util.VUtil;
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class Day
-    implements Validator
+    implements BoundaryValidator
 {
     /**
      * This method is called during entity activation, {@link org.apache.directory.fortress.core.util.VUtil#validateConstraints} and ensures the current day falls
@@ -57,18 +56,21 @@ public class Day
     public int validate(Session session, Constraint constraint, Time time, VUtil.ConstraintType type )
     {
         int rc = GlobalErrIds.ACTV_FAILED_DAY;
-        if (constraint.getDayMask() == null || constraint.getDayMask().compareToIgnoreCase(GlobalIds.ALL) == 0)
+        // day mask of null or 'all' allows every day:
+        if (CompiledConstraint.of(constraint).isDayAllowed(time))
         {
             rc = 0;
         }
-        else
-        {
-            if (constraint.getDayMask().contains(time.day))
-            {
-                rc = 0;
-            }
-        }
         return rc;
     }
-}
 
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getNextBoundary( Session session, Constraint constraint, Time time )
+    {
+        return TUtil.toMillis( CompiledConstraint.of( constraint ).getDayBoundary( time ) );
+    }
+}
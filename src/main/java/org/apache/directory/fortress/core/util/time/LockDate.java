@@ -21,7 +21,6 @@ package org.apache.directory.fortress.core.util.time;
 
 
 import org.apache.directory.fortress.core.GlobalErrIds;
-import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.model.Constraint;
 import org.apache.directory.fortress.core.model.Session;
 import org.apache.directory.fortress.core.util.VUtil;
@@ -43,7 +42,7 @@ import org.apache.directory.fortress.core.util.VUtil;
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class LockDate
-    implements Validator
+    implements BoundaryValidator
 {
     /**
      * This method is called during entity activation, {@link org.apache.directory.fortress.core.util.VUtil#validateConstraints} and ensures the current date falls
@@ -64,21 +63,21 @@ public class LockDate
         int rc = GlobalErrIds.ACTV_FAILED_LOCK;
 
         // if either beginLockDate or endLockDate equal to null or 'none', validation will automatically pass.
-        if ( constraint.getBeginLockDate() == null || constraint.getBeginLockDate().compareToIgnoreCase(GlobalIds.NONE) == 0
-          || constraint.getEndLockDate() == null || constraint.getEndLockDate().compareToIgnoreCase(GlobalIds.NONE) == 0)
+        // Does current date fall inside lock date?
+        if (!CompiledConstraint.of(constraint).isLocked(time))
         {
             rc = 0;
         }
-        else
-        {
-            // Does current date fall inside lock date?
-            if (!(constraint.getBeginLockDate().compareTo(time.date) <= 0
-                && constraint.getEndLockDate().compareTo(time.date) >= 0))
-            {
-                rc = 0;
-            }
-        }
         return rc;
     }
-}
 
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getNextBoundary( Session session, Constraint constraint, Time time )
+    {
+        return TUtil.toMillis( CompiledConstraint.of( constraint ).getLockBoundary( time ) );
+    }
+}
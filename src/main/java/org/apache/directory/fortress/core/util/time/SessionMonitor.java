@@ -0,0 +1,605 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.time;
+
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.SessionListener;
+import org.apache.directory.fortress.core.model.Constraint;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.VUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Keeps the temporal constraints of live sessions enforced between calls.  Sessions added to the monitor are placed in
+ * a timer wheel at the time the first of their {@link BoundaryValidator} constraints, a time of day window, end date,
+ * day of week, lock date or timeout, stops holding.  When that time passes the monitor's thread checks the session's
+ * constraints again with {@link VUtil#validateConstraints}, which removes the roles that fail, and tells the
+ * {@link SessionListener}.
+ * <p>
+ * Until then the constraints of a monitored session are known to hold, so {@link VUtil#validateConstraints} skips the
+ * validators for it and only resets its last access time.  A session whose user or activated roles have been replaced
+ * since they were last checked is validated in full, as before, after which its place in the wheel is updated.
+ * <p>
+ * The monitor is opt-in.  It is started by the application with {@link #start(SessionListener)}, which is given each
+ * session with {@link #add(Session)} after it has been created and must remove it with {@link #remove(Session)} when it
+ * is no longer used.  A session whose user constraints fail is removed by the monitor.  The wheel advances every
+ * {@code session.monitor.tick} seconds, default 1.  Constraints checked by validators that do not implement
+ * {@link BoundaryValidator} are only checked when the session is validated in full.
+ * <p>
+ * The monitor synchronizes on the session while it checks it.  Applications that share a monitored session between
+ * threads should do the same when they read its roles.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class SessionMonitor
+{
+    private static final String CLS_NM = SessionMonitor.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String SESSION_MONITOR_TICK = "session.monitor.tick";
+    private static final int SLOTS = 512;
+    private static final int MASK = SLOTS - 1;
+
+    private static volatile SessionMonitor sINSTANCE = null;
+
+    private final SessionListener listener;
+    private final long tickMillis;
+    private final ScheduledExecutorService ticker;
+    private final ConcurrentMap<Session, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Set<Entry>> wheel = new ArrayList<>( SLOTS );
+    private final long startMillis;
+    // the next tick to be processed, guarded by the wheel:
+    private long tick;
+
+
+    /**
+     * Start the monitor.  It runs until {@link #stop()} is called.
+     *
+     * @param listener is told of every role and session deactivated by the monitor.
+     * @return the running monitor.
+     * @throws IllegalStateException if a monitor is already running.
+     */
+    public static SessionMonitor start( SessionListener listener )
+    {
+        synchronized ( SessionMonitor.class )
+        {
+            if ( sINSTANCE != null )
+            {
+                throw new IllegalStateException( "start() session monitor is already running" );
+            }
+            sINSTANCE = new SessionMonitor( listener );
+            return sINSTANCE;
+        }
+    }
+
+
+    /**
+     * Return the running monitor.
+     *
+     * @return SessionMonitor or null if it has not been started.
+     */
+    public static SessionMonitor getInstance()
+    {
+        return sINSTANCE;
+    }
+
+
+    /**
+     * Private constructor
+     */
+    private SessionMonitor( SessionListener listener )
+    {
+        this( listener, TimeUnit.SECONDS.toMillis( Math.max( 1, Config.getInstance().getInt( SESSION_MONITOR_TICK, 1 ) ) ),
+            true );
+    }
+
+
+    /**
+     * Package private constructor.  The wheel starts at the current time of the {@link TUtil} clock.
+     *
+     * @param listener    is told of every role and session deactivated by the monitor.
+     * @param tickMillis  the time covered by each slot of the wheel.
+     * @param isScheduled if false no thread is started and the wheel only advances when {@link #advance()} is called.
+     */
+    SessionMonitor( SessionListener listener, long tickMillis, boolean isScheduled )
+    {
+        this.listener = listener;
+        this.tickMillis = tickMillis;
+        for ( int i = 0; i < SLOTS; i++ )
+        {
+            wheel.add( new HashSet<Entry>() );
+        }
+        this.startMillis = TUtil.getClock().millis();
+        if ( !isScheduled )
+        {
+            this.ticker = null;
+            return;
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+        {
+            @Override
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable, "fortress-session-monitor" );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+        ticker.scheduleWithFixedDelay( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    advance();
+                }
+                catch ( RuntimeException e )
+                {
+                    LOG.warn( "advance caught RuntimeException={}", e.getMessage(), e );
+                }
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS );
+    }
+
+
+    /**
+     * Stop the monitor and forget every session it holds.  Sessions are validated in full on every call once again.
+     */
+    public void stop()
+    {
+        synchronized ( SessionMonitor.class )
+        {
+            if ( sINSTANCE == this )
+            {
+                sINSTANCE = null;
+            }
+        }
+        if ( ticker != null )
+        {
+            ticker.shutdownNow();
+        }
+        entries.clear();
+        synchronized ( wheel )
+        {
+            for ( Set<Entry> slot : wheel )
+            {
+                slot.clear();
+            }
+        }
+    }
+
+
+    /**
+     * Monitor a session.  Its constraints are assumed to hold at the time it is added, i.e. it was just returned by
+     * createSession.  Adding a session that is already monitored updates its place in the wheel.
+     *
+     * @param session contains the user and the roles activated.
+     */
+    public void add( Session session )
+    {
+        Entry entry = new Entry( session );
+        Entry existing = entries.putIfAbsent( session, entry );
+        if ( existing != null )
+        {
+            entry = existing;
+        }
+        synchronized ( session )
+        {
+            refresh( entry, true, true );
+        }
+    }
+
+
+    /**
+     * Stop monitoring a session.
+     *
+     * @param session that is no longer used.
+     */
+    public void remove( Session session )
+    {
+        Entry entry = entries.remove( session );
+        if ( entry != null )
+        {
+            unschedule( entry );
+        }
+    }
+
+
+    /**
+     * Return true if the session is monitored, the user or roles it holds are the ones last checked and none of their
+     * constraints has stopped holding since.  Called by {@link VUtil#validateConstraints}.
+     *
+     * @param session contains the user and the roles activated.
+     * @param type    of the constraints about to be checked.
+     * @return true if the check may be skipped.
+     */
+    public boolean isCurrent( Session session, VUtil.ConstraintType type )
+    {
+        Entry entry = entries.get( session );
+        if ( entry == null )
+        {
+            return false;
+        }
+        Snapshot snapshot = entry.snapshot;
+        long now = TUtil.getClock().millis();
+        if ( isUserCheck( session, type ) )
+        {
+            return snapshot.user != null && snapshot.user == session.getUser() && now < snapshot.userBoundary;
+        }
+        return snapshot.roles != null && isSame( snapshot.roles, session.getRoles() )
+            && isSame( snapshot.adminRoles, session.getAdminRoles() ) && now < snapshot.roleBoundary;
+    }
+
+
+    /**
+     * Record that the constraints of a monitored session have been checked in full and move it in the wheel to the time
+     * the first of them stops holding.  Does nothing if the session is not monitored.  Called by
+     * {@link VUtil#validateConstraints}.
+     *
+     * @param session contains the user and the roles activated.
+     * @param type    of the constraints that were checked.
+     */
+    public void update( Session session, VUtil.ConstraintType type )
+    {
+        Entry entry = entries.get( session );
+        if ( entry != null )
+        {
+            boolean isUser = isUserCheck( session, type );
+            synchronized ( session )
+            {
+                refresh( entry, isUser, !isUser );
+            }
+        }
+    }
+
+
+    /**
+     * Process the slots of every tick that has passed, then check the sessions that are due.  Called by the monitor's
+     * thread, package private for tests.
+     */
+    void advance()
+    {
+        long now = TUtil.getClock().millis();
+        List<Entry> due = new ArrayList<>();
+        synchronized ( wheel )
+        {
+            long target = ( now - startMillis ) / tickMillis;
+            // after a long pause every slot is visited once:
+            long ticks = Math.min( target - tick + 1, SLOTS );
+            for ( long i = 0; i < ticks; i++ )
+            {
+                Set<Entry> slot = wheel.get( ( int ) ( ( tick + i ) & MASK ) );
+                List<Entry> expired = new ArrayList<>();
+                for ( Entry entry : slot )
+                {
+                    if ( entry.boundary <= now )
+                    {
+                        expired.add( entry );
+                    }
+                }
+                for ( Entry entry : expired )
+                {
+                    slot.remove( entry );
+                    entry.slot = -1;
+                }
+                due.addAll( expired );
+            }
+            tick = Math.max( tick, target + 1 );
+        }
+        for ( Entry entry : due )
+        {
+            check( entry );
+        }
+    }
+
+
+    /**
+     * Validate the session's constraints, which removes the roles that fail, and tell the listener.
+     */
+    private void check( Entry entry )
+    {
+        Session session = entry.session;
+        List<UserRole> removed = new ArrayList<>();
+        SecurityException error = null;
+        synchronized ( session )
+        {
+            if ( entries.get( session ) != entry )
+            {
+                return;
+            }
+            List<UserRole> before = new ArrayList<>();
+            addAll( before, session.getRoles() );
+            addAll( before, session.getAdminRoles() );
+            long lastAccess = session.getLastAccess();
+            entry.snapshot = Snapshot.NONE;
+            try
+            {
+                VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.USER, false );
+                VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.ROLE, false );
+            }
+            catch ( SecurityException e )
+            {
+                error = e;
+            }
+            finally
+            {
+                // the checks were not made by the caller:
+                session.setLastAccess( lastAccess );
+            }
+            if ( error != null )
+            {
+                remove( session );
+            }
+            else
+            {
+                for ( UserRole role : before )
+                {
+                    if ( !contains( session.getRoles(), role ) && !contains( session.getAdminRoles(), role ) )
+                    {
+                        removed.add( role );
+                    }
+                }
+                refresh( entry, true, true );
+            }
+        }
+        try
+        {
+            if ( error != null )
+            {
+                listener.sessionDeactivated( session, error );
+            }
+            else if ( !removed.isEmpty() )
+            {
+                listener.rolesDeactivated( session, removed );
+            }
+        }
+        catch ( RuntimeException e )
+        {
+            LOG.warn( "check listener caught RuntimeException={}", e.getMessage(), e );
+        }
+    }
+
+
+    /**
+     * Take a new snapshot of the session's user, roles or both, with the time their constraints stop holding, and move
+     * the session in the wheel.  The caller holds the session's lock.
+     */
+    private void refresh( Entry entry, boolean isUser, boolean isRole )
+    {
+        Session session = entry.session;
+        Snapshot current = entry.snapshot;
+        List<BoundaryValidator> validators = getBoundaryValidators();
+        Time time = TUtil.getCurrentTime();
+
+        User user = current.user;
+        long userBoundary = current.userBoundary;
+        if ( isUser )
+        {
+            user = session.getUser();
+            userBoundary = Long.MAX_VALUE;
+            if ( user != null && !session.isGroupSession() )
+            {
+                userBoundary = getBoundary( validators, session, user, time );
+            }
+        }
+
+        Object[] roles = current.roles;
+        Object[] adminRoles = current.adminRoles;
+        long roleBoundary = current.roleBoundary;
+        if ( isRole || session.isGroupSession() )
+        {
+            roles = toArray( session.getRoles() );
+            adminRoles = toArray( session.getAdminRoles() );
+            roleBoundary = Long.MAX_VALUE;
+            for ( Object role : roles )
+            {
+                roleBoundary = Math.min( roleBoundary, getBoundary( validators, session, ( Constraint ) role, time ) );
+            }
+            for ( Object role : adminRoles )
+            {
+                roleBoundary = Math.min( roleBoundary, getBoundary( validators, session, ( Constraint ) role, time ) );
+            }
+        }
+
+        entry.snapshot = new Snapshot( user, userBoundary, roles, adminRoles, roleBoundary );
+        schedule( entry, Math.min( userBoundary, roleBoundary ) );
+    }
+
+
+    private void schedule( Entry entry, long boundary )
+    {
+        synchronized ( wheel )
+        {
+            if ( entry.slot >= 0 )
+            {
+                wheel.get( entry.slot ).remove( entry );
+                entry.slot = -1;
+            }
+            entry.boundary = boundary;
+            // a session that was removed, or has no boundary, is not placed in the wheel:
+            if ( boundary != Long.MAX_VALUE && entries.get( entry.session ) == entry )
+            {
+                long due = Math.max( tick, ( boundary - startMillis + tickMillis - 1 ) / tickMillis );
+                entry.slot = ( int ) ( due & MASK );
+                wheel.get( entry.slot ).add( entry );
+            }
+        }
+    }
+
+
+    private void unschedule( Entry entry )
+    {
+        synchronized ( wheel )
+        {
+            if ( entry.slot >= 0 )
+            {
+                wheel.get( entry.slot ).remove( entry );
+                entry.slot = -1;
+            }
+        }
+    }
+
+
+    private static List<BoundaryValidator> getBoundaryValidators()
+    {
+        List<BoundaryValidator> validators = new ArrayList<>();
+        for ( Validator validator : VUtil.getInstance().getConstraintValidators() )
+        {
+            if ( validator instanceof BoundaryValidator )
+            {
+                validators.add( ( BoundaryValidator ) validator );
+            }
+        }
+        return validators;
+    }
+
+
+    private static long getBoundary( List<BoundaryValidator> validators, Session session, Constraint constraint, Time time )
+    {
+        long boundary = Long.MAX_VALUE;
+        for ( BoundaryValidator validator : validators )
+        {
+            boundary = Math.min( boundary, validator.getNextBoundary( session, constraint, time ) );
+        }
+        return boundary;
+    }
+
+
+    /**
+     * For group sessions the user constraints are not checked, {@link VUtil#validateConstraints} checks the roles instead.
+     */
+    private static boolean isUserCheck( Session session, VUtil.ConstraintType type )
+    {
+        return type == VUtil.ConstraintType.USER && !session.isGroupSession();
+    }
+
+
+    private static Object[] toArray( List<? extends UserRole> roles )
+    {
+        return roles == null ? new Object[0] : roles.toArray();
+    }
+
+
+    private static boolean isSame( Object[] snapshot, List<? extends UserRole> roles )
+    {
+        int size = roles == null ? 0 : roles.size();
+        if ( snapshot.length != size )
+        {
+            return false;
+        }
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( snapshot[i] != roles.get( i ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static boolean contains( List<? extends UserRole> roles, UserRole role )
+    {
+        if ( roles != null )
+        {
+            for ( UserRole candidate : roles )
+            {
+                if ( candidate == role )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+    private static void addAll( List<UserRole> target, List<? extends UserRole> roles )
+    {
+        if ( roles != null )
+        {
+            target.addAll( roles );
+        }
+    }
+
+
+    /**
+     * The user and roles of a session as they were last checked, by identity, and the times their constraints stop
+     * holding.  A null user or role array has not been checked.
+     */
+    private static final class Snapshot
+    {
+        private static final Snapshot NONE = new Snapshot( null, 0, null, null, 0 );
+
+        private final User user;
+        private final long userBoundary;
+        private final Object[] roles;
+        private final Object[] adminRoles;
+        private final long roleBoundary;
+
+
+        private Snapshot( User user, long userBoundary, Object[] roles, Object[] adminRoles, long roleBoundary )
+        {
+            this.user = user;
+            this.userBoundary = userBoundary;
+            this.roles = roles;
+            this.adminRoles = adminRoles;
+            this.roleBoundary = roleBoundary;
+        }
+    }
+
+
+    /**
+     * A monitored session, its latest snapshot and its place in the wheel.  The slot and boundary are guarded by the
+     * wheel.
+     */
+    private static final class Entry
+    {
+        private final Session session;
+        private volatile Snapshot snapshot = Snapshot.NONE;
+        private int slot = -1;
+        private long boundary = Long.MAX_VALUE;
+
+
+        private Entry( Session session )
+        {
+            this.session = session;
+        }
+    }
+}
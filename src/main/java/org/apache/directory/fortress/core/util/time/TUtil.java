@@ -23,7 +23,11 @@ package org.apache.directory.fortress.core.util.time;
 import org.apache.directory.api.util.DateUtils;
 
 import java.text.ParseException;
-import java.util.*;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 
 /**
@@ -34,6 +38,8 @@ import java.util.*;
  */
 public final class TUtil
 {
+    private static volatile Clock clock = Clock.systemDefaultZone();
+
     /**
      * Private constructor
      *
@@ -43,48 +49,65 @@ public final class TUtil
     }
 
     /**
-     * Get the curent timestamp from Java and convert to {@link Time} format.
+     * Set the clock used by {@link #getCurrentTime()}.  Allows temporal constraints to be checked against a time other
+     * than the system's, i.e. by tests.
      *
-     * @return Time
+     * @param clock to read the current time from, null restores the system clock in the default time zone.
      */
-    public static Time getCurrentTime()
+    public static void setClock( Clock clock )
     {
-        Time time = new Time();
-        GregorianCalendar gc = new GregorianCalendar();
-        String szMinute = "" + gc.get( GregorianCalendar.MINUTE );
-        String szHour = "" + gc.get( GregorianCalendar.HOUR_OF_DAY );
+        TUtil.clock = clock != null ? clock : Clock.systemDefaultZone();
+    }
 
-        time.day = "" + gc.get( GregorianCalendar.DAY_OF_WEEK );
-        String szDay = "" + gc.get( GregorianCalendar.DAY_OF_MONTH );
-        int month = gc.get( GregorianCalendar.MONTH );
-        String szMonth = "" + ( month + 1 );
-        String szYear = "" + gc.get( GregorianCalendar.YEAR );
 
-        if ( szMinute.length() == 1 )
-        {
-            szMinute = "0" + szMinute;
-        }
+    /**
+     * Return the clock used by {@link #getCurrentTime()}.
+     *
+     * @return Clock, the system clock in the default time zone unless replaced with {@link #setClock(Clock)}.
+     */
+    public static Clock getClock()
+    {
+        return clock;
+    }
 
-        if ( szHour.length() == 1 )
-        {
-            szHour = "0" + szHour;
-        }
 
-        if ( szDay.length() == 1 )
-        {
-            szDay = "0" + szDay;
-        }
+    /**
+     * Get the curent timestamp from the clock and convert to {@link Time} format.
+     *
+     * @return Time
+     */
+    public static Time getCurrentTime()
+    {
+        Clock current = clock;
+        Time time = new Time();
+        time.millis = current.millis();
+        LocalDateTime now = LocalDateTime.ofInstant( Instant.ofEpochMilli( time.millis ), current.getZone() );
+        LocalDate today = now.toLocalDate();
+        time.minuteOfDay = now.getHour() * 60 + now.getMinute();
+        // java.time numbers the days from Monday, fortress from Sunday:
+        time.dayOfWeek = today.getDayOfWeek().getValue() % 7 + 1;
+        time.epochDay = today.toEpochDay();
+        time.currentTime = now.getHour() * 100 + now.getMinute();
+        time.day = String.valueOf( time.dayOfWeek );
+        time.date = String.valueOf( today.getYear() * 10000 + today.getMonthValue() * 100 + today.getDayOfMonth() );
+        return time;
+    }
 
-        if ( szMonth.length() == 1 )
+
+    /**
+     * Convert a local time, in minutes since January 1, 1970, to the instant it occurs in the time zone of the clock.
+     *
+     * @param localMinutes as returned by {@link CompiledConstraint}, {@link Long#MAX_VALUE} for never.
+     * @return milliseconds since January 1, 1970 UTC, or {@link Long#MAX_VALUE}.
+     */
+    public static long toMillis( long localMinutes )
+    {
+        if ( localMinutes == Long.MAX_VALUE )
         {
-            szMonth = "0" + szMonth;
+            return Long.MAX_VALUE;
         }
-
-        String szCurrentTime = szHour + szMinute;
-
-        time.currentTime = Integer.valueOf( szCurrentTime );
-        time.date = szYear + szMonth + szDay;
-        return time;
+        LocalDateTime local = LocalDateTime.ofEpochSecond( localMinutes * 60, 0, ZoneOffset.UTC );
+        return local.atZone( clock.getZone() ).toInstant().toEpochMilli();
     }
 
 
@@ -40,5 +40,25 @@ public class Time
      * Stored in 'YYYYMMDD' format.  i.e. '20110101' is January 1, 2011.
      */
     public String date;
+
+    /**
+     * Minutes since midnight, i.e. 510 is 8:30 am.
+     */
+    public int minuteOfDay;
+
+    /**
+     * Day of week, 1 through 7 for Sun through Sat respectively.
+     */
+    public int dayOfWeek;
+
+    /**
+     * Days since January 1, 1970.
+     */
+    public long epochDay;
+
+    /**
+     * Milliseconds since January 1, 1970 UTC.
+     */
+    public long millis;
 }
 
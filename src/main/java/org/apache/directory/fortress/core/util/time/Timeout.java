@@ -40,7 +40,7 @@ import org.apache.directory.fortress.core.util.VUtil;
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
-public class Timeout implements Validator
+public class Timeout implements BoundaryValidator
 {
     /**
      * This method is called during entity activation, {@link org.apache.directory.fortress.core.util.VUtil#validateConstraints} and ensures the elapsed time a particular entity has been activated does not exceed specified.
@@ -64,7 +64,8 @@ public class Timeout implements Validator
         }
         else
         {
-            long elapsedTime = System.currentTimeMillis() - lastTime;
+            long now = time != null && time.millis != 0 ? time.millis : System.currentTimeMillis();
+            long elapsedTime = now - lastTime;
             timeLimit = constraint.getTimeout() * 60000L;
 
             if ( ( elapsedTime < timeLimit ) || ( constraint.getTimeout() == 0 ) )
@@ -75,4 +76,20 @@ public class Timeout implements Validator
 
         return rc;
     }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getNextBoundary( Session session, Constraint constraint, Time time )
+    {
+        long boundary = Long.MAX_VALUE;
+        Integer timeout = constraint.getTimeout();
+        if ( session.getLastAccess() != 0 && timeout != null && timeout != 0 )
+        {
+            boundary = session.getLastAccess() + timeout * 60000L;
+        }
+        return boundary;
+    }
 }
@@ -22,6 +22,7 @@ package org.apache.directory.fortress.core.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -43,6 +44,7 @@ import org.apache.directory.fortress.core.AccessMgrFactory;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.PwPolicyMgr;
 import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.LogUtil;
 
 
@@ -730,6 +732,168 @@ public class AccessMgrImplTest extends TestCase
     }
 
 
+    /**
+     *
+     */
+    public void testCheckAccessList()
+    {
+        // public List<Boolean> checkAccess(Session session, List<Permission> perms)
+        checkAccessList( "CHCK-ACS-LST TU1_UPD TO1 TOP1 ", UserTestData.USERS_TU1_UPD, PermTestData.OBJS_TOB1,
+            PermTestData.OPS_TOP1, PermTestData.OBJS_TOB3, PermTestData.OPS_TOP3 );
+        checkAccessList( "CHCK-ACS-LST TU3 TO3 TOP1 ", UserTestData.USERS_TU3, PermTestData.OBJS_TOB3,
+            PermTestData.OPS_TOP3, PermTestData.OBJS_TOB2, PermTestData.OPS_TOP2 );
+    }
+
+
+    public static void checkAccessList( String msg, String[][] uArray, String[][] oArray, String[][] opArray,
+        String[][] oArrayBad, String[][] opArrayBad )
+    {
+        LogUtil.logIt( msg );
+        try
+        {
+            AccessMgr accessMgr = AccessMgrFactory.createInstance( TestUtils.getContext() );
+            for ( String[] usr : uArray )
+            {
+                User user = UserTestData.getUser( usr );
+                Session session = accessMgr.createSession( user, false );
+                assertNotNull( session );
+                List<Permission> perms = new ArrayList<>();
+                List<Boolean> expected = new ArrayList<>();
+                for ( int i = 0; i < oArray.length; i++ )
+                {
+                    for ( int j = 0; j < opArray.length; j++ )
+                    {
+                        perms.add( new Permission( PermTestData.getName( oArray[i] ), PermTestData.getName(
+                            opArray[j] ), PermTestData.getObjId( opArray[j] ) ) );
+                        expected.add( true );
+                        perms.add( new Permission( PermTestData.getName( oArrayBad[i] ), PermTestData.getName(
+                            opArrayBad[j] ), PermTestData.getObjId( opArrayBad[j] ) ) );
+                        expected.add( false );
+                    }
+                }
+                // Permission that does not exist is denied rather than failing the whole list:
+                perms.add( new Permission( "CHCK-ACS-LST-NOT-EXIST", "NOT-EXIST" ) );
+                expected.add( false );
+
+                List<Boolean> results = accessMgr.checkAccess( session, perms );
+                assertEquals( CLS_NM + ".checkAccessList userId [" + user.getUserId() + "] size", perms.size(),
+                    results.size() );
+                for ( int k = 0; k < perms.size(); k++ )
+                {
+                    assertEquals( CLS_NM + ".checkAccessList failed userId [" + user.getUserId() + "] Perm objName [" +
+                        perms.get( k ).getObjName() + "] operationName [" + perms.get( k ).getOpName() + "]",
+                        expected.get( k ), results.get( k ) );
+                }
+            }
+            LOG.debug( "checkAccessList successful" );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error( "checkAccessList: failed with SecurityException rc=" + ex.getErrorId() + ", " +
+                "msg=" + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+    }
+
+
+    /**
+     *
+     */
+    public void testCheckAccessListConcurrent()
+    {
+        // public List<Boolean> checkAccess(Session session, List<Permission> perms)
+        checkAccessListConcurrent( "CHCK-ACS-LST-CONC TU1_UPD TO1 TOP1 ", UserTestData.USERS_TU1_UPD[0],
+            PermTestData.OBJS_TOB1, PermTestData.OPS_TOP1 );
+    }
+
+
+    /**
+     * Two threads check the same permissions with the permission index on, one in the reverse order of the other.
+     * Permissions that do not exist are never added to the index, so each call misses on them every time.
+     */
+    public static void checkAccessListConcurrent( String msg, String[] usr, String[][] oArray, String[][] opArray )
+    {
+        LogUtil.logIt( msg );
+        String isPermCache = Config.getInstance().getProperty( "enable.perm.cache" );
+        Config.getInstance().setProperty( "enable.perm.cache", "true" );
+        try
+        {
+            final AccessMgr accessMgr = AccessMgrFactory.createInstance( TestUtils.getContext() );
+            final Session session = accessMgr.createSession( UserTestData.getUser( usr ), false );
+            final List<Permission> perms = new ArrayList<>();
+            final List<Boolean> expected = new ArrayList<>();
+            for ( int i = 0; i < oArray.length; i++ )
+            {
+                for ( int j = 0; j < opArray.length; j++ )
+                {
+                    perms.add( new Permission( PermTestData.getName( oArray[i] ), PermTestData.getName(
+                        opArray[j] ), PermTestData.getObjId( opArray[j] ) ) );
+                    expected.add( true );
+                    perms.add( new Permission( "CHCK-ACS-LST-CONC-NOT-EXIST" + i, "NOT-EXIST" + j ) );
+                    expected.add( false );
+                }
+            }
+            final List<Permission> reversed = new ArrayList<>( perms );
+            Collections.reverse( reversed );
+            final List<Boolean> reversedExpected = new ArrayList<>( expected );
+            Collections.reverse( reversedExpected );
+            final List<String> errors = Collections.synchronizedList( new ArrayList<String>() );
+            Thread[] threads = new Thread[2];
+            for ( int t = 0; t < threads.length; t++ )
+            {
+                final boolean isReversed = t == 1;
+                threads[t] = new Thread( new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            for ( int k = 0; k < 50; k++ )
+                            {
+                                List<Boolean> results = accessMgr.checkAccess( session, isReversed ? reversed : perms );
+                                if ( !results.equals( isReversed ? reversedExpected : expected ) )
+                                {
+                                    errors.add( "unexpected decisions " + results );
+                                    return;
+                                }
+                            }
+                        }
+                        catch ( SecurityException ex )
+                        {
+                            errors.add( "rc=" + ex.getErrorId() + ", msg=" + ex.getMessage() );
+                        }
+                    }
+                }, "checkAccessListConcurrent-" + t );
+                threads[t].setDaemon( true );
+                threads[t].start();
+            }
+            for ( Thread thread : threads )
+            {
+                thread.join( 60000 );
+                assertFalse( CLS_NM + ".checkAccessListConcurrent did not complete, deadlocked", thread.isAlive() );
+            }
+            assertTrue( CLS_NM + ".checkAccessListConcurrent failed " + errors, errors.isEmpty() );
+            LOG.debug( "checkAccessListConcurrent successful" );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            fail( ex.getMessage() );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error( "checkAccessListConcurrent: failed with SecurityException rc=" + ex.getErrorId() + ", " +
+                "msg=" + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+        finally
+        {
+            Config.getInstance().setProperty( "enable.perm.cache", isPermCache != null ? isPermCache : "false" );
+        }
+    }
+
+
     public static void checkAccess( String msg, String[][] uArray, String[][] oArray, String[][] opArray,
         String[][] oArrayBad, String[][] opArrayBad )
     {
@@ -20,8 +20,10 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.directory.fortress.core.AdminMgr;
 import org.apache.directory.fortress.core.AdminMgrFactory;
@@ -1421,6 +1423,121 @@ public class AdminMgrImplTest extends TestCase
     }
 
 
+    /**
+     * Assign a batch with {@link AdminMgr#assignUsers(List)}, then check that a batch containing an SSD violation, an
+     * assignment that exists or a user that is not found changes nothing, and that a pair repeated in a batch is
+     * assigned once.  The users, roles and SSD are created here and removed at the end.
+     */
+    public void testAssignUsers()
+    {
+        LogUtil.logIt( "ASGN-USRS-BATCH" );
+        String[] userIds = { "jtsAsgnBatchUsr1", "jtsAsgnBatchUsr2" };
+        String[] roleNames = { "jtsAsgnBatchRle1", "jtsAsgnBatchRle2", "jtsAsgnBatchRle3", "jtsAsgnBatchRle4" };
+        SDSet ssd = new SDSet();
+        ssd.setName( "jtsAsgnBatchSsd" );
+        ssd.setType( SDSet.SDType.STATIC );
+        ssd.setCardinality( 2 );
+        ssd.addMember( roleNames[1] );
+        ssd.addMember( roleNames[2] );
+        try
+        {
+            AdminMgr adminMgr = getManagedAdminMgr();
+            ReviewMgr reviewMgr = ReviewMgrImplTest.getManagedReviewMgr();
+            for ( String userId : userIds )
+            {
+                User user = UserTestData.getUser( UserTestData.USERS_TU1[0] );
+                user.setUserId( userId );
+                adminMgr.addUser( user );
+            }
+            for ( String roleName : roleNames )
+            {
+                adminMgr.addRole( new Role( roleName ) );
+            }
+            adminMgr.createSsdSet( ssd );
+
+            // the success path, several users and roles in one batch:
+            adminMgr.assignUsers( Arrays.asList(
+                new UserRole( userIds[0], roleNames[0] ),
+                new UserRole( userIds[1], roleNames[0] ),
+                new UserRole( userIds[0], roleNames[1] ) ) );
+            assertRoles( reviewMgr, userIds[0], roleNames[0], roleNames[1] );
+            assertRoles( reviewMgr, userIds[1], roleNames[0] );
+            assertEquals( CLS_NM + ".testAssignUsers occupants", 2,
+                reviewMgr.authorizedUsers( new Role( roleNames[0] ) ).size() );
+
+            // an SSD violation stops the batch before the assignment ahead of it is written:
+            assertAssignUsersFails( adminMgr, GlobalErrIds.SSD_VALIDATION_FAILED,
+                new UserRole( userIds[1], roleNames[3] ),
+                new UserRole( userIds[0], roleNames[2] ) );
+            // so does one made by an earlier assignment of the same batch:
+            assertAssignUsersFails( adminMgr, GlobalErrIds.SSD_VALIDATION_FAILED,
+                new UserRole( userIds[1], roleNames[1] ),
+                new UserRole( userIds[1], roleNames[2] ) );
+            // and an assignment that already exists, whose user is written after the first:
+            assertAssignUsersFails( adminMgr, GlobalErrIds.URLE_ASSIGN_EXIST,
+                new UserRole( userIds[0], roleNames[3] ),
+                new UserRole( userIds[1], roleNames[0] ) );
+            // and a user that is not found:
+            assertAssignUsersFails( adminMgr, GlobalErrIds.USER_NOT_FOUND,
+                new UserRole( userIds[0], roleNames[3] ),
+                new UserRole( "jtsAsgnBatchUsrMissing", roleNames[3] ) );
+            assertRoles( reviewMgr, userIds[0], roleNames[0], roleNames[1] );
+            assertRoles( reviewMgr, userIds[1], roleNames[0] );
+
+            // a pair repeated in the batch, in any case, is assigned once:
+            adminMgr.assignUsers( Arrays.asList(
+                new UserRole( userIds[1], roleNames[3] ),
+                new UserRole( userIds[1], roleNames[3].toUpperCase() ) ) );
+            assertRoles( reviewMgr, userIds[1], roleNames[0], roleNames[3] );
+
+            adminMgr.deleteSsdSet( ssd );
+            for ( String userId : userIds )
+            {
+                adminMgr.deleteUser( new User( userId ) );
+            }
+            for ( String roleName : roleNames )
+            {
+                adminMgr.deleteRole( new Role( roleName ) );
+            }
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error( "testAssignUsers caught SecurityException rc=" + ex.getErrorId() + ", msg=" + ex.getMessage(),
+                ex );
+            fail( ex.getMessage() );
+        }
+    }
+
+
+    private static void assertAssignUsersFails( AdminMgr adminMgr, int errorId, UserRole... uRoles )
+    {
+        try
+        {
+            adminMgr.assignUsers( Arrays.asList( uRoles ) );
+            fail( CLS_NM + ".testAssignUsers batch did not fail with rc=" + errorId );
+        }
+        catch ( SecurityException ex )
+        {
+            assertEquals( CLS_NM + ".testAssignUsers rc", errorId, ex.getErrorId() );
+        }
+    }
+
+
+    private static void assertRoles( ReviewMgr reviewMgr, String userId, String... roleNames )
+        throws SecurityException
+    {
+        Set<String> expected = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        expected.addAll( Arrays.asList( roleNames ) );
+        List<UserRole> uRoles = reviewMgr.assignedRoles( new User( userId ) );
+        assertEquals( CLS_NM + ".testAssignUsers roles of [" + userId + "]", expected.size(), uRoles.size() );
+        for ( UserRole uRole : uRoles )
+        {
+            assertTrue( CLS_NM + ".testAssignUsers role [" + uRole.getName() + "] of [" + userId + "]",
+                expected.contains( uRole.getName() ) );
+        }
+    }
+
+
     /**
      * @param msg
      * @param uArray
@@ -0,0 +1,248 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+import org.apache.directory.fortress.core.impl.AuditWriter.OverflowPolicy;
+import org.apache.directory.fortress.core.util.audit.AuditSink;
+import org.apache.directory.fortress.core.util.audit.AuthZEvent;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class AuditWriterTest {
+
+    // long enough that no batch is written on the interval while a test runs:
+    private static final long NEVER = TimeUnit.MINUTES.toMillis(10);
+    private static final long WAIT_MILLIS = 10000;
+
+    /**
+     * Records the batches written.  Writes wait while the gate is closed.
+     */
+    private static class StubSink implements AuditSink {
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+        final CountDownLatch gate;
+        final CountDownLatch writing = new CountDownLatch(1);
+        volatile int closed;
+
+        StubSink(boolean isOpen) {
+            gate = new CountDownLatch(isOpen ? 0 : 1);
+        }
+
+        public void write(List<AuthZEvent> events) {
+            writing.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<String> batch = new ArrayList<>();
+            for (AuthZEvent event : events) {
+                batch.add(event.getPermDn());
+            }
+            batches.add(batch);
+        }
+
+        public void close() {
+            closed++;
+        }
+
+        List<String> written() {
+            List<String> all = new ArrayList<>();
+            synchronized (batches) {
+                for (List<String> batch : batches) {
+                    all.addAll(batch);
+                }
+            }
+            return all;
+        }
+    }
+
+    private AuditWriter writer;
+
+    private AuditWriter writer(StubSink sink, int capacity, int batchSize, long flushInterval, OverflowPolicy policy,
+                               int sampleRate) {
+        writer = new AuditWriter(sink, capacity, batchSize, flushInterval, policy, sampleRate, 0);
+        return writer;
+    }
+
+    @After
+    public void cleanup() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    private static AuthZEvent event(int i) {
+        return new AuthZEvent("perm" + i, "user", "op", "HOME", true);
+    }
+
+    private static List<String> names(int from, int to) {
+        List<String> names = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            names.add("perm" + i);
+        }
+        return names;
+    }
+
+    private static void await(StubSink sink, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (sink.written().size() < count) {
+            assertTrue("timed out waiting for " + count + " events", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void test_drop_counts_events_over_capacity() {
+        StubSink sink = new StubSink(true);
+        AuditWriter writer = writer(sink, 4, 100, NEVER, OverflowPolicy.DROP, 1);
+        for (int i = 0; i < 10; i++) {
+            writer.offer(event(i));
+        }
+        assertEquals(4, writer.getDepth());
+        assertEquals(4, writer.getEnqueued());
+        assertEquals(6, writer.getDropped());
+        assertEquals(0, writer.getSampledOut());
+
+        writer.shutdown();
+        assertEquals(names(0, 4), sink.written());
+    }
+
+    @Test
+    public void test_sample_keeps_one_in_rate_once_half_full() {
+        StubSink sink = new StubSink(true);
+        AuditWriter writer = writer(sink, 10, 100, NEVER, OverflowPolicy.SAMPLE, 3);
+        // fills the queue to half:
+        for (int i = 0; i < 5; i++) {
+            writer.offer(event(i));
+        }
+        assertEquals(0, writer.getSampledOut());
+        // the 3rd, 6th and 9th are kept:
+        for (int i = 5; i < 14; i++) {
+            writer.offer(event(i));
+        }
+        assertEquals(8, writer.getDepth());
+        assertEquals(6, writer.getSampledOut());
+        assertEquals(0, writer.getDropped());
+        // the 12th and 15th fill the queue, the 18th is kept by the sample and dropped as it is full:
+        for (int i = 14; i < 23; i++) {
+            writer.offer(event(i));
+        }
+        assertEquals(10, writer.getDepth());
+        assertEquals(12, writer.getSampledOut());
+        assertEquals(1, writer.getDropped());
+
+        writer.shutdown();
+        List<String> expected = names(0, 5);
+        Collections.addAll(expected, "perm7", "perm10", "perm13", "perm16", "perm19");
+        assertEquals(expected, sink.written());
+    }
+
+    @Test
+    public void test_block_waits_for_space() throws Exception {
+        StubSink sink = new StubSink(false);
+        final AuditWriter writer = writer(sink, 2, 100, NEVER, OverflowPolicy.BLOCK, 1);
+        writer.offer(event(0));
+        writer.offer(event(1));
+        // waits until the writer takes the first two, which it then holds in the closed sink:
+        writer.offer(event(2));
+        assertTrue(sink.writing.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        writer.offer(event(3));
+        assertEquals(2, writer.getDepth());
+
+        Thread caller = new Thread(new Runnable() {
+            public void run() {
+                writer.offer(event(4));
+            }
+        });
+        caller.start();
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (caller.getState() != Thread.State.WAITING) {
+            assertTrue(caller.isAlive());
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        assertEquals(2, writer.getDepth());
+        assertEquals(4, writer.getEnqueued());
+
+        sink.gate.countDown();
+        caller.join(WAIT_MILLIS);
+        assertFalse(caller.isAlive());
+        writer.shutdown();
+        assertEquals(0, writer.getDropped());
+        assertEquals(names(0, 5), sink.written());
+    }
+
+    @Test
+    public void test_batch_written_at_size() throws Exception {
+        StubSink sink = new StubSink(true);
+        AuditWriter writer = writer(sink, 100, 5, NEVER, OverflowPolicy.DROP, 1);
+        for (int i = 0; i < 4; i++) {
+            writer.offer(event(i));
+        }
+        Thread.sleep(50);
+        assertTrue(sink.batches.isEmpty());
+
+        writer.offer(event(4));
+        await(sink, 5);
+        assertEquals(Collections.singletonList(names(0, 5)), sink.batches);
+        assertEquals(5, writer.getWritten());
+        assertEquals(0, writer.getDepth());
+    }
+
+    @Test
+    public void test_batch_written_at_interval() throws Exception {
+        StubSink sink = new StubSink(true);
+        AuditWriter writer = writer(sink, 100, 100, 20, OverflowPolicy.DROP, 1);
+        for (int i = 0; i < 3; i++) {
+            writer.offer(event(i));
+        }
+        await(sink, 3);
+        assertEquals(names(0, 3), sink.written());
+        assertEquals(3, writer.getWritten());
+    }
+
+    @Test
+    public void test_shutdown_writes_every_queued_event() {
+        StubSink sink = new StubSink(true);
+        AuditWriter writer = writer(sink, 1000, 1000, NEVER, OverflowPolicy.DROP, 1);
+        for (int i = 0; i < 250; i++) {
+            writer.offer(event(i));
+        }
+        assertTrue(sink.batches.isEmpty());
+
+        writer.shutdown();
+        assertEquals(names(0, 250), sink.written());
+        assertEquals(250, writer.getWritten());
+        assertEquals(0, writer.getDepth());
+        assertEquals(1, sink.closed);
+    }
+}
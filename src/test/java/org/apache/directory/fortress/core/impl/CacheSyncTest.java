@@ -0,0 +1,440 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.DefaultModification;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.ModificationOperation;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.SearchHandler;
+import org.apache.directory.fortress.core.model.OrgUnit;
+import org.apache.directory.fortress.core.model.Permission;
+import org.apache.directory.fortress.core.model.PwPolicy;
+import org.apache.directory.fortress.core.model.SDSet;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.cache.Cache;
+import org.apache.directory.fortress.core.util.cache.CacheMgr;
+import org.apache.directory.ldap.client.api.LdapConnection;
+import org.apache.directory.ldap.client.api.LdapConnectionConfig;
+import org.apache.directory.ldap.client.api.LdapNetworkConnection;
+import org.apache.directory.server.annotations.CreateLdapServer;
+import org.apache.directory.server.annotations.CreateTransport;
+import org.apache.directory.server.core.annotations.ApplyLdifFiles;
+import org.apache.directory.server.core.annotations.CreateDS;
+import org.apache.directory.server.core.annotations.CreatePartition;
+import org.apache.directory.server.core.integ.AbstractLdapTestUnit;
+import org.apache.directory.server.core.integ.FrameworkRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+
+/**
+ * Checks that each change passed to {@link CacheSync#onChange} clears or reloads the cache it affects.  Changes are made
+ * in ldap behind the back of the cache utilities, as another process would, and the utilities are expected to return
+ * the old data until the change is passed on.  Caches that cannot be changed that way in this directory are given an
+ * entry of the test's own.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@RunWith(FrameworkRunner.class)
+@CreateDS(name = "cacheSyncDS", partitions =
+    { @CreatePartition(name = "example", suffix = "dc=example,dc=com") })
+@CreateLdapServer(
+    transports =
+        {
+            @CreateTransport(protocol = "LDAP", port = 10389)
+    })
+@ApplyLdifFiles(
+    { "fortress-schema.ldif", "init-ldap.ldif" })
+public class CacheSyncTest extends AbstractLdapTestUnit
+{
+    private static final String SUFFIX = "dc=example,dc=com";
+    private static final String ENABLE_PERM_CACHE = "enable.perm.cache";
+    private static final String ENABLE_USER_ROLE_INDEX = "enable.user.role.index";
+    private static final long WAIT_MILLIS = 10000;
+
+    private String permCache;
+    private String userRoleIndex;
+    private CacheSync cacheSync;
+    private LdapConnection connection;
+
+
+    @Before
+    public void init() throws Exception
+    {
+        // load the configuration before LdapDataProvider, which reads it when it is first used:
+        Config config = Config.getInstance();
+        permCache = config.getProperty( ENABLE_PERM_CACHE );
+        userRoleIndex = config.getProperty( ENABLE_USER_ROLE_INDEX );
+        config.setProperty( ENABLE_PERM_CACHE, "true" );
+        config.setProperty( ENABLE_USER_ROLE_INDEX, "true" );
+
+        // the policies of ApacheDS are kept under ou=config, outside the suffix, so are followed as on OpenLDAP:
+        String serverType = config.getProperty( GlobalIds.SERVER_TYPE );
+        config.setProperty( GlobalIds.SERVER_TYPE, "openldap" );
+        try
+        {
+            cacheSync = new CacheSync();
+        }
+        finally
+        {
+            config.setProperty( GlobalIds.SERVER_TYPE, serverType );
+        }
+
+        LdapConnectionConfig connectionConfig = new LdapConnectionConfig();
+        connectionConfig.setLdapHost( "localhost" );
+        connectionConfig.setLdapPort( getLdapServer().getPort() );
+        connectionConfig.setName( "uid=admin,ou=system" );
+        connectionConfig.setCredentials( "secret" );
+        connection = new LdapNetworkConnection( connectionConfig );
+        connection.bind();
+    }
+
+
+    @After
+    public void cleanup() throws Exception
+    {
+        Config config = Config.getInstance();
+        config.setProperty( ENABLE_PERM_CACHE, permCache != null ? permCache : "false" );
+        config.setProperty( ENABLE_USER_ROLE_INDEX, userRoleIndex != null ? userRoleIndex : "false" );
+        if ( connection != null )
+        {
+            connection.close();
+        }
+    }
+
+
+    @Test
+    public void testRoleChangeReloadsGraph() throws Exception
+    {
+        final RoleUtil roleUtil = RoleUtil.getInstance();
+        assertFalse( hasParent( roleUtil.getParents( "ROLE2", null ), "role1" ) );
+
+        String dn = "cn=role2,ou=Roles,ou=RBAC," + SUFFIX;
+        addParent( dn, "role1" );
+        assertFalse( hasParent( roleUtil.getParents( "ROLE2", null ), "role1" ) );
+
+        cacheSync.onChange( dn, null, false );
+        waitFor( new Condition()
+        {
+            @Override
+            public boolean isTrue()
+            {
+                return hasParent( roleUtil.getParents( "ROLE2", null ), "role1" );
+            }
+        } );
+    }
+
+
+    @Test
+    public void testAdminRoleChangeReloadsGraph() throws Exception
+    {
+        assertFalse( hasParent( AdminRoleUtil.getParents( "DEMOADMINUSERS", null ), "DemoAdminParent" ) );
+
+        String dn = "cn=DemoAdminUsers,ou=AdminRoles,ou=ARBAC," + SUFFIX;
+        addParent( dn, "DemoAdminParent" );
+        assertFalse( hasParent( AdminRoleUtil.getParents( "DEMOADMINUSERS", null ), "DemoAdminParent" ) );
+
+        cacheSync.onChange( dn, null, false );
+        waitFor( new Condition()
+        {
+            @Override
+            public boolean isTrue()
+            {
+                return hasParent( AdminRoleUtil.getParents( "DEMOADMINUSERS", null ), "DemoAdminParent" );
+            }
+        } );
+    }
+
+
+    @Test
+    public void testUserOuChangeReloadsGraphAndOuSet() throws Exception
+    {
+        final UsoUtil usoUtil = UsoUtil.getInstance();
+        OrgUnitP orgUnitP = new OrgUnitP();
+        OrgUnit orgUnit = new OrgUnit( "cachesyncusrs", OrgUnit.Type.USER );
+        assertFalse( orgUnitP.isValid( orgUnit ) );
+        assertFalse( hasParent( usoUtil.getParents( "CACHESYNCUSRS", null ), "demousrs1" ) );
+
+        String dn = "ou=cachesyncusrs,ou=OS-U,ou=ARBAC," + SUFFIX;
+        addOrgUnit( dn, "cachesyncusrs", "demousrs1" );
+        assertFalse( orgUnitP.isValid( orgUnit ) );
+
+        cacheSync.onChange( dn, null, false );
+        assertTrue( orgUnitP.isValid( orgUnit ) );
+        waitFor( new Condition()
+        {
+            @Override
+            public boolean isTrue()
+            {
+                return hasParent( usoUtil.getParents( "CACHESYNCUSRS", null ), "demousrs1" );
+            }
+        } );
+    }
+
+
+    @Test
+    public void testPermOuChangeReloadsGraphAndOuSet() throws Exception
+    {
+        final PsoUtil psoUtil = PsoUtil.getInstance();
+        OrgUnitP orgUnitP = new OrgUnitP();
+        OrgUnit orgUnit = new OrgUnit( "cachesyncapps", OrgUnit.Type.PERM );
+        assertFalse( orgUnitP.isValid( orgUnit ) );
+        assertFalse( hasParent( psoUtil.getParents( "CACHESYNCAPPS", null ), "demoapps1" ) );
+
+        String dn = "ou=cachesyncapps,ou=OS-P,ou=ARBAC," + SUFFIX;
+        addOrgUnit( dn, "cachesyncapps", "demoapps1" );
+        assertFalse( orgUnitP.isValid( orgUnit ) );
+
+        cacheSync.onChange( dn, null, false );
+        assertTrue( orgUnitP.isValid( orgUnit ) );
+        waitFor( new Condition()
+        {
+            @Override
+            public boolean isTrue()
+            {
+                return hasParent( psoUtil.getParents( "CACHESYNCAPPS", null ), "demoapps1" );
+            }
+        } );
+    }
+
+
+    @Test
+    public void testSdChangeClearsDsdIndexAndSsdCache() throws Exception
+    {
+        SDUtil sdUtil = SDUtil.getInstance();
+        Set<String> roles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        roles.add( "role1" );
+        roles.add( "role2" );
+        SdIndex before = sdUtil.getDsdIndex( roles, null );
+        assertEquals( 0, before.getSets( "role1" ).length );
+        Cache ssdCache = CacheMgr.getInstance().getCache( "fortress.ssd" );
+        ssdCache.put( "cacheSyncTest", Collections.emptyList() );
+
+        SDSet dsd = new SDSet();
+        dsd.setName( "CacheSyncDSD" );
+        dsd.setType( SDSet.SDType.DYNAMIC );
+        dsd.setCardinality( 2 );
+        dsd.addMember( "role1" );
+        dsd.addMember( "role2" );
+        new SdDAO().create( dsd );
+        assertSame( before, sdUtil.getDsdIndex( roles, null ) );
+
+        cacheSync.onChange( "cn=CacheSyncDSD,ou=Constraints,ou=RBAC," + SUFFIX, null, false );
+        SdIndex after = sdUtil.getDsdIndex( roles, null );
+        assertNotSame( before, after );
+        assertEquals( 1, after.getSets( "role1" ).length );
+        assertNull( ssdCache.getQuiet( "cacheSyncTest" ) );
+    }
+
+
+    @Test
+    public void testPermChangeClearsOperation() throws Exception
+    {
+        Permission changed = putPerm( "/cal/cal2.jsp", "8am", false, null );
+        Permission other = putPerm( "/cal/cal2.jsp", "9am", false, null );
+
+        cacheSync.onChange( "ftOpNm=8am,ftObjNm=/cal/cal2.jsp,ou=Permissions,ou=RBAC," + SUFFIX,
+            permEntry( "/cal/cal2.jsp", "8am" ), false );
+        assertNull( PermUtil.getInstance().getPermQuiet( changed ) );
+        assertNotNull( PermUtil.getInstance().getPermQuiet( other ) );
+
+        // without the names of the operation every permission is cleared:
+        cacheSync.onChange( "ftObjNm=/cal/cal2.jsp,ou=Permissions,ou=RBAC," + SUFFIX, null, true );
+        assertNull( PermUtil.getInstance().getPermQuiet( other ) );
+    }
+
+
+    @Test
+    public void testAdminPermChangeClearsOperation() throws Exception
+    {
+        String objName = "org.apache.directory.fortress.audit.AuditMgrImpl";
+        Permission admin = putPerm( objName, "searchBinds", true, null );
+        Permission user = putPerm( objName, "searchBinds", false, null );
+
+        cacheSync.onChange( "ftOpNm=searchBinds,ftObjNm=" + objName + ",ou=AdminPerms,ou=ARBAC," + SUFFIX,
+            permEntry( objName, "searchBinds" ), false );
+        assertNull( PermUtil.getInstance().getPermQuiet( admin ) );
+        assertNotNull( PermUtil.getInstance().getPermQuiet( user ) );
+    }
+
+
+    @Test
+    public void testTenantPermChangeClearsOperationOfTenant() throws Exception
+    {
+        Permission tenant = putPerm( "/cal/cal1.jsp", "main", false, "Client123" );
+        Permission home = putPerm( "/cal/cal1.jsp", "main", false, null );
+
+        cacheSync.onChange( "ftOpNm=main,ftObjNm=/cal/cal1.jsp,ou=Permissions,ou=RBAC,ou=Client123," + SUFFIX,
+            permEntry( "/cal/cal1.jsp", "main" ), false );
+        assertNull( PermUtil.getInstance().getPermQuiet( tenant ) );
+        assertNotNull( PermUtil.getInstance().getPermQuiet( home ) );
+    }
+
+
+    @Test
+    public void testPolicyChangeClearsPolicySet() throws Exception
+    {
+        PolicyP policyP = new PolicyP();
+        PwPolicy policy = new PwPolicy( "cacheSyncPolicy" );
+        assertFalse( policyP.isValid( policy ) );
+        Set<String> policies = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        policies.add( "cacheSyncPolicy" );
+        CacheMgr.getInstance().getCache( "fortress.policies" ).put( "policies", policies );
+        assertTrue( policyP.isValid( policy ) );
+
+        cacheSync.onChange( "cn=cacheSyncPolicy,ou=Policies," + SUFFIX, null, false );
+        assertFalse( policyP.isValid( policy ) );
+    }
+
+
+    @Test
+    public void testUserChangeUpdatesIndexAndClearsOu() throws Exception
+    {
+        EntityOuCache.getInstance();
+        Cache ouCache = CacheMgr.getInstance().getCache( "fortress.entity.ous" );
+        ouCache.put( "USER:HOME:CACHESYNCUSER", "demousrs1" );
+        assertFalse( getAssignedUsers( "role1" ).contains( "cachesyncuser" ) );
+
+        String dn = "uid=cachesyncuser,ou=People," + SUFFIX;
+        Entry entry = new DefaultEntry( dn, "uid: cachesyncuser", GlobalIds.USER_ROLE_ASSIGN + ": role1" );
+        cacheSync.onChange( dn, entry, false );
+        assertTrue( getAssignedUsers( "role1" ).contains( "cachesyncuser" ) );
+        assertNull( ouCache.getQuiet( "USER:HOME:CACHESYNCUSER" ) );
+
+        // a deleted user carries no attributes, its uid is taken from the dn:
+        cacheSync.onChange( dn, null, true );
+        assertFalse( getAssignedUsers( "role1" ).contains( "cachesyncuser" ) );
+    }
+
+
+    @Test
+    public void testChangeOutsideRootsIsIgnored() throws Exception
+    {
+        Permission perm = putPerm( "/cal/cal1.jsp", "main", false, null );
+        cacheSync.onChange( "cn=DEFAULT,ou=Config," + SUFFIX, null, false );
+        cacheSync.onChange( "ftOpNm=main,ftObjNm=/cal/cal1.jsp,ou=Permissions,ou=RBAC,dc=other,dc=com", null, false );
+        assertNotNull( PermUtil.getInstance().getPermQuiet( perm ) );
+    }
+
+
+    /**
+     * The hierarchy graphs hold the names in upper case, and return null for a name that is not in the graph.
+     */
+    private static boolean hasParent( Set<String> parents, String parent )
+    {
+        return parents != null && parents.contains( parent.toUpperCase() );
+    }
+
+
+    private void addParent( String dn, String parent ) throws LdapException
+    {
+        connection.modify( dn, new DefaultModification( ModificationOperation.ADD_ATTRIBUTE,
+            GlobalIds.PARENT_NODES, parent ) );
+    }
+
+
+    private void addOrgUnit( String dn, String name, String parent ) throws LdapException
+    {
+        connection.add( new DefaultEntry( dn,
+            "objectClass: top",
+            "objectClass: ftOrgUnit",
+            "objectClass: ftMods",
+            "ftId: " + name,
+            "ou: " + name,
+            GlobalIds.PARENT_NODES + ": " + parent ) );
+    }
+
+
+    private static Permission putPerm( String objName, String opName, boolean isAdmin, String contextId )
+    {
+        Permission permission = new Permission( objName, opName, isAdmin );
+        permission.setContextId( contextId );
+        PermUtil.getInstance().putPerm( permission, permission );
+        assertNotNull( PermUtil.getInstance().getPermQuiet( permission ) );
+        return permission;
+    }
+
+
+    private static Entry permEntry( String objName, String opName ) throws LdapException
+    {
+        return new DefaultEntry( "ftOpNm=" + opName + ",ftObjNm=" + objName,
+            GlobalIds.POBJ_NAME + ": " + objName,
+            GlobalIds.POP_NAME + ": " + opName );
+    }
+
+
+    private static Set<String> getAssignedUsers( String roleName ) throws Exception
+    {
+        final Set<String> userIds = new TreeSet<>();
+        UserRoleIndex.getInstance().getAssignedUsers( Collections.singleton( roleName ), null,
+            new SearchHandler<String>()
+            {
+                @Override
+                public boolean handle( String userId )
+                {
+                    userIds.add( userId );
+                    return true;
+                }
+            } );
+        return userIds;
+    }
+
+
+    private interface Condition
+    {
+        boolean isTrue();
+    }
+
+
+    /**
+     * Wait for a hierarchy to be reloaded in the background.
+     */
+    private static void waitFor( Condition condition ) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while ( !condition.isTrue() )
+        {
+            if ( System.currentTimeMillis() > deadline )
+            {
+                fail( "the change was not loaded within " + WAIT_MILLIS + " ms" );
+            }
+            Thread.sleep( 50 );
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.model.SDSet;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.model.Warning;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class DSDCheckerTest {
+
+    static SDSet set(String name, int cardinality, String... members) {
+        SDSet set = new SDSet();
+        set.setName(name);
+        set.setType(SDSet.SDType.DYNAMIC);
+        set.setCardinality(cardinality);
+        set.setMembers(new HashSet<>(Arrays.asList(members)));
+        return set;
+    }
+
+    private static Session session(String... roles) {
+        Session session = new Session(new User("user1"));
+        List<UserRole> userRoles = new ArrayList<>();
+        for (String role : roles) {
+            userRoles.add(new UserRole("user1", role));
+        }
+        session.setRoles(userRoles);
+        return session;
+    }
+
+    private static List<String> names(Session session) {
+        List<String> names = new ArrayList<>();
+        for (UserRole role : session.getRoles()) {
+            names.add(role.getName());
+        }
+        return names;
+    }
+
+    private static int validate(Session session, SdIndex index, Map<String, Set<String>> parentSets) {
+        return DSDChecker.validate(session, index, parentSets, "userId", "user1");
+    }
+
+    @Test
+    public void test_sets_are_checked_one_after_the_other() {
+        // a role removed by the first set is not seen by the second:
+        SdIndex index = new SdIndex(Arrays.asList(set("AB", 2, "A", "B"), set("BC", 2, "B", "C")));
+        Session session = session("C", "B", "A");
+        assertEquals(GlobalErrIds.ACTV_FAILED_DSD, validate(session, index, new HashMap<String, Set<String>>()));
+        assertEquals(Arrays.asList("C"), names(session));
+        assertEquals(2, session.getWarnings().size());
+        assertEquals("A", session.getWarnings().get(0).getName());
+        assertEquals("B", session.getWarnings().get(1).getName());
+        assertEquals(Warning.Type.ROLE, session.getWarnings().get(0).getType());
+    }
+
+    @Test
+    public void test_removed_role_still_counts_against_its_set() {
+        SdIndex index = new SdIndex(Arrays.asList(set("ABC", 2, "A", "B", "C")));
+        Session session = session("A", "B", "C");
+        validate(session, index, new HashMap<String, Set<String>>());
+        assertEquals(Arrays.asList("A"), names(session));
+    }
+
+    @Test
+    public void test_no_violation() {
+        SdIndex index = new SdIndex(Arrays.asList(set("ABC", 3, "A", "B", "C"), set("DE", 2, "D", "E")));
+        Session session = session("A", "B", "D", "F");
+        assertEquals(0, validate(session, index, new HashMap<String, Set<String>>()));
+        assertEquals(Arrays.asList("A", "B", "D", "F"), names(session));
+        assertNull(session.getWarnings());
+    }
+
+    @Test
+    public void test_inherited_role_counts_against_set() {
+        // C inherits B, which is in the set with A:
+        SdIndex index = new SdIndex(Arrays.asList(set("AB", 2, "A", "B")));
+        Map<String, Set<String>> parentSets = new HashMap<>();
+        parentSets.put("C", new HashSet<>(Arrays.asList("B")));
+        Session session = session("A", "C");
+        assertEquals(GlobalErrIds.ACTV_FAILED_DSD, validate(session, index, parentSets));
+        assertEquals(Arrays.asList("A"), names(session));
+        assertTrue(session.getWarnings().get(0).getMsg().contains("parentRole [B]"));
+    }
+
+    @Test
+    public void test_each_inherited_member_counts() {
+        // C inherits both A and B, so alone it reaches the cardinality of the set:
+        SdIndex index = new SdIndex(Arrays.asList(set("AB", 2, "A", "B")));
+        Map<String, Set<String>> parentSets = new HashMap<>();
+        parentSets.put("C", new HashSet<>(Arrays.asList("A", "B")));
+        Session session = session("C", "D");
+        validate(session, index, parentSets);
+        assertEquals(Arrays.asList("D"), names(session));
+    }
+
+    @Test
+    public void test_parents_of_a_member_are_not_counted() {
+        // A is a member itself, so the member it inherits is not counted again:
+        SdIndex index = new SdIndex(Arrays.asList(set("AB", 2, "A", "B")));
+        Map<String, Set<String>> parentSets = new HashMap<>();
+        parentSets.put("A", new HashSet<>(Arrays.asList("B")));
+        Session session = session("A", "E");
+        assertEquals(0, validate(session, index, parentSets));
+        assertEquals(Arrays.asList("A", "E"), names(session));
+    }
+
+    @Test
+    public void test_role_names_ignore_case() {
+        SdIndex index = new SdIndex(Arrays.asList(set("AB", 2, "a", "b")));
+        Session session = session("A", "B");
+        validate(session, index, new HashMap<String, Set<String>>());
+        assertEquals(Arrays.asList("A"), names(session));
+    }
+}
@@ -201,6 +201,7 @@ public class FortressJUnitTest extends TestCase
             suite.addTest( new PswdPolicyMgrImplTest( "testUpdatePasswordPolicy" ) );
         }
         suite.addTest( new AdminMgrImplTest( "testAssignUser" ) );
+        suite.addTest( new AdminMgrImplTest( "testAssignUsers" ) );
         suite.addTest( new AdminMgrImplTest( "testAddPermissionObj" ) );
         suite.addTest( new AdminMgrImplTest( "testUpdatePermissionObj" ) );
         suite.addTest( new AdminMgrImplTest( "testAddPermissionOp" ) );
@@ -245,6 +246,7 @@ public class FortressJUnitTest extends TestCase
         suite.addTest( new ReviewMgrImplTest( "testFindRoleNms" ) );
         suite.addTest( new ReviewMgrImplTest( "testReadUser" ) );
         suite.addTest( new ReviewMgrImplTest( "testFindUsers" ) );
+        suite.addTest( new ReviewMgrImplTest( "testFindUsersStream" ) );
         suite.addTest( new ReviewMgrImplTest( "testFindUserIds" ) );
         suite.addTest( new ReviewMgrImplTest( "testAssignedRoles" ) );
         suite.addTest( new ReviewMgrImplTest( "testAssignedRoleNms" ) );
@@ -304,6 +306,8 @@ public class FortressJUnitTest extends TestCase
         suite.addTest( new AccessMgrImplTest( "createSessionsDSD" ) );
         suite.addTest( new AccessMgrImplTest( "testSessionRole" ) );
         suite.addTest( new AccessMgrImplTest( "testCheckAccess" ) );
+        suite.addTest( new AccessMgrImplTest( "testCheckAccessList" ) );
+        suite.addTest( new AccessMgrImplTest( "testCheckAccessListConcurrent" ) );
         suite.addTest( new AccessMgrImplTest( "testAddActiveRole" ) );
         suite.addTest( new AccessMgrImplTest( "testDropActiveRole" ) );
         suite.addTest( new AccessMgrImplTest( "testSessionPermission" ) );
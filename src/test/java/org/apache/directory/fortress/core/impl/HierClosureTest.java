@@ -0,0 +1,183 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+import org.apache.directory.fortress.core.model.Hier;
+import org.apache.directory.fortress.core.model.Relationship;
+import org.apache.directory.fortress.core.model.UserAdminRole;
+import org.jgrapht.graph.SimpleDirectedGraph;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class HierClosureTest {
+
+    /**
+     * A is parent of B, B and D are parents of C, E is parent of D.
+     */
+    private static Hier hier() {
+        Hier hier = new Hier();
+        hier.setRelationship(new Relationship("B", "A"));
+        hier.setRelationship(new Relationship("C", "B"));
+        hier.setRelationship(new Relationship("C", "D"));
+        hier.setRelationship(new Relationship("D", "E"));
+        return hier;
+    }
+
+    private static HierGraph graph() {
+        return CsrHierGraph.build(hier());
+    }
+
+    @Test
+    public void test_closure_matches_graph_traversal() {
+        SimpleDirectedGraph<String, Relationship> jgraph = HierUtil.buildGraph(hier());
+        HierClosure closure = HierClosure.build(graph());
+        for (String vertex : jgraph.vertexSet()) {
+            assertEquals(HierUtil.getAscendants(vertex, jgraph), closure.getAscendants(vertex));
+            assertEquals(HierUtil.getDescendants(vertex, jgraph), closure.getDescendants(vertex));
+        }
+    }
+
+    @Test
+    public void test_engines_agree() throws Exception {
+        HierGraph csr = graph();
+        HierGraph jgraph = new JGraphHierGraph(HierUtil.buildGraph(hier()));
+        assertEquals(jgraph.size(), csr.size());
+        for (String vertex : Arrays.asList("A", "B", "C", "D", "E", "F")) {
+            assertEquals(HierUtil.getParents(vertex, jgraph), HierUtil.getParents(vertex, csr));
+            assertEquals(HierUtil.getChildren(vertex, jgraph), HierUtil.getChildren(vertex, csr));
+            assertEquals(HierUtil.numChildren(vertex, jgraph), HierUtil.numChildren(vertex, csr));
+            assertEquals(HierUtil.getAscendants(vertex, "D", true, jgraph), HierUtil.getAscendants(vertex, "D", true, csr));
+        }
+        assertTrue(csr.containsEdge("C", "D"));
+        assertFalse(csr.containsEdge("D", "C"));
+
+        HierGraph removed = HierUtil.updateHier(csr, new Relationship("c", "d"), Hier.Op.REM);
+        assertFalse(removed.containsEdge("C", "D"));
+        assertEquals(csr.size(), removed.size());
+        assertEquals(csr.getId("E"), removed.getId("E"));
+        assertTrue(csr.containsEdge("C", "D"));
+    }
+
+    @Test
+    public void test_is_ascendant_is_case_insensitive() {
+        HierClosure closure = HierClosure.build(graph());
+        assertTrue(closure.isAscendant("c", "a"));
+        assertTrue(closure.isAscendant("C", "e"));
+        assertFalse(closure.isAscendant("a", "c"));
+        assertFalse(closure.isAscendant("c", "unknown"));
+        assertFalse(closure.isAscendant("c", null));
+    }
+
+    @Test
+    public void test_inherited_passes_through_unknown_names() {
+        HierClosure closure = HierClosure.build(graph());
+        Set<String> inherited = closure.getInherited(Arrays.asList("b", "standalone"));
+        assertEquals(3, inherited.size());
+        assertTrue(inherited.containsAll(Arrays.asList("A", "B", "STANDALONE")));
+    }
+
+    @Test
+    public void test_scope_covers_names_and_descendants() {
+        HierClosure closure = HierClosure.build(graph());
+        Set<String> ous = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        ous.addAll(Arrays.asList("a", "standalone"));
+        BitSet scope = closure.getScope(ous);
+        assertEquals(3, scope.cardinality());
+        assertTrue(closure.isInScope(scope, ous, "A"));
+        assertTrue(closure.isInScope(scope, ous, "c"));
+        assertTrue(closure.isInScope(scope, ous, "STANDALONE"));
+        assertFalse(closure.isInScope(scope, ous, "D"));
+        assertFalse(closure.isInScope(scope, ous, "other"));
+        assertFalse(closure.isInScope(scope, ous, null));
+    }
+
+    @Test
+    public void test_admin_role_scope_is_dropped_when_stale() {
+        UserAdminRole uaRole = new UserAdminRole("user", "admin");
+        uaRole.setOsU("A");
+        BitSet scope = new BitSet();
+        uaRole.setOsUScope(scope, 7);
+        assertSame(scope, uaRole.getOsUScope(7));
+        assertNull(uaRole.getOsUScope(8));
+        uaRole.setOsU("D");
+        assertNull(uaRole.getOsUScope(7));
+        assertNull(uaRole.getOsPScope(7));
+    }
+
+    @Test
+    public void test_admin_role_scope_is_dropped_when_set_changed_in_place() {
+        UserAdminRole uaRole = new UserAdminRole("user", "admin");
+        uaRole.setOsU("A");
+        uaRole.setOsP("A");
+        BitSet scope = new BitSet();
+        uaRole.setOsUScope(scope, 7);
+        uaRole.setOsPScope(scope, 7);
+
+        // same size, other contents:
+        uaRole.getOsUSet().remove("A");
+        uaRole.getOsUSet().add("D");
+        assertNull(uaRole.getOsUScope(7));
+        uaRole.getOsPSet().clear();
+        assertNull(uaRole.getOsPScope(7));
+
+        // stored again, the scope holds until the set changes:
+        uaRole.setOsUScope(scope, 7);
+        assertSame(scope, uaRole.getOsUScope(7));
+        uaRole.getOsUSet().add("E");
+        assertNull(uaRole.getOsUScope(7));
+    }
+
+    @Test
+    public void test_update_replaces_closure() throws Exception {
+        HierGraph graph = graph();
+        ConcurrentMap<String, HierClosure> closures = new ConcurrentHashMap<>();
+        HierClosure before = HierClosure.get(closures, "ROLE", graph);
+        assertSame(before, HierClosure.get(closures, "ROLE", graph));
+
+        HierGraph updated = HierUtil.updateHier(graph, new Relationship("A", "F"), Hier.Op.ADD);
+        assertNotSame(graph, updated);
+        assertEquals(-1, graph.getId("F"));
+        HierClosure.publish(closures, "ROLE", updated);
+        HierClosure after = HierClosure.get(closures, "ROLE", updated);
+        assertNotSame(before, after);
+        assertTrue(after.getVersion() > before.getVersion());
+        assertTrue(after.isAscendant("C", "F"));
+        assertFalse(before.isAscendant("C", "F"));
+    }
+
+    @Test
+    public void test_null_graph_is_empty() {
+        HierClosure closure = HierClosure.build(null);
+        assertTrue(closure.getAscendants("A").isEmpty());
+        assertEquals(-1, closure.getId("A"));
+    }
+}
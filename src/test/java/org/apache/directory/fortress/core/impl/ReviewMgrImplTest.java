@@ -20,6 +20,7 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +30,7 @@ import org.apache.directory.fortress.core.AdminMgr;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.ReviewMgr;
 import org.apache.directory.fortress.core.ReviewMgrFactory;
+import org.apache.directory.fortress.core.SearchHandler;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.model.PermObj;
 import org.apache.directory.fortress.core.model.Permission;
@@ -80,6 +82,7 @@ public class ReviewMgrImplTest extends TestCase
         suite.addTest( new ReviewMgrImplTest( "testFindRoles" ) );
         suite.addTest( new ReviewMgrImplTest( "testReadUser" ) );
         suite.addTest( new ReviewMgrImplTest( "testFindUsers" ) );
+        suite.addTest( new ReviewMgrImplTest( "testFindUsersStream" ) );
         suite.addTest( new ReviewMgrImplTest( "testAssignedRoles" ) );
         suite.addTest( new ReviewMgrImplTest( "testAuthorizedUsers" ) );
         suite.addTest( new ReviewMgrImplTest( "testAuthorizedRoles" ) );
@@ -654,6 +657,82 @@ public class ReviewMgrImplTest extends TestCase
     }
 
 
+    public void testFindUsersStream()
+    {
+        // public long findUsers(User user, SearchHandler<User> handler)
+        searchUsersStream( "SRCH-USRS-STRM TU3",
+            TestUtils.getSrchValue( UserTestData.getUserId( UserTestData.USERS_TU3[0] ) ), UserTestData.USERS_TU3 );
+        searchUsersStream( "SRCH-USRS-STRM TU4",
+            TestUtils.getSrchValue( UserTestData.getUserId( UserTestData.USERS_TU4[0] ) ), UserTestData.USERS_TU4 );
+        searchUsersStream( "SRCH-USRS-STRM TU5",
+            TestUtils.getSrchValue( UserTestData.getUserId( UserTestData.USERS_TU5[0] ) ), UserTestData.USERS_TU5 );
+    }
+
+
+    /**
+     *
+     * @param msg
+     * @param srchValue
+     * @param uArray
+     */
+    public static void searchUsersStream( String msg, String srchValue, String[][] uArray )
+    {
+        LogUtil.logIt( msg );
+        try
+        {
+            ReviewMgr reviewMgr = getManagedReviewMgr();
+            final List<User> users = new ArrayList<>();
+            long count = reviewMgr.findUsers( new User( srchValue ), new SearchHandler<User>()
+            {
+                @Override
+                public boolean handle( User user )
+                {
+                    users.add( user );
+                    return true;
+                }
+            } );
+            assertEquals( "searchUsersStream count check", uArray.length, count );
+            assertEquals( "searchUsersStream list size check", uArray.length, users.size() );
+            for ( String[] usr : uArray )
+            {
+                int indx = users.indexOf( new User( UserTestData.getUserId( usr ) ) );
+                if ( indx != -1 )
+                {
+                    UserTestData.assertEquals( users.get( indx ), usr );
+                }
+                else
+                {
+                    msg = "searchUsersStream srchValue [" + srchValue + "] failed list search";
+                    LogUtil.logIt( msg );
+                    fail( msg );
+                }
+            }
+
+            // stopping the search after the first entry must abandon the remaining results:
+            final List<User> first = new ArrayList<>();
+            count = reviewMgr.findUsers( new User( srchValue ), new SearchHandler<User>()
+            {
+                @Override
+                public boolean handle( User user )
+                {
+                    first.add( user );
+                    return false;
+                }
+            } );
+            assertEquals( "searchUsersStream stop check", 1, count );
+            assertEquals( "searchUsersStream stop size check", 1, first.size() );
+            LOG.debug( "searchUsersStream srchValue [" + srchValue + "] successful" );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error(
+                "searchUsersStream srchValue [" + srchValue + "] caught SecurityException rc=" + ex.getErrorId()
+                    + ", msg=" + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+    }
+
+
     public void testAssignedRoles()
     {
         // public List<UserRole> assignedRoles(User userId)
@@ -0,0 +1,112 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+import org.apache.directory.fortress.core.model.SDSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SdIndexTest {
+
+    private static SDSet ssd(String name, int cardinality, String... members) {
+        SDSet set = DSDCheckerTest.set(name, cardinality, members);
+        set.setType(SDSet.SDType.STATIC);
+        return set;
+    }
+
+    private static List<String> setNames(SdIndex index, String roleName) {
+        List<String> names = new ArrayList<>();
+        for (int id : index.getSets(roleName)) {
+            names.add(index.getSet(id).getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void test_dsd_sets_of_role() {
+        SdIndex index = new SdIndex(Arrays.asList(DSDCheckerTest.set("AB", 2, "A", "B"),
+            DSDCheckerTest.set("BC", 3, "B", "C", "D")));
+        assertEquals(2, index.size());
+        assertFalse(index.isEmpty());
+        assertEquals(Arrays.asList("AB"), setNames(index, "A"));
+        assertEquals(Arrays.asList("AB", "BC"), setNames(index, "B"));
+        assertEquals(Arrays.asList("BC"), setNames(index, "d"));
+        assertEquals(0, index.getSets("E").length);
+        assertEquals(2, index.getCardinality(0));
+        assertEquals(3, index.getCardinality(1));
+        assertTrue(SdIndex.contains(index.getSets("B"), 1));
+        assertFalse(SdIndex.contains(index.getSets("A"), 1));
+    }
+
+    @Test
+    public void test_ssd_sets_of_role() {
+        SdIndex index = new SdIndex(Arrays.asList(ssd("S1", 2, "A", "B"), ssd("S2", 2, "A", "C")));
+        assertEquals(Arrays.asList("S1", "S2"), setNames(index, "a"));
+        assertEquals(Arrays.asList("S2"), setNames(index, "C"));
+    }
+
+    @Test
+    public void test_member_repeated_in_another_case_is_indexed_once() {
+        SdIndex index = new SdIndex(Collections.singletonList(ssd("S1", 2, "A", "a", "B")));
+        assertEquals(1, index.getSets("A").length);
+    }
+
+    @Test
+    public void test_set_without_members_or_cardinality() {
+        SDSet set = new SDSet();
+        set.setName("EMPTY");
+        SdIndex index = new SdIndex(Collections.singletonList(set));
+        assertEquals(1, index.size());
+        assertEquals(0, index.getCardinality(0));
+        assertEquals(0, index.getSets("A").length);
+        assertTrue(new SdIndex(Collections.<SDSet>emptyList()).isEmpty());
+    }
+
+    @Test
+    public void test_put_and_remove_return_new_index() {
+        SdIndex index = new SdIndex(Arrays.asList(DSDCheckerTest.set("AB", 2, "A", "B")));
+
+        SdIndex added = index.put(DSDCheckerTest.set("BC", 2, "B", "C"));
+        assertNotSame(index, added);
+        assertEquals(Arrays.asList("AB", "BC"), setNames(added, "B"));
+        assertEquals(Arrays.asList("AB"), setNames(index, "B"));
+
+        // a set of the same name, in any case, is replaced:
+        SdIndex replaced = added.put(DSDCheckerTest.set("ab", 3, "A", "D"));
+        assertEquals(2, replaced.size());
+        assertEquals(Arrays.asList("BC"), setNames(replaced, "B"));
+        assertEquals(Arrays.asList("ab"), setNames(replaced, "D"));
+
+        SdIndex removed = replaced.remove("BC");
+        assertEquals(1, removed.size());
+        assertEquals(0, removed.getSets("C").length);
+        assertSame(removed, removed.remove("XX"));
+    }
+}
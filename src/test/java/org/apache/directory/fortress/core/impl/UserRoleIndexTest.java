@@ -0,0 +1,174 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.server.annotations.CreateLdapServer;
+import org.apache.directory.server.annotations.CreateTransport;
+import org.apache.directory.server.core.annotations.ApplyLdifFiles;
+import org.apache.directory.server.core.annotations.CreateDS;
+import org.apache.directory.server.core.annotations.CreatePartition;
+import org.apache.directory.server.core.integ.AbstractLdapTestUnit;
+import org.apache.directory.server.core.integ.FrameworkRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+
+/**
+ * Checks that the userIds {@link UserP} reads from the {@link UserRoleIndex} match those of the ldap search it replaces,
+ * after role assignments are added and removed and a user is deleted.  The index is loaded before the changes, so they
+ * are applied to it by the hooks in UserP rather than read back from ldap.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@RunWith(FrameworkRunner.class)
+@CreateDS(name = "userRoleIndexDS", partitions =
+    { @CreatePartition(name = "example", suffix = "dc=example,dc=com") })
+@CreateLdapServer(
+    transports =
+        {
+            @CreateTransport(protocol = "LDAP", port = 10389)
+    })
+@ApplyLdifFiles(
+    { "fortress-schema.ldif", "init-ldap.ldif" })
+public class UserRoleIndexTest extends AbstractLdapTestUnit
+{
+    private static final String ENABLE_USER_ROLE_INDEX = "enable.user.role.index";
+    private static final Set<String> ROLE1 = roles( "role1" );
+    private static final Set<String> ROLE2 = roles( "role2" );
+    private static final Set<String> MANAGER = roles( "manager" );
+    private static final Set<String> ALL = roles( "role1", "role2", "manager" );
+
+    private String userRoleIndex;
+    private UserP userP;
+
+
+    @Before
+    public void init() throws Exception
+    {
+        // load the configuration before LdapDataProvider, which reads it when it is first used:
+        Config config = Config.getInstance();
+        userRoleIndex = config.getProperty( ENABLE_USER_ROLE_INDEX );
+        config.setProperty( ENABLE_USER_ROLE_INDEX, "true" );
+        // drop any tenant loaded from another directory:
+        UserRoleIndex.clearAll();
+        userP = new UserP();
+    }
+
+
+    @After
+    public void cleanup()
+    {
+        Config.getInstance().setProperty( ENABLE_USER_ROLE_INDEX, userRoleIndex != null ? userRoleIndex : "false" );
+    }
+
+
+    @Test
+    public void testAssignDeassignDelete() throws Exception
+    {
+        // loads the index while no user is assigned:
+        assertIndexMatches( ALL );
+        assertEquals( Collections.<String>emptySet(), getAssignedUsers( ALL, true ) );
+
+        assign( "demoUser1", "role1" );
+        assign( "demoUser1", "role2" );
+        assign( "demoUser2", "role2" );
+        assign( "demoUser3", "manager" );
+        assertIndexMatches( ROLE1 );
+        assertIndexMatches( ROLE2 );
+        assertIndexMatches( MANAGER );
+        // demoUser1 is found through both roles and is returned once, along with the users after it:
+        assertIndexMatches( ALL );
+        assertEquals( users( "demoUser1", "demoUser2", "demoUser3" ), getAssignedUsers( ALL, true ) );
+
+        userP.deassign( new UserRole( "demoUser1", "role2" ) );
+        assertIndexMatches( ROLE2 );
+        assertIndexMatches( ALL );
+        assertEquals( users( "demoUser2" ), getAssignedUsers( ROLE2, true ) );
+
+        userP.delete( new User( "demoUser2" ) );
+        assertIndexMatches( ROLE2 );
+        assertIndexMatches( ALL );
+        assertEquals( users( "demoUser1", "demoUser3" ), getAssignedUsers( ALL, true ) );
+
+        // and a fresh load from ldap agrees with the changes applied:
+        UserRoleIndex.clearAll();
+        assertIndexMatches( ALL );
+        assertEquals( users( "demoUser1", "demoUser3" ), getAssignedUsers( ALL, true ) );
+    }
+
+
+    private void assign( String userId, String roleName ) throws SecurityException
+    {
+        UserRole uRole = new UserRole( userId, roleName );
+        // AdminMgr copies the constraints of the role onto the assignment, which is read back expecting a timeout:
+        uRole.setTimeout( 0 );
+        userP.assign( uRole );
+    }
+
+
+    private void assertIndexMatches( Set<String> roles ) throws SecurityException
+    {
+        assertEquals( getAssignedUsers( roles, false ), getAssignedUsers( roles, true ) );
+    }
+
+
+    /**
+     * Return the users assigned any of the roles, read from the index or searched for in ldap.
+     */
+    private Set<String> getAssignedUsers( Set<String> roles, boolean isIndexed ) throws SecurityException
+    {
+        Config config = Config.getInstance();
+        config.setProperty( ENABLE_USER_ROLE_INDEX, String.valueOf( isIndexed ) );
+        try
+        {
+            return userP.getAssignedUsers( roles, null );
+        }
+        finally
+        {
+            config.setProperty( ENABLE_USER_ROLE_INDEX, "true" );
+        }
+    }
+
+
+    private static Set<String> roles( String... names )
+    {
+        return new HashSet<>( Arrays.asList( names ) );
+    }
+
+
+    private static Set<String> users( String... userIds )
+    {
+        return new HashSet<>( Arrays.asList( userIds ) );
+    }
+}
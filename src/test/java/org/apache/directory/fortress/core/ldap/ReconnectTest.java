@@ -0,0 +1,375 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.ldap;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.directory.api.ldap.model.cursor.SearchCursor;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.ldap.client.api.LdapConnection;
+import org.apache.directory.ldap.client.api.LdapConnectionConfig;
+import org.apache.directory.ldap.client.api.LdapNetworkConnection;
+import org.apache.directory.server.annotations.CreateLdapServer;
+import org.apache.directory.server.annotations.CreateTransport;
+import org.apache.directory.server.core.annotations.ApplyLdifFiles;
+import org.apache.directory.server.core.annotations.CreateDS;
+import org.apache.directory.server.core.annotations.CreatePartition;
+import org.apache.directory.server.core.integ.AbstractLdapTestUnit;
+import org.apache.directory.server.core.integ.FrameworkRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+
+/**
+ * Checks that reads and searches made through {@link LdapDataProvider} are retried when the connection is lost after
+ * the request was sent, which the ldap api reports while the results are read rather than when the request is sent.
+ * The connections go through a proxy that closes them instead of passing a chosen request to the server.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@RunWith(FrameworkRunner.class)
+@CreateDS(name = "reconnectDS", partitions =
+    { @CreatePartition(name = "example", suffix = "dc=example,dc=com") })
+@CreateLdapServer(
+    transports =
+        {
+            @CreateTransport(protocol = "LDAP", port = 10389)
+    })
+@ApplyLdifFiles(
+    { "fortress-schema.ldif", "init-ldap.ldif" })
+public class ReconnectTest extends AbstractLdapTestUnit
+{
+    private static final String BASE_DN = "dc=example,dc=com";
+    private static final String PEOPLE_DN = "ou=People,dc=example,dc=com";
+    private static final String FILTER = "(objectClass=*)";
+    private static final String[] ATTRS = { "objectClass" };
+    private static final String SEARCH_PAGE_SIZE = "search.page.size";
+
+    private String pageSize;
+    private DataProvider provider;
+    private List<String> expected;
+    private DroppingProxy proxy;
+    private LdapConnection connection;
+
+
+    @Before
+    public void init() throws Exception
+    {
+        // load the configuration before LdapDataProvider, which reads it when it is first used:
+        pageSize = Config.getInstance().getProperty( SEARCH_PAGE_SIZE );
+        provider = new DataProvider();
+
+        LdapConnection direct = connect( getLdapServer().getPort() );
+        try
+        {
+            expected = provider.searchDns( direct );
+        }
+        finally
+        {
+            direct.close();
+        }
+    }
+
+
+    @After
+    public void cleanup() throws Exception
+    {
+        Config.getInstance().setProperty( SEARCH_PAGE_SIZE,
+            pageSize != null ? pageSize : String.valueOf( GlobalIds.BATCH_SIZE ) );
+        if ( connection != null )
+        {
+            connection.close();
+        }
+        if ( proxy != null )
+        {
+            proxy.close();
+        }
+    }
+
+
+    @Test
+    public void testSearchRetriedAfterDrop() throws Exception
+    {
+        // request 1 is the bind, 2 the search:
+        open( 2, 1 );
+        long retries = LdapDataProvider.getLdapCounters().getRetry();
+
+        assertEquals( expected, provider.searchDns( connection ) );
+        assertEquals( 2, proxy.getConnections() );
+        assertEquals( retries + 1, LdapDataProvider.getLdapCounters().getRetry() );
+    }
+
+
+    @Test
+    public void testSearchDroppedTwiceThrows() throws Exception
+    {
+        open( 2, Integer.MAX_VALUE );
+        try
+        {
+            provider.searchDns( connection );
+            fail( "search on a dropped connection returned a result" );
+        }
+        catch ( LdapException e )
+        {
+            // the loss is reported rather than returned as an empty result set.
+        }
+        assertEquals( 2, proxy.getConnections() );
+    }
+
+
+    @Test
+    public void testSearchPagedRestartsAfterDrop() throws Exception
+    {
+        Config.getInstance().setProperty( SEARCH_PAGE_SIZE, "5" );
+        // request 1 is the bind, 2 the first page, 3 the second page sent with the server's cookie:
+        open( 3, 1 );
+
+        final List<String> dns = new ArrayList<>();
+        long count = provider.searchPaged( connection, BASE_DN, SearchScope.SUBTREE, FILTER, ATTRS, false,
+            new LdapDataProvider.EntryHandler()
+            {
+                @Override
+                public boolean handle( Entry entry )
+                {
+                    dns.add( entry.getDn().getName() );
+                    return true;
+                }
+            } );
+
+        assertEquals( expected, dns );
+        assertEquals( expected.size(), count );
+        assertEquals( 2, proxy.getConnections() );
+    }
+
+
+    @Test
+    public void testReadRetriedAfterDrop() throws Exception
+    {
+        open( 2, 1 );
+
+        Entry entry = provider.read( connection, PEOPLE_DN, ATTRS );
+        assertNotNull( entry );
+        assertEquals( PEOPLE_DN, entry.getDn().getName() );
+        assertEquals( 2, proxy.getConnections() );
+    }
+
+
+    /**
+     * Start a proxy that drops the first {@code dropped} connections at request {@code dropAt} and open a connection
+     * through it.
+     */
+    private void open( int dropAt, int dropped ) throws Exception
+    {
+        proxy = new DroppingProxy( getLdapServer().getPort(), dropAt, dropped );
+        connection = connect( proxy.getPort() );
+    }
+
+
+    private static LdapConnection connect( int port ) throws LdapException
+    {
+        LdapConnectionConfig config = new LdapConnectionConfig();
+        config.setLdapHost( "localhost" );
+        config.setLdapPort( port );
+        config.setName( "uid=admin,ou=system" );
+        config.setCredentials( "secret" );
+        LdapConnection connection = new LdapNetworkConnection( config );
+        connection.bind();
+        return connection;
+    }
+
+
+    private static final class DataProvider extends LdapDataProvider
+    {
+        private List<String> searchDns( LdapConnection connection ) throws Exception
+        {
+            List<String> dns = new ArrayList<>();
+            try ( SearchCursor cursor = search( connection, BASE_DN, SearchScope.SUBTREE, FILTER, ATTRS, false ) )
+            {
+                while ( cursor.next() )
+                {
+                    if ( cursor.isEntry() )
+                    {
+                        dns.add( cursor.getEntry().getDn().getName() );
+                    }
+                }
+            }
+            return dns;
+        }
+    }
+
+
+    /**
+     * Passes ldap traffic to the server, except that on each of the first connections it accepts it closes both
+     * sockets in place of passing on the given request.  Each request is expected in a read of its own, which holds
+     * since the requests sent by these tests each wait for the reply to the one before.
+     */
+    private static final class DroppingProxy implements Closeable
+    {
+        private final ServerSocket serverSocket;
+        private final int serverPort;
+        private final int dropAt;
+        private final int dropped;
+        private final AtomicInteger connections = new AtomicInteger();
+
+
+        private DroppingProxy( int serverPort, int dropAt, int dropped ) throws IOException
+        {
+            this.serverSocket = new ServerSocket( 0 );
+            this.serverPort = serverPort;
+            this.dropAt = dropAt;
+            this.dropped = dropped;
+            start( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    accept();
+                }
+            } );
+        }
+
+
+        private int getPort()
+        {
+            return serverSocket.getLocalPort();
+        }
+
+
+        private int getConnections()
+        {
+            return connections.get();
+        }
+
+
+        private void accept()
+        {
+            try
+            {
+                while ( true )
+                {
+                    final Socket client = serverSocket.accept();
+                    final Socket server = new Socket( "localhost", serverPort );
+                    final boolean isDropped = connections.incrementAndGet() <= dropped;
+                    start( new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            pipe( server, client, 0 );
+                        }
+                    } );
+                    start( new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            pipe( client, server, isDropped ? dropAt : 0 );
+                        }
+                    } );
+                }
+            }
+            catch ( IOException e )
+            {
+                // closed
+            }
+        }
+
+
+        /**
+         * Copy from one socket to the other.  If dropAt is not 0 close both when that read arrives.
+         */
+        private static void pipe( Socket from, Socket to, int dropAt )
+        {
+            byte[] buffer = new byte[8192];
+            int reads = 0;
+            try
+            {
+                InputStream in = from.getInputStream();
+                OutputStream out = to.getOutputStream();
+                int length;
+                while ( ( length = in.read( buffer ) ) > 0 )
+                {
+                    if ( ++reads == dropAt )
+                    {
+                        break;
+                    }
+                    out.write( buffer, 0, length );
+                    out.flush();
+                }
+            }
+            catch ( IOException e )
+            {
+                // the other direction closed the sockets
+            }
+            finally
+            {
+                closeQuietly( from );
+                closeQuietly( to );
+            }
+        }
+
+
+        private static void start( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, "DroppingProxy" );
+            thread.setDaemon( true );
+            thread.start();
+        }
+
+
+        private static void closeQuietly( Closeable closeable )
+        {
+            try
+            {
+                closeable.close();
+            }
+            catch ( IOException e )
+            {
+                // already closed
+            }
+        }
+
+
+        @Override
+        public void close() throws IOException
+        {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.UpdateException;
+import org.apache.directory.ldap.client.api.exception.LdapConnectionTimeOutException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class BulkLoaderTest {
+
+    /**
+     * Entities are "key:seq".  Records the order each key's entities were applied in and the threads used.
+     */
+    private static class Recorder implements BulkLoader.Operation<String> {
+        final Map<String, List<Integer>> applied = new ConcurrentHashMap<>();
+        final Set<String> threads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        final List<String> failed = Collections.synchronizedList(new ArrayList<String>());
+
+        public String getKey(String entity) {
+            return entity.split(":")[0];
+        }
+
+        public void apply(String entity) throws SecurityException {
+            threads.add(Thread.currentThread().getName());
+            List<Integer> seqs = applied.get(getKey(entity));
+            if (seqs == null) {
+                seqs = Collections.synchronizedList(new ArrayList<Integer>());
+                List<Integer> existing = ((ConcurrentHashMap<String, List<Integer>>) applied).putIfAbsent(getKey(entity), seqs);
+                seqs = existing == null ? seqs : existing;
+            }
+            seqs.add(Integer.valueOf(entity.split(":")[1]));
+        }
+
+        public void failed(String entity, SecurityException se) {
+            failed.add(entity);
+        }
+    }
+
+    private static List<String> entities(int keys, int perKey) {
+        List<String> entities = new ArrayList<>();
+        for (int seq = 0; seq < perKey; seq++) {
+            for (int key = 0; key < keys; key++) {
+                entities.add("user" + key + ":" + seq);
+            }
+        }
+        return entities;
+    }
+
+    @Test
+    public void test_entities_of_a_key_are_applied_in_order() {
+        Recorder recorder = new Recorder();
+        BulkLoader.Result result = new BulkLoader(4, 0, 0).run("test", entities(50, 20), recorder);
+        assertEquals(1000, result.getCount());
+        assertEquals(0, result.getFailures());
+        assertEquals(50, recorder.applied.size());
+        for (List<Integer> seqs : recorder.applied.values()) {
+            assertEquals(20, seqs.size());
+            for (int i = 0; i < seqs.size(); i++) {
+                assertEquals(i, seqs.get(i).intValue());
+            }
+        }
+        assertTrue(recorder.threads.size() > 1);
+        assertFalse(recorder.threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void test_single_thread_applies_on_caller() {
+        Recorder recorder = new Recorder();
+        new BulkLoader(1, 0, 0).run("test", entities(5, 2), recorder);
+        assertEquals(Collections.singleton(Thread.currentThread().getName()), recorder.threads);
+    }
+
+    @Test
+    public void test_transient_failure_is_retried() {
+        final AtomicInteger attempts = new AtomicInteger();
+        Recorder recorder = new Recorder() {
+            @Override
+            public void apply(String entity) throws SecurityException {
+                if (attempts.incrementAndGet() < 3) {
+                    throw new UpdateException(GlobalErrIds.USER_UPDATE_FAILED, "timed out",
+                        new LdapException(new LdapConnectionTimeOutException("timed out")));
+                }
+                super.apply(entity);
+            }
+        };
+        BulkLoader.Result result = new BulkLoader(1, 3, 0).run("test", Collections.singletonList("user0:0"), recorder);
+        assertEquals(0, result.getFailures());
+        assertEquals(2, result.getRetries());
+        assertEquals(1, recorder.applied.size());
+        assertTrue(recorder.failed.isEmpty());
+    }
+
+    @Test
+    public void test_other_failure_is_reported_once() {
+        final AtomicInteger attempts = new AtomicInteger();
+        Recorder recorder = new Recorder() {
+            @Override
+            public void apply(String entity) throws SecurityException {
+                attempts.incrementAndGet();
+                throw new UpdateException(GlobalErrIds.USER_ID_DUPLICATE, "exists");
+            }
+        };
+        BulkLoader.Result result = new BulkLoader(2, 3, 0).run("test", entities(2, 1), recorder);
+        assertEquals(2, result.getFailures());
+        assertEquals(0, result.getRetries());
+        assertEquals(2, attempts.get());
+        assertEquals(2, recorder.failed.size());
+    }
+
+    @Test
+    public void test_interrupted_phase_counts_unapplied() {
+        final AtomicInteger attempts = new AtomicInteger();
+        Recorder recorder = new Recorder() {
+            @Override
+            public void apply(String entity) throws SecurityException {
+                if (attempts.incrementAndGet() == 3) {
+                    Thread.currentThread().interrupt();
+                }
+                super.apply(entity);
+            }
+        };
+        BulkLoader.Result result = new BulkLoader(1, 0, 0).run("test", entities(10, 1), recorder);
+        assertTrue(Thread.interrupted());
+        assertFalse(result.isComplete());
+        assertEquals(3, result.getCount());
+        assertEquals(7, result.getUnapplied());
+    }
+
+    @Test
+    public void test_interrupted_lanes_count_unapplied() {
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger attempts = new AtomicInteger();
+        Recorder recorder = new Recorder() {
+            @Override
+            public void apply(String entity) throws SecurityException {
+                if (attempts.incrementAndGet() == 1) {
+                    caller.interrupt();
+                }
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.apply(entity);
+            }
+        };
+        BulkLoader.Result result = new BulkLoader(2, 0, 0).run("test", entities(2, 100), recorder);
+        assertTrue(Thread.interrupted());
+        assertFalse(result.isComplete());
+        assertTrue(result.getUnapplied() > 0);
+        assertEquals(200, result.getCount() + result.getUnapplied());
+    }
+
+    @Test
+    public void test_complete_phase_has_nothing_unapplied() {
+        BulkLoader.Result result = new BulkLoader(2, 0, 0).run("test", entities(2, 5), new Recorder());
+        assertTrue(result.isComplete());
+        assertEquals(0, result.getUnapplied());
+        assertEquals(10, result.getCount());
+    }
+}
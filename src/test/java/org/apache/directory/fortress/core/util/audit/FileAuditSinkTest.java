@@ -0,0 +1,68 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.audit;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class FileAuditSinkTest {
+
+    @Test
+    public void test_batches_appended_one_line_per_event() throws Exception {
+        File file = File.createTempFile("fortress-authz-audit", ".log");
+        try {
+            FileAuditSink sink = new FileAuditSink(file.getPath());
+            sink.write(Arrays.asList(
+                new AuthZEvent("ftOpNm=read,ftObjNm=doc", "uid=user1", "read", "HOME", true),
+                new AuthZEvent("ftOpNm=write,ftObjNm=doc", "uid=user1", "write", null, false)));
+            sink.write(Arrays.asList(new AuthZEvent("ftOpNm=read,ftObjNm=doc", "uid=user2", "read", "HOME", true)));
+            sink.close();
+
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            assertEquals(3, lines.size());
+            String[] fields = lines.get(1).split("\t");
+            assertEquals(6, fields.length);
+            assertTrue(fields[0].matches("\\d{14}\\.\\d{3}Z"));
+            assertEquals(Arrays.asList("null", "FAILURE", "uid=user1", "ftOpNm=write,ftObjNm=doc", "write"),
+                Arrays.asList(fields).subList(1, 6));
+            assertTrue(lines.get(0).endsWith("\tHOME\tSUCCESS\tuid=user1\tftOpNm=read,ftObjNm=doc\tread"));
+            assertTrue(lines.get(2).contains("\tuid=user2\t"));
+
+            // a sink opened again appends:
+            sink = new FileAuditSink(file.getPath());
+            sink.write(Arrays.asList(new AuthZEvent("ftOpNm=read,ftObjNm=doc", "uid=user3", "read", "HOME", true)));
+            sink.close();
+            assertEquals(4, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class MemorySessionStoreTest {
+
+    private static Session session(String sessionId, String... roleNames) {
+        User user = new User("storeUser");
+        user.setTimeout(0);
+        Session session = new Session(user, sessionId);
+        session.setRoles(new ArrayList<UserRole>());
+        for (String roleName : roleNames) {
+            session.getRoles().add(new UserRole("storeUser", roleName));
+        }
+        return session;
+    }
+
+    private static void assertReplace(SessionStore store) {
+        store.put(session("s1", "ROLE1", "ROLE2"));
+        assertTrue(store.replace(session("s1", "ROLE1")));
+        assertEquals(1, store.get("s1").getRoles().size());
+
+        // a session removed while it was used is not brought back by its write back:
+        Session used = store.get("s1");
+        assertTrue(store.remove("s1"));
+        used.getRoles().clear();
+        assertFalse(store.replace(used));
+        assertNull(store.get("s1"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void test_replace_only_stored_session() {
+        assertReplace(new MemorySessionStore(10, false));
+    }
+
+    @Test
+    public void test_replace_only_stored_session_off_heap() {
+        assertReplace(new MemorySessionStore(10, true));
+    }
+
+    @Test
+    public void test_least_recently_used_evicted() {
+        SessionStore store = new MemorySessionStore(2, false);
+        store.put(session("s1", "ROLE1"));
+        store.put(session("s2", "ROLE2"));
+        assertNotNull(store.get("s1"));
+        store.put(session("s3", "ROLE3"));
+        assertEquals(2, store.size());
+        assertNull(store.get("s2"));
+        assertEquals("ROLE1", store.get("s1").getRoles().get(0).getName());
+        assertFalse(store.replace(session("s2", "ROLE2")));
+        assertNull(store.get("s2"));
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+import org.apache.directory.fortress.core.model.Constraint;
+import org.apache.directory.fortress.core.model.Group;
+import org.apache.directory.fortress.core.model.RoleConstraint;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserAdminRole;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.model.Warning;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SessionCodecTest {
+
+    private static Session userSession() {
+        User user = new User("codecUser");
+        user.setInternalId("0a1b2c3d");
+        user.setOu("DEV0");
+        user.setContextId("HOME");
+        user.setTimeout(30);
+        user.setBeginTime("0800");
+        user.setEndTime("1700");
+        user.setBeginDate("20260101");
+        user.setEndDate("none");
+        user.setBeginLockDate("20260301");
+        user.setEndLockDate("20260302");
+        user.setDayMask("23456");
+
+        UserRole role = new UserRole("codecUser", "ROLE1");
+        role.setContextId("HOME");
+        role.setTimeout(0);
+        role.setBeginTime("0000");
+        role.setEndTime("2359");
+        role.setDayMask("all");
+        role.setParents(new HashSet<>(Arrays.asList("ROLE0", "ROLEA")));
+        List<RoleConstraint> constraints = new ArrayList<>();
+        constraints.add(new RoleConstraint("rc1", "ACCT-1", RoleConstraint.RCType.FILTER, "locale"));
+        constraints.add(new RoleConstraint(null, null, null, null));
+        role.setRoleConstraints(constraints);
+        UserRole groupRole = new UserRole("codecUser", "ROLE2", true);
+
+        UserAdminRole adminRole = new UserAdminRole("codecUser", "ADMIN1");
+        adminRole.setContextId("HOME");
+        adminRole.setTimeout(10);
+        adminRole.setOsUSet(new HashSet<>(Arrays.asList("DEV0", "DEV1")));
+        adminRole.setOsPSet(new HashSet<>(Collections.singleton("APP0")));
+        adminRole.setBeginRange("ROLE1");
+        adminRole.setEndRange("ROLE9");
+        adminRole.setBeginInclusive(true);
+        adminRole.setEndInclusive(false);
+        adminRole.setParents(new HashSet<>(Collections.singleton("ADMIN0")));
+
+        user.setRoles(new ArrayList<>(Arrays.asList(role, groupRole)));
+        user.setAdminRoles(new ArrayList<>(Collections.singleton(adminRole)));
+
+        Session session = new Session(user, "session-1");
+        session.setAuthenticated(true);
+        session.setErrorId(-1);
+        session.setGraceLogins(3);
+        session.setExpirationSeconds(86400);
+        session.setMsg("password expires soon");
+        List<Warning> warnings = new ArrayList<>();
+        warnings.add(new Warning(2050, "role deactivated", Warning.Type.ROLE, "ROLE3"));
+        warnings.add(new Warning(0, null, null, null));
+        session.setWarnings(warnings);
+        return session;
+    }
+
+    @Test
+    public void test_user_session_round_trip() {
+        SessionCodec codec = new SessionCodec();
+        Session session = userSession();
+        assertSession(session, codec.decode(codec.encode(session)));
+    }
+
+    @Test
+    public void test_null_fields_round_trip() {
+        SessionCodec codec = new SessionCodec();
+        User user = new User();
+        UserRole role = new UserRole();
+        role.setName("ROLE1");
+        UserAdminRole adminRole = new UserAdminRole();
+        adminRole.setName("ADMIN1");
+        user.setRoles(new ArrayList<>(Collections.singleton(role)));
+        user.setAdminRoles(new ArrayList<>(Collections.singleton(adminRole)));
+        Session session = new Session(user, null);
+
+        Session decoded = codec.decode(codec.encode(session));
+        assertSession(session, decoded);
+        assertNull(decoded.getSessionId());
+        assertNull(decoded.getUserId());
+        assertNull(decoded.getUser().getOu());
+        assertNull(decoded.getRoles().get(0).getParents());
+        assertNull(decoded.getAdminRoles().get(0).getOsUSet());
+        assertNull(decoded.getWarnings());
+    }
+
+    @Test
+    public void test_group_session_round_trip() {
+        SessionCodec codec = new SessionCodec();
+        Group group = new Group("codecGroup");
+        group.setContextId("HOME");
+        UserRole role = new UserRole("codecGroup", "ROLE1", true);
+        role.setBeginDate("20260101");
+        group.setRoles(new ArrayList<>(Collections.singleton(role)));
+        Session session = new Session(group, "session-2");
+
+        Session decoded = codec.decode(codec.encode(session));
+        assertTrue(decoded.isGroupSession());
+        assertEquals("codecGroup", decoded.getGroupName());
+        assertEquals("HOME", decoded.getGroup().getContextId());
+        assertEquals("session-2", decoded.getSessionId());
+        assertRoles(session.getGroup().getRoles(), decoded.getGroup().getRoles());
+    }
+
+    @Test
+    public void test_full_symbol_table_writes_values_in_full() {
+        // room for null and two values, the rest are written in place:
+        SessionCodec codec = new SessionCodec(3);
+        List<byte[]> encoded = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Session session = userSession();
+            session.getUser().setOu("OU" + i);
+            encoded.add(codec.encode(session));
+        }
+        for (int i = 0; i < 5; i++) {
+            Session expected = userSession();
+            expected.getUser().setOu("OU" + i);
+            assertSession(expected, codec.decode(encoded.get(i)));
+        }
+    }
+
+    private static void assertSession(Session expected, Session actual) {
+        assertEquals(expected.getSessionId(), actual.getSessionId());
+        assertEquals(expected.isAuthenticated(), actual.isAuthenticated());
+        assertEquals(expected.isGroupSession(), actual.isGroupSession());
+        assertEquals(expected.getErrorId(), actual.getErrorId());
+        assertEquals(expected.getGraceLogins(), actual.getGraceLogins());
+        assertEquals(expected.getExpirationSeconds(), actual.getExpirationSeconds());
+        assertEquals(expected.getMsg(), actual.getMsg());
+        assertWarnings(expected.getWarnings(), actual.getWarnings());
+
+        User expectedUser = expected.getUser();
+        User actualUser = actual.getUser();
+        assertEquals(expectedUser.getUserId(), actualUser.getUserId());
+        assertEquals(expectedUser.getInternalId(), actualUser.getInternalId());
+        assertEquals(expectedUser.getOu(), actualUser.getOu());
+        assertEquals(expectedUser.getContextId(), actualUser.getContextId());
+        assertConstraint(expectedUser, actualUser);
+        assertRoles(expected.getRoles(), actual.getRoles());
+        assertRoles(expected.getAdminRoles(), actual.getAdminRoles());
+    }
+
+    private static void assertRoles(List<? extends UserRole> expected, List<? extends UserRole> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            UserRole expectedRole = expected.get(i);
+            UserRole actualRole = actual.get(i);
+            assertEquals(expectedRole.getClass(), actualRole.getClass());
+            assertEquals(expectedRole.getUserId(), actualRole.getUserId());
+            assertEquals(expectedRole.getName(), actualRole.getName());
+            assertEquals(expectedRole.getContextId(), actualRole.getContextId());
+            assertEquals(expectedRole.isGroupRole(), actualRole.isGroupRole());
+            assertEquals(expectedRole.getParents(), actualRole.getParents());
+            assertConstraint(expectedRole, actualRole);
+            assertEquals(expectedRole.getRoleConstraints().size(), actualRole.getRoleConstraints().size());
+            for (int j = 0; j < expectedRole.getRoleConstraints().size(); j++) {
+                RoleConstraint expectedRc = expectedRole.getRoleConstraints().get(j);
+                RoleConstraint actualRc = actualRole.getRoleConstraints().get(j);
+                assertEquals(expectedRc.getId(), actualRc.getId());
+                assertEquals(expectedRc.getType(), actualRc.getType());
+                assertEquals(expectedRc.getValue(), actualRc.getValue());
+                assertEquals(expectedRc.getPaSetName(), actualRc.getPaSetName());
+            }
+            if (expectedRole instanceof UserAdminRole) {
+                UserAdminRole expectedAdmin = (UserAdminRole) expectedRole;
+                UserAdminRole actualAdmin = (UserAdminRole) actualRole;
+                assertEquals(expectedAdmin.getOsUSet(), actualAdmin.getOsUSet());
+                assertEquals(expectedAdmin.getOsPSet(), actualAdmin.getOsPSet());
+                assertEquals(expectedAdmin.getBeginRange(), actualAdmin.getBeginRange());
+                assertEquals(expectedAdmin.getEndRange(), actualAdmin.getEndRange());
+                assertEquals(expectedAdmin.isBeginInclusive(), actualAdmin.isBeginInclusive());
+                assertEquals(expectedAdmin.isEndInclusive(), actualAdmin.isEndInclusive());
+            }
+        }
+    }
+
+    private static void assertConstraint(Constraint expected, Constraint actual) {
+        assertEquals(expected.getTimeout(), actual.getTimeout());
+        assertEquals(expected.getBeginTime(), actual.getBeginTime());
+        assertEquals(expected.getEndTime(), actual.getEndTime());
+        assertEquals(expected.getBeginDate(), actual.getBeginDate());
+        assertEquals(expected.getEndDate(), actual.getEndDate());
+        assertEquals(expected.getBeginLockDate(), actual.getBeginLockDate());
+        assertEquals(expected.getEndLockDate(), actual.getEndLockDate());
+        assertEquals(expected.getDayMask(), actual.getDayMask());
+    }
+
+    private static void assertWarnings(List<Warning> expected, List<Warning> actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getMsg(), actual.get(i).getMsg());
+            assertEquals(expected.get(i).getType(), actual.get(i).getType());
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+        }
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.time;
+
+import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.model.Constraint;
+import org.apache.directory.fortress.core.model.Role;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the validators, which compare {@link CompiledConstraint}s, against copies of the string comparisons they made
+ * before, and that the boundaries they return are the first minute at which those comparisons fail.  The clock is
+ * pinned with {@link TUtil#setClock(Clock)}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class CompiledConstraintTest {
+
+    private static final ZoneId[] ZONES = {ZoneOffset.UTC, ZoneId.of("Asia/Kolkata")};
+    // March 1, 2026 is a Sunday:
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 3, 1);
+    private static final int DAYS = 14;
+    private static final int[] MINUTES = {0, 1, 479, 480, 481, 1019, 1020, 1021, 1319, 1320, 1438, 1439};
+
+    private final ClockTime clockTime = new ClockTime();
+    private final Date date = new Date();
+    private final Day day = new Day();
+    private final LockDate lockDate = new LockDate();
+
+    @After
+    public void restoreClock() {
+        TUtil.setClock(null);
+    }
+
+    @Test
+    public void test_time_of_day_matches_baseline() throws Exception {
+        String[][] windows = {{null, null}, {GlobalIds.NONE, null}, {"0000", "0000"}, {"0800", "1700"},
+            {"0000", "2359"}, {"2200", "2359"}, {"0000", "0759"}, {"0801", "0801"}, {"1700", "0800"}};
+        List<Constraint> constraints = new ArrayList<>();
+        for (String[] window : windows) {
+            Role role = new Role("time");
+            role.setBeginTime(window[0]);
+            role.setEndTime(window[1]);
+            constraints.add(role);
+        }
+        for (ZoneId zone : ZONES) {
+            for (LocalDateTime now : instants()) {
+                Time time = pin(now, zone);
+                for (Constraint constraint : constraints) {
+                    assertEquals(describe(constraint, now), baselineTime(constraint, time),
+                        clockTime.validate(null, constraint, time, null));
+                    assertBoundary(clockTime, constraint, now, zone);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_date_range_matches_baseline() throws Exception {
+        String[] dates = {null, GlobalIds.NONE, "20260305", "20260310"};
+        List<Constraint> constraints = new ArrayList<>();
+        for (String begin : dates) {
+            for (String end : dates) {
+                Role role = new Role("date");
+                role.setBeginDate(begin);
+                role.setEndDate(end);
+                constraints.add(role);
+            }
+        }
+        for (ZoneId zone : ZONES) {
+            for (LocalDateTime now : instants()) {
+                Time time = pin(now, zone);
+                for (Constraint constraint : constraints) {
+                    assertEquals(describe(constraint, now), baselineDate(constraint, time),
+                        date.validate(null, constraint, time, null));
+                    assertBoundary(date, constraint, now, zone);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_day_of_week_matches_baseline() throws Exception {
+        String[] masks = {null, GlobalIds.ALL, "all", "1234567", "23456", "17", "1", "7", "246", ""};
+        List<Constraint> constraints = new ArrayList<>();
+        for (String mask : masks) {
+            Role role = new Role("day");
+            role.setDayMask(mask);
+            constraints.add(role);
+        }
+        for (ZoneId zone : ZONES) {
+            for (LocalDateTime now : instants()) {
+                Time time = pin(now, zone);
+                for (Constraint constraint : constraints) {
+                    assertEquals(describe(constraint, now), baselineDay(constraint, time),
+                        day.validate(null, constraint, time, null));
+                    assertBoundary(day, constraint, now, zone);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_lock_date_matches_baseline() throws Exception {
+        String[] dates = {null, GlobalIds.NONE, "20260305", "20260310"};
+        List<Constraint> constraints = new ArrayList<>();
+        for (String begin : dates) {
+            for (String end : dates) {
+                Role role = new Role("lock");
+                role.setBeginLockDate(begin);
+                role.setEndLockDate(end);
+                constraints.add(role);
+            }
+        }
+        for (ZoneId zone : ZONES) {
+            for (LocalDateTime now : instants()) {
+                Time time = pin(now, zone);
+                for (Constraint constraint : constraints) {
+                    assertEquals(describe(constraint, now), baselineLock(constraint, time),
+                        lockDate.validate(null, constraint, time, null));
+                    assertBoundary(lockDate, constraint, now, zone);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_current_time_matches_calendar() {
+        for (ZoneId zone : ZONES) {
+            for (LocalDateTime now : instants()) {
+                Time time = pin(now, zone);
+                GregorianCalendar calendar = GregorianCalendar.from(now.atZone(zone));
+                assertEquals(String.valueOf(calendar.get(GregorianCalendar.DAY_OF_WEEK)), time.day);
+                assertEquals(String.format("%04d%02d%02d", now.getYear(), now.getMonthValue(), now.getDayOfMonth()),
+                    time.date);
+                assertEquals(now.getHour() * 100 + now.getMinute(), time.currentTime.intValue());
+            }
+        }
+    }
+
+    @Test
+    public void test_window_to_midnight_closes_at_midnight() {
+        Role role = new Role("time");
+        role.setBeginTime("2200");
+        role.setEndTime("2359");
+        LocalDateTime lastMinute = LocalDateTime.of(2026, 3, 4, 23, 59);
+
+        Time time = pin(lastMinute, ZoneOffset.UTC);
+        assertEquals(0, clockTime.validate(null, role, time, null));
+        long midnight = lastMinute.plusMinutes(1).toInstant(ZoneOffset.UTC).toEpochMilli();
+        assertEquals(midnight, clockTime.getNextBoundary(null, role, time));
+
+        time = pin(lastMinute.plusMinutes(1), ZoneOffset.UTC);
+        assertEquals(GlobalErrIds.ACTV_FAILED_TIME, clockTime.validate(null, role, time, null));
+    }
+
+    @Test
+    public void test_whole_day_window_never_closes() {
+        Role role = new Role("time");
+        role.setBeginTime("0000");
+        role.setEndTime("2359");
+        Time time = pin(LocalDateTime.of(2026, 3, 4, 23, 59), ZoneOffset.UTC);
+        assertEquals(Long.MAX_VALUE, clockTime.getNextBoundary(null, role, time));
+    }
+
+    @Test
+    public void test_end_date_includes_its_last_minute() {
+        Role role = new Role("date");
+        role.setBeginDate("20260305");
+        role.setEndDate("20260310");
+        LocalDateTime lastMinute = LocalDateTime.of(2026, 3, 10, 23, 59);
+
+        Time time = pin(lastMinute, ZoneOffset.UTC);
+        assertEquals(0, date.validate(null, role, time, null));
+        assertEquals(lastMinute.plusMinutes(1).toInstant(ZoneOffset.UTC).toEpochMilli(),
+            date.getNextBoundary(null, role, time));
+
+        time = pin(lastMinute.plusMinutes(1), ZoneOffset.UTC);
+        assertEquals(GlobalErrIds.ACTV_FAILED_DATE, date.validate(null, role, time, null));
+    }
+
+    @Test
+    public void test_lock_starts_at_midnight_of_begin_lock_date() {
+        Role role = new Role("lock");
+        role.setBeginLockDate("20260305");
+        role.setEndLockDate("20260310");
+        LocalDateTime lastMinute = LocalDateTime.of(2026, 3, 4, 23, 59);
+        ZoneId zone = ZoneId.of("Asia/Kolkata");
+
+        Time time = pin(lastMinute, zone);
+        assertEquals(0, lockDate.validate(null, role, time, null));
+        assertEquals(lastMinute.plusMinutes(1).atZone(zone).toInstant().toEpochMilli(),
+            lockDate.getNextBoundary(null, role, time));
+
+        time = pin(lastMinute.plusMinutes(1), zone);
+        assertEquals(GlobalErrIds.ACTV_FAILED_LOCK, lockDate.validate(null, role, time, null));
+
+        // the lock is lifted the day after its end date, which is not a boundary:
+        time = pin(LocalDateTime.of(2026, 3, 11, 0, 0), zone);
+        assertEquals(0, lockDate.validate(null, role, time, null));
+        assertEquals(Long.MAX_VALUE, lockDate.getNextBoundary(null, role, time));
+    }
+
+    @Test
+    public void test_compiled_constraint_ignores_later_changes() {
+        Role role = new Role("time");
+        role.setBeginTime("0800");
+        role.setEndTime("1700");
+        CompiledConstraint compiled = CompiledConstraint.compile(role);
+        role.setBeginTime(GlobalIds.NONE);
+
+        Time time = pin(LocalDateTime.of(2026, 3, 4, 7, 0), ZoneOffset.UTC);
+        assertFalse(compiled.isTimeAllowed(time));
+        assertTrue(CompiledConstraint.of(role).isTimeAllowed(time));
+    }
+
+    /**
+     * If the check passes now, the boundary it returns is the first minute at which the baseline comparison fails.
+     */
+    private void assertBoundary(BoundaryValidator validator, Constraint constraint, LocalDateTime now, ZoneId zone)
+        throws Exception {
+        Time time = pin(now, zone);
+        if (validator.validate(null, constraint, time, null) != 0) {
+            assertEquals(describe(constraint, now), time.millis, validator.getNextBoundary(null, constraint, time));
+            return;
+        }
+        long boundary = validator.getNextBoundary(null, constraint, time);
+        if (boundary == Long.MAX_VALUE) {
+            // never fails, check the next week:
+            for (int i = 1; i <= 7; i++) {
+                assertEquals(describe(constraint, now), 0, baseline(validator, constraint, pin(now.plusDays(i), zone)));
+            }
+            return;
+        }
+        assertTrue(describe(constraint, now), boundary > time.millis);
+        Time before = pin(LocalDateTime.ofInstant(Instant.ofEpochMilli(boundary - 60000), zone), zone);
+        assertEquals(describe(constraint, now), 0, baseline(validator, constraint, before));
+        Time after = pin(LocalDateTime.ofInstant(Instant.ofEpochMilli(boundary), zone), zone);
+        assertNotEquals(describe(constraint, now), 0, baseline(validator, constraint, after));
+    }
+
+    private int baseline(Validator validator, Constraint constraint, Time time) {
+        if (validator instanceof ClockTime) {
+            return baselineTime(constraint, time);
+        } else if (validator instanceof Date) {
+            return baselineDate(constraint, time);
+        } else if (validator instanceof Day) {
+            return baselineDay(constraint, time);
+        }
+        return baselineLock(constraint, time);
+    }
+
+    /**
+     * {@link ClockTime} before constraints were compiled.
+     */
+    private static int baselineTime(Constraint constraint, Time time) {
+        if (constraint.getBeginTime() == null || constraint.getBeginTime().compareToIgnoreCase(GlobalIds.NONE) == 0) {
+            return 0;
+        }
+        Integer beginTime = Integer.valueOf(constraint.getBeginTime());
+        Integer endTime = Integer.valueOf(constraint.getEndTime());
+        if (beginTime == 0 && endTime == 0) {
+            return 0;
+        }
+        if (beginTime.compareTo(time.currentTime) <= 0 && endTime.compareTo(time.currentTime) >= 0) {
+            return 0;
+        }
+        return GlobalErrIds.ACTV_FAILED_TIME;
+    }
+
+    /**
+     * {@link Date} before constraints were compiled.
+     */
+    private static int baselineDate(Constraint constraint, Time time) {
+        boolean noBegin = constraint.getBeginDate() == null
+            || constraint.getBeginDate().compareToIgnoreCase(GlobalIds.NONE) == 0;
+        boolean noEnd = constraint.getEndDate() == null
+            || constraint.getEndDate().compareToIgnoreCase(GlobalIds.NONE) == 0;
+        if ((noBegin || constraint.getBeginDate().compareTo(time.date) <= 0)
+            && (noEnd || constraint.getEndDate().compareTo(time.date) >= 0)) {
+            return 0;
+        }
+        return GlobalErrIds.ACTV_FAILED_DATE;
+    }
+
+    /**
+     * {@link Day} before constraints were compiled.
+     */
+    private static int baselineDay(Constraint constraint, Time time) {
+        if (constraint.getDayMask() == null || constraint.getDayMask().compareToIgnoreCase(GlobalIds.ALL) == 0
+            || constraint.getDayMask().contains(time.day)) {
+            return 0;
+        }
+        return GlobalErrIds.ACTV_FAILED_DAY;
+    }
+
+    /**
+     * {@link LockDate} before constraints were compiled.
+     */
+    private static int baselineLock(Constraint constraint, Time time) {
+        if (constraint.getBeginLockDate() == null
+            || constraint.getBeginLockDate().compareToIgnoreCase(GlobalIds.NONE) == 0
+            || constraint.getEndLockDate() == null
+            || constraint.getEndLockDate().compareToIgnoreCase(GlobalIds.NONE) == 0) {
+            return 0;
+        }
+        if (!(constraint.getBeginLockDate().compareTo(time.date) <= 0
+            && constraint.getEndLockDate().compareTo(time.date) >= 0)) {
+            return 0;
+        }
+        return GlobalErrIds.ACTV_FAILED_LOCK;
+    }
+
+    private static List<LocalDateTime> instants() {
+        List<LocalDateTime> instants = new ArrayList<>();
+        for (int i = 0; i < DAYS; i++) {
+            for (int minute : MINUTES) {
+                instants.add(FIRST_DAY.plusDays(i).atStartOfDay().plusMinutes(minute));
+            }
+        }
+        return instants;
+    }
+
+    /**
+     * Pin the clock to the given local time and return the current time read from it.
+     */
+    private static Time pin(LocalDateTime now, ZoneId zone) {
+        TUtil.setClock(Clock.fixed(now.atZone(zone).toInstant(), zone));
+        return TUtil.getCurrentTime();
+    }
+
+    private static String describe(Constraint constraint, LocalDateTime now) {
+        return constraint.getName() + " at " + now + " " + TUtil.getClock().getZone() + ": time=" + constraint.getBeginTime()
+            + "-" + constraint.getEndTime() + " date=" + constraint.getBeginDate() + "-" + constraint.getEndDate()
+            + " lock=" + constraint.getBeginLockDate() + "-" + constraint.getEndLockDate()
+            + " days=" + constraint.getDayMask();
+    }
+}
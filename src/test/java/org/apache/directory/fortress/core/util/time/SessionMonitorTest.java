@@ -0,0 +1,329 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.time;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.SessionListener;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.server.annotations.CreateLdapServer;
+import org.apache.directory.server.annotations.CreateTransport;
+import org.apache.directory.server.core.annotations.ApplyLdifFiles;
+import org.apache.directory.server.core.annotations.CreateDS;
+import org.apache.directory.server.core.annotations.CreatePartition;
+import org.apache.directory.server.core.integ.AbstractLdapTestUnit;
+import org.apache.directory.server.core.integ.FrameworkRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+
+/**
+ * Drives the wheel of a {@link SessionMonitor} that has no thread of its own by calling advance with the clock pinned
+ * with {@link TUtil#setClock(Clock)}.  The sessions due are checked by {@link VUtil}, whose configuration is loaded from
+ * the directory.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@RunWith(FrameworkRunner.class)
+@CreateDS(name = "sessionMonitorDS", partitions =
+    { @CreatePartition(name = "example", suffix = "dc=example,dc=com") })
+@CreateLdapServer(
+    transports =
+        {
+            @CreateTransport(protocol = "LDAP", port = 10389)
+    })
+@ApplyLdifFiles(
+    { "fortress-schema.ldif", "init-ldap.ldif" })
+public class SessionMonitorTest extends AbstractLdapTestUnit
+{
+    private static final long TICK = 1000;
+    // 10:00 UTC, the roles below end on the minute so each boundary falls on a tick:
+    private static final Instant START = Instant.parse( "2026-03-04T10:00:00Z" );
+
+    private Recorder recorder;
+    private SessionMonitor monitor;
+
+
+    @Before
+    public void init()
+    {
+        Config.getInstance();
+        pin( 0 );
+        recorder = new Recorder();
+        monitor = new SessionMonitor( recorder, TICK, false );
+    }
+
+
+    @After
+    public void cleanup()
+    {
+        monitor.stop();
+        TUtil.setClock( null );
+    }
+
+
+    @Test
+    public void testExpiryOnTickBoundary()
+    {
+        // closes at 10:10, 600 ticks in:
+        Session session = session( role( "r1", "1009" ), role( "r2", "1019" ) );
+        monitor.add( session );
+
+        advanceTo( 599 );
+        pinMillis( 599999 );
+        monitor.advance();
+        assertTrue( recorder.events.isEmpty() );
+        assertEquals( 2, session.getRoles().size() );
+
+        advanceTo( 600 );
+        assertEquals( Collections.singletonList( "r1@600" ), recorder.events );
+        assertEquals( Collections.singletonList( "r2" ), names( session ) );
+    }
+
+
+    @Test
+    public void testWheelRollover()
+    {
+        // closes at 10:20, 1200 ticks in, which lands in the slot visited at ticks 176 and 688 first:
+        Session session = session( role( "r1", "1019" ) );
+        monitor.add( session );
+        // changed behind the monitor's back, so a check made when the slot is first visited would remove the role:
+        session.getRoles().get( 0 ).setEndTime( "1001" );
+
+        advanceTo( 1199 );
+        assertTrue( recorder.events.isEmpty() );
+        assertEquals( 1, session.getRoles().size() );
+
+        advanceTo( 1200 );
+        assertEquals( Collections.singletonList( "r1@1200" ), recorder.events );
+        assertTrue( session.getRoles().isEmpty() );
+    }
+
+
+    @Test
+    public void testPauseLongerThanWheel()
+    {
+        Session early = session( role( "r1", "1009" ) );
+        Session late = session( role( "r2", "1029" ) );
+        monitor.add( early );
+        monitor.add( late );
+
+        // the first advance after 1300 seconds visits each slot once:
+        pin( 1300 );
+        monitor.advance();
+        assertEquals( Collections.singletonList( "r1@1300" ), recorder.events );
+        assertEquals( 1, late.getRoles().size() );
+
+        advanceTo( 1800 );
+        assertEquals( 2, recorder.events.size() );
+        assertEquals( "r2@1800", recorder.events.get( 1 ) );
+    }
+
+
+    @Test
+    public void testReAddTrackedSession()
+    {
+        Session session = session( role( "r1", "1009" ) );
+        monitor.add( session );
+        // added again unchanged, it is still checked once:
+        monitor.add( session );
+
+        advanceTo( 300 );
+        List<UserRole> roles = new ArrayList<>();
+        roles.add( role( "r2", "1019" ) );
+        session.setRoles( roles );
+        monitor.add( session );
+
+        advanceTo( 1199 );
+        assertTrue( recorder.events.isEmpty() );
+        advanceTo( 1200 );
+        assertEquals( Collections.singletonList( "r2@1200" ), recorder.events );
+
+        advanceTo( 1800 );
+        assertEquals( 1, recorder.events.size() );
+    }
+
+
+    @Test
+    public void testRemovedSessionNotChecked()
+    {
+        Session session = session( role( "r1", "1009" ) );
+        monitor.add( session );
+        advanceTo( 300 );
+        monitor.remove( session );
+
+        advanceTo( 600 );
+        assertTrue( recorder.events.isEmpty() );
+        assertEquals( 1, session.getRoles().size() );
+        assertFalse( monitor.isCurrent( session, VUtil.ConstraintType.ROLE ) );
+    }
+
+
+    @Test
+    public void testRemoveRacingWithExpiry() throws Exception
+    {
+        final Session session = session( role( "r1", "1009" ) );
+        monitor.add( session );
+        advanceTo( 599 );
+
+        Thread ticker;
+        synchronized ( session )
+        {
+            pin( 600 );
+            ticker = new Thread( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    monitor.advance();
+                }
+            } );
+            ticker.start();
+            // the session is taken from the wheel, the check then waits for the session's lock:
+            while ( ticker.getState() != Thread.State.BLOCKED )
+            {
+                assertTrue( ticker.isAlive() );
+                Thread.sleep( 1 );
+            }
+            monitor.remove( session );
+        }
+        ticker.join( 10000 );
+        assertFalse( ticker.isAlive() );
+
+        assertTrue( recorder.events.isEmpty() );
+        assertEquals( 1, session.getRoles().size() );
+
+        // added back, it is scheduled anew and its role has already stopped holding:
+        monitor.add( session );
+        advanceTo( 601 );
+        assertEquals( Collections.singletonList( "r1@601" ), recorder.events );
+    }
+
+
+    private static Session session( UserRole... roles )
+    {
+        User user = new User( "monitorUser" );
+        // as loaded from the directory, which the timeout validator expects:
+        user.setTimeout( 0 );
+        Session session = new Session( user );
+        List<UserRole> list = new ArrayList<>();
+        Collections.addAll( list, roles );
+        session.setRoles( list );
+        return session;
+    }
+
+
+    /**
+     * A role that may be activated from midnight through the end of the given minute.
+     */
+    private static UserRole role( String name, String endTime )
+    {
+        UserRole role = new UserRole( "monitorUser", name );
+        role.setBeginTime( "0000" );
+        role.setEndTime( endTime );
+        role.setTimeout( 0 );
+        return role;
+    }
+
+
+    private static List<String> names( Session session )
+    {
+        List<String> names = new ArrayList<>();
+        for ( UserRole role : session.getRoles() )
+        {
+            names.add( role.getName() );
+        }
+        return names;
+    }
+
+
+    /**
+     * Advance the wheel one tick at a time from the current time to the given second.
+     */
+    private void advanceTo( long seconds )
+    {
+        for ( long second = seconds(); second <= seconds; second++ )
+        {
+            pin( second );
+            monitor.advance();
+        }
+    }
+
+
+    private static void pin( long seconds )
+    {
+        pinMillis( seconds * 1000 );
+    }
+
+
+    private static void pinMillis( long millis )
+    {
+        TUtil.setClock( Clock.fixed( START.plusMillis( millis ), ZoneOffset.UTC ) );
+    }
+
+
+    private static long seconds()
+    {
+        return ( TUtil.getClock().millis() - START.toEpochMilli() ) / 1000;
+    }
+
+
+    /**
+     * Records every role and session deactivated, as "name@seconds".
+     */
+    private static final class Recorder implements SessionListener
+    {
+        private final List<String> events = Collections.synchronizedList( new ArrayList<String>() );
+
+
+        @Override
+        public void rolesDeactivated( Session session, List<UserRole> roles )
+        {
+            for ( UserRole role : roles )
+            {
+                events.add( role.getName() + "@" + seconds() );
+            }
+        }
+
+
+        @Override
+        public void sessionDeactivated( Session session, SecurityException error )
+        {
+            events.add( session.getUserId() + "@" + seconds() );
+        }
+    }
+}